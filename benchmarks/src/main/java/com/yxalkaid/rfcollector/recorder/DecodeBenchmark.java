@@ -0,0 +1,82 @@
+package com.yxalkaid.rfcollector.recorder;
+
+import com.yxalkaid.rfcollector.domain.TagRecord;
+import com.yxalkaid.rfcollector.simulator.TagReportGenerator;
+import org.llrp.ltk.generated.parameters.TagReportData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 标签解码基准：TagReportData 到 TagRecord / SimpleTag
+ * <p>
+ * 得分为每秒解码的标签数，配合 -prof gc 的 gc.alloc.rate.norm 得到每个标签的分配字节数。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DecodeBenchmark {
+
+    /**
+     * 每次调用解码的标签数
+     */
+    static final int READS = 1024;
+
+    /**
+     * 不同标签数
+     */
+    @Param({"64", "512"})
+    int tagCount;
+
+    private BaseRecorder recorder;
+
+    private List<TagReportData> reads;
+
+    private TagRecord record;
+
+    @Setup
+    public void setup() {
+        recorder = new BaseRecorder();
+        record = new TagRecord();
+
+        TagReportGenerator generator = new TagReportGenerator(tagCount, new int[]{1, 2, 3, 4}, 42);
+        long timestamp = System.currentTimeMillis() * 1000;
+        reads = new ArrayList<>(READS);
+        for (int i = 0; i < READS; i++) {
+            reads.add(generator.nextTag(timestamp + i * 250L));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(READS)
+    public void buildTagRecord(Blackhole bh) {
+        for (int i = 0; i < READS; i++) {
+            bh.consume(recorder.buildTagRecord(reads.get(i), record));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(READS)
+    public void buildSimpleTag(Blackhole bh) {
+        for (int i = 0; i < READS; i++) {
+            bh.consume(recorder.buildSimpleTag(reads.get(i)));
+        }
+    }
+}
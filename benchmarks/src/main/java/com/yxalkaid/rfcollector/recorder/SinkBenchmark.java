@@ -0,0 +1,145 @@
+package com.yxalkaid.rfcollector.recorder;
+
+import com.yxalkaid.rfcollector.capture.RollingPolicy;
+import com.yxalkaid.rfcollector.pipeline.BackpressurePolicy;
+import com.yxalkaid.rfcollector.simulator.TagReportGenerator;
+import org.llrp.ltk.exceptions.InvalidLLRPMessageException;
+import org.llrp.ltk.generated.messages.RO_ACCESS_REPORT;
+import org.llrp.ltk.generated.parameters.TagReportData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 记录链路基准：processTagReports 解码并写入各个记录器
+ * <p>
+ * 得分为每秒处理的标签数。pipeline=true 时测量的是 I/O 线程的发布速率，
+ * BLOCK 策略下受消费者写入速度约束。
+ * <ul>
+ *     <li>rolling：按大小滚动的 CSV，不压缩</li>
+ *     <li>groupcommit：CSV 每50ms或每1MB成组刷盘</li>
+ *     <li>fanout：同时写入 CSV 与分段记录器，每个输出一个线程</li>
+ *     <li>raw：原始帧记录器，一次追加一帧包含全部标签的 RO_ACCESS_REPORT，不解码，不经过流水线</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SinkBenchmark {
+
+    /**
+     * 每个报告的标签数
+     */
+    static final int READS = 1024;
+
+    @Param({"csv", "columnar", "segment", "rolling", "groupcommit", "fanout", "raw"})
+    String sink;
+
+    @Param({"false", "true"})
+    boolean pipeline;
+
+    private Path outputDir;
+
+    private BaseRecorder recorder;
+
+    private List<TagReportData> report;
+
+    /**
+     * raw 时为编码后的上报帧
+     */
+    private byte[] frame;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, InvalidLLRPMessageException {
+        outputDir = Files.createTempDirectory("rf-collector-bench");
+        switch (sink) {
+            case "csv":
+                recorder = new CsvRecorder(outputDir.toString());
+                break;
+            case "columnar":
+                recorder = new ColumnarRecorder(outputDir.toString());
+                break;
+            case "segment":
+                recorder = new SegmentRecorder(outputDir.toString());
+                break;
+            case "rolling":
+                recorder = new CsvRecorder(outputDir.toString(), RollingPolicy.bySize(64L * 1024 * 1024), false);
+                break;
+            case "groupcommit":
+                CsvRecorder csv = new CsvRecorder(outputDir.toString());
+                csv.enableGroupCommit(50, 1024 * 1024);
+                recorder = csv;
+                break;
+            case "fanout":
+                FanOutRecorder fanOut = new FanOutRecorder();
+                fanOut.addSink("csv", new CsvRecorder(outputDir.resolve("csv").toString()),
+                        FanOutRecorder.DEFAULT_SINK_CAPACITY, BackpressurePolicy.BLOCK);
+                fanOut.addSink("segment", new SegmentRecorder(outputDir.resolve("segment").toString()),
+                        FanOutRecorder.DEFAULT_SINK_CAPACITY, BackpressurePolicy.BLOCK);
+                recorder = fanOut;
+                break;
+            case "raw":
+                recorder = new RawFrameRecorder(outputDir.toString());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown sink: " + sink);
+        }
+        // 原始帧不经过流水线
+        if (pipeline && !(recorder instanceof RawFrameRecorder)) {
+            recorder.enablePipeline(1 << 16, BackpressurePolicy.BLOCK, 1);
+        }
+
+        TagReportGenerator generator = new TagReportGenerator(256, new int[]{1, 2, 3, 4}, 42);
+        long timestamp = System.currentTimeMillis() * 1000;
+        report = new ArrayList<>(READS);
+        for (int i = 0; i < READS; i++) {
+            report.add(generator.nextTag(timestamp + i * 250L));
+        }
+        if (recorder instanceof RawFrameRecorder) {
+            RO_ACCESS_REPORT message = new RO_ACCESS_REPORT();
+            message.setTagReportDataList(report);
+            frame = message.encodeBinary();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        recorder.close();
+        try (Stream<Path> paths = Files.walk(outputDir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(READS)
+    public void processTagReports() throws IOException {
+        if (frame != null) {
+            ((RawFrameRecorder) recorder).recordFrame(frame, frame.length, System.currentTimeMillis() * 1000);
+        } else {
+            recorder.processTagReports(report);
+        }
+    }
+}
@@ -1,20 +1,36 @@
 package com.yxalkaid.rfcollector;
 
+import java.io.IOException;
 import java.net.URL;
 import java.nio.file.Path;
 
+import com.yxalkaid.rfcollector.capture.CsvLayout;
+import com.yxalkaid.rfcollector.capture.RollingPolicy;
 import com.yxalkaid.rfcollector.controller.CommandController;
+import com.yxalkaid.rfcollector.controller.ControlPlane;
+import com.yxalkaid.rfcollector.controller.TcpController;
+import com.yxalkaid.rfcollector.controller.UdpController;
+import com.yxalkaid.rfcollector.metrics.CollectorMetrics;
+import com.yxalkaid.rfcollector.metrics.MetricsHttpServer;
+import com.yxalkaid.rfcollector.pipeline.BackpressurePolicy;
+import com.yxalkaid.rfcollector.processing.PhaseUnwrapper;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.log4j.PropertyConfigurator;
 
+import com.yxalkaid.rfcollector.recorder.BaseRecorder;
 import com.yxalkaid.rfcollector.recorder.CsvRecorder;
+import com.yxalkaid.rfcollector.recorder.MultiReaderRecorder;
+import com.yxalkaid.rfcollector.recorder.Recorder;
 
 @Slf4j
 public class Main {
 
     public static void main(String[] args) {
 
-        String HOST = "Speedwayr-11-25-ab.local";
+        // 参数：[host] [port]，本机调试时可连接 ReaderSimulator
+        // 多个读写器以逗号分隔，可写为 host:port
+        String HOST = args.length > 0 ? args[0] : "Speedwayr-11-25-ab.local";
+        int PORT = args.length > 1 ? Integer.parseInt(args[1]) : BaseRecorder.DEFAULT_PORT;
         String RESOURCE_PATH = "./src/main/resources";
 
         try {
@@ -33,7 +49,72 @@ public class Main {
         PropertyConfigurator.configure(Path.of(RESOURCE_PATH, "log4j.xml").toString());
 
 
-        final CsvRecorder recorder = new CsvRecorder("./output");
+        final String[] hosts = HOST.split(",");
+        // 默认保持基础6列，多读写器时追加 reader 区分来源；
+        // -Drfcollector.derivedColumns=true 时再追加 phase_rad 与 host_time，并启用相应的处理阶段
+        boolean derivedColumns = Boolean.getBoolean("rfcollector.derivedColumns");
+        CsvLayout layout = CsvLayout.of((derivedColumns ? CsvLayout.PHASE_RAD | CsvLayout.HOST_TIME : 0)
+                | (hosts.length > 1 ? CsvLayout.READER : 0));
+        // 默认写入单个CSV文件；-Drfcollector.rolling=true 时每256MB或每小时切换分段，完成的分段在后台压缩
+        final CsvRecorder output = Boolean.getBoolean("rfcollector.rolling")
+                ? new CsvRecorder("./output", layout, new RollingPolicy(256L * 1024 * 1024, 0, 60 * 60 * 1000), true)
+                : new CsvRecorder("./output", layout);
+        // -Drfcollector.groupCommitMs=50 时每50ms或每1MB成组刷盘，崩溃时最多丢失约一个间隔的数据
+        long groupCommitMs = Long.getLong("rfcollector.groupCommitMs", 0);
+        if (groupCommitMs > 0) {
+            output.enableGroupCommit(groupCommitMs, 1024 * 1024);
+        }
+        // 指标通过 JMX 读取；-Drfcollector.metricsPort=9464 时另在 http://127.0.0.1:9464/metrics 提供
+        MetricsHttpServer metricsServer = null;
+        Integer metricsPort = Integer.getInteger("rfcollector.metricsPort");
+        if (metricsPort != null) {
+            try {
+                metricsServer = new MetricsHttpServer(metricsPort);
+                metricsServer.start();
+            } catch (IOException e) {
+                log.warn("Metrics endpoint unavailable: {}", e.getMessage());
+            }
+        }
+        // -Drfcollector.batchReports=32 时每32个标签上报一次，并每20ms取回不足一批的标签；
+        // 读写器会合并一批内同一标签的重复读取，默认关闭以保留每次读取
+        int batchReports = Integer.getInteger("rfcollector.batchReports", 0);
+        final MultiReaderRecorder multiRecorder;
+        final Recorder recorder;
+        if (hosts.length > 1) {
+            // 所有读写器写入同一条按时间归并的流水线
+            multiRecorder = new MultiReaderRecorder(output, 1 << 16, BackpressurePolicy.BLOCK, 500);
+            for (String host : hosts) {
+                String[] parts = host.trim().split(":");
+                int port = parts.length > 1 ? Integer.parseInt(parts[1]) : PORT;
+                BaseRecorder reader = multiRecorder.addReader(parts[0], port);
+                if (batchReports > 0) {
+                    reader.enableBatchedReporting(batchReports, 20);
+                }
+                if (derivedColumns) {
+                    reader.addProcessor(new PhaseUnwrapper());
+                    // 换算到主机时钟，归并按 host_time 排序
+                    reader.enableClockAlignment();
+                }
+                register(metricsServer, reader.enableMetrics(parts[0] + ":" + port));
+            }
+            register(metricsServer, output.enableMetrics("output"));
+            recorder = multiRecorder;
+        } else {
+            multiRecorder = null;
+            // 解码与写盘解耦，磁盘阻塞时由缓冲区吸收
+            output.enablePipeline(1 << 16, BackpressurePolicy.BLOCK, 1);
+            if (batchReports > 0) {
+                output.enableBatchedReporting(batchReports, 20);
+            }
+            if (derivedColumns) {
+                // 实时解缠绕相位，输出到 phase_rad 列
+                output.addProcessor(new PhaseUnwrapper());
+                // 在线估计读写器时钟偏差与漂移，输出到 host_time 列
+                output.enableClockAlignment();
+            }
+            register(metricsServer, output.enableMetrics(HOST + ":" + PORT));
+            recorder = output;
+        }
 
         /*
          * 特别注意
@@ -61,24 +142,48 @@ public class Main {
         }));
 
 
-        recorder.open(
-                HOST,
-                configPath,
-                roSpecPath
-        );
+        if (multiRecorder != null) {
+            multiRecorder.open(configPath, roSpecPath);
+        } else {
+            output.open(
+                    HOST,
+                    PORT,
+                    configPath,
+                    roSpecPath
+            );
+        }
+        // 控制器在虚拟线程上并发运行，共享同一个控制面
+        ControlPlane plane = new ControlPlane(recorder);
+        plane.launch("command", new CommandController(plane, 1000 * 20));
+        // 网络控制器没有认证，需以 -Drfcollector.control=udp,tcp 显式启用，且只监听本机回环地址
+        for (String controller : System.getProperty("rfcollector.control", "").split(",")) {
+            switch (controller.trim().toLowerCase()) {
+                case "udp":
+                    plane.launch("udp", new UdpController(plane, UdpController.DEFAULT_PORT));
+                    break;
+                case "tcp":
+                    plane.launch("tcp", new TcpController(plane, TcpController.DEFAULT_PORT));
+                    break;
+                case "":
+                    break;
+                default:
+                    log.warn("Unknown controller: {}", controller);
+            }
+        }
         try {
-
-            // 命令行控制
-            Runnable listener = new CommandController(recorder, 1000 * 20);
-
-            Thread listenerThread = new Thread(listener);
-            listenerThread.start();
-            listenerThread.join();
-            // listenerThread.interrupt();
+            // 等待 Q 或 CLOSE 命令
+            plane.awaitShutdown();
         } catch (InterruptedException e) {
             log.error("Sleep Interrupted");
         }
+        plane.close();
 
         System.exit(0);
     }
+
+    private static void register(MetricsHttpServer server, CollectorMetrics metrics) {
+        if (server != null) {
+            server.register(metrics);
+        }
+    }
 }
@@ -0,0 +1,293 @@
+package com.yxalkaid.rfcollector.capture;
+
+import com.csvreader.CsvReader;
+import com.yxalkaid.rfcollector.domain.TagRecord;
+import com.yxalkaid.rfcollector.pipeline.EventHandler;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CSV采集文件的旁路索引与查询
+ * <pre>
+ * 文件头:  int magic "RFIX" | short version
+ * 条目:    byte type
+ *   EPC:   int id | short length | ASCII EPC
+ *   块:    long startOffset | long endOffset | long minTime | long maxTime
+ *          int recordCount | int postingCount | int[postingCount] epcId（升序）
+ * </pre>
+ * 查询只读取时间范围重叠且倒排列表包含目标 EPC 的块，直接定位到块的字节范围解析，
+ * 最后一块之后未建索引的尾部（例如进程崩溃）总是被扫描。索引文件尾部不完整的条目被忽略。
+ */
+@Slf4j
+public class CaptureIndex {
+
+    /**
+     * 索引魔数 "RFIX"
+     */
+    public static final int MAGIC = 0x52464958;
+
+    public static final short VERSION = 1;
+
+    /**
+     * 索引文件扩展名
+     */
+    public static final String SUFFIX = ".idx";
+
+    static final int ENTRY_EPC = 1;
+
+    static final int ENTRY_CHUNK = 2;
+
+    private final Path dataFile;
+
+    private final Map<String, Integer> dictionary = new HashMap<>();
+
+    private final List<Chunk> chunks = new ArrayList<>();
+
+    /**
+     * 已建索引的数据结束位置
+     */
+    private long indexedEnd;
+
+    /**
+     * 采集文件的列布局，按表头解析
+     */
+    private final CsvLayout layout;
+
+    private CaptureIndex(Path dataFile) throws IOException {
+        this.dataFile = dataFile;
+        this.layout = CsvLayout.read(dataFile);
+    }
+
+    /**
+     * 加载数据文件的索引
+     *
+     * @param dataFile CSV采集文件
+     * @return
+     * @throws IOException 索引不存在或格式错误
+     */
+    public static CaptureIndex open(Path dataFile) throws IOException {
+        CaptureIndex index = new CaptureIndex(dataFile);
+        Path path = CaptureIndexWriter.indexPathOf(dataFile);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 64 * 1024))) {
+            if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+                throw new IOException("Not a capture index: " + path);
+            }
+            index.load(in);
+        }
+        return index;
+    }
+
+    private void load(DataInputStream in) throws IOException {
+        try {
+            while (true) {
+                int type = in.read();
+                if (type < 0) {
+                    break;
+                }
+                if (type == ENTRY_EPC) {
+                    int id = in.readInt();
+                    byte[] bytes = new byte[in.readUnsignedShort()];
+                    in.readFully(bytes);
+                    dictionary.put(new String(bytes, StandardCharsets.US_ASCII), id);
+                } else if (type == ENTRY_CHUNK) {
+                    Chunk chunk = new Chunk();
+                    chunk.startOffset = in.readLong();
+                    chunk.endOffset = in.readLong();
+                    chunk.minTime = in.readLong();
+                    chunk.maxTime = in.readLong();
+                    chunk.records = in.readInt();
+                    chunk.postings = new int[in.readInt()];
+                    for (int i = 0; i < chunk.postings.length; i++) {
+                        chunk.postings[i] = in.readInt();
+                    }
+                    chunks.add(chunk);
+                    indexedEnd = chunk.endOffset;
+                } else {
+                    throw new IOException("Unknown index entry type " + type);
+                }
+            }
+        } catch (EOFException e) {
+            log.warn("Index of {} is truncated, {} chunks loaded", dataFile, chunks.size());
+        }
+    }
+
+    /**
+     * 查询记录
+     *
+     * @param epc     EPC十六进制字符串，null 表示所有标签
+     * @param from    firstSeenTime 下界（微秒，含）
+     * @param to      firstSeenTime 上界（微秒，含）
+     * @param handler 匹配的记录，记录对象被复用
+     * @return 匹配的记录数
+     * @throws Exception
+     */
+    public long query(String epc, long from, long to, EventHandler<TagRecord> handler) throws Exception {
+        Integer id = epc == null ? null : dictionary.get(epc);
+        long matched = 0;
+        TagRecord tag = new TagRecord();
+        try (FileChannel channel = FileChannel.open(dataFile, StandardOpenOption.READ)) {
+            for (Chunk chunk : chunks) {
+                if (chunk.maxTime < from || chunk.minTime > to) {
+                    continue;
+                }
+                if (epc != null && (id == null || Arrays.binarySearch(chunk.postings, id) < 0)) {
+                    continue;
+                }
+                matched += scan(channel, chunk.startOffset, chunk.endOffset, epc, from, to, tag, handler);
+            }
+            long size = channel.size();
+            if (size > indexedEnd) {
+                long start = chunks.isEmpty() ? 0 : indexedEnd;
+                matched += scan(channel, start, size, epc, from, to, tag, handler);
+            }
+        }
+        return matched;
+    }
+
+    private long scan(FileChannel channel, long start, long end, String epc, long from, long to,
+                      TagRecord tag, EventHandler<TagRecord> handler) throws Exception {
+        channel.position(start);
+        InputStream in = new BoundedInputStream(Channels.newInputStream(channel), end - start);
+        CsvReader reader = new CsvReader(new InputStreamReader(new BufferedInputStream(in, 64 * 1024), CsvLayout.CHARSET), ',');
+        long matched = 0;
+        try {
+            while (reader.readRecord()) {
+                String[] line = reader.getValues();
+                if (line.length < 2 || CsvLayout.isHeader(line)) {
+                    continue;
+                }
+                if (epc != null && !(layout.epcColumn() < line.length && epc.equals(line[layout.epcColumn()]))) {
+                    continue;
+                }
+                layout.parseLine(line, tag);
+                if (!tag.has(TagRecord.HAS_FIRST_SEEN_TIME)) {
+                    continue;
+                }
+                long time = tag.getFirstSeenTime();
+                if (time < from || time > to) {
+                    continue;
+                }
+                handler.onEvent(tag);
+                matched++;
+            }
+        } finally {
+            // 不关闭底层通道
+            reader.close();
+        }
+        return matched;
+    }
+
+    public CsvLayout getLayout() {
+        return layout;
+    }
+
+    public int getChunkCount() {
+        return chunks.size();
+    }
+
+    public int getEpcCount() {
+        return dictionary.size();
+    }
+
+    /**
+     * 命令行入口：CaptureIndex &lt;file.csv&gt; &lt;epc|*&gt; &lt;fromMicros&gt; &lt;toMicros&gt;，匹配的行输出到标准输出
+     *
+     * @param args
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4) {
+            System.err.println("Usage: CaptureIndex <file.csv> <epc|*> <fromMicros> <toMicros>");
+            System.exit(1);
+        }
+        String epc = "*".equals(args[1]) ? null : args[1];
+        long begin = System.nanoTime();
+        CaptureIndex index = CaptureIndex.open(Path.of(args[0]));
+        CsvLayout layout = index.getLayout();
+        String[] line = new String[layout.size()];
+        System.out.println(layout);
+        long count = index.query(epc, Long.parseLong(args[2]), Long.parseLong(args[3]), tag -> {
+            layout.fillLine(tag, line);
+            System.out.println(String.join(",", line));
+        });
+        System.err.printf("%d records in %.1fms%n", count, (System.nanoTime() - begin) / 1e6);
+    }
+
+    /**
+     * 索引块
+     */
+    private static class Chunk {
+
+        long startOffset;
+
+        long endOffset;
+
+        long minTime;
+
+        long maxTime;
+
+        int records;
+
+        int[] postings;
+    }
+
+    /**
+     * 限制读取字节数，关闭时不关闭底层流
+     */
+    private static class BoundedInputStream extends InputStream {
+
+        private final InputStream in;
+
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long limit) {
+            this.in = in;
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = in.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = in.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0) {
+                remaining -= n;
+            }
+            return n;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
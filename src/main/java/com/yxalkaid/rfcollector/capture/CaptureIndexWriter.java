@@ -0,0 +1,202 @@
+package com.yxalkaid.rfcollector.capture;
+
+import com.yxalkaid.rfcollector.domain.TagRecord;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 采集文件的旁路索引写入
+ * <p>
+ * 记录按固定条数分块，每块一个索引条目：块在数据文件中的字节范围、firstSeenTime 的最小与最大值、
+ * 以及块内出现的 EPC 编号（倒排列表）。EPC 编号与字符串的对应关系以定义条目写在首次出现的块之前。
+ * 格式见 {@link CaptureIndex}。
+ * <p>
+ * 每条记录只做一次字典查找与数组写入，块结束时写出条目。只允许单线程调用。
+ */
+public class CaptureIndexWriter implements Closeable {
+
+    /**
+     * 默认每块记录数
+     */
+    public static final int DEFAULT_CHUNK_RECORDS = 4096;
+
+    private final DataOutputStream out;
+
+    private final int chunkRecords;
+
+    /**
+     * EPC字典
+     */
+    private final Map<String, Integer> dictionary = new HashMap<>();
+
+    /**
+     * 各EPC最近出现的块序号，用于块内去重
+     */
+    private int[] lastChunk = new int[256];
+
+    /**
+     * 当前块的EPC编号
+     */
+    private int[] postings = new int[256];
+
+    private int postingCount;
+
+    private int chunk;
+
+    private int records;
+
+    private long startOffset;
+
+    private long minTime;
+
+    private long maxTime;
+
+    /**
+     * 构造方法
+     *
+     * @param path         索引文件
+     * @param chunkRecords 每块记录数
+     * @throws IOException
+     */
+    public CaptureIndexWriter(Path path, int chunkRecords) throws IOException {
+        if (chunkRecords <= 0) {
+            throw new IllegalArgumentException("chunkRecords must be positive");
+        }
+        this.chunkRecords = chunkRecords;
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 64 * 1024));
+        this.out.writeInt(CaptureIndex.MAGIC);
+        this.out.writeShort(CaptureIndex.VERSION);
+        Arrays.fill(lastChunk, -1);
+        resetChunk();
+    }
+
+    /**
+     * 索引文件路径：数据文件名加 .idx
+     *
+     * @param dataFile
+     * @return
+     */
+    public static Path indexPathOf(Path dataFile) {
+        return dataFile.resolveSibling(dataFile.getFileName() + CaptureIndex.SUFFIX);
+    }
+
+    /**
+     * 第一块的起始偏移，即数据文件头之后的位置
+     *
+     * @param offset
+     */
+    public void begin(long offset) {
+        this.startOffset = offset;
+    }
+
+    /**
+     * 登记一条已写入的记录
+     *
+     * @param tag
+     * @return 当前块是否已满，满时调用方应刷新数据文件后调用 {@link #endChunk(long)}
+     * @throws IOException
+     */
+    public boolean add(TagRecord tag) throws IOException {
+        records++;
+        if (tag.has(TagRecord.HAS_FIRST_SEEN_TIME)) {
+            long time = tag.getFirstSeenTime();
+            if (time < minTime) {
+                minTime = time;
+            }
+            if (time > maxTime) {
+                maxTime = time;
+            }
+        }
+        if (tag.has(TagRecord.HAS_EPC)) {
+            String epc = tag.getEpc() != null ? tag.getEpc() : TagRecord.encodeHex(tag.getEpcBytes(), tag.getEpcLength());
+            Integer id = dictionary.get(epc);
+            if (id == null) {
+                id = define(epc);
+            }
+            if (lastChunk[id] != chunk) {
+                lastChunk[id] = chunk;
+                if (postingCount == postings.length) {
+                    postings = Arrays.copyOf(postings, postingCount << 1);
+                }
+                postings[postingCount++] = id;
+            }
+        }
+        return records >= chunkRecords;
+    }
+
+    /**
+     * 结束当前块
+     *
+     * @param endOffset 数据文件中当前块的结束位置（已刷新）
+     * @throws IOException
+     */
+    public void endChunk(long endOffset) throws IOException {
+        if (records == 0) {
+            startOffset = endOffset;
+            return;
+        }
+        Arrays.sort(postings, 0, postingCount);
+        out.writeByte(CaptureIndex.ENTRY_CHUNK);
+        out.writeLong(startOffset);
+        out.writeLong(endOffset);
+        out.writeLong(minTime);
+        out.writeLong(maxTime);
+        out.writeInt(records);
+        out.writeInt(postingCount);
+        for (int i = 0; i < postingCount; i++) {
+            out.writeInt(postings[i]);
+        }
+        out.flush();
+        chunk++;
+        startOffset = endOffset;
+        resetChunk();
+    }
+
+    /**
+     * 结束最后一块并关闭
+     *
+     * @param endOffset 数据文件的结束位置
+     * @throws IOException
+     */
+    public void close(long endOffset) throws IOException {
+        endChunk(endOffset);
+        close();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private int define(String epc) throws IOException {
+        int id = dictionary.size();
+        dictionary.put(epc, id);
+        if (id == lastChunk.length) {
+            int old = lastChunk.length;
+            lastChunk = Arrays.copyOf(lastChunk, old << 1);
+            Arrays.fill(lastChunk, old, lastChunk.length, -1);
+        }
+        byte[] bytes = epc.getBytes(StandardCharsets.US_ASCII);
+        out.writeByte(CaptureIndex.ENTRY_EPC);
+        out.writeInt(id);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+        return id;
+    }
+
+    private void resetChunk() {
+        records = 0;
+        postingCount = 0;
+        minTime = Long.MAX_VALUE;
+        maxTime = Long.MIN_VALUE;
+    }
+}
@@ -0,0 +1,85 @@
+package com.yxalkaid.rfcollector.capture;
+
+import com.csvreader.CsvWriter;
+import com.yxalkaid.rfcollector.domain.TagRecord;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * 列式采集文件转换为CSV，布局与 CsvRecorder 输出一致，默认只输出基础列
+ */
+@Slf4j
+public final class ColumnarCsvConverter {
+
+    private ColumnarCsvConverter() {
+    }
+
+    /**
+     * 转换文件
+     *
+     * @param source 列式采集文件
+     * @param target CSV文件
+     * @return 转换的记录数
+     * @throws IOException
+     */
+    public static long convert(Path source, Path target) throws IOException {
+        return convert(source, target, CsvLayout.BASELINE);
+    }
+
+    /**
+     * 转换文件
+     *
+     * @param source 列式采集文件
+     * @param target CSV文件
+     * @param layout 输出布局
+     * @return 转换的记录数
+     * @throws IOException
+     */
+    public static long convert(Path source, Path target, CsvLayout layout) throws IOException {
+        long count = 0;
+        CsvWriter csvWriter = new CsvWriter(target.toString(), ',', CsvLayout.CHARSET);
+        try (ColumnarReader reader = ColumnarReader.open(source)) {
+            csvWriter.writeRecord(layout.getHeader());
+
+            TagRecord tag = new TagRecord();
+            String[] line = new String[layout.size()];
+            while (reader.next(tag)) {
+                layout.fillLine(tag, line);
+                csvWriter.writeRecord(line);
+                count++;
+            }
+        } finally {
+            csvWriter.close();
+        }
+        return count;
+    }
+
+    /**
+     * 命令行入口：ColumnarCsvConverter &lt;source.rfc&gt; [target.csv]
+     *
+     * @param args
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: ColumnarCsvConverter <source" + ColumnarFormat.FILE_SUFFIX + "> [target.csv]");
+            System.exit(1);
+        }
+        Path source = Path.of(args[0]);
+        Path target;
+        if (args.length > 1) {
+            target = Path.of(args[1]);
+        } else {
+            String name = source.getFileName().toString();
+            if (name.endsWith(ColumnarFormat.FILE_SUFFIX)) {
+                name = name.substring(0, name.length() - ColumnarFormat.FILE_SUFFIX.length());
+            }
+            target = source.resolveSibling(name + ".csv");
+        }
+
+        long count = convert(source, target);
+        log.info("Converted {} records to {}", count, target.toAbsolutePath());
+    }
+}
@@ -0,0 +1,106 @@
+package com.yxalkaid.rfcollector.capture;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 列式采集文件格式
+ * <pre>
+ * 文件头:  int magic "RFCC" | short version | short reserved
+ * 数据块:  int chunkBytes（不含本字段）
+ *          int magic "CHNK" | int recordCount
+ *          int dictEntries | dictEntries * (short length | UTF-8 EPC)
+ *          long baseTime
+ *          int bytes | recordCount * varint（firstSeenTime 相邻差值，zigzag）
+ *          int bytes | recordCount * varint（lastSeenTime - firstSeenTime，zigzag）
+ *          short[recordCount] presence
+ *          int[recordCount]   epcId（-1 表示无EPC）
+ *          short[recordCount] antennaId
+ *          short[recordCount] channelIndex
+ *          short[recordCount] phaseRaw
+ *          short[recordCount] peakRssiRaw
+ *          short[recordCount] dopplerFrequencyRaw
+ *          short[recordCount] tagSeenCount
+ *          [short[recordCount] readerId]
+ * </pre>
+ * readerId 列仅在块内有记录带读写器编号时写入，读取方根据块长度判断是否存在。
+ * EPC字典在整个文件内递增，每个数据块只携带本块新增的条目。
+ * 所有多字节数值均为大端序。
+ */
+public final class ColumnarFormat {
+
+    /**
+     * 文件魔数 "RFCC"
+     */
+    public static final int FILE_MAGIC = 0x52464343;
+
+    /**
+     * 数据块魔数 "CHNK"
+     */
+    public static final int CHUNK_MAGIC = 0x43484E4B;
+
+    /**
+     * 格式版本
+     */
+    public static final short VERSION = 1;
+
+    /**
+     * 文件头字节数
+     */
+    public static final int FILE_HEADER_BYTES = 8;
+
+    /**
+     * 文件扩展名
+     */
+    public static final String FILE_SUFFIX = ".rfc";
+
+    /**
+     * 默认每块记录数
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 4096;
+
+    /**
+     * 每条记录定长列字节数
+     */
+    public static final int FIXED_COLUMN_BYTES = 2 + 4 + 2 * 7;
+
+    /**
+     * 单个varint最大字节数
+     */
+    public static final int MAX_VARINT_BYTES = 10;
+
+    private ColumnarFormat() {
+    }
+
+    /**
+     * 写入zigzag编码的varint
+     *
+     * @param buffer
+     * @param value
+     */
+    public static void putVarLong(ByteBuffer buffer, long value) {
+        long v = (value << 1) ^ (value >> 63);
+        while ((v & ~0x7FL) != 0) {
+            buffer.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        buffer.put((byte) v);
+    }
+
+    /**
+     * 读取zigzag编码的varint
+     *
+     * @param buffer
+     * @return
+     */
+    public static long getVarLong(ByteBuffer buffer) {
+        long v = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            v |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (v >>> 1) ^ -(v & 1);
+    }
+}
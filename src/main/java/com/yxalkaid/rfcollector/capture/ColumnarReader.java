@@ -0,0 +1,323 @@
+package com.yxalkaid.rfcollector.capture;
+
+import com.yxalkaid.rfcollector.domain.TagRecord;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 列式采集文件读取器，非线程安全
+ * <p>
+ * 用法：
+ * <pre>
+ * try (ColumnarReader reader = ColumnarReader.open(path)) {
+ *     TagRecord tag = new TagRecord();
+ *     while (reader.next(tag)) {
+ *         ...
+ *     }
+ * }
+ * </pre>
+ */
+public class ColumnarReader implements Closeable {
+
+    /**
+     * 输入通道
+     */
+    private final ReadableByteChannel channel;
+
+    /**
+     * EPC字典，十六进制字符串
+     */
+    private final List<String> dictionary = new ArrayList<>();
+
+    /**
+     * EPC字典，解码后的字节
+     */
+    private final List<byte[]> dictionaryBytes = new ArrayList<>();
+
+    private final ByteBuffer lengthBuffer = ByteBuffer.allocate(4);
+
+    private ByteBuffer chunk = ByteBuffer.allocate(0);
+
+    private short[] presence = new short[0];
+    private int[] epcIds = new int[0];
+    private long[] firstSeenTimes = new long[0];
+    private long[] lastSeenTimes = new long[0];
+    private short[] antennaIds = new short[0];
+    private short[] channelIndexes = new short[0];
+    private short[] phases = new short[0];
+    private short[] rssis = new short[0];
+    private short[] dopplers = new short[0];
+    private short[] seenCounts = new short[0];
+    private short[] readerIds = new short[0];
+
+    /**
+     * 当前块记录数
+     */
+    private int count;
+
+    /**
+     * 当前块读取位置
+     */
+    private int cursor;
+
+    /**
+     * 已读取的块数
+     */
+    private long chunkCount;
+
+    /**
+     * 打开文件
+     *
+     * @param path
+     * @return
+     * @throws IOException
+     */
+    public static ColumnarReader open(Path path) throws IOException {
+        return new ColumnarReader(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    /**
+     * 构造方法，立即校验文件头
+     *
+     * @param channel
+     * @throws IOException
+     */
+    public ColumnarReader(ReadableByteChannel channel) throws IOException {
+        this.channel = channel;
+
+        ByteBuffer header = ByteBuffer.allocate(ColumnarFormat.FILE_HEADER_BYTES);
+        if (!readFully(header)) {
+            throw new EOFException("Missing file header");
+        }
+        header.flip();
+        if (header.getInt() != ColumnarFormat.FILE_MAGIC) {
+            throw new IOException("Not a columnar capture file");
+        }
+        short version = header.getShort();
+        if (version != ColumnarFormat.VERSION) {
+            throw new IOException("Unsupported columnar format version: " + version);
+        }
+    }
+
+    /**
+     * 读取下一条记录
+     *
+     * @param tag 被填充的记录
+     * @return 是否读取到记录
+     * @throws IOException
+     */
+    public boolean next(TagRecord tag) throws IOException {
+        while (cursor == count) {
+            if (!readChunk()) {
+                return false;
+            }
+        }
+
+        int i = cursor++;
+        tag.clear();
+        int flags = presence[i] & 0xFFFF;
+        int epcId = epcIds[i];
+        if (epcId >= 0) {
+            byte[] bytes = dictionaryBytes.get(epcId);
+            tag.setEpc(bytes, 0, bytes.length, dictionary.get(epcId));
+        }
+        if ((flags & TagRecord.HAS_ANTENNA_ID) != 0) {
+            tag.setAntennaId(antennaIds[i]);
+        }
+        if ((flags & TagRecord.HAS_CHANNEL_INDEX) != 0) {
+            tag.setChannelIndex(channelIndexes[i] & 0xFFFF);
+        }
+        if ((flags & TagRecord.HAS_FIRST_SEEN_TIME) != 0) {
+            tag.setFirstSeenTime(firstSeenTimes[i]);
+        }
+        if ((flags & TagRecord.HAS_LAST_SEEN_TIME) != 0) {
+            tag.setLastSeenTime(lastSeenTimes[i]);
+        }
+        if ((flags & TagRecord.HAS_TAG_SEEN_COUNT) != 0) {
+            tag.setTagSeenCount(seenCounts[i]);
+        }
+        if ((flags & TagRecord.HAS_PEAK_RSSI) != 0) {
+            tag.setPeakRssiRaw(rssis[i]);
+        }
+        if ((flags & TagRecord.HAS_DOPPLER_FREQUENCY) != 0) {
+            tag.setDopplerFrequencyRaw(dopplers[i]);
+        }
+        if ((flags & TagRecord.HAS_PHASE) != 0) {
+            tag.setPhaseRaw(phases[i]);
+        }
+        if ((flags & TagRecord.IS_GAP) != 0) {
+            tag.markGap(firstSeenTimes[i], lastSeenTimes[i]);
+        }
+        if ((flags & TagRecord.HAS_READER_ID) != 0) {
+            tag.setReaderId(readerIds[i]);
+        }
+        return true;
+    }
+
+    /**
+     * 读取并解码下一个数据块
+     *
+     * @return 是否读取到数据块
+     * @throws IOException
+     */
+    private boolean readChunk() throws IOException {
+        lengthBuffer.clear();
+        if (!readFully(lengthBuffer)) {
+            return false;
+        }
+        lengthBuffer.flip();
+        int chunkBytes = lengthBuffer.getInt();
+        if (chunkBytes <= 0) {
+            // 文件尾部的零填充区域
+            return false;
+        }
+
+        if (chunk.capacity() < chunkBytes) {
+            chunk = ByteBuffer.allocate(chunkBytes);
+        }
+        chunk.clear().limit(chunkBytes);
+        if (!readFully(chunk)) {
+            throw new EOFException("Truncated chunk");
+        }
+        chunk.flip();
+        decodeChunk(chunk);
+        chunkCount++;
+        return true;
+    }
+
+    /**
+     * 解码数据块（不含长度前缀）
+     *
+     * @param buf
+     * @throws IOException
+     */
+    void decodeChunk(ByteBuffer buf) throws IOException {
+        if (buf.getInt() != ColumnarFormat.CHUNK_MAGIC) {
+            throw new IOException("Corrupted chunk header");
+        }
+        int n = buf.getInt();
+        ensureCapacity(n);
+
+        int entries = buf.getInt();
+        for (int e = 0; e < entries; e++) {
+            int length = buf.getShort() & 0xFFFF;
+            byte[] text = new byte[length];
+            buf.get(text);
+            String epc = new String(text, StandardCharsets.UTF_8);
+            byte[] bytes = new byte[Math.min((length + 1) >> 1, TagRecord.MAX_EPC_BYTES)];
+            TagRecord.decodeHex(epc, bytes);
+            dictionary.add(epc);
+            dictionaryBytes.add(bytes);
+        }
+
+        long prev = buf.getLong();
+        buf.getInt();
+        for (int i = 0; i < n; i++) {
+            prev += ColumnarFormat.getVarLong(buf);
+            firstSeenTimes[i] = prev;
+        }
+        buf.getInt();
+        for (int i = 0; i < n; i++) {
+            lastSeenTimes[i] = firstSeenTimes[i] + ColumnarFormat.getVarLong(buf);
+        }
+
+        for (int i = 0; i < n; i++) {
+            presence[i] = buf.getShort();
+        }
+        for (int i = 0; i < n; i++) {
+            epcIds[i] = buf.getInt();
+        }
+        getShorts(buf, antennaIds, n);
+        getShorts(buf, channelIndexes, n);
+        getShorts(buf, phases, n);
+        getShorts(buf, rssis, n);
+        getShorts(buf, dopplers, n);
+        getShorts(buf, seenCounts, n);
+        if (buf.remaining() >= 2 * n) {
+            getShorts(buf, readerIds, n);
+        }
+
+        count = n;
+        cursor = 0;
+    }
+
+    /**
+     * 跳过当前块剩余记录
+     */
+    public void skipChunk() {
+        cursor = count;
+    }
+
+    public long getChunkCount() {
+        return chunkCount;
+    }
+
+    /**
+     * 已登记的EPC字典
+     *
+     * @return
+     */
+    public List<String> getDictionary() {
+        return dictionary;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void ensureCapacity(int n) {
+        if (presence.length >= n) {
+            return;
+        }
+        presence = new short[n];
+        epcIds = new int[n];
+        firstSeenTimes = new long[n];
+        lastSeenTimes = new long[n];
+        antennaIds = new short[n];
+        channelIndexes = new short[n];
+        phases = new short[n];
+        rssis = new short[n];
+        dopplers = new short[n];
+        seenCounts = new short[n];
+        readerIds = new short[n];
+    }
+
+    private static void getShorts(ByteBuffer buf, short[] column, int n) {
+        for (int i = 0; i < n; i++) {
+            column[i] = buf.getShort();
+        }
+    }
+
+    /**
+     * 读满缓冲区
+     *
+     * @param buf
+     * @return 在读到任何字节之前到达文件末尾时返回false
+     * @throws IOException
+     */
+    private boolean readFully(ByteBuffer buf) throws IOException {
+        boolean any = false;
+        while (buf.hasRemaining()) {
+            int n = channel.read(buf);
+            if (n < 0) {
+                if (any) {
+                    throw new EOFException("Unexpected end of file");
+                }
+                return false;
+            }
+            any |= n > 0;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,270 @@
+package com.yxalkaid.rfcollector.capture;
+
+import com.yxalkaid.rfcollector.domain.TagRecord;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 列式采集文件写入器，非线程安全
+ */
+public class ColumnarWriter implements Closeable {
+
+    /**
+     * 输出通道
+     */
+    private final WritableByteChannel channel;
+
+    /**
+     * 每块记录数
+     */
+    private final int chunkSize;
+
+    /**
+     * EPC字典
+     */
+    private final Map<String, Integer> dictionary = new HashMap<>();
+
+    /**
+     * 本块新增的字典条目
+     */
+    private final List<byte[]> pendingEntries = new ArrayList<>();
+
+    private int pendingEntryBytes;
+
+    private final short[] presence;
+    private final int[] epcIds;
+    private final long[] firstSeenTimes;
+    private final long[] lastSeenTimes;
+    private final short[] antennaIds;
+    private final short[] channelIndexes;
+    private final short[] phases;
+    private final short[] rssis;
+    private final short[] dopplers;
+    private final short[] seenCounts;
+    private final short[] readerIds;
+
+    /**
+     * 本块是否有记录带读写器编号
+     */
+    private boolean hasReaderIds;
+
+    /**
+     * 本块已缓存记录数
+     */
+    private int count;
+
+    /**
+     * 编码缓冲区
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * 已写入记录数
+     */
+    private long recordCount;
+
+    /**
+     * 已写入字节数
+     */
+    private long byteCount;
+
+    public ColumnarWriter(WritableByteChannel channel) throws IOException {
+        this(channel, ColumnarFormat.DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * 构造方法，立即写入文件头
+     *
+     * @param channel   输出通道
+     * @param chunkSize 每块记录数
+     * @throws IOException
+     */
+    public ColumnarWriter(WritableByteChannel channel, int chunkSize) throws IOException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        this.channel = channel;
+        this.chunkSize = chunkSize;
+        this.presence = new short[chunkSize];
+        this.epcIds = new int[chunkSize];
+        this.firstSeenTimes = new long[chunkSize];
+        this.lastSeenTimes = new long[chunkSize];
+        this.antennaIds = new short[chunkSize];
+        this.channelIndexes = new short[chunkSize];
+        this.phases = new short[chunkSize];
+        this.rssis = new short[chunkSize];
+        this.dopplers = new short[chunkSize];
+        this.seenCounts = new short[chunkSize];
+        this.readerIds = new short[chunkSize];
+        this.buffer = ByteBuffer.allocate(
+                32 + chunkSize * (ColumnarFormat.FIXED_COLUMN_BYTES + 2 * ColumnarFormat.MAX_VARINT_BYTES));
+
+        ByteBuffer header = ByteBuffer.allocate(ColumnarFormat.FILE_HEADER_BYTES);
+        header.putInt(ColumnarFormat.FILE_MAGIC);
+        header.putShort(ColumnarFormat.VERSION);
+        header.putShort((short) 0);
+        header.flip();
+        writeFully(header);
+    }
+
+    /**
+     * 追加一条记录，块满时写出
+     *
+     * @param tag
+     * @throws IOException
+     */
+    public void append(TagRecord tag) throws IOException {
+        int i = count;
+        presence[i] = (short) tag.getPresence();
+        epcIds[i] = tag.has(TagRecord.HAS_EPC) ? lookupEpc(tag) : -1;
+        // 缺失的时间戳按差值0编码
+        long firstSeenTime = tag.has(TagRecord.HAS_FIRST_SEEN_TIME)
+                ? tag.getFirstSeenTime() : (i > 0 ? firstSeenTimes[i - 1] : 0L);
+        firstSeenTimes[i] = firstSeenTime;
+        lastSeenTimes[i] = tag.has(TagRecord.HAS_LAST_SEEN_TIME) ? tag.getLastSeenTime() : firstSeenTime;
+        antennaIds[i] = tag.getAntennaId();
+        channelIndexes[i] = (short) tag.getChannelIndex();
+        phases[i] = tag.getPhaseRaw();
+        rssis[i] = tag.getPeakRssiRaw();
+        dopplers[i] = tag.getDopplerFrequencyRaw();
+        seenCounts[i] = tag.getTagSeenCount();
+        readerIds[i] = tag.getReaderId();
+        hasReaderIds |= tag.has(TagRecord.HAS_READER_ID);
+        count = i + 1;
+
+        if (count == chunkSize) {
+            flush();
+        }
+    }
+
+    /**
+     * 写出当前块
+     *
+     * @throws IOException
+     */
+    public void flush() throws IOException {
+        if (count == 0) {
+            return;
+        }
+
+        int required = 32 + pendingEntryBytes
+                + count * (ColumnarFormat.FIXED_COLUMN_BYTES + 2 * ColumnarFormat.MAX_VARINT_BYTES);
+        if (buffer.capacity() < required) {
+            buffer = ByteBuffer.allocate(required);
+        }
+        ByteBuffer buf = buffer;
+        buf.clear();
+
+        buf.putInt(0); // chunkBytes 占位
+        buf.putInt(ColumnarFormat.CHUNK_MAGIC);
+        buf.putInt(count);
+
+        buf.putInt(pendingEntries.size());
+        for (byte[] entry : pendingEntries) {
+            buf.putShort((short) entry.length);
+            buf.put(entry);
+        }
+        pendingEntries.clear();
+        pendingEntryBytes = 0;
+
+        long base = firstSeenTimes[0];
+        buf.putLong(base);
+
+        int lengthPos = buf.position();
+        buf.putInt(0);
+        long prev = base;
+        for (int i = 0; i < count; i++) {
+            ColumnarFormat.putVarLong(buf, firstSeenTimes[i] - prev);
+            prev = firstSeenTimes[i];
+        }
+        buf.putInt(lengthPos, buf.position() - lengthPos - 4);
+
+        lengthPos = buf.position();
+        buf.putInt(0);
+        for (int i = 0; i < count; i++) {
+            ColumnarFormat.putVarLong(buf, lastSeenTimes[i] - firstSeenTimes[i]);
+        }
+        buf.putInt(lengthPos, buf.position() - lengthPos - 4);
+
+        for (int i = 0; i < count; i++) {
+            buf.putShort(presence[i]);
+        }
+        for (int i = 0; i < count; i++) {
+            buf.putInt(epcIds[i]);
+        }
+        putShorts(buf, antennaIds);
+        putShorts(buf, channelIndexes);
+        putShorts(buf, phases);
+        putShorts(buf, rssis);
+        putShorts(buf, dopplers);
+        putShorts(buf, seenCounts);
+        if (hasReaderIds) {
+            putShorts(buf, readerIds);
+        }
+
+        buf.putInt(0, buf.position() - 4);
+        buf.flip();
+        writeFully(buf);
+
+        recordCount += count;
+        count = 0;
+        hasReaderIds = false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    public long getRecordCount() {
+        return recordCount + count;
+    }
+
+    public long getByteCount() {
+        return byteCount;
+    }
+
+    /**
+     * 查找或登记EPC字典条目
+     *
+     * @param tag
+     * @return 字典ID
+     */
+    private int lookupEpc(TagRecord tag) {
+        String epc = tag.getEpc() != null ? tag.getEpc() : TagRecord.encodeHex(tag.getEpcBytes(), tag.getEpcLength());
+        Integer id = dictionary.get(epc);
+        if (id != null) {
+            return id;
+        }
+        int next = dictionary.size();
+        dictionary.put(epc, next);
+        byte[] entry = epc.getBytes(StandardCharsets.UTF_8);
+        pendingEntries.add(entry);
+        pendingEntryBytes += 2 + entry.length;
+        return next;
+    }
+
+    private void putShorts(ByteBuffer buf, short[] column) {
+        for (int i = 0; i < count; i++) {
+            buf.putShort(column[i]);
+        }
+    }
+
+    private void writeFully(ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            byteCount += channel.write(buf);
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package com.yxalkaid.rfcollector.capture;
+
+import com.yxalkaid.rfcollector.domain.TagRecord;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * CSV输出布局
+ * <p>
+ * 基础列与原有输出一致：time,id,channel,phase,rssi,antenna。
+ * 派生列只在启用对应选项时追加在基础列之后，顺序固定：
+ * reader（多读写器），phase_rad（{@code PhaseUnwrapper}），rssi_dbm，doppler_hz，host_time（{@code ClockAligner}）。
+ * <p>
+ * 读取时按表头定位各列，不同布局的文件都可以解析。
+ */
+public final class CsvLayout {
+
+    /**
+     * 派生列：读写器编号
+     */
+    public static final int READER = 1;
+
+    /**
+     * 派生列：解缠绕相位（弧度）
+     */
+    public static final int PHASE_RAD = 1 << 1;
+
+    /**
+     * 派生列：峰值RSSI（dBm）
+     */
+    public static final int RSSI_DBM = 1 << 2;
+
+    /**
+     * 派生列：多普勒频移（Hz）
+     */
+    public static final int DOPPLER_HZ = 1 << 3;
+
+    /**
+     * 派生列：换算到主机时钟的 time
+     */
+    public static final int HOST_TIME = 1 << 4;
+
+    /**
+     * 所有列名，下标即字段编号，前6个为基础列
+     */
+    private static final String[] COLUMNS = {"time", "id", "channel", "phase", "rssi", "antenna",
+            "reader", "phase_rad", "rssi_dbm", "doppler_hz", "host_time"};
+
+    private static final int BASE_COLUMNS = 6;
+
+    private static final int TIME = 0;
+    private static final int ID = 1;
+    private static final int CHANNEL = 2;
+    private static final int PHASE = 3;
+    private static final int RSSI = 4;
+    private static final int ANTENNA = 5;
+    private static final int READER_ID = 6;
+    private static final int UNWRAPPED_PHASE = 7;
+    private static final int PEAK_RSSI_DBM = 8;
+    private static final int DOPPLER = 9;
+    private static final int HOST = 10;
+
+    /**
+     * 只有基础列的布局，默认输出
+     */
+    public static final CsvLayout BASELINE = new CsvLayout(0);
+
+    /**
+     * 文件编码
+     */
+    public static final Charset CHARSET = Charset.forName("GBK");
+
+    /**
+     * 缺失字段的输出值
+     */
+    private static final String NULL = "null";
+
+    /**
+     * 间断标记行的id，该行的time为间断开始时间
+     */
+    public static final String GAP = "GAP";
+
+    /**
+     * 启用的派生列
+     */
+    private final int columns;
+
+    private final String[] header;
+
+    /**
+     * 各字段在行中的位置，不输出的字段为-1
+     */
+    private final int[] positions = new int[COLUMNS.length];
+
+    private CsvLayout(int columns) {
+        this.columns = columns;
+        Arrays.fill(positions, -1);
+        int count = 0;
+        for (int field = 0; field < COLUMNS.length; field++) {
+            if (field < BASE_COLUMNS || (columns & (1 << (field - BASE_COLUMNS))) != 0) {
+                positions[field] = count++;
+            }
+        }
+        header = new String[count];
+        for (int field = 0; field < COLUMNS.length; field++) {
+            if (positions[field] >= 0) {
+                header[positions[field]] = COLUMNS[field];
+            }
+        }
+    }
+
+    private CsvLayout(String[] header) {
+        int columns = 0;
+        Arrays.fill(positions, -1);
+        for (int i = 0; i < header.length; i++) {
+            for (int field = 0; field < COLUMNS.length; field++) {
+                if (COLUMNS[field].equals(header[i].trim()) && positions[field] < 0) {
+                    positions[field] = i;
+                    if (field >= BASE_COLUMNS) {
+                        columns |= 1 << (field - BASE_COLUMNS);
+                    }
+                }
+            }
+        }
+        this.columns = columns;
+        this.header = header.clone();
+    }
+
+    /**
+     * 基础列加指定的派生列
+     *
+     * @param columns 派生列，如 {@code PHASE_RAD | HOST_TIME}
+     * @return
+     */
+    public static CsvLayout of(int columns) {
+        return columns == 0 ? BASELINE : new CsvLayout(columns);
+    }
+
+    /**
+     * 按表头解析布局，未知的列被忽略
+     *
+     * @param header
+     * @return
+     */
+    public static CsvLayout fromHeader(String[] header) {
+        return new CsvLayout(header);
+    }
+
+    /**
+     * 读取文件第一行的表头，没有表头时按基础列解析
+     *
+     * @param in 文件内容，调用方负责关闭
+     * @return
+     * @throws IOException
+     */
+    public static CsvLayout read(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, CHARSET));
+        String first = reader.readLine();
+        if (first == null) {
+            return BASELINE;
+        }
+        String[] header = first.split(",");
+        return isHeader(header) ? fromHeader(header) : BASELINE;
+    }
+
+    /**
+     * 读取文件第一行的表头，没有表头时按基础列解析
+     *
+     * @param file CSV 文件，{@code .gz} 结尾时按 gzip 解压
+     * @return
+     * @throws IOException
+     */
+    public static CsvLayout read(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return read(file.getFileName().toString().endsWith(".gz") ? new GZIPInputStream(in) : in);
+        }
+    }
+
+    /**
+     * 是否为表头行
+     *
+     * @param line
+     * @return
+     */
+    public static boolean isHeader(String[] line) {
+        return line.length > 0 && COLUMNS[TIME].equals(line[0].trim());
+    }
+
+    /**
+     * 派生列的并集
+     *
+     * @return
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * 是否输出指定的派生列
+     *
+     * @param column
+     * @return
+     */
+    public boolean has(int column) {
+        return (columns & column) == column;
+    }
+
+    /**
+     * 表头
+     *
+     * @return 副本
+     */
+    public String[] getHeader() {
+        return header.clone();
+    }
+
+    /**
+     * 列数
+     *
+     * @return
+     */
+    public int size() {
+        return header.length;
+    }
+
+    /**
+     * 填充行数组，缺失字段输出为"null"
+     *
+     * @param tag
+     * @param line 长度不小于 size()
+     */
+    public void fillLine(TagRecord tag, String[] line) {
+        line[positions[TIME]] = tag.has(TagRecord.HAS_FIRST_SEEN_TIME) ? Long.toString(tag.getFirstSeenTime()) : NULL;
+        line[positions[ID]] = tag.has(TagRecord.IS_GAP) ? GAP : tag.getEpc();
+        line[positions[CHANNEL]] = tag.has(TagRecord.HAS_CHANNEL_INDEX) ? Integer.toString(tag.getChannelIndex()) : NULL;
+        line[positions[PHASE]] = tag.has(TagRecord.HAS_PHASE) ? Short.toString(tag.getPhaseRaw()) : NULL;
+        line[positions[RSSI]] = tag.has(TagRecord.HAS_PEAK_RSSI) ? Short.toString(tag.getPeakRssiRaw()) : NULL;
+        line[positions[ANTENNA]] = tag.has(TagRecord.HAS_ANTENNA_ID) ? Short.toString(tag.getAntennaId()) : NULL;
+        if (columns == 0) {
+            return;
+        }
+        if (positions[READER_ID] >= 0) {
+            line[positions[READER_ID]] = tag.has(TagRecord.HAS_READER_ID) ? Short.toString(tag.getReaderId()) : NULL;
+        }
+        if (positions[UNWRAPPED_PHASE] >= 0) {
+            line[positions[UNWRAPPED_PHASE]] = tag.has(TagRecord.HAS_UNWRAPPED_PHASE)
+                    ? Double.toString(tag.getUnwrappedPhase()) : NULL;
+        }
+        if (positions[PEAK_RSSI_DBM] >= 0) {
+            line[positions[PEAK_RSSI_DBM]] = tag.has(TagRecord.HAS_PEAK_RSSI) ? Double.toString(tag.getPeakRssiDbm()) : NULL;
+        }
+        if (positions[DOPPLER] >= 0) {
+            line[positions[DOPPLER]] = tag.has(TagRecord.HAS_DOPPLER_FREQUENCY)
+                    ? Double.toString(tag.getDopplerFrequencyHz()) : NULL;
+        }
+        if (positions[HOST] >= 0) {
+            line[positions[HOST]] = tag.has(TagRecord.HAS_HOST_TIME) ? Long.toString(tag.getHostTime()) : NULL;
+        }
+    }
+
+    /**
+     * 从行数组解析记录，字段不足或为"null"时视为缺失
+     * <p>
+     * rssi_dbm 与 rssi 重复，被忽略；doppler_hz 按 ×16 还原为原始值。
+     *
+     * @param line
+     * @param tag
+     * @throws NumberFormatException 字段格式错误
+     */
+    public void parseLine(String[] line, TagRecord tag) {
+        tag.clear();
+        if (isPresent(line, ID) && GAP.equals(line[positions[ID]])) {
+            long time = isPresent(line, TIME) ? Long.parseLong(line[positions[TIME]]) : 0;
+            tag.markGap(time, time);
+        } else {
+            if (isPresent(line, TIME)) {
+                tag.setFirstSeenTime(Long.parseLong(line[positions[TIME]]));
+            }
+            if (isPresent(line, ID)) {
+                tag.setEpcHex(line[positions[ID]]);
+            }
+        }
+        if (isPresent(line, CHANNEL)) {
+            tag.setChannelIndex(Integer.parseInt(line[positions[CHANNEL]]));
+        }
+        if (isPresent(line, PHASE)) {
+            tag.setPhaseRaw(Short.parseShort(line[positions[PHASE]]));
+        }
+        if (isPresent(line, RSSI)) {
+            tag.setPeakRssiRaw(Short.parseShort(line[positions[RSSI]]));
+        }
+        if (isPresent(line, ANTENNA)) {
+            tag.setAntennaId(Short.parseShort(line[positions[ANTENNA]]));
+        }
+        if (isPresent(line, READER_ID)) {
+            tag.setReaderId(Short.parseShort(line[positions[READER_ID]]));
+        }
+        if (isPresent(line, UNWRAPPED_PHASE)) {
+            tag.setUnwrappedPhase(Double.parseDouble(line[positions[UNWRAPPED_PHASE]]));
+        }
+        if (isPresent(line, DOPPLER)) {
+            tag.setDopplerFrequencyRaw((short) Math.round(Double.parseDouble(line[positions[DOPPLER]]) * 16));
+        }
+        if (isPresent(line, HOST)) {
+            tag.setHostTime(Long.parseLong(line[positions[HOST]]));
+        }
+    }
+
+    /**
+     * EPC 所在列
+     *
+     * @return
+     */
+    public int epcColumn() {
+        return positions[ID];
+    }
+
+    private boolean isPresent(String[] line, int field) {
+        int index = positions[field];
+        return index >= 0 && index < line.length && line[index] != null && !line[index].isEmpty()
+                && !NULL.equals(line[index]);
+    }
+
+    @Override
+    public String toString() {
+        return String.join(",", header);
+    }
+}
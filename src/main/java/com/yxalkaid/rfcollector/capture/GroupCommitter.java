@@ -0,0 +1,212 @@
+package com.yxalkaid.rfcollector.capture;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 成组提交
+ * <p>
+ * 写入线程每写一条记录只累加字节数与时间戳；独立的刷盘线程按固定间隔、或待提交字节数达到阈值时，
+ * 先让输出把用户态缓冲写入操作系统，再对文件调用 {@link FileChannel#force}，一次 fsync 覆盖期间写入的所有记录。
+ * 崩溃时最多丢失约一个间隔加一次 fsync 耗时内的记录。
+ * <p>
+ * 提交前先读取已写入的位置，再刷新缓冲，报告的持久化时间戳只会偏保守。
+ */
+@Slf4j
+public class GroupCommitter implements Closeable {
+
+    /**
+     * 可成组提交的输出
+     */
+    @FunctionalInterface
+    public interface Output {
+
+        /**
+         * 将缓冲的记录写入操作系统，由实现自行与写入线程同步
+         *
+         * @return 需要刷盘的文件，没有时返回null
+         * @throws IOException
+         */
+        FileChannel flush() throws IOException;
+    }
+
+    private final Output output;
+
+    /**
+     * 提交间隔（纳秒）
+     */
+    private final long intervalNanos;
+
+    /**
+     * 待提交字节数阈值，不大于0时只按间隔提交
+     */
+    private final long byteThreshold;
+
+    private final Thread flusher;
+
+    /**
+     * 已写入的字节数，只由写入线程修改
+     */
+    private volatile long appendedBytes;
+
+    /**
+     * 最近写入记录的时间戳
+     */
+    private volatile long appendedTime = Long.MIN_VALUE;
+
+    /**
+     * 已提交的字节数
+     */
+    private volatile long syncedBytes;
+
+    /**
+     * 最近一次提交覆盖的记录时间戳，Long.MIN_VALUE 表示尚未提交
+     */
+    private volatile long durableTime = Long.MIN_VALUE;
+
+    /**
+     * 是否已唤醒刷盘线程
+     */
+    private volatile boolean signaled;
+
+    private volatile boolean closed;
+
+    private volatile long syncCount;
+
+    /**
+     * 最长一次提交耗时（纳秒）
+     */
+    private volatile long maxSyncNanos;
+
+    /**
+     * 构造方法
+     *
+     * @param name          刷盘线程名称
+     * @param output        输出
+     * @param intervalMs    提交间隔（毫秒）
+     * @param byteThreshold 待提交字节数阈值，不大于0时只按间隔提交
+     */
+    public GroupCommitter(String name, Output output, long intervalMs, long byteThreshold) {
+        if (intervalMs <= 0) {
+            throw new IllegalArgumentException("intervalMs must be positive");
+        }
+        this.output = output;
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMs);
+        this.byteThreshold = byteThreshold;
+        this.flusher = new Thread(this::run, name);
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * 写入一条记录后调用，只允许写入线程调用
+     *
+     * @param bytes 记录字节数（估算即可）
+     * @param time  记录时间戳，没有时传 Long.MIN_VALUE
+     */
+    public void onAppend(long bytes, long time) {
+        long appended = appendedBytes + bytes;
+        appendedBytes = appended;
+        if (time != Long.MIN_VALUE) {
+            appendedTime = time;
+        }
+        if (byteThreshold > 0 && !signaled && appended - syncedBytes >= byteThreshold) {
+            signaled = true;
+            LockSupport.unpark(flusher);
+        }
+    }
+
+    private void run() {
+        while (!closed) {
+            LockSupport.parkNanos(this, intervalNanos);
+            signaled = false;
+            if (!closed) {
+                commit();
+            }
+        }
+    }
+
+    /**
+     * 立即提交
+     *
+     * @return 是否成功
+     */
+    public synchronized boolean commit() {
+        long bytes = appendedBytes;
+        long time = appendedTime;
+        if (bytes == syncedBytes) {
+            return true;
+        }
+        long t0 = System.nanoTime();
+        try {
+            FileChannel channel = output.flush();
+            if (channel != null) {
+                channel.force(false);
+            }
+        } catch (ClosedChannelException e) {
+            // 文件已在滚动或关闭时刷盘
+        } catch (IOException e) {
+            log.error("Group commit failed", e);
+            return false;
+        }
+        long elapsed = System.nanoTime() - t0;
+        if (elapsed > maxSyncNanos) {
+            maxSyncNanos = elapsed;
+        }
+        syncedBytes = bytes;
+        durableTime = time;
+        syncCount++;
+        return true;
+    }
+
+    /**
+     * 已持久化的最新记录时间戳（微秒），尚未提交时为 Long.MIN_VALUE
+     *
+     * @return
+     */
+    public long getLastDurableTime() {
+        return durableTime;
+    }
+
+    /**
+     * 写入但尚未持久化的字节数
+     *
+     * @return
+     */
+    public long getPendingBytes() {
+        return appendedBytes - syncedBytes;
+    }
+
+    public long getSyncCount() {
+        return syncCount;
+    }
+
+    public long getMaxSyncNanos() {
+        return maxSyncNanos;
+    }
+
+    /**
+     * 停止刷盘线程并做最后一次提交，需在关闭输出之前调用
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join(TimeUnit.NANOSECONDS.toMillis(intervalNanos) + 1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        commit();
+        log.info("Group commit closed, syncs={}, maxSync={}us", syncCount, maxSyncNanos / 1000);
+    }
+}
@@ -0,0 +1,319 @@
+package com.yxalkaid.rfcollector.capture;
+
+import com.yxalkaid.rfcollector.domain.Epc;
+import com.yxalkaid.rfcollector.domain.EpcTable;
+import com.yxalkaid.rfcollector.domain.SimpleTag;
+import com.yxalkaid.rfcollector.domain.TagRecord;
+import com.yxalkaid.rfcollector.pipeline.EventHandler;
+import org.llrp.ltk.exceptions.InvalidLLRPMessageException;
+import org.llrp.ltk.generated.LLRPMessageFactory;
+import org.llrp.ltk.types.LLRPMessage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 原始 LLRP 帧的按需解码
+ * <p>
+ * 直接在字节上遍历 RO_ACCESS_REPORT 中的 TagReportData 参数，填充复用的 {@link TagRecord}，
+ * 不构造 LTK 对象树；解码的字段与 {@code BaseRecorder.buildTagRecord} 相同。
+ * 需要完整消息时可用 {@link #decodeMessage} 交给 LTK 解码。非线程安全。
+ */
+public class LazyFrameDecoder {
+
+    /**
+     * TagReportData 参数类型
+     */
+    private static final int TAG_REPORT_DATA = 240;
+
+    /**
+     * EPCData 参数类型
+     */
+    private static final int EPC_DATA = 241;
+
+    /**
+     * 自定义参数类型
+     */
+    private static final int CUSTOM = 1023;
+
+    /**
+     * Impinj 厂商编号
+     */
+    private static final long IMPINJ_VENDOR = 25882;
+
+    private static final int IMPINJ_RF_PHASE_ANGLE = 56;
+    private static final int IMPINJ_PEAK_RSSI = 57;
+    private static final int IMPINJ_RF_DOPPLER_FREQUENCY = 68;
+
+    private static final int TV_ANTENNA_ID = 1;
+    private static final int TV_FIRST_SEEN_UTC = 2;
+    private static final int TV_LAST_SEEN_UTC = 4;
+    private static final int TV_CHANNEL_INDEX = 7;
+    private static final int TV_TAG_SEEN_COUNT = 8;
+    private static final int TV_EPC_96 = 13;
+
+    /**
+     * TV 参数的值长度（字节），按类型索引，-1 表示未知类型
+     */
+    private static final int[] TV_LENGTHS = new int[128];
+
+    static {
+        Arrays.fill(TV_LENGTHS, -1);
+        TV_LENGTHS[TV_ANTENNA_ID] = 2;
+        TV_LENGTHS[TV_FIRST_SEEN_UTC] = 8;
+        TV_LENGTHS[3] = 8; // FirstSeenTimestampUptime
+        TV_LENGTHS[TV_LAST_SEEN_UTC] = 8;
+        TV_LENGTHS[5] = 8; // LastSeenTimestampUptime
+        TV_LENGTHS[6] = 1; // PeakRSSI
+        TV_LENGTHS[TV_CHANNEL_INDEX] = 2;
+        TV_LENGTHS[TV_TAG_SEEN_COUNT] = 2;
+        TV_LENGTHS[9] = 4; // ROSpecID
+        TV_LENGTHS[10] = 2; // InventoryParameterSpecID
+        TV_LENGTHS[11] = 2; // C1G2_CRC
+        TV_LENGTHS[12] = 2; // C1G2_PC
+        TV_LENGTHS[TV_EPC_96] = 12;
+        TV_LENGTHS[14] = 2; // SpecIndex
+        TV_LENGTHS[15] = 2; // ClientRequestOpSpecResult
+        TV_LENGTHS[16] = 4; // AccessSpecID
+        TV_LENGTHS[17] = 2; // OpSpecID
+        TV_LENGTHS[18] = 4; // C1G2SingulationDetails
+        TV_LENGTHS[19] = 2; // C1G2_XPCW1
+        TV_LENGTHS[20] = 2; // C1G2_XPCW2
+    }
+
+    /**
+     * EPC驻留表
+     */
+    private final EpcTable epcTable;
+
+    private final byte[] epcBuffer = new byte[TagRecord.MAX_EPC_BYTES];
+
+    public LazyFrameDecoder() {
+        this(new EpcTable());
+    }
+
+    public LazyFrameDecoder(EpcTable epcTable) {
+        this.epcTable = epcTable;
+    }
+
+    /**
+     * 是否为标签上报
+     *
+     * @param frame  消息字节
+     * @param offset 消息起始位置
+     * @return
+     */
+    public static boolean isTagReport(byte[] frame, int offset) {
+        return RawFrameFormat.messageType(frame, offset) == RawFrameFormat.RO_ACCESS_REPORT;
+    }
+
+    /**
+     * 用 LTK 解码完整消息
+     *
+     * @param frame  消息字节
+     * @param offset 消息起始位置
+     * @param length 消息长度
+     * @return
+     * @throws InvalidLLRPMessageException
+     */
+    public static LLRPMessage decodeMessage(byte[] frame, int offset, int length) throws InvalidLLRPMessageException {
+        return LLRPMessageFactory.createLLRPMessage(Arrays.copyOfRange(frame, offset, offset + length));
+    }
+
+    /**
+     * 解码标签上报中的标签，逐条交给处理器；其他消息类型不产生记录
+     *
+     * @param frame   消息字节
+     * @param offset  消息起始位置
+     * @param length  消息长度
+     * @param scratch 复用的记录，每条标签前清空
+     * @param handler 处理器，返回后不得再持有记录的引用
+     * @return 标签数
+     * @throws Exception 帧格式错误时抛出 IOException，或处理器抛出的异常
+     */
+    public int decode(byte[] frame, int offset, int length, TagRecord scratch, EventHandler<TagRecord> handler)
+            throws Exception {
+        if (length < RawFrameFormat.MESSAGE_HEADER_BYTES || !isTagReport(frame, offset)) {
+            return 0;
+        }
+        int end = offset + Math.min(length, RawFrameFormat.messageLength(frame, offset));
+        int pos = offset + RawFrameFormat.MESSAGE_HEADER_BYTES;
+        int count = 0;
+        while (pos + 4 <= end) {
+            if ((frame[pos] & 0x80) != 0) {
+                throw new IOException("Unexpected TV parameter in RO_ACCESS_REPORT at " + (pos - offset));
+            }
+            int type = u16(frame, pos) & 0x3FF;
+            int paramLength = u16(frame, pos + 2);
+            if (paramLength < 4 || pos + paramLength > end) {
+                throw new IOException("Malformed parameter " + type + " at " + (pos - offset));
+            }
+            if (type == TAG_REPORT_DATA) {
+                if (decodeTagReportData(frame, pos + 4, pos + paramLength, scratch)) {
+                    handler.onEvent(scratch);
+                    count++;
+                }
+            }
+            pos += paramLength;
+        }
+        return count;
+    }
+
+    /**
+     * 将标签上报解码为 SimpleTag 列表
+     *
+     * @param frame  消息字节
+     * @param offset 消息起始位置
+     * @param length 消息长度
+     * @return
+     * @throws IOException 帧格式错误
+     */
+    public List<SimpleTag> decodeSimpleTags(byte[] frame, int offset, int length) throws IOException {
+        List<SimpleTag> tags = new ArrayList<>();
+        try {
+            decode(frame, offset, length, new TagRecord(), tag -> tags.add(tag.toSimpleTag()));
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            // 处理器不会抛出受检异常
+            throw new IllegalStateException(e);
+        }
+        return tags;
+    }
+
+    /**
+     * 解码一个 TagReportData 参数的内容
+     *
+     * @param frame
+     * @param pos    参数内容起始位置
+     * @param end    参数结束位置
+     * @param record
+     * @return 是否包含EPC
+     * @throws IOException
+     */
+    private boolean decodeTagReportData(byte[] frame, int pos, int end, TagRecord record) throws IOException {
+        record.clear();
+        boolean hasEpc = false;
+        while (pos < end) {
+            int b = frame[pos] & 0xFF;
+            if ((b & 0x80) != 0) {
+                int type = b & 0x7F;
+                int valueLength = TV_LENGTHS[type];
+                if (valueLength < 0) {
+                    // 未知的 TV 参数无法确定长度，其后的字段不再解码
+                    break;
+                }
+                int value = pos + 1;
+                if (value + valueLength > end) {
+                    throw new IOException("Truncated TV parameter " + type);
+                }
+                switch (type) {
+                    case TV_EPC_96:
+                        setEpc(record, frame, value, 12);
+                        hasEpc = true;
+                        break;
+                    case TV_ANTENNA_ID:
+                        record.setAntennaId((short) u16(frame, value));
+                        break;
+                    case TV_CHANNEL_INDEX:
+                        record.setChannelIndex(u16(frame, value));
+                        break;
+                    case TV_FIRST_SEEN_UTC:
+                        record.setFirstSeenTime(u64(frame, value));
+                        break;
+                    case TV_LAST_SEEN_UTC:
+                        record.setLastSeenTime(u64(frame, value));
+                        break;
+                    case TV_TAG_SEEN_COUNT:
+                        record.setTagSeenCount((short) u16(frame, value));
+                        break;
+                    default:
+                        break;
+                }
+                pos = value + valueLength;
+            } else {
+                if (pos + 4 > end) {
+                    throw new IOException("Truncated TLV parameter header");
+                }
+                int type = u16(frame, pos) & 0x3FF;
+                int paramLength = u16(frame, pos + 2);
+                if (paramLength < 4 || pos + paramLength > end) {
+                    throw new IOException("Malformed TLV parameter " + type);
+                }
+                if (type == EPC_DATA && paramLength >= 6) {
+                    int bits = u16(frame, pos + 4);
+                    int bytes = Math.min((bits + 7) >> 3, paramLength - 6);
+                    setEpc(record, frame, pos + 6, bytes);
+                    hasEpc = true;
+                } else if (type == CUSTOM && paramLength >= 14) {
+                    decodeCustom(frame, pos, record);
+                }
+                pos += paramLength;
+            }
+        }
+        return hasEpc;
+    }
+
+    /**
+     * 解码 Impinj 扩展参数
+     *
+     * @param frame
+     * @param pos    参数起始位置
+     * @param record
+     */
+    private static void decodeCustom(byte[] frame, int pos, TagRecord record) {
+        long vendor = u32(frame, pos + 4);
+        if (vendor != IMPINJ_VENDOR) {
+            return;
+        }
+        int subtype = (int) u32(frame, pos + 8);
+        short value = (short) u16(frame, pos + 12);
+        switch (subtype) {
+            case IMPINJ_RF_PHASE_ANGLE:
+                record.setPhaseRaw(value);
+                break;
+            case IMPINJ_PEAK_RSSI:
+                record.setPeakRssiRaw(value);
+                break;
+            case IMPINJ_RF_DOPPLER_FREQUENCY:
+                record.setDopplerFrequencyRaw(value);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * 在驻留表中查找EPC，首次出现时才生成十六进制字符串
+     */
+    private void setEpc(TagRecord record, byte[] frame, int offset, int length) {
+        int n = Math.min(length, epcBuffer.length);
+        System.arraycopy(frame, offset, epcBuffer, 0, n);
+        Epc epc;
+        synchronized (epcTable) {
+            epc = epcTable.find(epcBuffer, n);
+            if (epc == null) {
+                epc = epcTable.add(epcBuffer, n, TagRecord.encodeHex(epcBuffer, n));
+            }
+        }
+        record.setEpc(epc);
+    }
+
+    public EpcTable getEpcTable() {
+        return epcTable;
+    }
+
+    private static int u16(byte[] b, int i) {
+        return ((b[i] & 0xFF) << 8) | (b[i + 1] & 0xFF);
+    }
+
+    private static long u32(byte[] b, int i) {
+        return ((b[i] & 0xFFL) << 24) | ((b[i + 1] & 0xFF) << 16) | ((b[i + 2] & 0xFF) << 8) | (b[i + 3] & 0xFF);
+    }
+
+    private static long u64(byte[] b, int i) {
+        return (u32(b, i) << 32) | u32(b, i + 4);
+    }
+}
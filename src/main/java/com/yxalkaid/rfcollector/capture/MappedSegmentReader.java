@@ -0,0 +1,133 @@
+package com.yxalkaid.rfcollector.capture;
+
+import com.yxalkaid.rfcollector.domain.TagRecord;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 内存映射分段读取器，按序号依次读取 MappedSegmentWriter 写出的分段
+ */
+public class MappedSegmentReader implements Closeable {
+
+    /**
+     * 目录
+     */
+    private final Path directory;
+
+    /**
+     * 文件名前缀
+     */
+    private final String prefix;
+
+    /**
+     * 当前分段
+     */
+    private MappedByteBuffer current;
+
+    /**
+     * 当前分段序号
+     */
+    private int segmentIndex = -1;
+
+    /**
+     * 帧视图
+     */
+    private ByteBuffer frame;
+
+    public MappedSegmentReader(Path directory, String prefix) {
+        this.directory = directory;
+        this.prefix = prefix;
+    }
+
+    /**
+     * 读取下一帧
+     *
+     * @return 帧内容视图（position 到 limit），没有更多帧时返回 null
+     * @throws IOException
+     */
+    public ByteBuffer nextFrame() throws IOException {
+        while (true) {
+            if (current == null && !openNextSegment()) {
+                return null;
+            }
+
+            MappedByteBuffer buf = current;
+            int position = buf.position();
+            if (buf.capacity() - position >= MappedSegmentWriter.FRAME_HEADER_BYTES) {
+                int length = buf.getInt(position);
+                int start = position + MappedSegmentWriter.FRAME_HEADER_BYTES;
+                if (length > 0 && start + length <= buf.capacity()) {
+                    buf.position(start + length);
+                    frame.limit(start + length).position(start);
+                    return frame;
+                }
+            }
+            // 当前分段已读完，未写入的区域为零
+            current = null;
+        }
+    }
+
+    /**
+     * 读取下一条标签记录
+     *
+     * @param tag 被填充的记录
+     * @return 是否读取到记录
+     * @throws IOException
+     */
+    public boolean next(TagRecord tag) throws IOException {
+        ByteBuffer buf = nextFrame();
+        if (buf == null) {
+            return false;
+        }
+        SegmentRecordCodec.decode(buf, tag);
+        return true;
+    }
+
+    /**
+     * 打开下一个分段
+     *
+     * @return 是否存在下一个分段
+     * @throws IOException
+     */
+    private boolean openNextSegment() throws IOException {
+        Path path = MappedSegmentWriter.segmentPath(directory, prefix, segmentIndex + 1);
+        if (!Files.exists(path)) {
+            return false;
+        }
+        segmentIndex++;
+
+        MappedByteBuffer buf;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buf.capacity() < MappedSegmentWriter.SEGMENT_HEADER_BYTES
+                || buf.getInt() != MappedSegmentWriter.SEGMENT_MAGIC) {
+            throw new IOException("Not a segment file: " + path);
+        }
+        short version = buf.getShort();
+        if (version != MappedSegmentWriter.VERSION) {
+            throw new IOException("Unsupported segment version: " + version);
+        }
+        buf.position(MappedSegmentWriter.SEGMENT_HEADER_BYTES);
+        current = buf;
+        frame = buf.duplicate();
+        return true;
+    }
+
+    public int getSegmentIndex() {
+        return segmentIndex;
+    }
+
+    @Override
+    public void close() {
+        current = null;
+        frame = null;
+    }
+}
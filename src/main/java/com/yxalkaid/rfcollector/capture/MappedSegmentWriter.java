@@ -0,0 +1,284 @@
+package com.yxalkaid.rfcollector.capture;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 内存映射分段写入器
+ * <p>
+ * 每个分段文件按固定大小预分配并映射到内存，记录以长度前缀帧的形式直接写入映射区，
+ * 写入过程不产生系统调用。帧内容先写入，长度前缀最后写入，未提交的区域保持为零，
+ * 因此进程崩溃后文件尾部仍是一致的：读取方遇到长度为0的帧即停止。
+ * 分段写满后滚动到下一个分段，后台线程按固定间隔将映射区刷到磁盘。
+ * <p>
+ * 写入方法（claim/commit）只允许单线程调用。
+ */
+@Slf4j
+public class MappedSegmentWriter implements Closeable {
+
+    /**
+     * 分段魔数 "RFSG"
+     */
+    public static final int SEGMENT_MAGIC = 0x52465347;
+
+    /**
+     * 分段格式版本
+     */
+    public static final short VERSION = 1;
+
+    /**
+     * 分段头字节数
+     */
+    public static final int SEGMENT_HEADER_BYTES = 16;
+
+    /**
+     * 分段文件扩展名
+     */
+    public static final String SEGMENT_SUFFIX = ".seg";
+
+    /**
+     * 帧长度前缀字节数
+     */
+    public static final int FRAME_HEADER_BYTES = 4;
+
+    /**
+     * 输出目录
+     */
+    private final Path directory;
+
+    /**
+     * 文件名前缀
+     */
+    private final String prefix;
+
+    /**
+     * 分段大小（字节）
+     */
+    private final int segmentBytes;
+
+    /**
+     * 定时刷盘
+     */
+    private final ScheduledExecutorService forcer;
+
+    /**
+     * 当前分段
+     */
+    private volatile MappedByteBuffer current;
+
+    /**
+     * 当前分段序号
+     */
+    private int segmentIndex = -1;
+
+    /**
+     * 当前帧起始位置，-1 表示没有未提交的帧
+     */
+    private int frameStart = -1;
+
+    /**
+     * 已提交帧数
+     */
+    private volatile long frameCount;
+
+    /**
+     * 已提交的帧在分段内的结束位置
+     */
+    private volatile int committedPosition;
+
+    /**
+     * 已刷盘的帧数
+     */
+    private volatile long forcedFrameCount;
+
+    private volatile boolean closed;
+
+    /**
+     * 构造方法
+     *
+     * @param directory      输出目录
+     * @param prefix         文件名前缀
+     * @param segmentBytes   分段大小（字节）
+     * @param forceInterval  刷盘间隔（毫秒），不大于0时仅在滚动和关闭时刷盘
+     * @throws IOException
+     */
+    public MappedSegmentWriter(Path directory, String prefix, int segmentBytes, long forceInterval) throws IOException {
+        if (segmentBytes <= SEGMENT_HEADER_BYTES + FRAME_HEADER_BYTES) {
+            throw new IllegalArgumentException("segmentBytes too small");
+        }
+        this.directory = directory;
+        this.prefix = prefix;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(directory);
+        this.roll();
+
+        if (forceInterval > 0) {
+            this.forcer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "segment-forcer");
+                t.setDaemon(true);
+                return t;
+            });
+            this.forcer.scheduleWithFixedDelay(this::force, forceInterval, forceInterval, TimeUnit.MILLISECONDS);
+        } else {
+            this.forcer = null;
+        }
+    }
+
+    /**
+     * 分段文件路径
+     *
+     * @param directory
+     * @param prefix
+     * @param index
+     * @return
+     */
+    public static Path segmentPath(Path directory, String prefix, int index) {
+        return directory.resolve(String.format("%s-%05d%s", prefix, index, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * 申请一帧的写入空间
+     * <p>
+     * 返回的缓冲区位于帧内容起始位置，limit 限制为 maxPayload 字节，
+     * 调用方写入内容后必须调用 {@link #commit()}。
+     *
+     * @param maxPayload 帧内容最大字节数
+     * @return 映射缓冲区
+     * @throws IOException
+     */
+    public ByteBuffer claim(int maxPayload) throws IOException {
+        if (closed) {
+            throw new IOException("Segment writer closed");
+        }
+        if (maxPayload + FRAME_HEADER_BYTES > segmentBytes - SEGMENT_HEADER_BYTES) {
+            throw new IllegalArgumentException("Frame larger than segment: " + maxPayload);
+        }
+
+        MappedByteBuffer buf = current;
+        if (buf.capacity() - buf.position() < FRAME_HEADER_BYTES + maxPayload) {
+            roll();
+            buf = current;
+        }
+        frameStart = buf.position();
+        buf.limit(frameStart + FRAME_HEADER_BYTES + maxPayload);
+        buf.position(frameStart + FRAME_HEADER_BYTES);
+        return buf;
+    }
+
+    /**
+     * 提交已写入的帧，写入长度前缀
+     */
+    public void commit() {
+        MappedByteBuffer buf = current;
+        int end = buf.position();
+        int length = end - frameStart - FRAME_HEADER_BYTES;
+        buf.limit(buf.capacity());
+        if (length > 0) {
+            buf.putInt(frameStart, length);
+            frameCount++;
+            committedPosition = end;
+        } else {
+            buf.position(frameStart);
+        }
+        frameStart = -1;
+    }
+
+    /**
+     * 写入一帧
+     *
+     * @param payload
+     * @throws IOException
+     */
+    public void append(ByteBuffer payload) throws IOException {
+        ByteBuffer buf = claim(payload.remaining());
+        buf.put(payload);
+        commit();
+    }
+
+    /**
+     * 将当前分段刷到磁盘
+     */
+    public synchronized void force() {
+        MappedByteBuffer buf = current;
+        if (buf == null || closed) {
+            return;
+        }
+        long frames = frameCount;
+        buf.force(0, committedPosition);
+        forcedFrameCount = frames;
+    }
+
+    /**
+     * 滚动到下一个分段，当前分段先刷盘
+     *
+     * @throws IOException
+     */
+    private synchronized void roll() throws IOException {
+        MappedByteBuffer previous = current;
+        if (previous != null) {
+            previous.force();
+            forcedFrameCount = frameCount;
+        }
+
+        segmentIndex++;
+        Path path = segmentPath(directory, prefix, segmentIndex);
+        MappedByteBuffer buf;
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // 预分配整个分段，映射区域在通道关闭后仍然有效
+            channel.write(ByteBuffer.wrap(new byte[1]), segmentBytes - 1);
+            buf = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+        buf.putInt(SEGMENT_MAGIC);
+        buf.putShort(VERSION);
+        buf.putShort((short) 0);
+        buf.putInt(segmentIndex);
+        buf.putInt(0);
+        current = buf;
+        committedPosition = buf.position();
+        log.info("Writing to segment {}", path.toAbsolutePath());
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        if (forcer != null) {
+            forcer.shutdownNow();
+        }
+        MappedByteBuffer buf = current;
+        if (buf != null) {
+            buf.force();
+            forcedFrameCount = frameCount;
+        }
+        closed = true;
+    }
+
+    public int getSegmentIndex() {
+        return segmentIndex;
+    }
+
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    public long getForcedFrameCount() {
+        return forcedFrameCount;
+    }
+
+    public int getCommittedPosition() {
+        return committedPosition;
+    }
+}
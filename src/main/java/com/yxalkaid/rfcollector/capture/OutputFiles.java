@@ -0,0 +1,53 @@
+package com.yxalkaid.rfcollector.capture;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 输出文件命名
+ * <p>
+ * 所有记录器的输出文件都以 {@code RFID_<yyyy-MM-dd-HH-mm-ss>} 开头，后接各自的后缀。
+ */
+public final class OutputFiles {
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd-HH-mm-ss");
+
+    private OutputFiles() {
+    }
+
+    /**
+     * 以当前时间命名的文件名前缀
+     *
+     * @return
+     */
+    public static String prefix() {
+        return "RFID_" + TIMESTAMP.format(LocalDateTime.now());
+    }
+
+    /**
+     * 在父目录下创建以当前时间命名的空文件，父目录不存在时一并创建
+     * <p>
+     * 记录器在构造时调用，无法创建时立即失败，而不是到第一次写入时才出错。
+     *
+     * @param parentDir 父目录
+     * @param suffix    后缀，如 {@code .csv}
+     * @return 文件路径
+     * @throws UncheckedIOException 无法创建目录或文件
+     */
+    public static Path create(String parentDir, String suffix) {
+        Path file = Path.of(parentDir, prefix() + suffix);
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            if (!Files.exists(file)) {
+                Files.createFile(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create output in " + parentDir, e);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,91 @@
+package com.yxalkaid.rfcollector.capture;
+
+/**
+ * 原始 LLRP 帧采集文件格式
+ * <pre>
+ * 文件头:  int magic "RFRW" | short version | short reserved
+ * 每帧:    long receiveTime（主机接收时间，UTC 微秒）| int length | length 字节（完整的 LLRP 消息，含消息头）
+ * </pre>
+ * LLRP 消息头为：short（3位保留 | 3位版本 | 10位消息类型）| int 消息长度 | int 消息ID。
+ * 所有多字节数值均为大端序。
+ */
+public final class RawFrameFormat {
+
+    /**
+     * 文件魔数 "RFRW"
+     */
+    public static final int FILE_MAGIC = 0x52465257;
+
+    /**
+     * 格式版本
+     */
+    public static final short VERSION = 1;
+
+    /**
+     * 文件头字节数
+     */
+    public static final int FILE_HEADER_BYTES = 8;
+
+    /**
+     * 每帧前缀字节数
+     */
+    public static final int FRAME_HEADER_BYTES = 8 + 4;
+
+    /**
+     * 文件扩展名
+     */
+    public static final String FILE_SUFFIX = ".llrp";
+
+    /**
+     * LLRP 消息头字节数
+     */
+    public static final int MESSAGE_HEADER_BYTES = 10;
+
+    /**
+     * 单帧最大字节数，超过时视为数据损坏
+     */
+    public static final int MAX_MESSAGE_BYTES = 16 * 1024 * 1024;
+
+    /**
+     * RO_ACCESS_REPORT 消息类型
+     */
+    public static final int RO_ACCESS_REPORT = 61;
+
+    private RawFrameFormat() {
+    }
+
+    /**
+     * LLRP 消息类型
+     *
+     * @param frame 消息字节
+     * @param offset 消息起始位置
+     * @return
+     */
+    public static int messageType(byte[] frame, int offset) {
+        return ((frame[offset] & 0x03) << 8) | (frame[offset + 1] & 0xFF);
+    }
+
+    /**
+     * LLRP 消息长度（含消息头）
+     *
+     * @param frame 消息字节
+     * @param offset 消息起始位置
+     * @return
+     */
+    public static int messageLength(byte[] frame, int offset) {
+        return ((frame[offset + 2] & 0xFF) << 24) | ((frame[offset + 3] & 0xFF) << 16)
+                | ((frame[offset + 4] & 0xFF) << 8) | (frame[offset + 5] & 0xFF);
+    }
+
+    /**
+     * LLRP 消息ID
+     *
+     * @param frame 消息字节
+     * @param offset 消息起始位置
+     * @return
+     */
+    public static long messageId(byte[] frame, int offset) {
+        return (((frame[offset + 6] & 0xFFL) << 24) | ((frame[offset + 7] & 0xFF) << 16)
+                | ((frame[offset + 8] & 0xFF) << 8) | (frame[offset + 9] & 0xFF));
+    }
+}
@@ -0,0 +1,149 @@
+package com.yxalkaid.rfcollector.capture;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 原始 LLRP 帧读取器，按顺序逐帧读取，不解析帧的内容
+ * <p>
+ * 帧的字节保存在复用的数组中，调用 next 后之前的内容失效。
+ * 需要标签时交给 {@link LazyFrameDecoder} 解码。
+ */
+public class RawFrameReader implements Closeable {
+
+    private final FileChannel channel;
+
+    private final ByteBuffer header = ByteBuffer.allocate(RawFrameFormat.FRAME_HEADER_BYTES);
+
+    private byte[] frame = new byte[4096];
+
+    private int frameLength;
+
+    private long receiveTime;
+
+    /**
+     * 当前帧在文件中的偏移
+     */
+    private long position;
+
+    private RawFrameReader(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * 打开文件并校验文件头
+     *
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public static RawFrameReader open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        RawFrameReader reader = new RawFrameReader(channel);
+        try {
+            ByteBuffer buf = ByteBuffer.allocate(RawFrameFormat.FILE_HEADER_BYTES);
+            if (!reader.readFully(buf)) {
+                throw new IOException("Not a raw LLRP capture: " + file);
+            }
+            buf.flip();
+            int magic = buf.getInt();
+            short version = buf.getShort();
+            if (magic != RawFrameFormat.FILE_MAGIC) {
+                throw new IOException("Not a raw LLRP capture: " + file);
+            }
+            if (version != RawFrameFormat.VERSION) {
+                throw new IOException("Unsupported raw LLRP capture version " + version);
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return reader;
+    }
+
+    /**
+     * 读取下一帧
+     *
+     * @return 文件结束时返回 false；末尾不完整的帧视为写入中断，同样返回 false
+     * @throws IOException 帧长度非法
+     */
+    public boolean next() throws IOException {
+        position = channel.position();
+        header.clear();
+        if (!readFully(header)) {
+            return false;
+        }
+        header.flip();
+        receiveTime = header.getLong();
+        int length = header.getInt();
+        if (length < RawFrameFormat.MESSAGE_HEADER_BYTES || length > RawFrameFormat.MAX_MESSAGE_BYTES) {
+            throw new IOException("Invalid frame length " + length + " at offset " + position);
+        }
+        if (frame.length < length) {
+            frame = new byte[Math.max(length, frame.length * 2)];
+        }
+        if (!readFully(ByteBuffer.wrap(frame, 0, length))) {
+            return false;
+        }
+        frameLength = length;
+        return true;
+    }
+
+    private boolean readFully(ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            if (channel.read(buf) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 当前帧的字节，有效长度为 {@link #getFrameLength()}
+     *
+     * @return
+     */
+    public byte[] getFrame() {
+        return frame;
+    }
+
+    public int getFrameLength() {
+        return frameLength;
+    }
+
+    /**
+     * 主机接收时间（UTC 微秒）
+     *
+     * @return
+     */
+    public long getReceiveTime() {
+        return receiveTime;
+    }
+
+    /**
+     * 当前帧的 LLRP 消息类型
+     *
+     * @return
+     */
+    public int getMessageType() {
+        return RawFrameFormat.messageType(frame, 0);
+    }
+
+    /**
+     * 当前帧在文件中的偏移
+     *
+     * @return
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,112 @@
+package com.yxalkaid.rfcollector.capture;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * 原始 LLRP 帧写入器，非线程安全
+ * <p>
+ * 帧先追加到缓冲区，缓冲区满或调用 flush 时写入通道，不解析帧的内容。
+ */
+public class RawFrameWriter implements Closeable {
+
+    /**
+     * 默认缓冲区大小
+     */
+    public static final int DEFAULT_BUFFER_BYTES = 1024 * 1024;
+
+    /**
+     * 输出通道
+     */
+    private final WritableByteChannel channel;
+
+    /**
+     * 写入缓冲区
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * 已写入帧数
+     */
+    private long frameCount;
+
+    /**
+     * 已写入字节数
+     */
+    private long byteCount;
+
+    public RawFrameWriter(WritableByteChannel channel) throws IOException {
+        this(channel, DEFAULT_BUFFER_BYTES);
+    }
+
+    public RawFrameWriter(WritableByteChannel channel, int bufferBytes) throws IOException {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(Math.max(bufferBytes, 4096));
+
+        buffer.putInt(RawFrameFormat.FILE_MAGIC);
+        buffer.putShort(RawFrameFormat.VERSION);
+        buffer.putShort((short) 0);
+        flush();
+    }
+
+    /**
+     * 追加一帧
+     *
+     * @param frame       消息字节
+     * @param offset      消息起始位置
+     * @param length      消息长度
+     * @param receiveTime 主机接收时间（UTC 微秒）
+     * @throws IOException
+     */
+    public void append(byte[] frame, int offset, int length, long receiveTime) throws IOException {
+        if (buffer.remaining() < RawFrameFormat.FRAME_HEADER_BYTES) {
+            flush();
+        }
+        buffer.putLong(receiveTime);
+        buffer.putInt(length);
+
+        // 大于缓冲区的帧分多次写出
+        while (length > 0) {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            int n = Math.min(length, buffer.remaining());
+            buffer.put(frame, offset, n);
+            offset += n;
+            length -= n;
+        }
+        frameCount++;
+    }
+
+    /**
+     * 将缓冲区写入通道
+     *
+     * @throws IOException
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            byteCount += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    public long getByteCount() {
+        return byteCount + buffer.position();
+    }
+}
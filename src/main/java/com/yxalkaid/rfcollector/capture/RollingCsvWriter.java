@@ -0,0 +1,404 @@
+package com.yxalkaid.rfcollector.capture;
+
+import com.csvreader.CsvWriter;
+import com.yxalkaid.rfcollector.domain.TagRecord;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 滚动CSV写入器
+ * <p>
+ * 记录写入 {@code <prefix>_<序号>.csv}，按 {@link RollingPolicy} 切换分段，每个分段都带表头。
+ * 完成的分段可交给后台线程压缩为 {@code .csv.gz}，写入线程不承担压缩开销。
+ * 清单文件 {@code <prefix>_manifest.csv} 列出每个分段的文件名、记录数、字节数与 firstSeenTime 范围，
+ * 分段完成或压缩完成时整体重写（先写临时文件再替换）。
+ * <p>
+ * 写入方法只允许单线程调用。
+ */
+@Slf4j
+public class RollingCsvWriter implements Closeable {
+
+    /**
+     * 清单表头
+     */
+    public static final String[] MANIFEST_HEADER = {"segment", "records", "bytes", "first_time", "last_time", "status"};
+
+    /**
+     * 写入缓冲区大小
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 行分隔符长度，与 CsvWriter 的默认行分隔符一致
+     */
+    private static final int RECORD_DELIMITER_LENGTH = System.lineSeparator().length();
+
+    private final Path directory;
+
+    private final String prefix;
+
+    private final RollingPolicy policy;
+
+    /**
+     * 是否压缩完成的分段
+     */
+    private final boolean compress;
+
+    /**
+     * 清单条目，按分段顺序
+     */
+    private final List<Segment> segments = new ArrayList<>();
+
+    private final ExecutorService compressor;
+
+    private final CsvLayout layout;
+
+    private final String[] line;
+
+    private Segment current;
+
+    private CsvWriter csvWriter;
+
+    private CountingOutputStream counter;
+
+    /**
+     * 当前分段已写入的字节数，按行计算，包含尚在缓冲区中的数据
+     */
+    private long written;
+
+    /**
+     * 当前分段的文件通道
+     */
+    private FileChannel channel;
+
+    private long openedAt;
+
+    /**
+     * 索引每块记录数，不大于0时不建索引
+     */
+    private int indexChunkRecords;
+
+    /**
+     * 当前分段的索引
+     */
+    private CaptureIndexWriter index;
+
+    private boolean closed;
+
+    /**
+     * 构造方法
+     *
+     * @param directory 输出目录
+     * @param prefix    文件名前缀
+     * @param layout    输出布局
+     * @param policy    滚动策略
+     * @param compress  是否在后台压缩完成的分段
+     * @throws IOException
+     */
+    public RollingCsvWriter(Path directory, String prefix, CsvLayout layout, RollingPolicy policy, boolean compress)
+            throws IOException {
+        this.directory = directory;
+        this.prefix = prefix;
+        this.layout = layout;
+        this.line = new String[layout.size()];
+        this.policy = policy;
+        this.compress = compress;
+        this.compressor = compress ? Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "segment-compressor");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        }) : null;
+        Files.createDirectories(directory);
+        openSegment();
+    }
+
+    /**
+     * 写入一条记录，满足滚动条件时在写入后切换分段
+     *
+     * @param tag
+     * @throws IOException
+     */
+    public void write(TagRecord tag) throws IOException {
+        layout.fillLine(tag, line);
+        csvWriter.writeRecord(line);
+        written += recordLength(line);
+        if (index != null && index.add(tag)) {
+            csvWriter.flush();
+            index.endChunk(channel.position());
+        }
+        long records;
+        // 压缩线程在同一把锁下重写清单
+        synchronized (segments) {
+            records = ++current.records;
+            if (tag.has(TagRecord.HAS_FIRST_SEEN_TIME)) {
+                long time = tag.getFirstSeenTime();
+                if (time < current.firstTime) {
+                    current.firstTime = time;
+                }
+                if (time > current.lastTime) {
+                    current.lastTime = time;
+                }
+            }
+        }
+        if (policy.shouldRoll(written, records, openedAt, System.currentTimeMillis())) {
+            roll();
+        }
+    }
+
+    /**
+     * 为当前及之后的分段建立旁路索引（见 {@link CaptureIndex}），压缩分段时索引一并删除
+     *
+     * @param chunkRecords 每块记录数
+     * @throws IOException
+     */
+    public void enableIndex(int chunkRecords) throws IOException {
+        this.indexChunkRecords = chunkRecords;
+        if (index == null) {
+            openIndex(getCurrentPath());
+        }
+    }
+
+    private void openIndex(Path path) throws IOException {
+        csvWriter.flush();
+        index = new CaptureIndexWriter(CaptureIndexWriter.indexPathOf(path), indexChunkRecords);
+        index.begin(channel.position());
+    }
+
+    /**
+     * 立即切换到新的分段
+     *
+     * @throws IOException
+     */
+    public void roll() throws IOException {
+        finishSegment();
+        openSegment();
+    }
+
+    /**
+     * 将缓冲的记录写入操作系统
+     *
+     * @return 当前分段的文件通道
+     * @throws IOException
+     */
+    public FileChannel flush() throws IOException {
+        csvWriter.flush();
+        return channel;
+    }
+
+    /**
+     * 当前分段文件
+     *
+     * @return
+     */
+    public Path getCurrentPath() {
+        return directory.resolve(current.name);
+    }
+
+    public int getSegmentCount() {
+        synchronized (segments) {
+            return segments.size();
+        }
+    }
+
+    private void openSegment() throws IOException {
+        String name = String.format("%s_%04d.csv", prefix, segments.size());
+        Path path = directory.resolve(name);
+        channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        counter = new CountingOutputStream(Channels.newOutputStream(channel));
+        Writer writer = new OutputStreamWriter(new BufferedOutputStream(counter, BUFFER_SIZE), CsvLayout.CHARSET);
+        csvWriter = new CsvWriter(writer, ',');
+        String[] header = layout.getHeader();
+        csvWriter.writeRecord(header);
+        written = recordLength(header);
+        if (indexChunkRecords > 0) {
+            openIndex(path);
+        }
+        current = new Segment(name);
+        synchronized (segments) {
+            segments.add(current);
+        }
+        openedAt = System.currentTimeMillis();
+        log.info("Writing to " + path.toAbsolutePath());
+    }
+
+    /**
+     * 一行的编码后字节数
+     * <p>
+     * 各字段均为数字、十六进制 EPC 或 "null"，GBK 编码下每个字符一个字节，且不需要加引号。
+     *
+     * @param record
+     * @return
+     */
+    private static long recordLength(String[] record) {
+        long length = record.length - 1 + RECORD_DELIMITER_LENGTH;
+        for (String field : record) {
+            if (field != null) {
+                length += field.length();
+            }
+        }
+        return length;
+    }
+
+    private void finishSegment() throws IOException {
+        // 完成的分段在关闭前刷到磁盘
+        csvWriter.flush();
+        if (index != null) {
+            index.close(channel.position());
+            index = null;
+        }
+        channel.force(false);
+        csvWriter.close();
+        Segment segment = current;
+        synchronized (segments) {
+            segment.bytes = counter.count;
+            segment.status = "complete";
+        }
+        writeManifest();
+        log.info("Segment {} complete, records={}, bytes={}", segment.name, segment.records, segment.bytes);
+        if (compress) {
+            compressor.execute(() -> compress(segment));
+        }
+    }
+
+    private void compress(Segment segment) {
+        Path source = directory.resolve(segment.name);
+        String gzName = segment.name + ".gz";
+        Path target = directory.resolve(gzName);
+        Path tmp = directory.resolve(gzName + ".tmp");
+        try {
+            try (InputStream in = Files.newInputStream(source);
+                 OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmp), BUFFER_SIZE)) {
+                in.transferTo(out);
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            synchronized (segments) {
+                segment.name = gzName;
+                segment.status = "compressed";
+            }
+            Files.delete(source);
+            Files.deleteIfExists(CaptureIndexWriter.indexPathOf(source));
+            writeManifest();
+        } catch (IOException e) {
+            log.error("Failed to compress segment {}", source, e);
+        }
+    }
+
+    /**
+     * 重写清单文件
+     */
+    private void writeManifest() {
+        Path manifest = directory.resolve(prefix + "_manifest.csv");
+        Path tmp = directory.resolve(prefix + "_manifest.csv.tmp");
+        synchronized (segments) {
+            try {
+                CsvWriter writer = new CsvWriter(Files.newBufferedWriter(tmp, StandardCharsets.UTF_8), ',');
+                try {
+                    writer.writeRecord(MANIFEST_HEADER);
+                    for (Segment segment : segments) {
+                        writer.writeRecord(new String[]{
+                                segment.name,
+                                Long.toString(segment.records),
+                                Long.toString(segment.bytes),
+                                segment.records > 0 && segment.firstTime != Long.MAX_VALUE ? Long.toString(segment.firstTime) : "null",
+                                segment.records > 0 && segment.lastTime != Long.MIN_VALUE ? Long.toString(segment.lastTime) : "null",
+                                segment.status
+                        });
+                    }
+                } finally {
+                    writer.close();
+                }
+                Files.move(tmp, manifest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                log.error("Failed to write manifest {}", manifest, e);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        finishSegment();
+        if (compressor != null) {
+            compressor.shutdown();
+            try {
+                if (!compressor.awaitTermination(1, TimeUnit.MINUTES)) {
+                    log.warn("Segment compression did not finish");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 清单条目
+     */
+    private static class Segment {
+
+        String name;
+
+        long records;
+
+        long bytes;
+
+        long firstTime = Long.MAX_VALUE;
+
+        long lastTime = Long.MIN_VALUE;
+
+        String status = "writing";
+
+        Segment(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * 统计写入字节数
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
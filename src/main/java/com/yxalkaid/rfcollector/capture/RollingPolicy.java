@@ -0,0 +1,87 @@
+package com.yxalkaid.rfcollector.capture;
+
+/**
+ * 滚动策略，任一条件满足时切换到新的分段，不大于0的条件不生效
+ */
+public class RollingPolicy {
+
+    /**
+     * 分段最大字节数
+     */
+    private final long maxBytes;
+
+    /**
+     * 分段最大记录数
+     */
+    private final long maxRecords;
+
+    /**
+     * 分段最长时间（毫秒，主机时钟）
+     */
+    private final long maxInterval;
+
+    /**
+     * 构造方法
+     *
+     * @param maxBytes    分段最大字节数
+     * @param maxRecords  分段最大记录数
+     * @param maxInterval 分段最长时间（毫秒）
+     */
+    public RollingPolicy(long maxBytes, long maxRecords, long maxInterval) {
+        this.maxBytes = maxBytes;
+        this.maxRecords = maxRecords;
+        this.maxInterval = maxInterval;
+    }
+
+    /**
+     * 按大小滚动
+     *
+     * @param maxBytes
+     * @return
+     */
+    public static RollingPolicy bySize(long maxBytes) {
+        return new RollingPolicy(maxBytes, 0, 0);
+    }
+
+    /**
+     * 按时间滚动
+     *
+     * @param maxInterval 毫秒
+     * @return
+     */
+    public static RollingPolicy byInterval(long maxInterval) {
+        return new RollingPolicy(0, 0, maxInterval);
+    }
+
+    /**
+     * 是否应当滚动
+     *
+     * @param bytes    当前分段字节数
+     * @param records  当前分段记录数
+     * @param openedAt 当前分段打开时间（毫秒）
+     * @param now      当前时间（毫秒）
+     * @return
+     */
+    public boolean shouldRoll(long bytes, long records, long openedAt, long now) {
+        return (maxBytes > 0 && bytes >= maxBytes)
+                || (maxRecords > 0 && records >= maxRecords)
+                || (maxInterval > 0 && now - openedAt >= maxInterval);
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public long getMaxRecords() {
+        return maxRecords;
+    }
+
+    public long getMaxInterval() {
+        return maxInterval;
+    }
+
+    @Override
+    public String toString() {
+        return "RollingPolicy{maxBytes=" + maxBytes + ", maxRecords=" + maxRecords + ", maxInterval=" + maxInterval + "}";
+    }
+}
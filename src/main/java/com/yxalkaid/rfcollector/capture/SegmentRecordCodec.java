@@ -0,0 +1,119 @@
+package com.yxalkaid.rfcollector.capture;
+
+import com.yxalkaid.rfcollector.domain.TagRecord;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 分段文件中标签记录帧的编解码
+ * <pre>
+ * short presence | short antennaId | short channelIndex | short phaseRaw | short peakRssiRaw
+ * short dopplerFrequencyRaw | short tagSeenCount | long firstSeenTime | long lastSeenTime
+ * byte epcLength | epcLength * ASCII（EPC十六进制字符串）
+ * [short readerId]
+ * </pre>
+ * readerId 仅在存在位 HAS_READER_ID 置位时写入，帧长度足以区分两种布局。
+ */
+public final class SegmentRecordCodec {
+
+    /**
+     * 单条记录最大字节数
+     */
+    public static final int MAX_RECORD_BYTES = 2 * 7 + 8 * 2 + 1 + TagRecord.MAX_EPC_BYTES * 2 + 2;
+
+    private SegmentRecordCodec() {
+    }
+
+    /**
+     * 编码记录
+     *
+     * @param tag
+     * @param buf
+     */
+    public static void encode(TagRecord tag, ByteBuffer buf) {
+        buf.putShort((short) tag.getPresence());
+        buf.putShort(tag.getAntennaId());
+        buf.putShort((short) tag.getChannelIndex());
+        buf.putShort(tag.getPhaseRaw());
+        buf.putShort(tag.getPeakRssiRaw());
+        buf.putShort(tag.getDopplerFrequencyRaw());
+        buf.putShort(tag.getTagSeenCount());
+        buf.putLong(tag.getFirstSeenTime());
+        buf.putLong(tag.getLastSeenTime());
+
+        String epc = tag.getEpc();
+        if (epc == null && tag.has(TagRecord.HAS_EPC)) {
+            epc = TagRecord.encodeHex(tag.getEpcBytes(), tag.getEpcLength());
+        }
+        int length = epc == null ? 0 : Math.min(epc.length(), TagRecord.MAX_EPC_BYTES * 2);
+        buf.put((byte) length);
+        for (int i = 0; i < length; i++) {
+            buf.put((byte) epc.charAt(i));
+        }
+
+        if (tag.has(TagRecord.HAS_READER_ID)) {
+            buf.putShort(tag.getReaderId());
+        }
+    }
+
+    /**
+     * 解码记录
+     *
+     * @param buf
+     * @param tag
+     */
+    public static void decode(ByteBuffer buf, TagRecord tag) {
+        tag.clear();
+        int flags = buf.getShort() & 0xFFFF;
+        short antennaId = buf.getShort();
+        int channelIndex = buf.getShort() & 0xFFFF;
+        short phaseRaw = buf.getShort();
+        short peakRssiRaw = buf.getShort();
+        short dopplerFrequencyRaw = buf.getShort();
+        short tagSeenCount = buf.getShort();
+        long firstSeenTime = buf.getLong();
+        long lastSeenTime = buf.getLong();
+
+        int length = buf.get() & 0xFF;
+        if ((flags & TagRecord.HAS_EPC) != 0) {
+            char[] chars = new char[length];
+            for (int i = 0; i < length; i++) {
+                chars[i] = (char) (buf.get() & 0xFF);
+            }
+            tag.setEpcHex(new String(chars));
+        } else {
+            buf.position(buf.position() + length);
+        }
+
+        if ((flags & TagRecord.HAS_ANTENNA_ID) != 0) {
+            tag.setAntennaId(antennaId);
+        }
+        if ((flags & TagRecord.HAS_CHANNEL_INDEX) != 0) {
+            tag.setChannelIndex(channelIndex);
+        }
+        if ((flags & TagRecord.HAS_FIRST_SEEN_TIME) != 0) {
+            tag.setFirstSeenTime(firstSeenTime);
+        }
+        if ((flags & TagRecord.HAS_LAST_SEEN_TIME) != 0) {
+            tag.setLastSeenTime(lastSeenTime);
+        }
+        if ((flags & TagRecord.HAS_TAG_SEEN_COUNT) != 0) {
+            tag.setTagSeenCount(tagSeenCount);
+        }
+        if ((flags & TagRecord.HAS_PEAK_RSSI) != 0) {
+            tag.setPeakRssiRaw(peakRssiRaw);
+        }
+        if ((flags & TagRecord.HAS_DOPPLER_FREQUENCY) != 0) {
+            tag.setDopplerFrequencyRaw(dopplerFrequencyRaw);
+        }
+        if ((flags & TagRecord.HAS_PHASE) != 0) {
+            tag.setPhaseRaw(phaseRaw);
+        }
+        if ((flags & TagRecord.IS_GAP) != 0) {
+            tag.markGap(firstSeenTime, lastSeenTime);
+        }
+        if ((flags & TagRecord.HAS_READER_ID) != 0 && buf.remaining() >= 2) {
+            tag.setReaderId(buf.getShort());
+        }
+    }
+}
@@ -1,18 +1,25 @@
 package com.yxalkaid.rfcollector.controller;
 
-import com.yxalkaid.rfcollector.recorder.BaseRecorder;
+import com.yxalkaid.rfcollector.recorder.Recorder;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * 控制器基类
+ * <p>
+ * 控制器通过 {@link ControlPlane} 提交命令，多个控制器可以共享同一个控制面。
  */
 @Slf4j
 public class BaseController implements Runnable {
 
     /**
-     * RFID 记录器
+     * 控制面
      */
-    protected final BaseRecorder recorder;
+    protected final ControlPlane plane;
+
+    /**
+     * RFID 记录器（控制面的默认记录器）
+     */
+    protected final Recorder recorder;
 
     /**
      * 是否运行中
@@ -20,17 +27,23 @@ public class BaseController implements Runnable {
     protected volatile boolean isRunning;
 
     /**
-     * 构造方法
+     * 构造方法，为单个记录器创建控制面
      * @param recorder
      */
-    public BaseController(BaseRecorder recorder) {
-        if (recorder == null){
-            throw new NullPointerException("recorder cannot be null");
-        }
-        if(!recorder.isConnecting()){
-            log.warn("Recorder is not connected");
+    public BaseController(Recorder recorder) {
+        this(new ControlPlane(recorder));
+    }
+
+    /**
+     * 构造方法
+     * @param plane
+     */
+    public BaseController(ControlPlane plane) {
+        if (plane == null){
+            throw new NullPointerException("plane cannot be null");
         }
-        this.recorder = recorder;
+        this.plane = plane;
+        this.recorder = plane.getRecorder(null);
         this.isRunning = false;
     }
 
@@ -41,18 +54,16 @@ public class BaseController implements Runnable {
         isRunning = true;
         try {
             log.info("Starting one-shot collection for {}ms", duration);
-            recorder.start();
-            Thread.sleep(duration);
-            recorder.stop();
+            plane.session(null, duration).getFuture().join();
             log.info("One-shot collection completed");
-        } catch (InterruptedException e) {
-            log.warn("One-shot collection was interrupted");
-            Thread.currentThread().interrupt();
         } catch (Exception e) {
             log.error("Error during one-shot collection", e);
         } finally {
             isRunning = false;
         }
     }
-}
 
+    public ControlPlane getPlane() {
+        return plane;
+    }
+}
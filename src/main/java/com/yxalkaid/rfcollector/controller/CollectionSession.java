@@ -0,0 +1,103 @@
+package com.yxalkaid.rfcollector.controller;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 定时采集会话
+ * <p>
+ * 在独立的虚拟线程上等待到开始时间，开始采集，等待指定时长后停止。
+ * 取消时若已开始采集则立即停止。
+ */
+@Slf4j
+public class CollectionSession {
+
+    private final int id;
+
+    private final ControlPlane plane;
+
+    /**
+     * 记录器名
+     */
+    private final String recorder;
+
+    private final long delayMs;
+
+    private final long durationMs;
+
+    private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+    private Thread thread;
+
+    private volatile boolean started;
+
+    CollectionSession(int id, ControlPlane plane, String recorder, long delayMs, long durationMs) {
+        this.id = id;
+        this.plane = plane;
+        this.recorder = recorder;
+        this.delayMs = delayMs;
+        this.durationMs = durationMs;
+    }
+
+    synchronized void begin() {
+        thread = Thread.ofVirtual().name("session-" + id).start(this::run);
+    }
+
+    private void run() {
+        try {
+            if (delayMs > 0) {
+                Thread.sleep(delayMs);
+            }
+            plane.start(recorder).join();
+            started = true;
+            log.info("Session {} started, expected to last for {}ms", id, durationMs);
+            Thread.sleep(durationMs);
+        } catch (InterruptedException e) {
+            log.info("Session {} cancelled", id);
+        } catch (Exception e) {
+            log.error("Session {} failed to start", id, e);
+            future.completeExceptionally(e);
+            return;
+        }
+        if (!started) {
+            future.complete(null);
+            return;
+        }
+        plane.stop(recorder).whenComplete((v, e) -> {
+            if (e != null) {
+                log.error("Session {} failed to stop", id, e);
+                future.completeExceptionally(e);
+            } else {
+                log.info("Session {} ended", id);
+                future.complete(null);
+            }
+        });
+    }
+
+    /**
+     * 取消会话，已开始采集时停止采集
+     */
+    public synchronized void cancel() {
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public boolean isStarted() {
+        return started;
+    }
+
+    /**
+     * 会话结束（停止采集或取消）时完成
+     *
+     * @return
+     */
+    public CompletableFuture<Void> getFuture() {
+        return future;
+    }
+}
@@ -1,11 +1,16 @@
 package com.yxalkaid.rfcollector.controller;
 
-import com.yxalkaid.rfcollector.recorder.BaseRecorder;
+import com.yxalkaid.rfcollector.recorder.Recorder;
 import lombok.extern.slf4j.Slf4j;
+
+import java.util.NoSuchElementException;
 import java.util.Scanner;
 
 /**
  * 命令行监听控制器
+ * <p>
+ * 输入 P 开始一次定长采集，Q 结束程序，其余输入按 {@link ControlPlane} 的命令文本执行。
+ * 命令提交后立即返回，采集期间仍可输入其他命令。
  */
 @Slf4j
 public class CommandController extends BaseController {
@@ -13,32 +18,43 @@ public class CommandController extends BaseController {
     // 单次采集时长
     private final long duration;
 
-    public CommandController(BaseRecorder recorder, long duration) {
+    public CommandController(Recorder recorder, long duration) {
         super(recorder);
         this.duration = duration;
     }
 
+    public CommandController(ControlPlane plane, long duration) {
+        super(plane);
+        this.duration = duration;
+    }
+
     @Override
     public void run() {
+        isRunning = true;
         try (Scanner input = new Scanner(System.in)) {
+            System.out.println("Please enter 'P' to start collection, 'Q' to quit");
             while (isRunning && !Thread.interrupted()) {
-                isRunning = false;
-                System.out.println("Please enter 'P' to start collection");
-                String line = input.nextLine();
-                if (line.equalsIgnoreCase("P")) {
-                    isRunning = true;
+                String line = input.nextLine().trim();
+                if (line.isEmpty()) {
+                    continue;
                 }
 
-                if (isRunning) {
+                if (line.equalsIgnoreCase("P")) {
                     log.info(String.format("Start collecting, expected to last for %ds", duration / 1000));
-                    recorder.start();
-                    Thread.sleep(duration);
-                    recorder.stop();
-                    log.info("End collection");
+                    plane.session(null, duration);
+                } else if (line.equalsIgnoreCase("Q")) {
+                    plane.execute("CLOSE").thenAccept(System.out::println);
+                    isRunning = false;
+                } else {
+                    plane.execute(line).thenAccept(System.out::println);
                 }
             }
+        } catch (NoSuchElementException e) {
+            log.info("Command input closed");
         } catch (Exception e) {
             log.error("Error during command collection", e);
+        } finally {
+            isRunning = false;
         }
     }
 
@@ -0,0 +1,395 @@
+package com.yxalkaid.rfcollector.controller;
+
+import com.yxalkaid.rfcollector.recorder.CollectionSchedule;
+import com.yxalkaid.rfcollector.recorder.Recorder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 控制面
+ * <p>
+ * 多个控制器（命令行、UDP、TCP 等）各自运行在虚拟线程上，共同控制一个或多个记录器。
+ * 每个记录器有一个串行的命令队列：同一记录器的启停按提交顺序执行，
+ * 不同记录器的命令互不等待；提交命令立即返回 CompletableFuture，控制器不会因等待读写器应答而阻塞。
+ * 定时采集会话在各自的虚拟线程上等待，不占用平台线程。
+ * <p>
+ * 命令文本（不区分大小写，记录器名省略时为默认记录器，{@code *} 表示所有记录器）：
+ * <pre>
+ * START [name|*]
+ * STOP [name|*]
+ * SESSION &lt;durationMs&gt; [name|*]   立即开始，持续指定时长后停止
+ * ARM &lt;start&gt; &lt;durationMs&gt; [periodMs] [name|*]
+ *                                 由读写器在指定时刻开始，start 为 UTC 毫秒或 +延迟毫秒
+ * CANCEL                          取消所有未结束的会话
+ * STATUS
+ * CLOSE                           停止所有记录器并结束控制面
+ * </pre>
+ */
+@Slf4j
+public class ControlPlane implements Closeable {
+
+    /**
+     * 默认记录器名
+     */
+    public static final String DEFAULT_RECORDER = "default";
+
+    /**
+     * 所有记录器
+     */
+    public static final String ALL = "*";
+
+    /**
+     * 记录器及其串行命令队列
+     */
+    private final Map<String, RecorderSlot> recorders = new ConcurrentHashMap<>();
+
+    /**
+     * 控制器线程
+     */
+    private final List<Thread> controllers = new CopyOnWriteArrayList<>();
+
+    /**
+     * 未结束的会话
+     */
+    private final List<CollectionSession> sessions = new CopyOnWriteArrayList<>();
+
+    private final CountDownLatch shutdown = new CountDownLatch(1);
+
+    private final AtomicInteger sessionCount = new AtomicInteger();
+
+    private volatile String defaultRecorder;
+
+    public ControlPlane() {
+    }
+
+    /**
+     * 以单个记录器构造，注册为默认记录器
+     *
+     * @param recorder
+     */
+    public ControlPlane(Recorder recorder) {
+        this.register(DEFAULT_RECORDER, recorder);
+    }
+
+    /**
+     * 注册记录器，第一个注册的记录器为默认记录器
+     *
+     * @param name
+     * @param recorder
+     */
+    public void register(String name, Recorder recorder) {
+        if (recorder == null) {
+            throw new NullPointerException("recorder cannot be null");
+        }
+        if (!recorder.isConnecting()) {
+            log.warn("Recorder {} is not connected", name);
+        }
+        RecorderSlot slot = new RecorderSlot(name, recorder);
+        if (recorders.putIfAbsent(name, slot) != null) {
+            slot.close();
+            throw new IllegalArgumentException("Recorder already registered: " + name);
+        }
+        synchronized (this) {
+            if (defaultRecorder == null) {
+                defaultRecorder = name;
+            }
+        }
+    }
+
+    /**
+     * 获取记录器
+     *
+     * @param name null 时为默认记录器
+     * @return 未注册时返回 null
+     */
+    public Recorder getRecorder(String name) {
+        RecorderSlot slot = recorders.get(name == null ? defaultRecorder : name);
+        return slot == null ? null : slot.recorder;
+    }
+
+    public Collection<String> getRecorderNames() {
+        return new ArrayList<>(recorders.keySet());
+    }
+
+    /**
+     * 在虚拟线程上运行控制器
+     *
+     * @param name       线程名
+     * @param controller
+     */
+    public void launch(String name, Runnable controller) {
+        Thread thread = Thread.ofVirtual().name("controller-" + name).start(() -> {
+            try {
+                controller.run();
+            } catch (Exception e) {
+                log.error("Controller {} failed", name, e);
+            }
+        });
+        controllers.add(thread);
+    }
+
+    /**
+     * 开始采集
+     *
+     * @param name 记录器名，null 为默认记录器，{@link #ALL} 为所有记录器
+     * @return
+     */
+    public CompletableFuture<Void> start(String name) {
+        return submit(name, Recorder::start);
+    }
+
+    /**
+     * 停止采集
+     *
+     * @param name 记录器名，null 为默认记录器，{@link #ALL} 为所有记录器
+     * @return
+     */
+    public CompletableFuture<Void> stop(String name) {
+        return submit(name, Recorder::stop);
+    }
+
+    /**
+     * 布置定时采集，开始与停止由读写器的 ROSpec 触发器完成
+     *
+     * @param name     记录器名，null 为默认记录器，{@link #ALL} 为所有记录器
+     * @param schedule
+     * @return
+     */
+    public CompletableFuture<Void> arm(String name, CollectionSchedule schedule) {
+        return submit(name, recorder -> recorder.arm(schedule));
+    }
+
+    /**
+     * 立即开始一次定长采集
+     *
+     * @param name       记录器名
+     * @param durationMs 时长（毫秒）
+     * @return
+     */
+    public CollectionSession session(String name, long durationMs) {
+        return schedule(name, 0, durationMs);
+    }
+
+    /**
+     * 延迟开始一次定长采集
+     *
+     * @param name       记录器名
+     * @param delayMs    开始前的延迟（毫秒）
+     * @param durationMs 时长（毫秒）
+     * @return
+     */
+    public CollectionSession schedule(String name, long delayMs, long durationMs) {
+        if (delayMs < 0 || durationMs <= 0) {
+            throw new IllegalArgumentException("Invalid session timing");
+        }
+        resolve(name);
+        CollectionSession session = new CollectionSession(
+                sessionCount.incrementAndGet(), this, name, delayMs, durationMs);
+        sessions.add(session);
+        session.getFuture().whenComplete((v, e) -> sessions.remove(session));
+        session.begin();
+        return session;
+    }
+
+    /**
+     * 未结束的会话
+     *
+     * @return
+     */
+    public List<CollectionSession> getSessions() {
+        return new ArrayList<>(sessions);
+    }
+
+    /**
+     * 执行一条命令文本
+     *
+     * @param line
+     * @return 完成时为应答文本，以 OK 或 ERR 开头
+     */
+    public CompletableFuture<String> execute(String line) {
+        String[] args = line.trim().split("\\s+");
+        try {
+            String verb = args[0].toUpperCase();
+            switch (verb) {
+                case "START":
+                    return reply(start(arg(args, 1)));
+                case "STOP":
+                    return reply(stop(arg(args, 1)));
+                case "SESSION": {
+                    long duration = Long.parseLong(args[1]);
+                    CollectionSession session = session(arg(args, 2), duration);
+                    return CompletableFuture.completedFuture("OK session " + session.getId());
+                }
+                case "ARM": {
+                    long start = args[1].startsWith("+")
+                            ? System.currentTimeMillis() + Long.parseLong(args[1].substring(1))
+                            : Long.parseLong(args[1]);
+                    long duration = Long.parseLong(args[2]);
+                    long period = 0;
+                    int nameIndex = 3;
+                    if (args.length > 3 && isNumber(args[3])) {
+                        period = Long.parseLong(args[3]);
+                        nameIndex = 4;
+                    }
+                    CollectionSchedule schedule = new CollectionSchedule(start, duration, period);
+                    return reply(arm(arg(args, nameIndex), schedule)).thenApply(
+                            r -> r.equals("OK") ? "OK armed at " + schedule.getStartTime() : r);
+                }
+                case "CANCEL":
+                    for (CollectionSession session : getSessions()) {
+                        session.cancel();
+                    }
+                    return CompletableFuture.completedFuture("OK");
+                case "STATUS":
+                    return CompletableFuture.completedFuture("OK " + status());
+                case "CLOSE":
+                    return stop(ALL).handle((v, e) -> {
+                        requestShutdown();
+                        return e == null ? "OK" : "ERR " + e.getMessage();
+                    });
+                default:
+                    return CompletableFuture.completedFuture("ERR unknown command " + args[0]);
+            }
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture("ERR " + e.getMessage());
+        }
+    }
+
+    /**
+     * 请求结束，awaitShutdown 随即返回
+     */
+    public void requestShutdown() {
+        shutdown.countDown();
+    }
+
+    /**
+     * 等待 CLOSE 命令或 requestShutdown
+     *
+     * @throws InterruptedException
+     */
+    public void awaitShutdown() throws InterruptedException {
+        shutdown.await();
+    }
+
+    public boolean isShutdown() {
+        return shutdown.getCount() == 0;
+    }
+
+    /**
+     * 取消会话并结束控制器线程，不关闭记录器
+     */
+    @Override
+    public void close() {
+        requestShutdown();
+        for (CollectionSession session : getSessions()) {
+            session.cancel();
+        }
+        for (Thread controller : controllers) {
+            controller.interrupt();
+        }
+        for (RecorderSlot slot : recorders.values()) {
+            slot.close();
+        }
+    }
+
+    private String status() {
+        StringBuilder sb = new StringBuilder();
+        for (RecorderSlot slot : recorders.values()) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(slot.name).append(slot.recorder.isConnecting() ? "=connected" : "=disconnected");
+        }
+        sb.append(", sessions=").append(sessions.size());
+        return sb.toString();
+    }
+
+    /**
+     * 把命令放入一个或所有记录器的队列
+     */
+    private CompletableFuture<Void> submit(String name, Consumer<Recorder> command) {
+        List<RecorderSlot> targets = resolve(name);
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[targets.size()];
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = targets.get(i).submit(command);
+        }
+        return CompletableFuture.allOf(futures);
+    }
+
+    private List<RecorderSlot> resolve(String name) {
+        List<RecorderSlot> targets = new ArrayList<>();
+        if (ALL.equals(name)) {
+            targets.addAll(recorders.values());
+        } else {
+            RecorderSlot slot = recorders.get(name == null ? defaultRecorder : name);
+            if (slot == null) {
+                throw new IllegalArgumentException("Unknown recorder " + name);
+            }
+            targets.add(slot);
+        }
+        return targets;
+    }
+
+    private static String arg(String[] args, int index) {
+        return args.length > index ? args[index] : null;
+    }
+
+    private static boolean isNumber(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (!Character.isDigit(s.charAt(i))) {
+                return false;
+            }
+        }
+        return !s.isEmpty();
+    }
+
+    private static CompletableFuture<String> reply(CompletableFuture<Void> future) {
+        return future.handle((v, e) -> e == null ? "OK" : "ERR " + rootMessage(e));
+    }
+
+    private static String rootMessage(Throwable e) {
+        while (e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e.getMessage();
+    }
+
+    /**
+     * 记录器及其串行命令队列
+     */
+    private static final class RecorderSlot {
+
+        private final String name;
+
+        private final Recorder recorder;
+
+        private final ExecutorService queue;
+
+        RecorderSlot(String name, Recorder recorder) {
+            this.name = name;
+            this.recorder = recorder;
+            this.queue = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("control-" + name).factory());
+        }
+
+        CompletableFuture<Void> submit(Consumer<Recorder> command) {
+            return CompletableFuture.runAsync(() -> command.accept(recorder), queue);
+        }
+
+        void close() {
+            queue.shutdownNow();
+        }
+    }
+}
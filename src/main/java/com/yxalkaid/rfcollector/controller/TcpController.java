@@ -0,0 +1,201 @@
+package com.yxalkaid.rfcollector.controller;
+
+import com.yxalkaid.rfcollector.recorder.Recorder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * TCP监听控制器
+ * <p>
+ * 按行接收 {@link ControlPlane} 命令文本，每条命令回复一行应答；
+ * 每个客户端连接在独立的虚拟线程上处理，同一连接上的应答按命令顺序返回。
+ * <p>
+ * 命令没有认证，默认只监听本机回环地址；需要远程控制时显式指定监听地址。
+ * 读取时即限制行长，超长的行在读取过程中丢弃，不会在内存中缓冲整行。
+ */
+@Slf4j
+public class TcpController extends BaseController {
+
+    /**
+     * 默认监听端口
+     */
+    public static final int DEFAULT_PORT = 9091;
+
+    /**
+     * 单行命令的最大长度
+     */
+    private static final int MAX_LINE = 1024;
+
+    /**
+     * 行过长，已丢弃到行尾
+     */
+    private static final int TOO_LONG = -2;
+
+    /**
+     * 监听地址
+     */
+    private final InetSocketAddress address;
+
+    /**
+     * 已连接的客户端
+     */
+    private final Set<Socket> clients = ConcurrentHashMap.newKeySet();
+
+    private volatile ServerSocket serverSocket;
+
+    /**
+     * 在本机回环地址上监听
+     *
+     * @param recorder
+     * @param port
+     */
+    public TcpController(Recorder recorder, int port) {
+        super(recorder);
+        this.address = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+    }
+
+    /**
+     * 在本机回环地址上监听
+     *
+     * @param plane
+     * @param port
+     */
+    public TcpController(ControlPlane plane, int port) {
+        this(plane, new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param plane
+     * @param address 监听地址，非回环地址会把无认证的控制命令暴露给网络
+     */
+    public TcpController(ControlPlane plane, InetSocketAddress address) {
+        super(plane);
+        this.address = address;
+    }
+
+    @Override
+    public void run() {
+        isRunning = true;
+        try (ServerSocket server = new ServerSocket()) {
+            server.setReuseAddress(true);
+            server.bind(this.address);
+            this.serverSocket = server;
+            log.info("TCP listener started on {}", this.address);
+
+            while (isRunning && !Thread.interrupted()) {
+                Socket client = server.accept();
+                clients.add(client);
+                Thread.ofVirtual().name("tcp-client-" + client.getRemoteSocketAddress()).start(() -> serve(client));
+            }
+        } catch (SocketException e) {
+            if (isRunning) {
+                log.error("Error during TCP command processing", e);
+            }
+        } catch (Exception e) {
+            log.error("Error during TCP command processing", e);
+        } finally {
+            isRunning = false;
+            for (Socket client : clients) {
+                closeQuietly(client);
+            }
+        }
+    }
+
+    private void serve(Socket client) {
+        log.info("TCP client connected: {}", client.getRemoteSocketAddress());
+        try (InputStream in = new BufferedInputStream(client.getInputStream(), MAX_LINE);
+             PrintWriter out = new PrintWriter(client.getOutputStream(), true, StandardCharsets.US_ASCII)) {
+            byte[] buffer = new byte[MAX_LINE];
+            int length;
+            while (isRunning && (length = readLine(in, buffer)) != -1) {
+                if (length == TOO_LONG) {
+                    out.println("ERR command too long");
+                    continue;
+                }
+                String line = new String(buffer, 0, length, StandardCharsets.US_ASCII);
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (line.trim().equalsIgnoreCase("QUIT")) {
+                    out.println("OK");
+                    break;
+                }
+                // 虚拟线程上等待应答不占用平台线程
+                out.println(plane.execute(line).join());
+            }
+        } catch (IOException e) {
+            if (isRunning) {
+                log.debug("TCP client {} failed", client.getRemoteSocketAddress(), e);
+            }
+        } finally {
+            clients.remove(client);
+            closeQuietly(client);
+            log.info("TCP client disconnected: {}", client.getRemoteSocketAddress());
+        }
+    }
+
+    /**
+     * 读取一行到 buffer，去掉行尾的 \r\n
+     *
+     * @param in
+     * @param buffer 长度即最大行长
+     * @return 行长；连接关闭时为 -1；超过最大行长时丢弃到行尾并返回 TOO_LONG
+     * @throws IOException
+     */
+    private static int readLine(InputStream in, byte[] buffer) throws IOException {
+        int length = 0;
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            if (length < buffer.length) {
+                buffer[length] = (byte) b;
+            }
+            if (length <= buffer.length) {
+                length++;
+            }
+        }
+        if (b == -1 && length == 0) {
+            return -1;
+        }
+        if (length > buffer.length) {
+            return TOO_LONG;
+        }
+        if (length > 0 && buffer[length - 1] == '\r') {
+            length--;
+        }
+        return length;
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            log.debug("Error closing socket", e);
+        }
+    }
+
+    public void stop() {
+        isRunning = false;
+        ServerSocket server = this.serverSocket;
+        if (server != null) {
+            try {
+                server.close();
+            } catch (IOException e) {
+                log.debug("Error closing server socket", e);
+            }
+        }
+    }
+}
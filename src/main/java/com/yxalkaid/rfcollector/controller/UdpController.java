@@ -1,57 +1,128 @@
 package com.yxalkaid.rfcollector.controller;
 
+import java.io.IOException;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
 
-import com.yxalkaid.rfcollector.recorder.BaseRecorder;
+import com.yxalkaid.rfcollector.recorder.Recorder;
 
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * UDP监听控制器
+ * <p>
+ * 每个数据包是一条 {@link ControlPlane} 命令文本，命令异步执行，完成后向发送方回复应答文本。
+ * <p>
+ * 命令没有认证，默认只监听本机回环地址；需要远程控制时显式指定监听地址。
  */
 @Slf4j
 public class UdpController extends BaseController {
 
     /**
-     * 监听端口
+     * 默认监听端口
      */
-    private final int port;
+    public static final int DEFAULT_PORT = 9090;
 
-    public UdpController(BaseRecorder recorder, int port) {
+    /**
+     * 监听地址
+     */
+    private final InetSocketAddress address;
+
+    private volatile DatagramSocket socket;
+
+    /**
+     * 在本机回环地址上监听
+     *
+     * @param recorder
+     * @param port
+     */
+    public UdpController(Recorder recorder, int port) {
         super(recorder);
-        this.port = port;
+        this.address = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+    }
+
+    /**
+     * 在本机回环地址上监听
+     *
+     * @param plane
+     * @param port
+     */
+    public UdpController(ControlPlane plane, int port) {
+        this(plane, new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param plane
+     * @param address 监听地址，非回环地址会把无认证的控制命令暴露给网络
+     */
+    public UdpController(ControlPlane plane, InetSocketAddress address) {
+        super(plane);
+        this.address = address;
     }
 
     @Override
     public void run() {
-        try (DatagramSocket socket = new DatagramSocket(this.port)) {
-            log.info("UDP listener started on port {}", this.port);
+        isRunning = true;
+        try (DatagramSocket socket = new DatagramSocket(this.address)) {
+            this.socket = socket;
+            log.info("UDP listener started on {}", this.address);
 
             byte[] buffer = new byte[1024];
+            DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
             while (isRunning && !Thread.interrupted()) {
-                DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+                packet.setLength(buffer.length);
                 socket.receive(packet);
 
-                String command = new String(packet.getData(), 0, packet.getLength()).trim();
+                // 去掉首尾空白后只解码一次
+                int start = 0;
+                int end = packet.getLength();
+                while (start < end && buffer[start] <= ' ') {
+                    start++;
+                }
+                while (end > start && buffer[end - 1] <= ' ') {
+                    end--;
+                }
+                if (start == end) {
+                    continue;
+                }
+                String command = new String(buffer, start, end - start, StandardCharsets.US_ASCII);
+                SocketAddress sender = packet.getSocketAddress();
                 log.info("Received UDP command: {}", command);
 
-                // 处理命令
-                if ("START".equalsIgnoreCase(command)) {
-                    recorder.start();
-                } else if ("STOP".equalsIgnoreCase(command)) {
-                    recorder.stop();
-                } else if ("CLOSE".equalsIgnoreCase(command)) {
-                    recorder.stop();
-                    isRunning = false;
-                }
+                plane.execute(command).thenAccept(reply -> reply(socket, sender, reply));
+            }
+        } catch (SocketException e) {
+            if (isRunning) {
+                log.error("Error during UDP command processing", e);
             }
         } catch (Exception e) {
             log.error("Error during UDP command processing", e);
+        } finally {
+            isRunning = false;
+        }
+    }
+
+    private static void reply(DatagramSocket socket, SocketAddress sender, String reply) {
+        byte[] bytes = reply.getBytes(StandardCharsets.US_ASCII);
+        try {
+            socket.send(new DatagramPacket(bytes, bytes.length, sender));
+        } catch (IOException e) {
+            log.debug("Failed to reply to {}", sender, e);
         }
     }
 
     public void stop() {
         isRunning = false;
+        DatagramSocket socket = this.socket;
+        if (socket != null) {
+            socket.close();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,42 @@
+package com.yxalkaid.rfcollector.domain;
+
+import lombok.Getter;
+
+/**
+ * 规范化的EPC，由 EpcTable 为每个不同的标签创建一次
+ */
+@Getter
+public final class Epc {
+
+    /**
+     * 表内编号，从0开始连续分配
+     */
+    private final int id;
+
+    /**
+     * EPC字节，只读
+     */
+    private final byte[] bytes;
+
+    /**
+     * EPC十六进制字符串
+     */
+    private final String hex;
+
+    /**
+     * 字节哈希
+     */
+    private final int hash;
+
+    Epc(int id, byte[] bytes, String hex, int hash) {
+        this.id = id;
+        this.bytes = bytes;
+        this.hex = hex;
+        this.hash = hash;
+    }
+
+    @Override
+    public String toString() {
+        return hex;
+    }
+}
@@ -0,0 +1,139 @@
+package com.yxalkaid.rfcollector.domain;
+
+import java.util.Arrays;
+
+/**
+ * EPC驻留表
+ * <p>
+ * 以EPC字节为键，将每个不同的标签映射到唯一的 {@link Epc} 对象。
+ * 采用开放寻址，命中时只做哈希与字节比较，不产生对象。
+ * 非线程安全，多个线程共享同一张表时需在表上同步。
+ */
+public class EpcTable {
+
+    /**
+     * 哈希槽
+     */
+    private Epc[] slots;
+
+    /**
+     * 按编号索引的条目
+     */
+    private Epc[] byId;
+
+    /**
+     * 条目数
+     */
+    private int size;
+
+    public EpcTable() {
+        this(256);
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param expectedSize 预期的不同标签数
+     */
+    public EpcTable(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 8) * 2 - 1) << 1;
+        this.slots = new Epc[capacity];
+        this.byId = new Epc[Math.max(expectedSize, 8)];
+    }
+
+    /**
+     * 查找EPC
+     *
+     * @param bytes
+     * @param length
+     * @return 未登记时返回 null
+     */
+    public Epc find(byte[] bytes, int length) {
+        int hash = hash(bytes, length);
+        Epc[] table = slots;
+        int mask = table.length - 1;
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            Epc epc = table[i];
+            if (epc == null) {
+                return null;
+            }
+            if (epc.getHash() == hash && Arrays.equals(epc.getBytes(), 0, epc.getBytes().length, bytes, 0, length)) {
+                return epc;
+            }
+        }
+    }
+
+    /**
+     * 登记EPC，已存在时返回已有对象
+     *
+     * @param bytes
+     * @param length
+     * @param hex    十六进制字符串
+     * @return
+     */
+    public Epc add(byte[] bytes, int length, String hex) {
+        Epc existing = find(bytes, length);
+        if (existing != null) {
+            return existing;
+        }
+
+        if ((size + 1) * 2 > slots.length) {
+            rehash(slots.length << 1);
+        }
+        if (size == byId.length) {
+            byId = Arrays.copyOf(byId, size << 1);
+        }
+
+        Epc epc = new Epc(size, Arrays.copyOf(bytes, length), hex, hash(bytes, length));
+        insert(slots, epc);
+        byId[size++] = epc;
+        return epc;
+    }
+
+    /**
+     * 按编号获取
+     *
+     * @param id
+     * @return
+     */
+    public Epc get(int id) {
+        return id >= 0 && id < size ? byId[id] : null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void rehash(int capacity) {
+        Epc[] table = new Epc[capacity];
+        for (int i = 0; i < size; i++) {
+            insert(table, byId[i]);
+        }
+        slots = table;
+    }
+
+    private static void insert(Epc[] table, Epc epc) {
+        int mask = table.length - 1;
+        int i = epc.getHash() & mask;
+        while (table[i] != null) {
+            i = (i + 1) & mask;
+        }
+        table[i] = epc;
+    }
+
+    /**
+     * FNV-1a 哈希
+     *
+     * @param bytes
+     * @param length
+     * @return
+     */
+    static int hash(byte[] bytes, int length) {
+        int h = 0x811C9DC5;
+        for (int i = 0; i < length; i++) {
+            h ^= bytes[i] & 0xFF;
+            h *= 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+}
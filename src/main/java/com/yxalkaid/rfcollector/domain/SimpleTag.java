@@ -3,6 +3,11 @@ package com.yxalkaid.rfcollector.domain;
 import lombok.Getter;
 import lombok.Setter;
 
+/**
+ * 标签，字段为包装类型的便捷视图
+ * <p>
+ * 采集热路径使用 {@link TagRecord}，需要时通过 {@link TagRecord#toSimpleTag()} 转换。
+ */
 @Getter
 @Setter
 public class SimpleTag {
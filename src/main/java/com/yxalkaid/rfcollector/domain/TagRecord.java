@@ -0,0 +1,427 @@
+package com.yxalkaid.rfcollector.domain;
+
+import lombok.Getter;
+
+/**
+ * 标签记录，仅包含基本类型字段，可被反复填充复用
+ * <p>
+ * 字段是否存在由存在位表示，取代 SimpleTag 中的 null 值。
+ */
+@Getter
+public class TagRecord {
+
+    /**
+     * EPC最大字节数（Gen2 EPC 最长496位）
+     */
+    public static final int MAX_EPC_BYTES = 62;
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    public static final int HAS_EPC = 1;
+    public static final int HAS_ANTENNA_ID = 1 << 1;
+    public static final int HAS_CHANNEL_INDEX = 1 << 2;
+    public static final int HAS_FIRST_SEEN_TIME = 1 << 3;
+    public static final int HAS_LAST_SEEN_TIME = 1 << 4;
+    public static final int HAS_TAG_SEEN_COUNT = 1 << 5;
+    public static final int HAS_PEAK_RSSI = 1 << 6;
+    public static final int HAS_DOPPLER_FREQUENCY = 1 << 7;
+    public static final int HAS_PHASE = 1 << 8;
+    public static final int HAS_READER_ID = 1 << 9;
+    /**
+     * 间断标记：采集因连接中断而缺失数据，firstSeenTime 至 lastSeenTime 为缺失区间
+     */
+    public static final int IS_GAP = 1 << 10;
+    /**
+     * 解缠绕相位，由处理阶段计算，不写入二进制格式
+     */
+    public static final int HAS_UNWRAPPED_PHASE = 1 << 11;
+    /**
+     * 换算到主机时钟的时间，由处理阶段计算，不写入二进制格式
+     */
+    public static final int HAS_HOST_TIME = 1 << 12;
+
+    /**
+     * 原始相位到弧度的系数
+     */
+    public static final double PHASE_RADIANS_PER_UNIT = Math.PI / 2048;
+
+    /**
+     * 存在位
+     */
+    private int presence;
+
+    /**
+     * EPC字节，仅前 epcLength 个字节有效
+     */
+    private final byte[] epcBytes = new byte[MAX_EPC_BYTES];
+
+    /**
+     * EPC有效字节数
+     */
+    private int epcLength;
+
+    /**
+     * EPC，十六进制字符串
+     */
+    private String epc;
+
+    /**
+     * EPC在驻留表中的编号，-1 表示未驻留
+     */
+    private int epcId = -1;
+
+    /**
+     * 天线端口号
+     */
+    private short antennaId;
+
+    /**
+     * 信道索引
+     */
+    private int channelIndex;
+
+    /**
+     * 首次检测到标签的时间戳（微秒）
+     */
+    private long firstSeenTime;
+
+    /**
+     * 最后检测到标签的时间戳（微秒）
+     */
+    private long lastSeenTime;
+
+    /**
+     * 标签被检测到的次数
+     */
+    private short tagSeenCount;
+
+    /**
+     * 峰值RSSI（原始值），乘以 1/100 得到实际的dBm值
+     */
+    private short peakRssiRaw;
+
+    /**
+     * 多普勒频移（原始值），乘以 1/16 得到实际的Hz值
+     */
+    private short dopplerFrequencyRaw;
+
+    /**
+     * 相位（原始值），值范围为0至4096，乘以 π/2048 得到实际的相位角弧度值
+     */
+    private short phaseRaw;
+
+    /**
+     * 读写器编号，多读写器采集时区分记录来源
+     */
+    private short readerId;
+
+    /**
+     * 按EPC、天线、信道连续解缠绕后的相位（弧度）
+     */
+    private double unwrappedPhase;
+
+    /**
+     * 换算到主机时钟的首次检测时间（微秒）
+     */
+    private long hostTime;
+
+    /**
+     * 清空记录
+     */
+    public void clear() {
+        this.presence = 0;
+        this.epcLength = 0;
+        this.epc = null;
+        this.epcId = -1;
+    }
+
+    /**
+     * 字段是否存在
+     *
+     * @param flag 存在位
+     * @return
+     */
+    public boolean has(int flag) {
+        return (presence & flag) != 0;
+    }
+
+    /**
+     * 设置EPC十六进制字符串，并解码到字节数组
+     *
+     * @param hex
+     */
+    public void setEpcHex(String hex) {
+        this.epc = hex;
+        this.epcLength = decodeHex(hex, this.epcBytes);
+        this.epcId = -1;
+        this.presence |= HAS_EPC;
+    }
+
+    /**
+     * 设置驻留的EPC，只复制字节，不产生对象
+     *
+     * @param epc
+     */
+    public void setEpc(Epc epc) {
+        byte[] bytes = epc.getBytes();
+        System.arraycopy(bytes, 0, this.epcBytes, 0, bytes.length);
+        this.epcLength = bytes.length;
+        this.epc = epc.getHex();
+        this.epcId = epc.getId();
+        this.presence |= HAS_EPC;
+    }
+
+    /**
+     * 设置EPC字节
+     *
+     * @param bytes
+     * @param offset
+     * @param length
+     * @param hex    对应的十六进制字符串，可为空
+     */
+    public void setEpc(byte[] bytes, int offset, int length, String hex) {
+        int n = Math.min(length, MAX_EPC_BYTES);
+        System.arraycopy(bytes, offset, this.epcBytes, 0, n);
+        this.epcLength = n;
+        this.epc = hex;
+        this.epcId = -1;
+        this.presence |= HAS_EPC;
+    }
+
+    public void setAntennaId(short antennaId) {
+        this.antennaId = antennaId;
+        this.presence |= HAS_ANTENNA_ID;
+    }
+
+    public void setChannelIndex(int channelIndex) {
+        this.channelIndex = channelIndex;
+        this.presence |= HAS_CHANNEL_INDEX;
+    }
+
+    public void setFirstSeenTime(long firstSeenTime) {
+        this.firstSeenTime = firstSeenTime;
+        this.presence |= HAS_FIRST_SEEN_TIME;
+    }
+
+    public void setLastSeenTime(long lastSeenTime) {
+        this.lastSeenTime = lastSeenTime;
+        this.presence |= HAS_LAST_SEEN_TIME;
+    }
+
+    public void setTagSeenCount(short tagSeenCount) {
+        this.tagSeenCount = tagSeenCount;
+        this.presence |= HAS_TAG_SEEN_COUNT;
+    }
+
+    public void setPeakRssiRaw(short peakRssiRaw) {
+        this.peakRssiRaw = peakRssiRaw;
+        this.presence |= HAS_PEAK_RSSI;
+    }
+
+    public void setDopplerFrequencyRaw(short dopplerFrequencyRaw) {
+        this.dopplerFrequencyRaw = dopplerFrequencyRaw;
+        this.presence |= HAS_DOPPLER_FREQUENCY;
+    }
+
+    public void setPhaseRaw(short phaseRaw) {
+        this.phaseRaw = phaseRaw;
+        this.presence |= HAS_PHASE;
+    }
+
+    public void setReaderId(short readerId) {
+        this.readerId = readerId;
+        this.presence |= HAS_READER_ID;
+    }
+
+    public void setUnwrappedPhase(double unwrappedPhase) {
+        this.unwrappedPhase = unwrappedPhase;
+        this.presence |= HAS_UNWRAPPED_PHASE;
+    }
+
+    public void setHostTime(long hostTime) {
+        this.hostTime = hostTime;
+        this.presence |= HAS_HOST_TIME;
+    }
+
+    /**
+     * 用于跨来源排序的时间：有主机时间时为主机时间，否则为 firstSeenTime
+     *
+     * @return
+     */
+    public long getAlignedTime() {
+        return has(HAS_HOST_TIME) ? hostTime : firstSeenTime;
+    }
+
+    /**
+     * 相位（弧度）
+     *
+     * @return
+     */
+    public double getPhaseRadians() {
+        return phaseRaw * PHASE_RADIANS_PER_UNIT;
+    }
+
+    /**
+     * 峰值RSSI（dBm）
+     *
+     * @return
+     */
+    public double getPeakRssiDbm() {
+        return peakRssiRaw / 100.0;
+    }
+
+    /**
+     * 多普勒频移（Hz）
+     *
+     * @return
+     */
+    public double getDopplerFrequencyHz() {
+        return dopplerFrequencyRaw / 16.0;
+    }
+
+    /**
+     * 填充为间断标记
+     *
+     * @param from 间断开始时间（微秒）
+     * @param to   间断结束时间（微秒）
+     */
+    public void markGap(long from, long to) {
+        clear();
+        setFirstSeenTime(from);
+        setLastSeenTime(to);
+        this.presence |= IS_GAP;
+    }
+
+    /**
+     * 从另一条记录复制
+     *
+     * @param other
+     */
+    public void copyFrom(TagRecord other) {
+        this.presence = other.presence;
+        System.arraycopy(other.epcBytes, 0, this.epcBytes, 0, other.epcLength);
+        this.epcLength = other.epcLength;
+        this.epc = other.epc;
+        this.epcId = other.epcId;
+        this.antennaId = other.antennaId;
+        this.channelIndex = other.channelIndex;
+        this.firstSeenTime = other.firstSeenTime;
+        this.lastSeenTime = other.lastSeenTime;
+        this.tagSeenCount = other.tagSeenCount;
+        this.peakRssiRaw = other.peakRssiRaw;
+        this.dopplerFrequencyRaw = other.dopplerFrequencyRaw;
+        this.phaseRaw = other.phaseRaw;
+        this.readerId = other.readerId;
+        this.unwrappedPhase = other.unwrappedPhase;
+        this.hostTime = other.hostTime;
+    }
+
+    /**
+     * 转换为SimpleTag
+     *
+     * @return
+     */
+    public SimpleTag toSimpleTag() {
+        SimpleTag tag = new SimpleTag();
+        if (has(HAS_EPC)) {
+            tag.setEpc(epc != null ? epc : encodeHex(epcBytes, epcLength));
+        }
+        if (has(HAS_ANTENNA_ID)) {
+            tag.setAntennaId(antennaId);
+        }
+        if (has(HAS_CHANNEL_INDEX)) {
+            tag.setChannelIndex(channelIndex);
+        }
+        if (has(HAS_FIRST_SEEN_TIME)) {
+            tag.setFirstSeenTime(firstSeenTime);
+        }
+        if (has(HAS_LAST_SEEN_TIME)) {
+            tag.setLastSeenTime(lastSeenTime);
+        }
+        if (has(HAS_TAG_SEEN_COUNT)) {
+            tag.setTagSeenCount(tagSeenCount);
+        }
+        if (has(HAS_PEAK_RSSI)) {
+            tag.setPeakRssiRaw(peakRssiRaw);
+        }
+        if (has(HAS_DOPPLER_FREQUENCY)) {
+            tag.setDopplerFrequencyRaw(dopplerFrequencyRaw);
+        }
+        if (has(HAS_PHASE)) {
+            tag.setPhaseRaw(phaseRaw);
+        }
+        return tag;
+    }
+
+    /**
+     * 从SimpleTag填充
+     *
+     * @param tag
+     */
+    public void fromSimpleTag(SimpleTag tag) {
+        clear();
+        if (tag.getEpc() != null) {
+            setEpcHex(tag.getEpc());
+        }
+        if (tag.getAntennaId() != null) {
+            setAntennaId(tag.getAntennaId());
+        }
+        if (tag.getChannelIndex() != null) {
+            setChannelIndex(tag.getChannelIndex());
+        }
+        if (tag.getFirstSeenTime() != null) {
+            setFirstSeenTime(tag.getFirstSeenTime());
+        }
+        if (tag.getLastSeenTime() != null) {
+            setLastSeenTime(tag.getLastSeenTime());
+        }
+        if (tag.getTagSeenCount() != null) {
+            setTagSeenCount(tag.getTagSeenCount());
+        }
+        if (tag.getPeakRssiRaw() != null) {
+            setPeakRssiRaw(tag.getPeakRssiRaw());
+        }
+        if (tag.getDopplerFrequencyRaw() != null) {
+            setDopplerFrequencyRaw(tag.getDopplerFrequencyRaw());
+        }
+        if (tag.getPhaseRaw() != null) {
+            setPhaseRaw(tag.getPhaseRaw());
+        }
+    }
+
+    /**
+     * 十六进制字符串解码为字节，奇数长度时右对齐
+     *
+     * @param hex
+     * @param out
+     * @return 字节数
+     */
+    public static int decodeHex(String hex, byte[] out) {
+        int digits = hex.length();
+        int length = Math.min((digits + 1) >> 1, out.length);
+        int d = digits - 1;
+        for (int i = length - 1; i >= 0; i--) {
+            int lo = d >= 0 ? Character.digit(hex.charAt(d--), 16) : 0;
+            int hi = d >= 0 ? Character.digit(hex.charAt(d--), 16) : 0;
+            out[i] = (byte) (((hi & 0xF) << 4) | (lo & 0xF));
+        }
+        return length;
+    }
+
+    /**
+     * 字节编码为大写十六进制字符串
+     *
+     * @param bytes
+     * @param length
+     * @return
+     */
+    public static String encodeHex(byte[] bytes, int length) {
+        char[] chars = new char[length << 1];
+        for (int i = 0; i < length; i++) {
+            int b = bytes[i] & 0xFF;
+            chars[i << 1] = HEX_DIGITS[b >>> 4];
+            chars[(i << 1) + 1] = HEX_DIGITS[b & 0xF];
+        }
+        return new String(chars);
+    }
+}
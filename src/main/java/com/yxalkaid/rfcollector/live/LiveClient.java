@@ -0,0 +1,96 @@
+package com.yxalkaid.rfcollector.live;
+
+import com.yxalkaid.rfcollector.capture.SegmentRecordCodec;
+import com.yxalkaid.rfcollector.domain.TagRecord;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * 实时流订阅端，逐条读取 {@link LivePublisher} 推送的记录
+ */
+public class LiveClient implements Closeable {
+
+    private final SocketChannel channel;
+
+    private final ByteBuffer buf = ByteBuffer.allocateDirect(64 * 1024);
+
+    /**
+     * 构造方法
+     *
+     * @param address InetSocketAddress 或 UnixDomainSocketAddress
+     * @throws IOException 连接失败或连接头不匹配
+     */
+    public LiveClient(SocketAddress address) throws IOException {
+        if (address instanceof UnixDomainSocketAddress) {
+            this.channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+        } else {
+            this.channel = SocketChannel.open();
+            this.channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        }
+        this.channel.connect(address);
+        this.buf.limit(0);
+
+        ensure(LiveFormat.HEADER_BYTES);
+        int magic = buf.getInt();
+        short version = buf.getShort();
+        if (magic != LiveFormat.MAGIC || version != LiveFormat.VERSION) {
+            channel.close();
+            throw new IOException("Not a live stream or unsupported version: " + version);
+        }
+    }
+
+    public LiveClient(int port) throws IOException {
+        this(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+
+    /**
+     * 读取下一条记录，阻塞直到有数据
+     *
+     * @param tag 复用的记录
+     * @return 连接关闭时返回 false
+     * @throws IOException
+     */
+    public boolean read(TagRecord tag) throws IOException {
+        try {
+            ensure(LiveFormat.FRAME_HEADER_BYTES);
+            int length = buf.getShort() & 0xFFFF;
+            ensure(length);
+            int limit = buf.limit();
+            buf.limit(buf.position() + length);
+            SegmentRecordCodec.decode(buf, tag);
+            buf.position(buf.limit());
+            buf.limit(limit);
+            return true;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buf.remaining() >= bytes) {
+            return;
+        }
+        buf.compact();
+        while (buf.position() < bytes) {
+            if (channel.read(buf) < 0) {
+                throw new EOFException();
+            }
+        }
+        buf.flip();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,42 @@
+package com.yxalkaid.rfcollector.live;
+
+import com.yxalkaid.rfcollector.capture.SegmentRecordCodec;
+
+/**
+ * 实时流的传输格式
+ * <pre>
+ * 连接建立后服务端先发送：int MAGIC | short VERSION
+ * 之后每条记录一帧：short length | length 字节（{@link SegmentRecordCodec} 编码的记录）
+ * </pre>
+ * 所有整数为大端序。
+ */
+public final class LiveFormat {
+
+    /**
+     * 魔数 "RFLV"
+     */
+    public static final int MAGIC = 0x52464C56;
+
+    /**
+     * 格式版本
+     */
+    public static final short VERSION = 1;
+
+    /**
+     * 连接头字节数
+     */
+    public static final int HEADER_BYTES = 6;
+
+    /**
+     * 帧长度前缀字节数
+     */
+    public static final int FRAME_HEADER_BYTES = 2;
+
+    /**
+     * 单帧最大字节数
+     */
+    public static final int MAX_FRAME_BYTES = FRAME_HEADER_BYTES + SegmentRecordCodec.MAX_RECORD_BYTES;
+
+    private LiveFormat() {
+    }
+}
@@ -0,0 +1,234 @@
+package com.yxalkaid.rfcollector.live;
+
+import com.yxalkaid.rfcollector.capture.SegmentRecordCodec;
+import com.yxalkaid.rfcollector.domain.TagRecord;
+import com.yxalkaid.rfcollector.pipeline.BackpressurePolicy;
+import com.yxalkaid.rfcollector.processing.TagProcessor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 实时发布，将解码后的标签记录推送给本机订阅者
+ * <p>
+ * 作为处理阶段添加到记录器上，在连接的 I/O 线程上紧接解码执行，不经过流水线与写盘。
+ * 每条记录只编码一次（{@link LiveFormat}），再复制到各订阅者的有界队列，由各自的发送线程写出；
+ * 队列已满时按策略丢帧，采集端不会被慢速订阅者阻塞。
+ * <p>
+ * 支持 TCP（仅监听回环地址）与 Unix 域套接字。
+ */
+@Slf4j
+public class LivePublisher implements TagProcessor, Closeable {
+
+    /**
+     * 默认端口
+     */
+    public static final int DEFAULT_PORT = 5090;
+
+    /**
+     * 默认每个订阅者的队列容量（帧）
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 4096;
+
+    private final SocketAddress address;
+
+    /**
+     * 每个订阅者的队列容量（帧）
+     */
+    private final int queueCapacity;
+
+    /**
+     * 队列已满时的策略
+     */
+    private final BackpressurePolicy policy;
+
+    private final CopyOnWriteArrayList<LiveSubscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    /**
+     * 编码缓冲区
+     */
+    private final byte[] frame = new byte[LiveFormat.MAX_FRAME_BYTES];
+
+    private final ByteBuffer frameBuffer = ByteBuffer.wrap(frame);
+
+    private ServerSocketChannel serverChannel;
+
+    private Thread acceptThread;
+
+    /**
+     * 已发布的记录数
+     */
+    private long publishCount;
+
+    /**
+     * 在本机回环地址的端口上发布
+     *
+     * @param port
+     */
+    public LivePublisher(int port) {
+        this(new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+                DEFAULT_QUEUE_CAPACITY, BackpressurePolicy.DROP_OLDEST);
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param address       监听地址，InetSocketAddress 或 UnixDomainSocketAddress
+     * @param queueCapacity 每个订阅者的队列容量（帧）
+     * @param policy        队列已满时的策略，只能为 DROP_OLDEST 或 DROP_NEWEST
+     */
+    public LivePublisher(SocketAddress address, int queueCapacity, BackpressurePolicy policy) {
+        if (policy == BackpressurePolicy.BLOCK) {
+            throw new IllegalArgumentException("Live subscribers must not block ingestion");
+        }
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("queueCapacity must be positive");
+        }
+        this.address = address;
+        this.queueCapacity = queueCapacity;
+        this.policy = policy;
+    }
+
+    /**
+     * 开始监听
+     *
+     * @throws IOException
+     */
+    public synchronized void start() throws IOException {
+        if (serverChannel != null) {
+            return;
+        }
+        if (address instanceof UnixDomainSocketAddress) {
+            Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+            serverChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        } else {
+            serverChannel = ServerSocketChannel.open();
+        }
+        serverChannel.bind(address);
+        acceptThread = new Thread(this::acceptLoop, "live-publisher");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+        log.info("Live publisher listening on {}", serverChannel.getLocalAddress());
+    }
+
+    private void acceptLoop() {
+        while (serverChannel.isOpen()) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                if (!(address instanceof UnixDomainSocketAddress)) {
+                    channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                }
+                LiveSubscription subscription = new LiveSubscription(this, channel, queueCapacity, policy);
+                subscriptions.add(subscription);
+                Thread sender = new Thread(subscription, "live-subscriber-" + subscriptions.size());
+                sender.setDaemon(true);
+                sender.start();
+                log.info("Subscriber {} connected, subscribers={}", subscription.describe(), subscriptions.size());
+            } catch (ClosedChannelException e) {
+                // 监听已关闭
+                break;
+            } catch (IOException e) {
+                log.error("Failed to accept subscriber", e);
+            }
+        }
+    }
+
+    @Override
+    public boolean process(TagRecord tag) {
+        publish(tag);
+        return true;
+    }
+
+    /**
+     * 发布一条记录，没有订阅者时不编码
+     *
+     * @param tag
+     */
+    public void publish(TagRecord tag) {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        synchronized (frame) {
+            frameBuffer.clear();
+            frameBuffer.position(LiveFormat.FRAME_HEADER_BYTES);
+            SegmentRecordCodec.encode(tag, frameBuffer);
+            int length = frameBuffer.position();
+            frameBuffer.putShort(0, (short) (length - LiveFormat.FRAME_HEADER_BYTES));
+            for (LiveSubscription subscription : subscriptions) {
+                subscription.offer(frame, length);
+            }
+            publishCount++;
+        }
+    }
+
+    void remove(LiveSubscription subscription) {
+        if (subscriptions.remove(subscription)) {
+            log.info("Subscriber {} removed, sent={}, dropped={}",
+                    subscription.describe(), subscription.getSentCount(), subscription.getDropCount());
+        }
+    }
+
+    /**
+     * 当前订阅者数
+     *
+     * @return
+     */
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * 所有订阅者累计丢弃的帧数
+     *
+     * @return
+     */
+    public long getDropCount() {
+        long count = 0;
+        for (LiveSubscription subscription : subscriptions) {
+            count += subscription.getDropCount();
+        }
+        return count;
+    }
+
+    public SocketAddress getLocalAddress() throws IOException {
+        return serverChannel == null ? address : serverChannel.getLocalAddress();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (serverChannel == null) {
+            return;
+        }
+        try {
+            serverChannel.close();
+        } catch (IOException e) {
+            log.warn("Failed to close live publisher", e);
+        }
+        for (LiveSubscription subscription : subscriptions) {
+            subscription.close();
+        }
+        subscriptions.clear();
+        if (address instanceof UnixDomainSocketAddress) {
+            try {
+                Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+            } catch (IOException e) {
+                log.debug("Failed to delete socket file", e);
+            }
+        }
+        serverChannel = null;
+        log.info("Live publisher closed, published={}", publishCount);
+    }
+}
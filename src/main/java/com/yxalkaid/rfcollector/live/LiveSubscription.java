@@ -0,0 +1,192 @@
+package com.yxalkaid.rfcollector.live;
+
+import com.yxalkaid.rfcollector.pipeline.BackpressurePolicy;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * 单个订阅者：有界帧队列与发送线程
+ * <p>
+ * 队列为预分配的定长槽位环形缓冲区，入队只做一次内存复制，不分配对象、不阻塞；
+ * 队列已满时按策略丢弃最旧或最新的帧。发送线程成批取出帧后写入套接字，慢速订阅者只会丢帧，不会拖慢采集。
+ */
+@Slf4j
+class LiveSubscription implements Runnable {
+
+    private final LivePublisher publisher;
+
+    private final SocketChannel channel;
+
+    private final BackpressurePolicy policy;
+
+    /**
+     * 帧数据，每个槽位 MAX_FRAME_BYTES 字节
+     */
+    private final byte[] slots;
+
+    /**
+     * 各槽位的帧长度
+     */
+    private final short[] lengths;
+
+    private final int capacity;
+
+    /**
+     * 发送缓冲区
+     */
+    private final ByteBuffer sendBuffer;
+
+    private long head;
+
+    private long tail;
+
+    /**
+     * 发送线程是否在等待
+     */
+    private boolean waiting;
+
+    private volatile boolean closed;
+
+    /**
+     * 丢弃的帧数
+     */
+    private volatile long dropCount;
+
+    /**
+     * 已发送的帧数
+     */
+    private volatile long sentCount;
+
+    LiveSubscription(LivePublisher publisher, SocketChannel channel, int capacity, BackpressurePolicy policy) {
+        this.publisher = publisher;
+        this.channel = channel;
+        this.policy = policy;
+        this.capacity = capacity;
+        this.slots = new byte[capacity * LiveFormat.MAX_FRAME_BYTES];
+        this.lengths = new short[capacity];
+        this.sendBuffer = ByteBuffer.allocateDirect(Math.min(capacity, 256) * LiveFormat.MAX_FRAME_BYTES);
+    }
+
+    /**
+     * 帧入队，不阻塞
+     *
+     * @param frame  帧数据
+     * @param length 帧长度
+     */
+    synchronized void offer(byte[] frame, int length) {
+        if (closed) {
+            return;
+        }
+        if (tail - head == capacity) {
+            dropCount++;
+            if (policy == BackpressurePolicy.DROP_NEWEST) {
+                return;
+            }
+            head++;
+        }
+        int slot = (int) (tail % capacity);
+        System.arraycopy(frame, 0, slots, slot * LiveFormat.MAX_FRAME_BYTES, length);
+        lengths[slot] = (short) length;
+        tail++;
+        if (waiting) {
+            notify();
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            sendBuffer.clear();
+            sendBuffer.putInt(LiveFormat.MAGIC).putShort(LiveFormat.VERSION).flip();
+            while (sendBuffer.hasRemaining()) {
+                channel.write(sendBuffer);
+            }
+            while (!closed) {
+                if (!fill()) {
+                    break;
+                }
+                sendBuffer.flip();
+                while (sendBuffer.hasRemaining()) {
+                    channel.write(sendBuffer);
+                }
+            }
+        } catch (IOException e) {
+            if (!closed) {
+                log.info("Subscriber {} disconnected: {}", describe(), e.getMessage());
+            }
+        } finally {
+            publisher.remove(this);
+            close();
+        }
+    }
+
+    /**
+     * 等待并取出一批帧到发送缓冲区
+     *
+     * @return 已关闭时返回 false
+     */
+    private synchronized boolean fill() {
+        while (head == tail && !closed) {
+            waiting = true;
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } finally {
+                waiting = false;
+            }
+        }
+        if (closed) {
+            return false;
+        }
+        sendBuffer.clear();
+        long count = 0;
+        while (head < tail) {
+            int slot = (int) (head % capacity);
+            int length = lengths[slot];
+            if (sendBuffer.remaining() < length) {
+                break;
+            }
+            sendBuffer.put(slots, slot * LiveFormat.MAX_FRAME_BYTES, length);
+            head++;
+            count++;
+        }
+        sentCount += count;
+        return true;
+    }
+
+    String describe() {
+        try {
+            return String.valueOf(channel.getRemoteAddress());
+        } catch (IOException e) {
+            return "unknown";
+        }
+    }
+
+    long getDropCount() {
+        return dropCount;
+    }
+
+    long getSentCount() {
+        return sentCount;
+    }
+
+    void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notify();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.debug("Error closing subscriber channel", e);
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package com.yxalkaid.rfcollector.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 单个记录器的采集指标
+ * <p>
+ * 热路径只做 LongAdder 累加与分桶计数；耗时每 {@link #SAMPLE_INTERVAL} 条记录采样一次，
+ * 避免每条记录两次读取时钟。速率、分位数与队列深度等只在被读取（JMX、HTTP）时计算，
+ * 没有读取方时几乎没有额外开销。
+ */
+@Slf4j
+public class CollectorMetrics implements CollectorMetricsMXBean {
+
+    /**
+     * 耗时采样间隔（条），须为2的幂
+     */
+    public static final int SAMPLE_INTERVAL = 16;
+
+    /**
+     * 按天线统计的最大天线号
+     */
+    private static final int MAX_ANTENNA = 64;
+
+    /**
+     * 按信道统计的最大信道数
+     */
+    private static final int MAX_CHANNEL = 128;
+
+    /**
+     * 指标名称，区分多个记录器
+     */
+    private final String name;
+
+    private final LongAdder reports = new LongAdder();
+
+    private final LongAdder tags = new LongAdder();
+
+    /**
+     * 按天线的标签数，下标为天线号，0 表示缺失或超出范围
+     */
+    private final LongAdder[] antennaTags = new LongAdder[MAX_ANTENNA + 1];
+
+    /**
+     * 按信道的标签数
+     */
+    private final LongAdder[] channelTags = new LongAdder[MAX_CHANNEL];
+
+    /**
+     * 解码耗时（纳秒）
+     */
+    private final LatencyHistogram decodeLatency = new LatencyHistogram();
+
+    /**
+     * 写入耗时（纳秒）
+     */
+    private final LatencyHistogram sinkLatency = new LatencyHistogram();
+
+    /**
+     * 读写器到主机延迟（微秒）
+     */
+    private final LatencyHistogram readerLag = new LatencyHistogram();
+
+    /**
+     * 最近一次的读写器到主机延迟（微秒）
+     */
+    private volatile long lastLag;
+
+    /**
+     * 采样计数，只在 I/O 线程上递增
+     */
+    private int decodeSample;
+
+    private int sinkSample;
+
+    private LongSupplier queueDepth = () -> 0;
+
+    private LongSupplier dropped = () -> 0;
+
+    private LongSupplier reconnects = () -> 0;
+
+    /**
+     * 上次计算速率时的状态
+     */
+    private long lastRateNanos = System.nanoTime();
+
+    private long lastRateTags;
+
+    private long lastRateReports;
+
+    private double tagsPerSecond;
+
+    private double reportsPerSecond;
+
+    private ObjectName objectName;
+
+    public CollectorMetrics(String name) {
+        this.name = name;
+        for (int i = 0; i < antennaTags.length; i++) {
+            antennaTags[i] = new LongAdder();
+        }
+        for (int i = 0; i < channelTags.length; i++) {
+            channelTags[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * 设置读取时计算的指标
+     *
+     * @param queueDepth 队列深度
+     * @param dropped    丢弃的记录数
+     * @param reconnects 重连次数
+     */
+    public void bind(LongSupplier queueDepth, LongSupplier dropped, LongSupplier reconnects) {
+        this.queueDepth = queueDepth;
+        this.dropped = dropped;
+        this.reconnects = reconnects;
+    }
+
+    /**
+     * 收到一次上报
+     */
+    public void onReport() {
+        reports.increment();
+    }
+
+    /**
+     * 是否对本条记录的解码计时
+     *
+     * @return
+     */
+    public boolean sampleDecode() {
+        return (++decodeSample & (SAMPLE_INTERVAL - 1)) == 0;
+    }
+
+    public void recordDecode(long nanos) {
+        decodeLatency.record(nanos);
+    }
+
+    /**
+     * 是否对本条记录的写入计时，写入可能在多个消费者线程上进行，采样计数允许少量竞争
+     *
+     * @return
+     */
+    public boolean sampleSink() {
+        return (++sinkSample & (SAMPLE_INTERVAL - 1)) == 0;
+    }
+
+    public void recordSink(long nanos) {
+        sinkLatency.record(nanos);
+    }
+
+    /**
+     * 解码出一条记录
+     *
+     * @param antennaId    天线号，缺失时为0
+     * @param channelIndex 信道索引，缺失时为-1
+     * @param lag          读写器到主机延迟（微秒），缺失时为 Long.MIN_VALUE
+     */
+    public void onTag(int antennaId, int channelIndex, long lag) {
+        tags.increment();
+        antennaTags[antennaId > 0 && antennaId <= MAX_ANTENNA ? antennaId : 0].increment();
+        if (channelIndex >= 0 && channelIndex < MAX_CHANNEL) {
+            channelTags[channelIndex].increment();
+        }
+        if (lag != Long.MIN_VALUE) {
+            lastLag = lag;
+            readerLag.record(lag);
+        }
+    }
+
+    /**
+     * 注册到平台 MBeanServer
+     */
+    public synchronized void registerMBean() {
+        if (objectName != null) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName on = new ObjectName("com.yxalkaid.rfcollector:type=Collector,name=" + ObjectName.quote(name));
+            if (!server.isRegistered(on)) {
+                server.registerMBean(this, on);
+                objectName = on;
+            }
+        } catch (Exception e) {
+            log.warn("Failed to register metrics MBean {}", name, e);
+        }
+    }
+
+    public synchronized void unregisterMBean() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (Exception e) {
+            log.debug("Failed to unregister metrics MBean {}", name, e);
+        }
+        objectName = null;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getReportCount() {
+        return reports.sum();
+    }
+
+    @Override
+    public long getTagCount() {
+        return tags.sum();
+    }
+
+    @Override
+    public synchronized double getTagsPerSecond() {
+        updateRates();
+        return tagsPerSecond;
+    }
+
+    @Override
+    public synchronized double getReportsPerSecond() {
+        updateRates();
+        return reportsPerSecond;
+    }
+
+    /**
+     * 两次读取间隔不足100ms时沿用上次的速率
+     */
+    private void updateRates() {
+        long now = System.nanoTime();
+        long elapsed = now - lastRateNanos;
+        if (elapsed < 100_000_000L) {
+            return;
+        }
+        long tagCount = tags.sum();
+        long reportCount = reports.sum();
+        tagsPerSecond = (tagCount - lastRateTags) * 1e9 / elapsed;
+        reportsPerSecond = (reportCount - lastRateReports) * 1e9 / elapsed;
+        lastRateTags = tagCount;
+        lastRateReports = reportCount;
+        lastRateNanos = now;
+    }
+
+    @Override
+    public long getDecodeLatencyP50Nanos() {
+        return decodeLatency.getQuantile(0.5);
+    }
+
+    @Override
+    public long getDecodeLatencyP99Nanos() {
+        return decodeLatency.getQuantile(0.99);
+    }
+
+    @Override
+    public long getSinkLatencyP50Nanos() {
+        return sinkLatency.getQuantile(0.5);
+    }
+
+    @Override
+    public long getSinkLatencyP99Nanos() {
+        return sinkLatency.getQuantile(0.99);
+    }
+
+    @Override
+    public double getReaderLagMillis() {
+        return lastLag / 1000.0;
+    }
+
+    @Override
+    public long getReaderLagP99Millis() {
+        return readerLag.getQuantile(0.99) / 1000;
+    }
+
+    @Override
+    public long getQueueDepth() {
+        return queueDepth.getAsLong();
+    }
+
+    @Override
+    public long getDroppedCount() {
+        return dropped.getAsLong();
+    }
+
+    @Override
+    public long getReconnectCount() {
+        return reconnects.getAsLong();
+    }
+
+    /**
+     * 以 Prometheus 文本格式输出
+     *
+     * @param out
+     */
+    void writePrometheus(PrometheusText out) {
+        String label = "recorder=\"" + PrometheusText.escape(name) + "\"";
+        out.counter("rfcollector_reports_total", "LLRP tag reports received", label, reports.sum());
+        out.counter("rfcollector_tags_total", "Tag records decoded", label, tags.sum());
+        for (int i = 0; i < antennaTags.length; i++) {
+            long count = antennaTags[i].sum();
+            if (count > 0) {
+                out.counter("rfcollector_antenna_tags_total", "Tag records per antenna, 0 = unknown",
+                        label + ",antenna=\"" + i + "\"", count);
+            }
+        }
+        for (int i = 0; i < channelTags.length; i++) {
+            long count = channelTags[i].sum();
+            if (count > 0) {
+                out.counter("rfcollector_channel_tags_total", "Tag records per channel index",
+                        label + ",channel=\"" + i + "\"", count);
+            }
+        }
+        out.summary("rfcollector_decode_latency_seconds", "Sampled tag decode latency",
+                label, decodeLatency, 1e-9);
+        out.summary("rfcollector_sink_latency_seconds", "Sampled sink write latency",
+                label, sinkLatency, 1e-9);
+        out.summary("rfcollector_reader_lag_seconds", "Host receive time minus firstSeenTime",
+                label, readerLag, 1e-6);
+        out.gauge("rfcollector_reader_lag_last_seconds", "Reader-to-host lag of the latest tag",
+                label, lastLag * 1e-6);
+        out.gauge("rfcollector_queue_depth", "Records waiting in the pipeline", label, queueDepth.getAsLong());
+        out.counter("rfcollector_dropped_records_total", "Records dropped by backpressure",
+                label, dropped.getAsLong());
+        out.counter("rfcollector_reconnects_total", "Successful reader reconnects", label, reconnects.getAsLong());
+    }
+}
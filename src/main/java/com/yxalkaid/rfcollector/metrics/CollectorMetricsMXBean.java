@@ -0,0 +1,48 @@
+package com.yxalkaid.rfcollector.metrics;
+
+/**
+ * 采集端指标的 JMX 视图
+ */
+public interface CollectorMetricsMXBean {
+
+    long getReportCount();
+
+    long getTagCount();
+
+    /**
+     * 自上次读取以来的标签速率（个/秒）
+     *
+     * @return
+     */
+    double getTagsPerSecond();
+
+    /**
+     * 自上次读取以来的上报速率（次/秒）
+     *
+     * @return
+     */
+    double getReportsPerSecond();
+
+    long getDecodeLatencyP50Nanos();
+
+    long getDecodeLatencyP99Nanos();
+
+    long getSinkLatencyP50Nanos();
+
+    long getSinkLatencyP99Nanos();
+
+    /**
+     * 最近一条记录的读写器到主机延迟（毫秒），读写器时钟超前时为负
+     *
+     * @return
+     */
+    double getReaderLagMillis();
+
+    long getReaderLagP99Millis();
+
+    long getQueueDepth();
+
+    long getDroppedCount();
+
+    long getReconnectCount();
+}
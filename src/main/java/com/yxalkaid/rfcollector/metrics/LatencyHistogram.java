@@ -0,0 +1,90 @@
+package com.yxalkaid.rfcollector.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 对数线性分桶的直方图
+ * <p>
+ * 小于16的值各占一个桶，之后每个2的幂区间分为4个桶，相对误差不超过25%，
+ * 覆盖全部非负 long 值，共256个桶。记录只做一次原子加，不分配对象；分位数在读取时按桶上界估算。
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKETS = 256;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * 记录一个值，负值按0计
+     *
+     * @param value
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(bucket(value));
+        count.increment();
+        sum.add(value);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * 估算分位数
+     *
+     * @param quantile 0 至 1
+     * @return 所在桶的上界，没有数据时为0
+     */
+    public long getQuantile(double quantile) {
+        long total = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank && snapshot[i] > 0) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    static int bucket(long value) {
+        if (value < 16) {
+            return (int) value;
+        }
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (msb - 2)) & 3;
+        return 16 + ((msb - 4) << 2) + sub;
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < 16) {
+            return bucket;
+        }
+        int msb = ((bucket - 16) >> 2) + 4;
+        int sub = (bucket - 16) & 3;
+        long lower = (1L << msb) + ((long) sub << (msb - 2));
+        long upper = lower + (1L << (msb - 2)) - 1;
+        return upper < 0 ? Long.MAX_VALUE : upper;
+    }
+}
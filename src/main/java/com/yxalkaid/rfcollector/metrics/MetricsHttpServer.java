@@ -0,0 +1,88 @@
+package com.yxalkaid.rfcollector.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 本机 HTTP 指标端点，GET /metrics 返回 Prometheus 文本格式
+ * <p>
+ * 仅监听回环地址，请求在单个后台线程上处理，指标只在请求时计算。
+ */
+@Slf4j
+public class MetricsHttpServer implements Closeable {
+
+    /**
+     * 默认端口
+     */
+    public static final int DEFAULT_PORT = 9464;
+
+    private final List<CollectorMetrics> metrics = new CopyOnWriteArrayList<>();
+
+    private final HttpServer server;
+
+    /**
+     * 构造方法
+     *
+     * @param port 端口，0 表示随机端口
+     * @throws IOException
+     */
+    public MetricsHttpServer(int port) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.server.createContext("/metrics", this::handle);
+    }
+
+    /**
+     * 添加要输出的指标
+     *
+     * @param collectorMetrics
+     */
+    public void register(CollectorMetrics collectorMetrics) {
+        metrics.add(collectorMetrics);
+    }
+
+    public void start() {
+        server.start();
+        log.info("Metrics endpoint on http://{}:{}/metrics",
+                server.getAddress().getHostString(), server.getAddress().getPort());
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            PrometheusText text = new PrometheusText();
+            for (CollectorMetrics m : metrics) {
+                m.writePrometheus(text);
+            }
+            byte[] body = text.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
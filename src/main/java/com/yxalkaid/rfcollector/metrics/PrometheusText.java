@@ -0,0 +1,53 @@
+package com.yxalkaid.rfcollector.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Prometheus 文本格式输出，同名指标的样本归入同一组，每组一行 HELP 与 TYPE
+ */
+class PrometheusText {
+
+    private final Map<String, StringBuilder> families = new LinkedHashMap<>();
+
+    void counter(String metric, String help, String labels, long value) {
+        family(metric, help, "counter").append(metric).append('{').append(labels).append("} ")
+                .append(value).append('\n');
+    }
+
+    void gauge(String metric, String help, String labels, double value) {
+        family(metric, help, "gauge").append(metric).append('{').append(labels).append("} ")
+                .append(value).append('\n');
+    }
+
+    void summary(String metric, String help, String labels, LatencyHistogram histogram, double scale) {
+        StringBuilder out = family(metric, help, "summary");
+        for (double q : new double[]{0.5, 0.9, 0.99, 0.999}) {
+            out.append(metric).append('{').append(labels).append(",quantile=\"").append(q).append("\"} ")
+                    .append(histogram.getQuantile(q) * scale).append('\n');
+        }
+        out.append(metric).append("_sum{").append(labels).append("} ")
+                .append(histogram.getSum() * scale).append('\n');
+        out.append(metric).append("_count{").append(labels).append("} ")
+                .append(histogram.getCount()).append('\n');
+    }
+
+    private StringBuilder family(String metric, String help, String type) {
+        return families.computeIfAbsent(metric, k -> new StringBuilder()
+                .append("# HELP ").append(metric).append(' ').append(help).append('\n')
+                .append("# TYPE ").append(metric).append(' ').append(type).append('\n'));
+    }
+
+    static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        for (StringBuilder family : families.values()) {
+            out.append(family);
+        }
+        return out.toString();
+    }
+}
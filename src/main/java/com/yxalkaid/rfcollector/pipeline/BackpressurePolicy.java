@@ -0,0 +1,22 @@
+package com.yxalkaid.rfcollector.pipeline;
+
+/**
+ * 背压策略，缓冲区已满时如何处理新事件
+ */
+public enum BackpressurePolicy {
+
+    /**
+     * 阻塞生产者，直到出现空闲槽位
+     */
+    BLOCK,
+
+    /**
+     * 丢弃最旧的未消费事件，写入新事件
+     */
+    DROP_OLDEST,
+
+    /**
+     * 丢弃新事件
+     */
+    DROP_NEWEST
+}
@@ -0,0 +1,18 @@
+package com.yxalkaid.rfcollector.pipeline;
+
+/**
+ * 事件处理器
+ *
+ * @param <E> 事件类型
+ */
+@FunctionalInterface
+public interface EventHandler<E> {
+
+    /**
+     * 处理事件
+     *
+     * @param event
+     * @throws Exception
+     */
+    void onEvent(E event) throws Exception;
+}
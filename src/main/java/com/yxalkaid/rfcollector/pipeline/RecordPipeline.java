@@ -0,0 +1,166 @@
+package com.yxalkaid.rfcollector.pipeline;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 记录流水线
+ * <p>
+ * 生产者线程（LLRP I/O 线程）将事件发布到环形缓冲区，
+ * 由独立的消费者线程取出并交给处理器写入，磁盘阻塞不会反压到读写器连接。
+ *
+ * @param <E> 事件类型
+ */
+@Slf4j
+public class RecordPipeline<E> {
+
+    /**
+     * 名称，用于线程命名和日志
+     */
+    private final String name;
+
+    /**
+     * 环形缓冲区
+     */
+    private final RingBuffer<E> ringBuffer;
+
+    /**
+     * 槽位对象工厂
+     */
+    private final Supplier<E> factory;
+
+    /**
+     * 事件处理器
+     */
+    private final EventHandler<E> handler;
+
+    /**
+     * 消费者线程
+     */
+    private final Thread[] consumers;
+
+    /**
+     * 处理失败数
+     */
+    private final AtomicLong failedCount = new AtomicLong();
+
+    /**
+     * 构造方法
+     *
+     * @param name          名称
+     * @param capacity      缓冲区容量
+     * @param factory       槽位对象工厂
+     * @param policy        背压策略
+     * @param consumerCount 消费者线程数
+     * @param handler       事件处理器，多个消费者时需自行保证线程安全
+     */
+    public RecordPipeline(String name, int capacity, Supplier<E> factory,
+                          BackpressurePolicy policy, int consumerCount, EventHandler<E> handler) {
+        if (consumerCount <= 0) {
+            throw new IllegalArgumentException("consumerCount must be positive");
+        }
+        if (handler == null) {
+            throw new NullPointerException("handler cannot be null");
+        }
+        this.name = name;
+        this.factory = factory;
+        this.handler = handler;
+        this.ringBuffer = new RingBuffer<>(capacity, factory, policy);
+        this.consumers = new Thread[consumerCount];
+        for (int i = 0; i < consumerCount; i++) {
+            Thread consumer = new Thread(this::consume, name + "-consumer-" + i);
+            consumer.setDaemon(true);
+            this.consumers[i] = consumer;
+        }
+    }
+
+    /**
+     * 启动消费者线程
+     */
+    public void start() {
+        for (Thread consumer : consumers) {
+            consumer.start();
+        }
+        log.info("Pipeline {} started, capacity={}, policy={}, consumers={}",
+                name, ringBuffer.capacity(), ringBuffer.getPolicy(), consumers.length);
+    }
+
+    /**
+     * 发布事件
+     *
+     * @param event 已填充的事件
+     * @return 可复用的空闲对象
+     */
+    public E publish(E event) {
+        try {
+            return ringBuffer.publish(event);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return event;
+        }
+    }
+
+    /**
+     * 关闭流水线，等待消费者处理完剩余事件
+     */
+    public void close() {
+        ringBuffer.close();
+        for (Thread consumer : consumers) {
+            try {
+                consumer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        log.info("Pipeline {} closed, published={}, dropped={}, failed={}, highWaterMark={}",
+                name, getPublishedCount(), getDroppedCount(), getFailedCount(), getHighWaterMark());
+    }
+
+    /**
+     * 消费循环
+     */
+    private void consume() {
+        E spare = factory.get();
+        try {
+            E event;
+            while ((event = ringBuffer.take(spare)) != null) {
+                try {
+                    handler.onEvent(event);
+                } catch (Exception e) {
+                    failedCount.incrementAndGet();
+                    log.error("Error handling event in pipeline {}", name, e);
+                }
+                spare = event;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int size() {
+        return ringBuffer.size();
+    }
+
+    public int capacity() {
+        return ringBuffer.capacity();
+    }
+
+    public long getPublishedCount() {
+        return ringBuffer.getPublishedCount();
+    }
+
+    public long getDroppedCount() {
+        return ringBuffer.getDroppedCount();
+    }
+
+    public int getHighWaterMark() {
+        return ringBuffer.getHighWaterMark();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+}
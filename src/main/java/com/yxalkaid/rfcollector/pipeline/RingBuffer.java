@@ -0,0 +1,232 @@
+package com.yxalkaid.rfcollector.pipeline;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 有界环形缓冲区，一个或多个生产者、一个或多个消费者
+ * <p>
+ * 槽位对象在构造时预先分配，生产者与消费者通过交换对象引用完成数据传递，
+ * 发布与消费过程中不产生新的对象。每个生产者持有各自的空闲对象。
+ *
+ * @param <E> 事件类型
+ */
+public class RingBuffer<E> {
+
+    /**
+     * 槽位
+     */
+    private final Object[] slots;
+
+    /**
+     * 下标掩码
+     */
+    private final int mask;
+
+    /**
+     * 背压策略
+     */
+    private final BackpressurePolicy policy;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    private final Condition notFull = lock.newCondition();
+
+    /**
+     * 下一个写入位置
+     */
+    private long head;
+
+    /**
+     * 下一个读取位置
+     */
+    private long tail;
+
+    /**
+     * 是否已关闭
+     */
+    private volatile boolean closed;
+
+    /**
+     * 已发布事件数
+     */
+    private volatile long publishedCount;
+
+    /**
+     * 已丢弃事件数
+     */
+    private volatile long droppedCount;
+
+    /**
+     * 历史最高占用数
+     */
+    private volatile int highWaterMark;
+
+    /**
+     * 构造方法
+     *
+     * @param capacity 容量，向上取整为2的幂
+     * @param factory  槽位对象工厂
+     * @param policy   背压策略
+     */
+    public RingBuffer(int capacity, Supplier<E> factory, BackpressurePolicy policy) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        if (factory == null || policy == null) {
+            throw new NullPointerException("factory and policy cannot be null");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.slots = new Object[size];
+        for (int i = 0; i < size; i++) {
+            this.slots[i] = factory.get();
+        }
+        this.mask = size - 1;
+        this.policy = policy;
+    }
+
+    /**
+     * 发布事件
+     * <p>
+     * 事件对象被放入槽位，槽位中原有的对象被换出并返回给生产者复用；
+     * 若事件被丢弃（DROP_NEWEST 或缓冲区已关闭），则原样返回该事件。
+     *
+     * @param event 已填充的事件
+     * @return 可复用的空闲对象
+     * @throws InterruptedException BLOCK 策略下等待时被中断
+     */
+    @SuppressWarnings("unchecked")
+    public E publish(E event) throws InterruptedException {
+        lock.lock();
+        try {
+            if (closed) {
+                return event;
+            }
+            if (head - tail == slots.length) {
+                switch (policy) {
+                    case BLOCK:
+                        while (head - tail == slots.length && !closed) {
+                            notFull.await();
+                        }
+                        if (closed) {
+                            return event;
+                        }
+                        break;
+                    case DROP_OLDEST:
+                        tail++;
+                        droppedCount++;
+                        break;
+                    case DROP_NEWEST:
+                    default:
+                        droppedCount++;
+                        return event;
+                }
+            }
+
+            int index = (int) (head & mask);
+            E spare = (E) slots[index];
+            slots[index] = event;
+            head++;
+            publishedCount++;
+
+            int size = (int) (head - tail);
+            if (size > highWaterMark) {
+                highWaterMark = size;
+            }
+            notEmpty.signal();
+            return spare;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 取出事件
+     * <p>
+     * 传入的空闲对象被放回槽位，返回槽位中的事件；
+     * 缓冲区关闭且已取空时返回 null。
+     *
+     * @param spare 空闲对象
+     * @return 事件
+     * @throws InterruptedException 等待时被中断
+     */
+    @SuppressWarnings("unchecked")
+    public E take(E spare) throws InterruptedException {
+        lock.lock();
+        try {
+            while (head == tail) {
+                if (closed) {
+                    return null;
+                }
+                notEmpty.await();
+            }
+
+            int index = (int) (tail & mask);
+            E event = (E) slots[index];
+            slots[index] = spare;
+            tail++;
+            notFull.signal();
+            return event;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 关闭缓冲区，不再接受新事件，已有事件仍可被取出
+     */
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 当前占用数
+     *
+     * @return
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return (int) (head - tail);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    public BackpressurePolicy getPolicy() {
+        return policy;
+    }
+
+    public long getPublishedCount() {
+        return publishedCount;
+    }
+
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+
+    public int getHighWaterMark() {
+        return highWaterMark;
+    }
+}
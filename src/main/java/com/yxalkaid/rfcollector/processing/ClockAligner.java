@@ -0,0 +1,42 @@
+package com.yxalkaid.rfcollector.processing;
+
+import com.yxalkaid.rfcollector.domain.TagRecord;
+
+/**
+ * 读写器时钟对齐
+ * <p>
+ * 每条记录的 firstSeenTime 按记录器的时钟模型（见 {@link ReaderClock}）换算到主机时钟，写入 host_time 列，
+ * 原始时间保持不变；跨读写器的按时间归并按 host_time 排序。换算结果包含最小的传输延迟，
+ * 同一网络中的读写器之间可以直接比较。
+ * <p>
+ * 时钟模型由记录器拥有并在解码时采样，定时采集使用同一个模型，本阶段只做换算，没有自己的状态。
+ * 通过 {@code BaseRecorder.enableClockAlignment()} 添加。模型尚无估计时（例如回放）不写 host_time，
+ * 已有 host_time 的记录不做修改。
+ */
+public class ClockAligner implements TagProcessor {
+
+    private final ReaderClock clock;
+
+    /**
+     * 构造方法
+     *
+     * @param clock 记录器的时钟模型
+     */
+    public ClockAligner(ReaderClock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public boolean process(TagRecord tag) {
+        if (tag.has(TagRecord.IS_GAP) || tag.has(TagRecord.HAS_HOST_TIME)
+                || !tag.has(TagRecord.HAS_FIRST_SEEN_TIME) || !clock.isKnown()) {
+            return true;
+        }
+        tag.setHostTime(clock.toHostTime(tag.getFirstSeenTime()));
+        return true;
+    }
+
+    public ReaderClock getClock() {
+        return clock;
+    }
+}
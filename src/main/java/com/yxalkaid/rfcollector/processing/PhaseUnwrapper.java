@@ -0,0 +1,180 @@
+package com.yxalkaid.rfcollector.processing;
+
+import com.yxalkaid.rfcollector.domain.TagRecord;
+
+import java.util.Arrays;
+
+/**
+ * 相位解缠绕与平滑
+ * <p>
+ * 读写器上报的相位在 0 至 4096（π/2048 弧度）之间循环，不同天线、不同信道的相位偏移也不同。
+ * 每个（EPC，天线，信道）维护上一次的原始相位与累计相位，相邻两次读取的差值折算到半周以内后累加，
+ * 得到连续的相位（弧度），可选地做指数平滑。
+ * <p>
+ * 状态保存在以 long 为键的开放寻址表中，每条记录 O(1) 且不分配对象，仅在扩容时分配。
+ * 依赖 EPC 驻留编号，未驻留的记录不做处理。非线程安全，每个连接使用一个实例。
+ */
+public class PhaseUnwrapper implements TagProcessor {
+
+    /**
+     * 一周的原始相位
+     */
+    private static final int PHASE_CYCLE = 4096;
+
+    private static final int HALF_CYCLE = PHASE_CYCLE / 2;
+
+    /**
+     * 空槽
+     */
+    private static final long EMPTY = -1L;
+
+    /**
+     * 平滑系数，1 表示不平滑
+     */
+    private final double smoothing;
+
+    private long[] keys;
+
+    /**
+     * 上一次的原始相位
+     */
+    private short[] lastRaw;
+
+    /**
+     * 累计的原始相位
+     */
+    private long[] unwrapped;
+
+    /**
+     * 平滑后的相位（弧度）
+     */
+    private double[] smoothed;
+
+    private int size;
+
+    private int mask;
+
+    public PhaseUnwrapper() {
+        this(1.0);
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param smoothing 指数平滑系数，取值 (0, 1]，越小越平滑，1 表示只解缠绕
+     */
+    public PhaseUnwrapper(double smoothing) {
+        if (!(smoothing > 0 && smoothing <= 1)) {
+            throw new IllegalArgumentException("smoothing must be in (0, 1]");
+        }
+        this.smoothing = smoothing;
+        allocate(1024);
+    }
+
+    @Override
+    public boolean process(TagRecord tag) {
+        if (!tag.has(TagRecord.HAS_PHASE) || tag.getEpcId() < 0) {
+            return true;
+        }
+
+        long key = key(tag);
+        int raw = tag.getPhaseRaw();
+        int slot = find(key);
+        double phase;
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            lastRaw[slot] = (short) raw;
+            unwrapped[slot] = raw;
+            phase = raw * TagRecord.PHASE_RADIANS_PER_UNIT;
+            smoothed[slot] = phase;
+            if (++size > (keys.length >> 1)) {
+                grow();
+            }
+        } else {
+            int delta = raw - lastRaw[slot];
+            // 折算到 [-半周, 半周)
+            if (delta >= HALF_CYCLE) {
+                delta -= PHASE_CYCLE;
+            } else if (delta < -HALF_CYCLE) {
+                delta += PHASE_CYCLE;
+            }
+            lastRaw[slot] = (short) raw;
+            unwrapped[slot] += delta;
+            phase = unwrapped[slot] * TagRecord.PHASE_RADIANS_PER_UNIT;
+            if (smoothing < 1) {
+                phase = smoothed[slot] + smoothing * (phase - smoothed[slot]);
+            }
+            smoothed[slot] = phase;
+        }
+        tag.setUnwrappedPhase(phase);
+        return true;
+    }
+
+    /**
+     * 已跟踪的（EPC，天线，信道）数
+     *
+     * @return
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 清空所有状态，例如断线重连之后
+     */
+    public void reset() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    @Override
+    public void onGap() {
+        reset();
+    }
+
+    private static long key(TagRecord tag) {
+        long antenna = tag.has(TagRecord.HAS_ANTENNA_ID) ? tag.getAntennaId() & 0xFFFF : 0;
+        long channel = tag.has(TagRecord.HAS_CHANNEL_INDEX) ? tag.getChannelIndex() & 0xFFFF : 0;
+        return ((long) tag.getEpcId() << 32) | (antenna << 16) | channel;
+    }
+
+    private int find(long key) {
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        lastRaw = new short[capacity];
+        unwrapped = new long[capacity];
+        smoothed = new double[capacity];
+        mask = capacity - 1;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        short[] oldLastRaw = lastRaw;
+        long[] oldUnwrapped = unwrapped;
+        double[] oldSmoothed = smoothed;
+        allocate(oldKeys.length << 1);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY) {
+                continue;
+            }
+            int slot = find(oldKeys[i]);
+            keys[slot] = oldKeys[i];
+            lastRaw[slot] = oldLastRaw[i];
+            unwrapped[slot] = oldUnwrapped[i];
+            smoothed[slot] = oldSmoothed[i];
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.yxalkaid.rfcollector.processing;
+
+/**
+ * 读写器时钟模型
+ * <p>
+ * 读写器的时间戳来自读写器自己的时钟，与主机时钟之间存在偏差且随时间漂移。
+ * 记录到达主机的时间减去读写器时间等于时钟偏差加上传输与上报延迟，延迟只会使差值偏大，
+ * 因此按主机时间划分窗口，每个窗口只保留差值的最小值（下包络），窗口结束时把该点加入
+ * 指数加权的最小二乘回归，拟合 偏差 = 截距 + 漂移 × 读写器时间。每次采样只做一次比较，
+ * 每个窗口只做一次回归更新。
+ * <p>
+ * 单个窗口的下包络与拟合值相差超过阶跃阈值时视为异常窗口跳过，连续两个窗口超过时视为读写器时钟被调整，
+ * 丢弃历史重新拟合。第一个窗口结束前使用已见到的最小差值。
+ * <p>
+ * 每个记录器（即每台读写器）一个实例，由记录器在 I/O 线程上采样；
+ * 换算方法可在任意线程调用，例如定时采集把主机时刻换算到读写器时钟。
+ */
+public class ReaderClock {
+
+    /**
+     * 默认窗口（微秒）
+     */
+    public static final long DEFAULT_WINDOW = 1_000_000;
+
+    /**
+     * 默认遗忘因子，每个窗口的权重衰减
+     */
+    public static final double DEFAULT_FORGETTING = 0.99;
+
+    /**
+     * 默认阶跃阈值（微秒）
+     */
+    public static final long DEFAULT_STEP_THRESHOLD = 50_000;
+
+    /**
+     * 窗口长度（微秒，主机时钟）
+     */
+    private final long window;
+
+    /**
+     * 遗忘因子，取值 (0, 1]
+     */
+    private final double forgetting;
+
+    /**
+     * 阶跃阈值（微秒）
+     */
+    private final long stepThreshold;
+
+    private boolean started;
+
+    /**
+     * 回归原点（读写器时间，微秒），回归的自变量为相对原点的读写器时间，避免大数相减损失精度
+     */
+    private long origin;
+
+    /**
+     * 当前窗口的开始时间（主机时间，微秒）
+     */
+    private long windowStart;
+
+    /**
+     * 当前窗口的最小差值及其读写器时间
+     */
+    private long windowMin;
+
+    private long windowMinTime;
+
+    /**
+     * 连续超过阶跃阈值的窗口数
+     */
+    private int outliers;
+
+    private double sumW;
+    private double sumX;
+    private double sumY;
+    private double sumXX;
+    private double sumXY;
+
+    private double intercept;
+
+    private double drift;
+
+    /**
+     * 发布给其他线程的拟合结果，尚无采样时为null
+     */
+    private volatile Fit fit;
+
+    private volatile long lastReaderTime;
+
+    private volatile long sampleCount;
+
+    private volatile long stepCount;
+
+    public ReaderClock() {
+        this(DEFAULT_WINDOW, DEFAULT_FORGETTING, DEFAULT_STEP_THRESHOLD);
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param window        窗口长度（微秒），应大于上报间隔
+     * @param forgetting    遗忘因子，取值 (0, 1]，越小越快跟上漂移变化，1 表示不遗忘
+     * @param stepThreshold 阶跃阈值（微秒）
+     */
+    public ReaderClock(long window, double forgetting, long stepThreshold) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("window must be positive");
+        }
+        if (!(forgetting > 0 && forgetting <= 1)) {
+            throw new IllegalArgumentException("forgetting must be in (0, 1]");
+        }
+        this.window = window;
+        this.forgetting = forgetting;
+        this.stepThreshold = stepThreshold;
+    }
+
+    /**
+     * 记录一次采样，只允许单线程调用
+     *
+     * @param readerTime 读写器时间（UTC 微秒），LastSeenTimestamp 最接近上报时刻，延迟最小
+     * @param hostTime   主机接收时间（UTC 微秒）
+     */
+    public void onSample(long readerTime, long hostTime) {
+        long delay = hostTime - readerTime;
+        if (!started) {
+            started = true;
+            origin = readerTime;
+            windowStart = hostTime;
+            windowMin = delay;
+            windowMinTime = readerTime;
+            intercept = delay;
+            drift = 0;
+            publish();
+        } else if (hostTime - windowStart >= window) {
+            closeWindow();
+            windowStart = hostTime;
+            windowMin = delay;
+            windowMinTime = readerTime;
+        } else if (delay < windowMin) {
+            windowMin = delay;
+            windowMinTime = readerTime;
+            if (sumW == 0 && delay < intercept) {
+                intercept = delay;
+                publish();
+            }
+        }
+        lastReaderTime = readerTime;
+        sampleCount++;
+    }
+
+    /**
+     * 把窗口下包络加入回归
+     */
+    private void closeWindow() {
+        double x = windowMinTime - origin;
+        double y = windowMin;
+        if (sumW > 0 && Math.abs(y - (intercept + drift * x)) > stepThreshold) {
+            if (++outliers < 2) {
+                return;
+            }
+            stepCount++;
+            origin = windowMinTime;
+            x = 0;
+            clearFit();
+        } else {
+            outliers = 0;
+        }
+
+        sumW = sumW * forgetting + 1;
+        sumX = sumX * forgetting + x;
+        sumY = sumY * forgetting + y;
+        sumXX = sumXX * forgetting + x * x;
+        sumXY = sumXY * forgetting + x * y;
+
+        double denominator = sumW * sumXX - sumX * sumX;
+        if (sumW >= 2 && denominator > 1e-9 * sumW * sumXX) {
+            drift = (sumW * sumXY - sumX * sumY) / denominator;
+            intercept = (sumY - drift * sumX) / sumW;
+        } else {
+            drift = 0;
+            intercept = sumY / sumW;
+        }
+        publish();
+    }
+
+    private void publish() {
+        this.fit = new Fit(origin, intercept, drift);
+    }
+
+    private void clearFit() {
+        outliers = 0;
+        sumW = 0;
+        sumX = 0;
+        sumY = 0;
+        sumXX = 0;
+        sumXY = 0;
+        intercept = 0;
+        drift = 0;
+    }
+
+    /**
+     * 是否已有偏差估计
+     *
+     * @return
+     */
+    public boolean isKnown() {
+        return fit != null;
+    }
+
+    /**
+     * 读写器时间换算为主机时间，偏差未知时视两者相同
+     *
+     * @param readerTime 读写器时间（UTC 微秒）
+     * @return 主机时间（UTC 微秒）
+     */
+    public long toHostTime(long readerTime) {
+        Fit fit = this.fit;
+        return fit == null ? readerTime : readerTime + fit.offsetAt(readerTime);
+    }
+
+    /**
+     * 主机时间换算为读写器时间，偏差未知时视两者相同
+     *
+     * @param hostTime 主机时间（UTC 微秒）
+     * @return 读写器时间（UTC 微秒）
+     */
+    public long toReaderTime(long hostTime) {
+        Fit fit = this.fit;
+        if (fit == null) {
+            return hostTime;
+        }
+        // hostTime = r + intercept + drift × (r − origin)
+        double relative = (hostTime - fit.origin - fit.intercept) / (1 + fit.drift);
+        return fit.origin + Math.round(relative);
+    }
+
+    /**
+     * 最近一次采样时的偏差估计（微秒），主机时间 − 读写器时间
+     *
+     * @return 没有采样时返回 Long.MIN_VALUE
+     */
+    public long getOffset() {
+        Fit fit = this.fit;
+        return fit == null ? Long.MIN_VALUE : fit.offsetAt(lastReaderTime);
+    }
+
+    /**
+     * 漂移估计（ppm），为正时读写器时钟比主机慢
+     *
+     * @return 窗口数不足时返回0
+     */
+    public double getDriftPpm() {
+        Fit fit = this.fit;
+        return fit == null ? 0 : fit.drift * 1e6;
+    }
+
+    public long getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * 检测到的读写器时钟阶跃次数
+     *
+     * @return
+     */
+    public long getStepCount() {
+        return stepCount;
+    }
+
+    /**
+     * 清空拟合，例如断线重连之后；需在没有采样进行时调用
+     */
+    public void reset() {
+        started = false;
+        clearFit();
+        fit = null;
+        lastReaderTime = 0;
+        sampleCount = 0;
+    }
+
+    /**
+     * 拟合结果：偏差 = intercept + drift × (读写器时间 − origin)
+     */
+    private static final class Fit {
+
+        final long origin;
+
+        final double intercept;
+
+        final double drift;
+
+        Fit(long origin, double intercept, double drift) {
+            this.origin = origin;
+            this.intercept = intercept;
+            this.drift = drift;
+        }
+
+        long offsetAt(long readerTime) {
+            return Math.round(intercept + drift * (readerTime - origin));
+        }
+    }
+}
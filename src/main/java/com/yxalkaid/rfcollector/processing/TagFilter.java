@@ -0,0 +1,414 @@
+package com.yxalkaid.rfcollector.processing;
+
+import com.yxalkaid.rfcollector.domain.EpcTable;
+import com.yxalkaid.rfcollector.domain.TagRecord;
+
+import java.util.Arrays;
+
+/**
+ * 标签过滤与去重
+ * <p>
+ * 依次检查：EPC 拒绝名单与拒绝前缀、EPC 允许名单与允许前缀（设置了任一允许规则时必须命中）、
+ * 天线选择、RSSI 下限，最后按（EPC，天线，信道）在时间窗口内去重，窗口内的重复读取只保留第一条。
+ * 被拒绝的记录在处理阶段即被丢弃，不会进入流水线、字符串格式化与写盘。
+ * <p>
+ * EPC 名单保存在 {@link EpcTable} 中按字节查找，前缀编译为按半字节索引的前缀树；
+ * 同一 EPC 的判定结果按驻留编号缓存，之后每条记录只需一次数组访问。
+ * 规则需在添加到记录器之前设置。间断标记总是保留。非线程安全，每个连接使用一个实例。
+ */
+public class TagFilter implements TagProcessor {
+
+    private static final byte UNKNOWN = 0;
+    private static final byte ACCEPT = 1;
+    private static final byte REJECT = 2;
+
+    /**
+     * 空槽
+     */
+    private static final long EMPTY = -1L;
+
+    private final EpcTable allowed = new EpcTable();
+
+    private final EpcTable denied = new EpcTable();
+
+    private final PrefixTrie allowedPrefixes = new PrefixTrie();
+
+    private final PrefixTrie deniedPrefixes = new PrefixTrie();
+
+    private final byte[] epcBuffer = new byte[TagRecord.MAX_EPC_BYTES];
+
+    /**
+     * 按驻留编号缓存的 EPC 判定结果
+     */
+    private byte[] decisions = new byte[1024];
+
+    /**
+     * 是否设置了 EPC 规则
+     */
+    private boolean hasEpcRules;
+
+    /**
+     * 允许的天线，null 表示不限
+     */
+    private boolean[] antennas;
+
+    /**
+     * RSSI 下限（dBm × 100），Integer.MIN_VALUE 表示不限
+     */
+    private int minRssiRaw = Integer.MIN_VALUE;
+
+    /**
+     * 去重窗口（微秒），不大于0时不去重
+     */
+    private long dedupWindow;
+
+    private long[] keys;
+
+    /**
+     * 上一次保留的时间
+     */
+    private long[] lastTimes;
+
+    private int size;
+
+    private int mask;
+
+    private long acceptedCount;
+    private long epcRejectedCount;
+    private long antennaRejectedCount;
+    private long rssiRejectedCount;
+    private long duplicateCount;
+
+    public TagFilter() {
+        allocate(1024);
+    }
+
+    /**
+     * 允许的 EPC
+     *
+     * @param hex 十六进制 EPC，偶数位，不超过 {@link TagRecord#MAX_EPC_BYTES} 字节
+     * @throws IllegalArgumentException 为空、含非十六进制字符、位数为奇数或过长
+     */
+    public void allow(String hex) {
+        add(allowed, hex);
+    }
+
+    /**
+     * 拒绝的 EPC
+     *
+     * @param hex 十六进制 EPC，偶数位，不超过 {@link TagRecord#MAX_EPC_BYTES} 字节
+     * @throws IllegalArgumentException 为空、含非十六进制字符、位数为奇数或过长
+     */
+    public void deny(String hex) {
+        add(denied, hex);
+    }
+
+    /**
+     * 允许的 EPC 前缀
+     *
+     * @param hexPrefix 十六进制前缀，按半字节匹配
+     */
+    public void allowPrefix(String hexPrefix) {
+        allowedPrefixes.add(hexPrefix);
+        clearDecisions();
+    }
+
+    /**
+     * 拒绝的 EPC 前缀
+     *
+     * @param hexPrefix 十六进制前缀，按半字节匹配
+     */
+    public void denyPrefix(String hexPrefix) {
+        deniedPrefixes.add(hexPrefix);
+        clearDecisions();
+    }
+
+    /**
+     * 只保留指定天线的记录，没有天线编号的记录不受影响
+     *
+     * @param antennaIds
+     */
+    public void selectAntennas(int... antennaIds) {
+        int max = 0;
+        for (int id : antennaIds) {
+            if (id < 0 || id > 0xFFFF) {
+                throw new IllegalArgumentException("Invalid antenna id " + id);
+            }
+            max = Math.max(max, id);
+        }
+        boolean[] selected = new boolean[max + 1];
+        for (int id : antennaIds) {
+            selected[id] = true;
+        }
+        this.antennas = selected;
+    }
+
+    /**
+     * RSSI 下限，低于该值的记录被丢弃，没有 RSSI 的记录不受影响
+     *
+     * @param dbm
+     */
+    public void setMinRssi(double dbm) {
+        this.minRssiRaw = (int) Math.round(dbm * 100);
+    }
+
+    /**
+     * 去重窗口，同一（EPC，天线，信道）在窗口内的重复读取只保留第一条
+     *
+     * @param millis 不大于0时不去重
+     */
+    public void setDedupWindow(long millis) {
+        this.dedupWindow = millis * 1000;
+    }
+
+    @Override
+    public boolean process(TagRecord tag) {
+        if (tag.has(TagRecord.IS_GAP)) {
+            return true;
+        }
+
+        if (!acceptEpc(tag)) {
+            epcRejectedCount++;
+            return false;
+        }
+
+        if (antennas != null && tag.has(TagRecord.HAS_ANTENNA_ID)) {
+            int antenna = tag.getAntennaId() & 0xFFFF;
+            if (antenna >= antennas.length || !antennas[antenna]) {
+                antennaRejectedCount++;
+                return false;
+            }
+        }
+
+        if (tag.has(TagRecord.HAS_PEAK_RSSI) && tag.getPeakRssiRaw() < minRssiRaw) {
+            rssiRejectedCount++;
+            return false;
+        }
+
+        if (dedupWindow > 0 && tag.getEpcId() >= 0 && tag.has(TagRecord.HAS_FIRST_SEEN_TIME)
+                && isDuplicate(tag)) {
+            duplicateCount++;
+            return false;
+        }
+
+        acceptedCount++;
+        return true;
+    }
+
+    /**
+     * 清空去重状态，例如断线重连之后
+     */
+    public void reset() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    @Override
+    public void onGap() {
+        reset();
+    }
+
+    public long getAcceptedCount() {
+        return acceptedCount;
+    }
+
+    public long getEpcRejectedCount() {
+        return epcRejectedCount;
+    }
+
+    public long getAntennaRejectedCount() {
+        return antennaRejectedCount;
+    }
+
+    public long getRssiRejectedCount() {
+        return rssiRejectedCount;
+    }
+
+    public long getDuplicateCount() {
+        return duplicateCount;
+    }
+
+    private boolean acceptEpc(TagRecord tag) {
+        if (!hasEpcRules) {
+            return true;
+        }
+        if (!tag.has(TagRecord.HAS_EPC)) {
+            return allowed.size() == 0 && allowedPrefixes.isEmpty();
+        }
+
+        int id = tag.getEpcId();
+        if (id < 0) {
+            return decide(tag.getEpcBytes(), tag.getEpcLength());
+        }
+        if (id >= decisions.length) {
+            decisions = Arrays.copyOf(decisions, Math.max(id + 1, decisions.length << 1));
+        }
+        byte decision = decisions[id];
+        if (decision == UNKNOWN) {
+            decision = decide(tag.getEpcBytes(), tag.getEpcLength()) ? ACCEPT : REJECT;
+            decisions[id] = decision;
+        }
+        return decision == ACCEPT;
+    }
+
+    private boolean decide(byte[] bytes, int length) {
+        if (denied.find(bytes, length) != null || deniedPrefixes.matches(bytes, length)) {
+            return false;
+        }
+        if (allowed.size() == 0 && allowedPrefixes.isEmpty()) {
+            return true;
+        }
+        return allowed.find(bytes, length) != null || allowedPrefixes.matches(bytes, length);
+    }
+
+    private void add(EpcTable table, String hex) {
+        if (hex.isEmpty() || (hex.length() & 1) != 0 || hex.length() > TagRecord.MAX_EPC_BYTES * 2) {
+            throw new IllegalArgumentException("Invalid EPC: " + hex);
+        }
+        for (int i = 0; i < hex.length(); i++) {
+            if (Character.digit(hex.charAt(i), 16) < 0) {
+                throw new IllegalArgumentException("Invalid EPC: " + hex);
+            }
+        }
+        int length = TagRecord.decodeHex(hex, epcBuffer);
+        if (table.find(epcBuffer, length) == null) {
+            table.add(epcBuffer, length, hex);
+        }
+        clearDecisions();
+    }
+
+    private void clearDecisions() {
+        Arrays.fill(decisions, UNKNOWN);
+        hasEpcRules = true;
+    }
+
+    /**
+     * 检查并更新去重状态
+     *
+     * @param tag
+     * @return 是否为窗口内的重复读取
+     */
+    private boolean isDuplicate(TagRecord tag) {
+        long key = key(tag);
+        long time = tag.getFirstSeenTime();
+        int slot = find(key);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            lastTimes[slot] = time;
+            if (++size > (keys.length >> 1)) {
+                grow();
+            }
+            return false;
+        }
+        if (time < lastTimes[slot]) {
+            // 乱序到达的记录不参与去重
+            return false;
+        }
+        if (time - lastTimes[slot] < dedupWindow) {
+            return true;
+        }
+        lastTimes[slot] = time;
+        return false;
+    }
+
+    private static long key(TagRecord tag) {
+        long antenna = tag.has(TagRecord.HAS_ANTENNA_ID) ? tag.getAntennaId() & 0xFFFF : 0;
+        long channel = tag.has(TagRecord.HAS_CHANNEL_INDEX) ? tag.getChannelIndex() & 0xFFFF : 0;
+        return ((long) tag.getEpcId() << 32) | (antenna << 16) | channel;
+    }
+
+    private int find(long key) {
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        lastTimes = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldLastTimes = lastTimes;
+        allocate(oldKeys.length << 1);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY) {
+                continue;
+            }
+            int slot = find(oldKeys[i]);
+            keys[slot] = oldKeys[i];
+            lastTimes[slot] = oldLastTimes[i];
+        }
+    }
+
+    /**
+     * 按半字节索引的前缀树
+     */
+    private static final class PrefixTrie {
+
+        /**
+         * 子节点，按 节点 × 16 + 半字节 索引，0 表示没有子节点（根节点不会是子节点）
+         */
+        private int[] children = new int[16];
+
+        /**
+         * 是否为某个前缀的结尾
+         */
+        private boolean[] terminal = new boolean[1];
+
+        private int nodeCount = 1;
+
+        void add(String hexPrefix) {
+            int node = 0;
+            for (int i = 0; i < hexPrefix.length(); i++) {
+                int nibble = Character.digit(hexPrefix.charAt(i), 16);
+                if (nibble < 0) {
+                    throw new IllegalArgumentException("Invalid hex prefix: " + hexPrefix);
+                }
+                int child = children[node * 16 + nibble];
+                if (child == 0) {
+                    child = nodeCount++;
+                    if (children.length < nodeCount * 16) {
+                        children = Arrays.copyOf(children, children.length << 1);
+                    }
+                    if (terminal.length < nodeCount) {
+                        terminal = Arrays.copyOf(terminal, terminal.length << 1);
+                    }
+                    children[node * 16 + nibble] = child;
+                }
+                node = child;
+            }
+            terminal[node] = true;
+        }
+
+        boolean isEmpty() {
+            return nodeCount == 1 && !terminal[0];
+        }
+
+        boolean matches(byte[] bytes, int length) {
+            int node = 0;
+            for (int i = 0; i < length * 2; i++) {
+                if (terminal[node]) {
+                    return true;
+                }
+                int b = bytes[i >> 1] & 0xFF;
+                int nibble = (i & 1) == 0 ? b >>> 4 : b & 0xF;
+                node = children[node * 16 + nibble];
+                if (node == 0) {
+                    return false;
+                }
+            }
+            return terminal[node];
+        }
+    }
+}
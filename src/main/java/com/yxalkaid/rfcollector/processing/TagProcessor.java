@@ -0,0 +1,29 @@
+package com.yxalkaid.rfcollector.processing;
+
+import com.yxalkaid.rfcollector.domain.TagRecord;
+
+/**
+ * 标签处理阶段
+ * <p>
+ * 在连接的 I/O 线程上对解码后的记录逐条调用，先于流水线与写盘，
+ * 实现不应阻塞，也不应在每条记录上分配对象。
+ */
+@FunctionalInterface
+public interface TagProcessor {
+
+    /**
+     * 处理记录，可就地修改
+     *
+     * @param tag 复用的记录，调用返回后不得再持有其引用
+     * @return 是否保留该记录，返回 false 时记录被丢弃
+     */
+    boolean process(TagRecord tag);
+
+    /**
+     * 连接中断后、新连接开始上报之前调用，在重连线程上执行
+     * <p>
+     * 中断期间的读取已丢失，跨越间断的状态（相位累计、去重窗口、时钟拟合）应在此清空。
+     */
+    default void onGap() {
+    }
+}
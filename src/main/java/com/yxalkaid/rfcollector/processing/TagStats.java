@@ -0,0 +1,269 @@
+package com.yxalkaid.rfcollector.processing;
+
+import com.yxalkaid.rfcollector.domain.TagRecord;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * 单个标签在一个时间窗口内的统计量，可被反复复用
+ * <p>
+ * RSSI 的均值与方差按 Welford 算法增量计算。
+ * <p>
+ * 相位是角度，且不同天线、不同信道的相位偏移不同，不能直接求算术均值。相位按（天线，信道）分组，
+ * 每组累加 cos 与 sin，均值取样本最多的一组的圆均值，方差取各组的合并圆方差 1 − ΣR/Σn，
+ * 其中 R 为组内单位向量和的长度，只含一个样本的组不计入。相位优先使用解缠绕相位，否则使用原始相位的弧度值。
+ * <p>
+ * 天线与信道覆盖以位图记录，天线 1 至 64、信道 0 至 127 之外的值不计入。
+ */
+@Getter
+public class TagStats {
+
+    /**
+     * EPC在驻留表中的编号
+     */
+    private int epcId;
+
+    /**
+     * EPC，十六进制字符串
+     */
+    private String epc;
+
+    /**
+     * 记录数
+     */
+    private int recordCount;
+
+    /**
+     * 读取次数，按 tagSeenCount 累计，缺失时按 1 计
+     */
+    private long readCount;
+
+    private long firstSeenTime;
+
+    private long lastSeenTime;
+
+    private int rssiCount;
+
+    /**
+     * RSSI均值（dBm）
+     */
+    private double rssiMean;
+
+    private double rssiM2;
+
+    private int phaseCount;
+
+    /**
+     * 相位分组数
+     */
+    private int phaseGroups;
+
+    /**
+     * 各组的键：天线 << 16 | 信道，随对象复用，只在分组数增加时扩容
+     */
+    @Getter(AccessLevel.NONE)
+    private int[] phaseKeys = new int[8];
+
+    @Getter(AccessLevel.NONE)
+    private int[] phaseCounts = new int[8];
+
+    @Getter(AccessLevel.NONE)
+    private double[] phaseCos = new double[8];
+
+    @Getter(AccessLevel.NONE)
+    private double[] phaseSin = new double[8];
+
+    /**
+     * 天线位图，第 n-1 位表示天线 n
+     */
+    private long antennaMask;
+
+    /**
+     * 信道位图，低64个信道
+     */
+    private long channelMaskLow;
+
+    /**
+     * 信道位图，高64个信道
+     */
+    private long channelMaskHigh;
+
+    /**
+     * 重置为空
+     *
+     * @param epcId
+     * @param epc
+     */
+    public void reset(int epcId, String epc) {
+        this.epcId = epcId;
+        this.epc = epc;
+        this.recordCount = 0;
+        this.readCount = 0;
+        this.firstSeenTime = Long.MAX_VALUE;
+        this.lastSeenTime = Long.MIN_VALUE;
+        this.rssiCount = 0;
+        this.rssiMean = 0;
+        this.rssiM2 = 0;
+        this.phaseCount = 0;
+        this.phaseGroups = 0;
+        this.antennaMask = 0;
+        this.channelMaskLow = 0;
+        this.channelMaskHigh = 0;
+    }
+
+    /**
+     * 累加一条记录
+     *
+     * @param tag
+     */
+    public void add(TagRecord tag) {
+        recordCount++;
+        readCount += tag.has(TagRecord.HAS_TAG_SEEN_COUNT) && tag.getTagSeenCount() > 0 ? tag.getTagSeenCount() : 1;
+
+        long time = tag.getFirstSeenTime();
+        if (time < firstSeenTime) {
+            firstSeenTime = time;
+        }
+        long last = tag.has(TagRecord.HAS_LAST_SEEN_TIME) ? tag.getLastSeenTime() : time;
+        if (last > lastSeenTime) {
+            lastSeenTime = last;
+        }
+
+        if (tag.has(TagRecord.HAS_PEAK_RSSI)) {
+            double rssi = tag.getPeakRssiDbm();
+            rssiCount++;
+            double delta = rssi - rssiMean;
+            rssiMean += delta / rssiCount;
+            rssiM2 += delta * (rssi - rssiMean);
+        }
+
+        if (tag.has(TagRecord.HAS_UNWRAPPED_PHASE) || tag.has(TagRecord.HAS_PHASE)) {
+            double phase = tag.has(TagRecord.HAS_UNWRAPPED_PHASE) ? tag.getUnwrappedPhase() : tag.getPhaseRadians();
+            int antenna = tag.has(TagRecord.HAS_ANTENNA_ID) ? tag.getAntennaId() & 0xFFFF : 0;
+            int channel = tag.has(TagRecord.HAS_CHANNEL_INDEX) ? tag.getChannelIndex() & 0xFFFF : 0;
+            int group = phaseGroup(antenna << 16 | channel);
+            phaseCount++;
+            phaseCounts[group]++;
+            phaseCos[group] += Math.cos(phase);
+            phaseSin[group] += Math.sin(phase);
+        }
+
+        if (tag.has(TagRecord.HAS_ANTENNA_ID)) {
+            int antenna = tag.getAntennaId();
+            if (antenna >= 1 && antenna <= 64) {
+                antennaMask |= 1L << (antenna - 1);
+            }
+        }
+
+        if (tag.has(TagRecord.HAS_CHANNEL_INDEX)) {
+            int channel = tag.getChannelIndex();
+            if (channel >= 0 && channel < 64) {
+                channelMaskLow |= 1L << channel;
+            } else if (channel >= 64 && channel < 128) {
+                channelMaskHigh |= 1L << (channel - 64);
+            }
+        }
+    }
+
+    /**
+     * RSSI方差（dBm²），样本不足两个时为0
+     *
+     * @return
+     */
+    public double getRssiVariance() {
+        return rssiCount > 1 ? rssiM2 / (rssiCount - 1) : 0;
+    }
+
+    /**
+     * 相位圆均值（弧度，0 至 2π），取样本最多的（天线，信道）分组
+     *
+     * @return 没有相位时为0
+     */
+    public double getPhaseMean() {
+        int best = -1;
+        for (int i = 0; i < phaseGroups; i++) {
+            if (best < 0 || phaseCounts[i] > phaseCounts[best]) {
+                best = i;
+            }
+        }
+        if (best < 0) {
+            return 0;
+        }
+        double mean = Math.atan2(phaseSin[best], phaseCos[best]);
+        return mean < 0 ? mean + 2 * Math.PI : mean;
+    }
+
+    /**
+     * 相位合并圆方差，取值 0 至 1，0 表示各组内相位完全一致
+     *
+     * @return 没有样本数不少于两个的分组时为0
+     */
+    public double getPhaseVariance() {
+        double resultant = 0;
+        int count = 0;
+        for (int i = 0; i < phaseGroups; i++) {
+            if (phaseCounts[i] > 1) {
+                resultant += Math.hypot(phaseCos[i], phaseSin[i]);
+                count += phaseCounts[i];
+            }
+        }
+        return count > 0 ? Math.max(0, 1 - resultant / count) : 0;
+    }
+
+    /**
+     * 查找或新建相位分组，一个窗口内同一标签的分组很少，线性查找即可
+     *
+     * @param key
+     * @return 分组下标
+     */
+    private int phaseGroup(int key) {
+        for (int i = 0; i < phaseGroups; i++) {
+            if (phaseKeys[i] == key) {
+                return i;
+            }
+        }
+        if (phaseGroups == phaseKeys.length) {
+            int capacity = phaseGroups << 1;
+            phaseKeys = Arrays.copyOf(phaseKeys, capacity);
+            phaseCounts = Arrays.copyOf(phaseCounts, capacity);
+            phaseCos = Arrays.copyOf(phaseCos, capacity);
+            phaseSin = Arrays.copyOf(phaseSin, capacity);
+        }
+        int group = phaseGroups++;
+        phaseKeys[group] = key;
+        phaseCounts[group] = 0;
+        phaseCos[group] = 0;
+        phaseSin[group] = 0;
+        return group;
+    }
+
+    /**
+     * 读取速率（次/秒）
+     *
+     * @param windowMicros 窗口长度（微秒）
+     * @return
+     */
+    public double getReadRate(long windowMicros) {
+        return readCount * 1_000_000.0 / windowMicros;
+    }
+
+    /**
+     * 覆盖的天线数
+     *
+     * @return
+     */
+    public int getAntennaCount() {
+        return Long.bitCount(antennaMask);
+    }
+
+    /**
+     * 覆盖的信道数
+     *
+     * @return
+     */
+    public int getChannelCount() {
+        return Long.bitCount(channelMaskLow) + Long.bitCount(channelMaskHigh);
+    }
+}
@@ -0,0 +1,257 @@
+package com.yxalkaid.rfcollector.processing;
+
+import com.yxalkaid.rfcollector.domain.TagRecord;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 按 firstSeenTime 划分时间窗口，对每个标签累计统计量
+ * <p>
+ * 窗口长度与滑动步长相同时为滚动窗口，否则为滑动窗口，窗口长度须为步长的整数倍，
+ * 每条记录计入覆盖其时间的 窗口长度/步长 个窗口。窗口起点对齐到步长的整数倍。
+ * 见到的最大时间越过窗口终点时窗口关闭，按标签逐个交给监听器，之后到达的属于该窗口的记录计为迟到并丢弃。
+ * <p>
+ * 窗口与统计对象在关闭后回收复用，稳定运行时不分配对象。非线程安全。
+ */
+public class WindowAggregator {
+
+    /**
+     * 窗口关闭监听器
+     */
+    @FunctionalInterface
+    public interface WindowListener {
+
+        /**
+         * 窗口中的一个标签
+         *
+         * @param windowStart 窗口起点（微秒）
+         * @param windowEnd   窗口终点（微秒），不含
+         * @param stats       统计量，调用返回后被复用
+         * @throws Exception
+         */
+        void onWindow(long windowStart, long windowEnd, TagStats stats) throws Exception;
+    }
+
+    /**
+     * 窗口长度（微秒）
+     */
+    private final long size;
+
+    /**
+     * 滑动步长（微秒）
+     */
+    private final long slide;
+
+    private final WindowListener listener;
+
+    /**
+     * 未关闭的窗口，按起点升序
+     */
+    private final List<Window> open = new ArrayList<>();
+
+    /**
+     * 空闲窗口
+     */
+    private final ArrayDeque<Window> windowPool = new ArrayDeque<>();
+
+    /**
+     * 空闲统计对象，各窗口共用
+     */
+    private final ArrayDeque<TagStats> statsPool = new ArrayDeque<>();
+
+    /**
+     * 已见到的最大时间
+     */
+    private long watermark = Long.MIN_VALUE;
+
+    /**
+     * 迟到丢弃的记录数
+     */
+    private long lateCount;
+
+    /**
+     * 已关闭的窗口数
+     */
+    private long windowCount;
+
+    /**
+     * 构造方法
+     *
+     * @param size     窗口长度（微秒）
+     * @param slide    滑动步长（微秒），等于窗口长度时为滚动窗口
+     * @param listener 窗口关闭监听器
+     */
+    public WindowAggregator(long size, long slide, WindowListener listener) {
+        if (size <= 0 || slide <= 0 || slide > size || size % slide != 0) {
+            throw new IllegalArgumentException("size must be a positive multiple of slide");
+        }
+        this.size = size;
+        this.slide = slide;
+        this.listener = listener;
+    }
+
+    /**
+     * 累加一条记录，没有时间戳或未驻留EPC的记录与间断标记被忽略
+     *
+     * @param tag
+     * @throws Exception 监听器抛出的异常
+     */
+    public void add(TagRecord tag) throws Exception {
+        if (!tag.has(TagRecord.HAS_FIRST_SEEN_TIME) || tag.has(TagRecord.IS_GAP) || tag.getEpcId() < 0) {
+            return;
+        }
+
+        long time = tag.getFirstSeenTime();
+        if (time > watermark) {
+            watermark = time;
+            closeUntil(watermark);
+        }
+
+        long last = Math.floorDiv(time, slide) * slide;
+        boolean counted = false;
+        for (long start = last - size + slide; start <= last; start += slide) {
+            if (start + size <= watermark) {
+                continue;
+            }
+            window(start).add(tag);
+            counted = true;
+        }
+        if (!counted) {
+            lateCount++;
+        }
+    }
+
+    /**
+     * 关闭所有窗口
+     *
+     * @throws Exception 监听器抛出的异常
+     */
+    public void flush() throws Exception {
+        closeUntil(Long.MAX_VALUE);
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getSlide() {
+        return slide;
+    }
+
+    public long getLateCount() {
+        return lateCount;
+    }
+
+    public long getWindowCount() {
+        return windowCount;
+    }
+
+    private void closeUntil(long time) throws Exception {
+        while (!open.isEmpty() && (time == Long.MAX_VALUE || open.get(0).start + size <= time)) {
+            Window window = open.remove(0);
+            windowCount++;
+            try {
+                for (int i = 0; i < window.count; i++) {
+                    listener.onWindow(window.start, window.start + size, window.stats[i]);
+                }
+            } finally {
+                window.recycle();
+                windowPool.add(window);
+            }
+        }
+    }
+
+    private Window window(long start) {
+        int i = open.size();
+        while (i > 0 && open.get(i - 1).start > start) {
+            i--;
+        }
+        if (i > 0 && open.get(i - 1).start == start) {
+            return open.get(i - 1);
+        }
+        Window window = windowPool.poll();
+        if (window == null) {
+            window = new Window();
+        }
+        window.start = start;
+        open.add(i, window);
+        return window;
+    }
+
+    /**
+     * 一个时间窗口，EPC编号到统计对象的开放寻址表
+     */
+    private class Window {
+
+        long start;
+
+        int[] keys = new int[64];
+
+        int[] slots = new int[64];
+
+        TagStats[] stats = new TagStats[32];
+
+        int count;
+
+        Window() {
+            Arrays.fill(keys, -1);
+        }
+
+        void add(TagRecord tag) {
+            int epcId = tag.getEpcId();
+            int mask = keys.length - 1;
+            int h = (epcId * 0x9E3779B9) & mask;
+            while (keys[h] != -1 && keys[h] != epcId) {
+                h = (h + 1) & mask;
+            }
+            TagStats s;
+            if (keys[h] == epcId) {
+                s = stats[slots[h]];
+            } else {
+                s = statsPool.poll();
+                if (s == null) {
+                    s = new TagStats();
+                }
+                s.reset(epcId, tag.getEpc());
+                if (count == stats.length) {
+                    stats = Arrays.copyOf(stats, count << 1);
+                }
+                stats[count] = s;
+                keys[h] = epcId;
+                slots[h] = count;
+                count++;
+                if (count > (keys.length >> 1)) {
+                    rehash();
+                }
+            }
+            s.add(tag);
+        }
+
+        private void rehash() {
+            keys = new int[keys.length << 1];
+            slots = new int[keys.length];
+            Arrays.fill(keys, -1);
+            int mask = keys.length - 1;
+            for (int i = 0; i < count; i++) {
+                int h = (stats[i].getEpcId() * 0x9E3779B9) & mask;
+                while (keys[h] != -1) {
+                    h = (h + 1) & mask;
+                }
+                keys[h] = stats[i].getEpcId();
+                slots[h] = i;
+            }
+        }
+
+        void recycle() {
+            for (int i = 0; i < count; i++) {
+                statsPool.add(stats[i]);
+                stats[i] = null;
+            }
+            count = 0;
+            Arrays.fill(keys, -1);
+        }
+    }
+}
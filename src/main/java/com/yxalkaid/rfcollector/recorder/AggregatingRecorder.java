@@ -0,0 +1,145 @@
+package com.yxalkaid.rfcollector.recorder;
+
+import com.csvreader.CsvWriter;
+import com.yxalkaid.rfcollector.capture.CsvLayout;
+import com.yxalkaid.rfcollector.capture.OutputFiles;
+import com.yxalkaid.rfcollector.domain.TagRecord;
+import com.yxalkaid.rfcollector.processing.TagStats;
+import com.yxalkaid.rfcollector.processing.WindowAggregator;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+/**
+ * 聚合记录器, 按时间窗口统计每个标签并将窗口摘要记录到csv文件
+ * <p>
+ * 每个窗口每个标签一行：读取次数与速率、RSSI与相位的均值和方差、覆盖的天线数与信道数。
+ * 可同时指定原始记录器，原始记录照常写入，摘要写入单独的文件。
+ */
+@Slf4j
+public class AggregatingRecorder extends BaseRecorder {
+
+    /**
+     * 摘要表头
+     */
+    public static final String[] HEADER = {"window_start", "window_end", "id", "records", "reads", "read_rate",
+            "rssi_mean", "rssi_var", "phase_mean", "phase_var", "antennas", "channels"};
+
+    /**
+     * 窗口聚合
+     */
+    private final WindowAggregator aggregator;
+
+    /**
+     * 原始记录器，可为null
+     */
+    private final BaseRecorder raw;
+
+    /**
+     * csv写入
+     */
+    private CsvWriter csvWriter;
+
+    /**
+     * 已写入的摘要行数
+     */
+    private int summaryCount;
+
+    /**
+     * 复用的行数组
+     */
+    private final String[] line = new String[HEADER.length];
+
+    /**
+     * 构造方法
+     *
+     * @param parentDir    父目录
+     * @param windowMillis 窗口长度（毫秒）
+     * @param slideMillis  滑动步长（毫秒），等于窗口长度时为滚动窗口
+     */
+    public AggregatingRecorder(String parentDir, long windowMillis, long slideMillis) {
+        this(parentDir, windowMillis, slideMillis, null);
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param parentDir    父目录
+     * @param windowMillis 窗口长度（毫秒）
+     * @param slideMillis  滑动步长（毫秒），等于窗口长度时为滚动窗口
+     * @param raw          同时写入原始记录的记录器，不会打开它自己的连接
+     */
+    public AggregatingRecorder(String parentDir, long windowMillis, long slideMillis, BaseRecorder raw) {
+        this.aggregator = new WindowAggregator(windowMillis * 1000, slideMillis * 1000, this::writeSummary);
+        this.raw = raw;
+        this.initCsvWriter(parentDir);
+    }
+
+    /**
+     * 初始化csv写入
+     *
+     * @param parentDir
+     */
+    private void initCsvWriter(String parentDir) {
+        Path csvFile = OutputFiles.create(parentDir, "_windows.csv");
+        log.info("Writing window summaries to " + csvFile.toAbsolutePath());
+        try {
+            this.csvWriter = new CsvWriter(csvFile.toString(), ',', CsvLayout.CHARSET);
+            this.csvWriter.writeRecord(HEADER);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write to " + csvFile, e);
+        }
+    }
+
+    @Override
+    protected void recordTag(TagRecord tag) throws Exception {
+        if (this.raw != null) {
+            this.raw.recordTag(tag);
+        }
+        synchronized (this.aggregator) {
+            this.aggregator.add(tag);
+        }
+    }
+
+    private void writeSummary(long windowStart, long windowEnd, TagStats stats) throws IOException {
+        line[0] = Long.toString(windowStart);
+        line[1] = Long.toString(windowEnd);
+        line[2] = stats.getEpc();
+        line[3] = Integer.toString(stats.getRecordCount());
+        line[4] = Long.toString(stats.getReadCount());
+        line[5] = Double.toString(stats.getReadRate(windowEnd - windowStart));
+        line[6] = stats.getRssiCount() > 0 ? Double.toString(stats.getRssiMean()) : "null";
+        line[7] = stats.getRssiCount() > 0 ? Double.toString(stats.getRssiVariance()) : "null";
+        line[8] = stats.getPhaseCount() > 0 ? Double.toString(stats.getPhaseMean()) : "null";
+        line[9] = stats.getPhaseCount() > 0 ? Double.toString(stats.getPhaseVariance()) : "null";
+        line[10] = Integer.toString(stats.getAntennaCount());
+        line[11] = Integer.toString(stats.getChannelCount());
+        this.csvWriter.writeRecord(line);
+        this.summaryCount += 1;
+    }
+
+    @Override
+    public void close() {
+        super.close();
+
+        if (this.raw != null) {
+            this.raw.close();
+        }
+
+        if (this.csvWriter == null) {
+            return;
+        }
+        synchronized (this.aggregator) {
+            try {
+                this.aggregator.flush();
+            } catch (Exception e) {
+                log.error("Error flushing windows", e);
+            }
+            this.csvWriter.close();
+            log.info("Window writer closed, windows={}, summaries={}, late={}",
+                    aggregator.getWindowCount(), summaryCount, aggregator.getLateCount());
+        }
+    }
+}
@@ -1,6 +1,15 @@
 package com.yxalkaid.rfcollector.recorder;
 
+import com.yxalkaid.rfcollector.domain.Epc;
+import com.yxalkaid.rfcollector.domain.EpcTable;
 import com.yxalkaid.rfcollector.domain.SimpleTag;
+import com.yxalkaid.rfcollector.domain.TagRecord;
+import com.yxalkaid.rfcollector.metrics.CollectorMetrics;
+import com.yxalkaid.rfcollector.pipeline.BackpressurePolicy;
+import com.yxalkaid.rfcollector.pipeline.RecordPipeline;
+import com.yxalkaid.rfcollector.processing.ClockAligner;
+import com.yxalkaid.rfcollector.processing.ReaderClock;
+import com.yxalkaid.rfcollector.processing.TagProcessor;
 import lombok.extern.slf4j.Slf4j;
 import org.jdom.JDOMException;
 import org.llrp.ltk.exceptions.InvalidLLRPMessageException;
@@ -11,6 +20,8 @@ import org.llrp.ltk.generated.custom.parameters.ImpinjRFDopplerFrequency;
 import org.llrp.ltk.generated.custom.parameters.ImpinjRFPhaseAngle;
 import org.llrp.ltk.generated.enumerations.GetReaderCapabilitiesRequestedData;
 import org.llrp.ltk.generated.enumerations.GetReaderConfigRequestedData;
+import org.llrp.ltk.generated.enumerations.KeepaliveTriggerType;
+import org.llrp.ltk.generated.enumerations.ROSpecState;
 import org.llrp.ltk.generated.enumerations.StatusCode;
 import org.llrp.ltk.generated.messages.*;
 import org.llrp.ltk.generated.parameters.*;
@@ -21,18 +32,35 @@ import org.llrp.ltk.net.LLRPEndpoint;
 import org.llrp.ltk.types.*;
 import org.llrp.ltk.util.Util;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 /**
  * 基础记录器
  */
 @Slf4j
-public class BaseRecorder implements LLRPEndpoint {
+public class BaseRecorder implements LLRPEndpoint, Recorder {
+
+    /**
+     * LLRP 默认端口
+     */
+    public static final int DEFAULT_PORT = 5084;
 
     /**
      * 消息超时时长（毫秒）
@@ -44,6 +72,20 @@ public class BaseRecorder implements LLRPEndpoint {
      */
     private LLRPConnection connection;
 
+    /**
+     * 读写器地址
+     */
+    private String host;
+
+    /**
+     * 读写器端口
+     */
+    private int port;
+
+    private String configPath;
+
+    private String roSpecPath;
+
     /**
      * 消息ID
      */
@@ -54,6 +96,287 @@ public class BaseRecorder implements LLRPEndpoint {
      */
     private ROSpec rospec;
 
+    /**
+     * 缓存的读写器配置，重连时重新下发
+     */
+    private SET_READER_CONFIG readerConfig;
+
+    /**
+     * 缓存的ROSpec，重连时重新添加
+     */
+    private ADD_ROSPEC addRoSpecMessage;
+
+    /**
+     * 是否应处于采集状态，重连后据此恢复采集
+     */
+    private volatile boolean running;
+
+    /**
+     * 连接监护，open 时未设置则使用默认参数
+     */
+    private ConnectionSupervisor supervisor;
+
+    /**
+     * 读写器时钟模型，定时采集与时钟对齐共用
+     */
+    private final ReaderClock clock = new ReaderClock();
+
+    /**
+     * 定时采集的布置
+     */
+    private final ScheduleArming arming = new ScheduleArming(clock);
+
+    /**
+     * 异步发送、等待应答的消息，键为消息ID
+     */
+    private final Map<Long, CompletableFuture<LLRPMessage>> pendingResponses = new ConcurrentHashMap<>();
+
+    /**
+     * 最近一次应答的 KEEPALIVE
+     * <p>
+     * LTK 关闭自动应答后，转发过的 KEEPALIVE 还会按普通消息再交付一次，同一个对象只应答一次。
+     */
+    private volatile LLRPMessage lastKeepalive;
+
+    /**
+     * 快速启动使用的查询缓存，为空时按完整流程初始化
+     */
+    private ReaderInfoCache readerInfoCache;
+
+    /**
+     * 初始化各阶段耗时
+     */
+    private final SetupTimings setupTimings = new SetupTimings();
+
+    /**
+     * 批量上报配置，为空时沿用配置文件中的上报策略
+     */
+    private ReportBatching reportBatching;
+
+    /**
+     * 记录流水线，为空时在I/O线程上同步记录
+     */
+    private RecordPipeline<TagRecord> pipeline;
+
+    /**
+     * 流水线是否由外部共享，共享时由创建者关闭
+     */
+    private boolean pipelineShared;
+
+    /**
+     * 处理阶段，在I/O线程上按顺序执行
+     */
+    private TagProcessor[] processors = new TagProcessor[0];
+
+    /**
+     * I/O线程上复用的标签记录
+     */
+    private TagRecord scratch = new TagRecord();
+
+    /**
+     * EPC解码缓冲区
+     */
+    private final byte[] epcBuffer = new byte[TagRecord.MAX_EPC_BYTES];
+
+    /**
+     * EPC驻留表，每个不同的标签只转换一次十六进制字符串
+     * <p>
+     * 多个读写器可共享同一张表，使相同标签在各连接上得到相同的编号，访问时在表上同步。
+     */
+    private final EpcTable epcTable;
+
+    /**
+     * 读写器编号，小于0时记录不带编号
+     */
+    private short readerId = -1;
+
+    /**
+     * 采集指标，未启用时为null
+     */
+    private volatile CollectorMetrics metrics;
+
+    public BaseRecorder() {
+        this(new EpcTable());
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param epcTable EPC驻留表，可在多个记录器之间共享
+     */
+    public BaseRecorder(EpcTable epcTable) {
+        this.epcTable = epcTable;
+    }
+
+    /**
+     * 启用采集指标并注册到JMX
+     *
+     * @param name 指标名称，区分多个记录器
+     * @return
+     */
+    public CollectorMetrics enableMetrics(String name) {
+        if (this.metrics != null) {
+            return this.metrics;
+        }
+        CollectorMetrics metrics = new CollectorMetrics(name);
+        metrics.bind(
+                () -> this.pipeline == null ? 0 : this.pipeline.size(),
+                () -> this.pipeline == null ? 0 : this.pipeline.getDroppedCount(),
+                this::getReconnectCount
+        );
+        metrics.registerMBean();
+        this.metrics = metrics;
+        return metrics;
+    }
+
+    public CollectorMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * 添加处理阶段，需在open之前调用
+     *
+     * @param processor
+     */
+    public void addProcessor(TagProcessor processor) {
+        TagProcessor[] next = Arrays.copyOf(processors, processors.length + 1);
+        next[processors.length] = processor;
+        this.processors = next;
+    }
+
+    /**
+     * 按时钟模型把 firstSeenTime 换算到主机时钟，写入 host_time，需在open之前调用
+     * <p>
+     * 在已添加的处理阶段之后执行，使用与定时采集相同的时钟模型（见 {@link #getClock()}）。
+     */
+    public void enableClockAlignment() {
+        this.addProcessor(new ClockAligner(this.clock));
+    }
+
+    /**
+     * 启用记录流水线，需在open之前调用
+     *
+     * @param capacity      缓冲区容量
+     * @param policy        背压策略
+     * @param consumerCount 消费者线程数
+     */
+    public void enablePipeline(int capacity, BackpressurePolicy policy, int consumerCount) {
+        if (this.pipeline != null) {
+            return;
+        }
+        this.pipeline = new RecordPipeline<>(
+                "recorder", capacity, TagRecord::new, policy, consumerCount, this::writeTag
+        );
+        this.pipeline.start();
+    }
+
+    /**
+     * 将记录发布到外部共享的流水线，需在open之前调用
+     *
+     * @param pipeline
+     */
+    void attachPipeline(RecordPipeline<TagRecord> pipeline) {
+        this.pipeline = pipeline;
+        this.pipelineShared = true;
+    }
+
+    public RecordPipeline<TagRecord> getPipeline() {
+        return pipeline;
+    }
+
+    /**
+     * 设置读写器编号，之后的每条记录都会带上该编号
+     *
+     * @param readerId
+     */
+    public void setReaderId(int readerId) {
+        this.readerId = (short) readerId;
+    }
+
+    public int getReaderId() {
+        return readerId;
+    }
+
+    /**
+     * 启用批量上报，需在open之前调用
+     *
+     * @param batchSize     每次上报的标签数，0 表示仅按间隔取回
+     * @param flushInterval GET_REPORT 发送间隔（毫秒），不大于0时不发送
+     */
+    public void enableBatchedReporting(int batchSize, long flushInterval) {
+        if (this.reportBatching != null) {
+            this.reportBatching.close();
+        }
+        this.reportBatching = new ReportBatching(batchSize, flushInterval);
+    }
+
+    public ReportBatching getReportBatching() {
+        return reportBatching;
+    }
+
+    /**
+     * 启用快速启动，需在open之前调用
+     * <p>
+     * 能力与配置查询结果按读写器缓存；读写器上保留着本程序最近一次添加的同一 ROSpec 时跳过恢复出厂设置和重新添加；
+     * 互不依赖的初始化消息连续发送后统一等待应答，读写器按顺序处理同一连接上的消息。
+     *
+     * @param cacheDirectory 查询缓存目录
+     */
+    public void enableFastStart(Path cacheDirectory) {
+        this.readerInfoCache = new ReaderInfoCache(cacheDirectory);
+    }
+
+    /**
+     * 最近一次open各阶段耗时
+     *
+     * @return
+     */
+    public SetupTimings getSetupTimings() {
+        return setupTimings;
+    }
+
+    /**
+     * 设置重连与存活检测参数，需在open之前调用；不调用时首次重连等待 500ms、最大 30s，心跳间隔 1s
+     *
+     * @param initialBackoff    首次重连等待（毫秒），之后每次加倍
+     * @param maxBackoff        最大重连等待（毫秒）
+     * @param keepaliveInterval 心跳间隔（毫秒），不大于0时不做存活检测
+     */
+    public void configureSupervision(long initialBackoff, long maxBackoff, long keepaliveInterval) {
+        if (this.supervisor != null) {
+            this.supervisor.close();
+        }
+        this.supervisor = new ConnectionSupervisor(this, initialBackoff, maxBackoff, keepaliveInterval);
+    }
+
+    /**
+     * 重连成功次数
+     *
+     * @return
+     */
+    public int getReconnectCount() {
+        return supervisor == null ? 0 : supervisor.getReconnectCount();
+    }
+
+    /**
+     * 读写器时钟模型，由标签的 LastSeenTimestampUTC（没有时用 FirstSeenTimestampUTC）与主机接收时间拟合，
+     * 重连后重新拟合
+     *
+     * @return
+     */
+    public ReaderClock getClock() {
+        return clock;
+    }
+
+    /**
+     * 已布置的定时采集计划
+     *
+     * @return 未布置时返回 null
+     */
+    public CollectionSchedule getSchedule() {
+        return arming.getSchedule();
+    }
+
     /**
      * 打开连接
      *
@@ -62,78 +385,535 @@ public class BaseRecorder implements LLRPEndpoint {
      * @param RoSpecPath
      */
     public void open(String host, String configPath, String RoSpecPath) {
+        this.open(host, DEFAULT_PORT, configPath, RoSpecPath);
+    }
+
+    /**
+     * 打开连接
+     *
+     * @param host
+     * @param port
+     * @param configPath
+     * @param RoSpecPath
+     */
+    public synchronized void open(String host, int port, String configPath, String RoSpecPath) {
         if (this.connection != null) {
             return;
         }
 
-        this.connect(host); // 连接读写器
-        this.enableImpinjExtensions(); // 启用Impinj扩展功能
-        this.resetToFactoryDefaults(); // 恢复出厂设置
-        this.deleteRoSpecs();// 删除所有RoSpec
+        this.host = host;
+        this.port = port;
+        this.configPath = configPath;
+        this.roSpecPath = RoSpecPath;
+        if (this.supervisor == null) {
+            this.supervisor = new ConnectionSupervisor(this);
+        }
+
+        try {
+            this.establish();
+        } catch (ReaderException e) {
+            log.error("Failed to open reader {}:{}", host, port, e);
+            this.disconnectQuietly();
+            this.supervisor.connectionLost(e.getMessage());
+        }
+    }
+
+    /**
+     * 连接并初始化读写器
+     */
+    private void establish() {
+        setupTimings.begin();
+        this.connect(host, port); // 连接读写器
+        setupTimings.mark("connect");
+
+        if (this.readerInfoCache != null) {
+            this.fastSetup(this.readerKey(), configPath, roSpecPath);
+        } else {
+            this.enableImpinjExtensions(); // 启用Impinj扩展功能
+            setupTimings.mark("extensions");
+            this.resetToFactoryDefaults(); // 恢复出厂设置
+            setupTimings.mark("reset");
+            this.deleteRoSpecs();// 删除所有RoSpec
+            setupTimings.mark("deleteRoSpecs");
+
+            this.getReaderCapabilities(); // 获取读写器能力信息
+            setupTimings.mark("capabilities");
+            this.getReaderConfiguration(); // 获取读写器配置信息
+            setupTimings.mark("getConfig");
+
+            this.setReaderConfiguration(configPath); // 进行读写器配置
+            setupTimings.mark("setConfig");
+            this.addRoSpec(roSpecPath); // 添加RoSpec任务
+            setupTimings.mark("addRoSpec");
+            this.enableRoSpec(); // 启用RoSpec
+            setupTimings.mark("enableRoSpec");
+        }
+        log.info("Reader setup: {}", setupTimings);
+        this.supervisor.start();
+    }
+
+    /**
+     * 断开并重新建立连接，之前处于采集状态时恢复采集
+     *
+     * @return 是否成功
+     */
+    synchronized boolean reconnect() {
+        this.disconnectQuietly();
+        // 旧连接已关闭，新连接尚未上报，此时清空时钟模型与处理阶段不会与I/O线程并发
+        this.clock.reset();
+        for (TagProcessor processor : processors) {
+            processor.onGap();
+        }
+        try {
+            this.establish();
+            if (this.running) {
+                this.startCollection();
+            }
+            return true;
+        } catch (ReaderException e) {
+            log.warn("Reconnect to {}:{} failed: {}", host, port, e.getMessage());
+            this.disconnectQuietly();
+            return false;
+        }
+    }
+
+    /**
+     * 断开连接，忽略错误，放弃等待中的应答
+     */
+    private void disconnectQuietly() {
+        if (this.reportBatching != null) {
+            this.reportBatching.stop();
+        }
+        LLRPConnection connection = this.connection;
+        this.connection = null;
+        if (connection != null) {
+            try {
+                if (connection instanceof LLRPConnector) {
+                    ((LLRPConnector) connection).disconnect();
+                } else if (connection instanceof Closeable) {
+                    ((Closeable) connection).close();
+                }
+            } catch (IOException | RuntimeException e) {
+                log.debug("Error while disconnecting", e);
+            }
+        }
+        for (CompletableFuture<LLRPMessage> response : pendingResponses.values()) {
+            response.completeExceptionally(new ReaderException("Connection closed"));
+        }
+        pendingResponses.clear();
+    }
+
+    /**
+     * 写入间断标记
+     * <p>
+     * 标记记录不含EPC，firstSeenTime 与 lastSeenTime 分别为间断的开始与结束（主机时间，微秒）。
+     *
+     * @param from
+     * @param to
+     */
+    protected void recordGap(long from, long to) {
+        log.warn("Collection gap of {}ms recorded", (to - from) / 1000);
+        TagRecord gap = new TagRecord();
+        gap.markGap(from, to);
+        if (readerId >= 0) {
+            gap.setReaderId(readerId);
+        }
+        RecordPipeline<TagRecord> pipeline = this.pipeline;
+        if (pipeline != null) {
+            pipeline.publish(gap);
+        } else {
+            try {
+                this.writeTag(gap);
+            } catch (Exception e) {
+                log.error("Error recording gap", e);
+            }
+        }
+    }
+
+    /**
+     * 快速初始化
+     * <p>
+     * 第一批发送启用扩展、查询已有 ROSpec 以及未缓存的能力与配置查询；
+     * 读写器上保留着同一编号的 ROSpec，且本程序最近一次添加的 ROSpec 摘要与当前要添加的相同时，
+     * 第二批只删除其他 ROSpec、下发配置并启用，否则完整地恢复出厂设置、删除并重新添加。
+     * 不比较读写器返回的 ROSpec 编码，读写器会补全或改写其中的可选参数。
+     *
+     * @param reader     读写器标识，用作缓存键
+     * @param configPath
+     * @param roSpecPath
+     */
+    private void fastSetup(String reader, String configPath, String roSpecPath) {
+        SET_READER_CONFIG config = this.buildReaderConfiguration(configPath);
+        ADD_ROSPEC add = this.buildAddRoSpec(roSpecPath);
+
+        GET_READER_CAPABILITIES_RESPONSE capabilities =
+                readerInfoCache.get(reader, GET_READER_CAPABILITIES_RESPONSE.class);
+        GET_READER_CONFIG_RESPONSE configuration =
+                readerInfoCache.get(reader, GET_READER_CONFIG_RESPONSE.class);
+
+        // 第一批：互不依赖的查询
+        CompletableFuture<LLRPMessage> extensions = this.sendAsync(new IMPINJ_ENABLE_EXTENSIONS());
+        CompletableFuture<LLRPMessage> rospecs = this.sendAsync(new GET_ROSPECS());
+        CompletableFuture<LLRPMessage> capabilitiesResponse =
+                capabilities == null ? this.sendAsync(buildCapabilitiesRequest()) : null;
+        CompletableFuture<LLRPMessage> configurationResponse =
+                configuration == null ? this.sendAsync(buildConfigurationRequest()) : null;
+
+        this.logStatusCode(statusOf(this.awaitResponse(extensions, "Enable Impinj Extensions")),
+                "Enable Impinj Extensions");
+        LLRPMessage held = this.awaitResponse(rospecs, "Get RoSpecs");
+        this.logStatusCode(statusOf(held), "Get RoSpecs");
+
+        if (capabilities == null) {
+            capabilities = (GET_READER_CAPABILITIES_RESPONSE)
+                    this.awaitResponse(capabilitiesResponse, "Get Reader Capabilities");
+            this.checkReaderCapabilities(capabilities);
+            readerInfoCache.put(reader, capabilities);
+        } else {
+            log.info("Using cached reader capabilities");
+            this.checkReaderCapabilities(capabilities);
+        }
+        if (configuration == null) {
+            configuration = (GET_READER_CONFIG_RESPONSE)
+                    this.awaitResponse(configurationResponse, "Get Reader Configuration");
+            this.checkReaderConfiguration(configuration);
+            readerInfoCache.put(reader, configuration);
+        } else {
+            log.info("Using cached reader configuration");
+            this.checkReaderConfiguration(configuration);
+        }
+        setupTimings.mark("query");
+
+        // 第二批：配置并启用
+        List<ROSpec> heldList = ((GET_ROSPECS_RESPONSE) held).getROSpecList();
+        long id = rospec.getROSpecID().toLong();
+        ROSpec existing = null;
+        if (heldList != null) {
+            for (ROSpec spec : heldList) {
+                if (spec.getROSpecID().toLong() == id) {
+                    existing = spec;
+                }
+            }
+        }
+        String digest = roSpecDigest(rospec);
+        boolean reuse = existing != null && digest.equals(readerInfoCache.getRoSpecDigest(reader));
+        Map<String, CompletableFuture<LLRPMessage>> batch = new LinkedHashMap<>();
+        if (reuse) {
+            log.info("Reader already holds our RoSpec {}, skipping reset", id);
+            for (ROSpec spec : heldList) {
+                if (spec != existing) {
+                    DELETE_ROSPEC delete = new DELETE_ROSPEC();
+                    delete.setROSpecID(spec.getROSpecID());
+                    batch.put("Delete RoSpec " + spec.getROSpecID(), this.sendAsync(delete));
+                }
+            }
+            if (existing.getCurrentState() != null
+                    && existing.getCurrentState().intValue() == ROSpecState.Active) {
+                STOP_ROSPEC stop = new STOP_ROSPEC();
+                stop.setROSpecID(rospec.getROSpecID());
+                batch.put("Stop RoSpec", this.sendAsync(stop));
+            }
+        } else {
+            SET_READER_CONFIG reset = new SET_READER_CONFIG();
+            reset.setResetToFactoryDefault(new Bit(true));
+            batch.put("Reset To Factory Defaults", this.sendAsync(reset));
+
+            DELETE_ROSPEC delete = new DELETE_ROSPEC();
+            delete.setROSpecID(new UnsignedInteger(0));
+            batch.put("Delete RoSpecs", this.sendAsync(delete));
+        }
+        batch.put("Set Reader Configuration", this.sendAsync(config));
+        if (!reuse) {
+            batch.put("Add RoSpec", this.sendAsync(add));
+        }
+        ENABLE_ROSPEC enable = new ENABLE_ROSPEC();
+        enable.setROSpecID(rospec.getROSpecID());
+        batch.put("Enable RoSpec", this.sendAsync(enable));
+
+        for (Map.Entry<String, CompletableFuture<LLRPMessage>> entry : batch.entrySet()) {
+            this.logStatusCode(statusOf(this.awaitResponse(entry.getValue(), entry.getKey())), entry.getKey());
+        }
+        if (!reuse) {
+            readerInfoCache.putRoSpecDigest(reader, digest);
+        }
+        setupTimings.mark("configure");
+    }
+
+    /**
+     * ROSpec 编码的 SHA-256 摘要
+     *
+     * @param spec
+     * @return 十六进制字符串
+     */
+    private static String roSpecDigest(ROSpec spec) {
+        LLRPBitList bits = spec.encodeBinary();
+        byte[] bytes = new byte[(bits.length() + 7) >> 3];
+        LtkBits.packBits(bits, bytes);
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String readerKey() {
+        return host + "_" + port;
+    }
+
+    /**
+     * 异步发送消息，应答由messageReceived按消息ID交付
+     *
+     * @param message
+     * @return
+     */
+    private CompletableFuture<LLRPMessage> sendAsync(LLRPMessage message) {
+        UnsignedInteger id = getUniqueMessageID();
+        message.setMessageID(id);
+        CompletableFuture<LLRPMessage> response = new CompletableFuture<>();
+        pendingResponses.put(id.toLong(), response);
+        connection.send(message);
+        return response;
+    }
 
-        this.getReaderCapabilities(); // 获取读写器能力信息
-        this.getReaderConfiguration(); // 获取读写器配置信息
+    /**
+     * 等待异步发送的消息的应答
+     *
+     * @param response
+     * @param msgType
+     * @return
+     */
+    private LLRPMessage awaitResponse(CompletableFuture<LLRPMessage> response, String msgType) {
+        try {
+            return response.get(messageTimeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            throw new ReaderException("Timeout waiting for response to " + msgType, ex);
+        } catch (ExecutionException ex) {
+            throw new ReaderException("No response to " + msgType, ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ReaderException("Interrupted waiting for response to " + msgType, ex);
+        }
+    }
 
-        this.setReaderConfiguration(configPath); // 进行读写器配置
-        this.addRoSpec(RoSpecPath); // 添加RoSpec任务
-        this.enableRoSpec(); // 启用RoSpec
+    /**
+     * 读取应答中的状态码
+     *
+     * @param response
+     * @return 不是已知的应答类型时返回 null
+     */
+    private static StatusCode statusOf(LLRPMessage response) {
+        LLRPStatus status = null;
+        if (response instanceof IMPINJ_ENABLE_EXTENSIONS_RESPONSE) {
+            status = ((IMPINJ_ENABLE_EXTENSIONS_RESPONSE) response).getLLRPStatus();
+        } else if (response instanceof SET_READER_CONFIG_RESPONSE) {
+            status = ((SET_READER_CONFIG_RESPONSE) response).getLLRPStatus();
+        } else if (response instanceof DELETE_ROSPEC_RESPONSE) {
+            status = ((DELETE_ROSPEC_RESPONSE) response).getLLRPStatus();
+        } else if (response instanceof ADD_ROSPEC_RESPONSE) {
+            status = ((ADD_ROSPEC_RESPONSE) response).getLLRPStatus();
+        } else if (response instanceof ENABLE_ROSPEC_RESPONSE) {
+            status = ((ENABLE_ROSPEC_RESPONSE) response).getLLRPStatus();
+        } else if (response instanceof STOP_ROSPEC_RESPONSE) {
+            status = ((STOP_ROSPEC_RESPONSE) response).getLLRPStatus();
+        } else if (response instanceof GET_ROSPECS_RESPONSE) {
+            status = ((GET_ROSPECS_RESPONSE) response).getLLRPStatus();
+        } else if (response instanceof ERROR_MESSAGE) {
+            status = ((ERROR_MESSAGE) response).getLLRPStatus();
+        }
+        return status == null ? null : status.getStatusCode();
     }
 
     /**
      * 连接读写器
      *
      * @param host
+     * @param port
      */
-    private void connect(String host) {
+    private void connect(String host, int port) {
         if (this.connection != null) {
             return;
         }
 
-        log.info("Initiate LLRP connection to {}", host);
+        log.info("Initiate LLRP connection to {}:{}", host, port);
 
-        this.connection = new LLRPConnector(this, host);
         try {
-            ((LLRPConnector) connection).connect();
+            this.connection = this.openConnection(host, port);
             log.info("Connecting to reader already");
         } catch (LLRPConnectionAttemptFailedException ex) {
-            log.error("Connection to reader failed", ex);
             this.connection = null;
-            System.exit(1);
+            throw new ReaderException("Connection to " + host + ":" + port + " failed", ex);
         }
     }
 
+    /**
+     * 建立 LLRP 连接，子类可替换连接的实现
+     * <p>
+     * LTK 默认自行应答 KEEPALIVE 且不转发，读写器空闲时端点收不到任何消息，存活检测会误判断线；
+     * 这里改为转发 KEEPALIVE、由 messageReceived 应答。替换的实现同样需要转发 KEEPALIVE。
+     *
+     * @param host
+     * @param port
+     * @return 已连接的连接
+     * @throws LLRPConnectionAttemptFailedException
+     */
+    protected LLRPConnection openConnection(String host, int port) throws LLRPConnectionAttemptFailedException {
+        LLRPConnector connector = new LLRPConnector(this, host, port);
+        connector.getHandler().setKeepAliveForward(true);
+        connector.getHandler().setKeepAliveAck(false);
+        connector.connect();
+        return connector;
+    }
+
     /**
      * 关闭连接
      */
+    @Override
     public void close() {
+        if (this.supervisor != null) {
+            this.supervisor.close();
+        }
+
+        synchronized (this) {
+            this.running = false;
+            if (this.connection != null) {
+                this.disconnectQuietly();
+                log.info("Disconnected from reader");
+            }
+        }
+
+        if (this.reportBatching != null) {
+            this.reportBatching.close();
+        }
+
+        if (this.pipeline != null) {
+            if (!this.pipelineShared) {
+                this.pipeline.close();
+            }
+            this.pipeline = null;
+        }
+
+        if (this.metrics != null) {
+            this.metrics.unregisterMBean();
+        }
+    }
+
+    /**
+     * 开始采集；未连接时在重连成功后开始
+     */
+    @Override
+    public synchronized void start() {
+        this.running = true;
+        boolean armed = this.arming.disarm(this.rospec);
         if (this.connection == null) {
             return;
         }
 
-        ((LLRPConnector) this.connection).disconnect();
-        this.connection = null;
+        try {
+            if (armed) {
+                this.reinstallRoSpec(false);
+            }
+            this.startCollection();
+        } catch (ReaderException e) {
+            log.error("Failed to start collection", e);
+            this.supervisor.connectionLost(e.getMessage());
+        }
+    }
+
+    private void startCollection() {
+        this.enableRoSpec();
+        if (!this.arming.isArmed()) {
+            this.startRoSpec();
+        }
 
-        log.info("Disconnected from reader");
+        if (this.reportBatching != null) {
+            this.reportBatching.start(this::requestReport);
+        }
     }
 
-    public void start() {
+    @Override
+    public synchronized void stop() {
+        this.running = false;
+        boolean armed = this.arming.disarm(this.rospec);
         if (this.connection == null) {
             return;
         }
 
-        this.enableRoSpec();
-        this.startRoSpec();
+        if (this.reportBatching != null) {
+            this.reportBatching.stop();
+        }
+
+        try {
+            if (armed) {
+                // 删除已布置的 ROSpec 即停止采集，再添加恢复触发器后的 ROSpec
+                this.reinstallRoSpec(false);
+            } else {
+                this.stopRoSpec();
+                this.disableRoSpec();
+            }
+        } catch (ReaderException e) {
+            log.error("Failed to stop collection", e);
+            this.supervisor.connectionLost(e.getMessage());
+        }
     }
 
-    public void stop() {
+    /**
+     * 布置定时采集
+     * <p>
+     * 把 ROSpec 的开始触发器改为指定 UTC 时刻的周期触发、停止触发器改为时长触发，重新添加并启用，
+     * 之后由读写器在该时刻开始、经过时长后停止；开始时刻按时钟模型（见 {@link #getClock()}）换算到读写器时钟，
+     * 多台读写器布置同一计划时按主机时间对齐。重连时布置的计划随 ROSpec 一起恢复。
+     * 调用 start 或 stop 取消计划，恢复原有的触发器。
+     *
+     * @param schedule
+     */
+    @Override
+    public synchronized void arm(CollectionSchedule schedule) {
+        if (this.rospec == null) {
+            throw new IllegalStateException("Reader must be opened before arming a schedule");
+        }
+        this.arming.arm(this.rospec, schedule);
+        this.running = true;
         if (this.connection == null) {
             return;
         }
 
-        this.stopRoSpec();
-        this.disableRoSpec();
+        try {
+            this.reinstallRoSpec(true);
+            if (this.reportBatching != null) {
+                this.reportBatching.start(this::requestReport);
+            }
+        } catch (ReaderException e) {
+            log.error("Failed to arm schedule", e);
+            this.supervisor.connectionLost(e.getMessage());
+        }
+    }
+
+    /**
+     * 删除并重新添加缓存的 ROSpec，使修改后的触发器生效
+     *
+     * @param enable 是否启用
+     */
+    private void reinstallRoSpec(boolean enable) {
+        Map<String, CompletableFuture<LLRPMessage>> batch = new LinkedHashMap<>();
+        DELETE_ROSPEC delete = new DELETE_ROSPEC();
+        delete.setROSpecID(rospec.getROSpecID());
+        batch.put("Delete RoSpec", this.sendAsync(delete));
+        batch.put("Add RoSpec", this.sendAsync(this.buildAddRoSpec(roSpecPath)));
+        if (enable) {
+            ENABLE_ROSPEC message = new ENABLE_ROSPEC();
+            message.setROSpecID(rospec.getROSpecID());
+            batch.put("Enable RoSpec", this.sendAsync(message));
+        }
+        for (Map.Entry<String, CompletableFuture<LLRPMessage>> entry : batch.entrySet()) {
+            this.logStatusCode(statusOf(this.awaitResponse(entry.getValue(), entry.getKey())), entry.getKey());
+        }
+        // 读写器上的 ROSpec 已改变，下次快速启动据此判断能否复用
+        if (this.readerInfoCache != null) {
+            this.readerInfoCache.putRoSpecDigest(this.readerKey(), roSpecDigest(rospec));
+        }
     }
 
+    @Override
     public boolean isConnecting(){
         return this.connection != null;
     }
@@ -145,11 +925,27 @@ public class BaseRecorder implements LLRPEndpoint {
 
     @Override
     public void messageReceived(LLRPMessage message) {
+        ConnectionSupervisor supervisor = this.supervisor;
+        if (supervisor != null) {
+            supervisor.onMessage();
+        }
+
+        if (!pendingResponses.isEmpty() && !(message instanceof RO_ACCESS_REPORT)
+                && !(message instanceof READER_EVENT_NOTIFICATION) && !(message instanceof KEEPALIVE)) {
+            CompletableFuture<LLRPMessage> response = pendingResponses.remove(message.getMessageID().toLong());
+            if (response != null) {
+                response.complete(message);
+                return;
+            }
+        }
 
         if (message.getTypeNum() == RO_ACCESS_REPORT.TYPENUM) {
             RO_ACCESS_REPORT report = (RO_ACCESS_REPORT) message;
 
             List<TagReportData> tdlist = report.getTagReportDataList();
+            if (this.reportBatching != null) {
+                this.reportBatching.onReport(tdlist == null ? 0 : tdlist.size());
+            }
             this.processTagReports(tdlist);
 
             List<Custom> customList = report.getCustomList();
@@ -157,7 +953,30 @@ public class BaseRecorder implements LLRPEndpoint {
         } else if (message.getTypeNum() == READER_EVENT_NOTIFICATION.TYPENUM) {
             // log.info("Reader Event Notification");
         } else if (message.getTypeNum() == KEEPALIVE.TYPENUM) {
-            // log.info("Keep Alive");
+            LLRPConnection connection = this.connection;
+            if (connection != null && message != lastKeepalive) {
+                lastKeepalive = message;
+                KEEPALIVE_ACK ack = new KEEPALIVE_ACK();
+                ack.setMessageID(message.getMessageID());
+                connection.send(ack);
+            }
+        }
+    }
+
+    /**
+     * 收到一帧未解码的标签上报，由原始帧连接在读取线程上调用
+     */
+    void onRawReport() {
+        ConnectionSupervisor supervisor = this.supervisor;
+        if (supervisor != null) {
+            supervisor.onMessage();
+        }
+        if (this.reportBatching != null) {
+            this.reportBatching.onReport(0);
+        }
+        CollectorMetrics metrics = this.metrics;
+        if (metrics != null) {
+            metrics.onReport();
         }
     }
 
@@ -171,7 +990,144 @@ public class BaseRecorder implements LLRPEndpoint {
             return;
         }
 
-        log.info("Received Tag Reports: {}", tdList.size());
+        log.debug("Received Tag Reports: {}", tdList.size());
+
+        RecordPipeline<TagRecord> pipeline = this.pipeline;
+        CollectorMetrics metrics = this.metrics;
+        if (metrics != null) {
+            metrics.onReport();
+        }
+        long receiveTime = System.currentTimeMillis() * 1000;
+        for (TagReportData td : tdList) {
+            if (metrics != null && metrics.sampleDecode()) {
+                long t0 = System.nanoTime();
+                boolean built = this.buildTagRecord(td, scratch);
+                metrics.recordDecode(System.nanoTime() - t0);
+                if (!built) {
+                    continue;
+                }
+            } else if (!this.buildTagRecord(td, scratch)) {
+                continue;
+            }
+            if (metrics != null) {
+                this.recordTagMetrics(metrics, scratch, receiveTime);
+            }
+            if (scratch.has(TagRecord.HAS_LAST_SEEN_TIME)) {
+                clock.onSample(scratch.getLastSeenTime(), receiveTime);
+            } else if (scratch.has(TagRecord.HAS_FIRST_SEEN_TIME)) {
+                clock.onSample(scratch.getFirstSeenTime(), receiveTime);
+            }
+            if (readerId >= 0) {
+                scratch.setReaderId(readerId);
+            }
+            this.dispatch(pipeline);
+        }
+    }
+
+    /**
+     * 回放一条记录，与实时采集经过相同的处理阶段、流水线与写入
+     * <p>
+     * 只允许单线程调用，且不能与实时采集同时进行。未驻留的EPC会登记到驻留表。
+     *
+     * @param tag 调用返回后可被调用方复用
+     */
+    public void replayTag(TagRecord tag) {
+        scratch.copyFrom(tag);
+        if (scratch.has(TagRecord.HAS_EPC) && scratch.getEpcId() < 0) {
+            Epc epc;
+            synchronized (epcTable) {
+                epc = epcTable.find(scratch.getEpcBytes(), scratch.getEpcLength());
+                if (epc == null) {
+                    String hex = scratch.getEpc() != null
+                            ? scratch.getEpc() : TagRecord.encodeHex(scratch.getEpcBytes(), scratch.getEpcLength());
+                    epc = epcTable.add(scratch.getEpcBytes(), scratch.getEpcLength(), hex);
+                }
+            }
+            scratch.setEpc(epc);
+        }
+        CollectorMetrics metrics = this.metrics;
+        if (metrics != null) {
+            metrics.onTag(
+                    scratch.has(TagRecord.HAS_ANTENNA_ID) ? scratch.getAntennaId() : 0,
+                    scratch.has(TagRecord.HAS_CHANNEL_INDEX) ? scratch.getChannelIndex() : -1,
+                    Long.MIN_VALUE
+            );
+        }
+        this.dispatch(this.pipeline);
+    }
+
+    /**
+     * 对 scratch 执行处理阶段后发布到流水线或直接写入
+     *
+     * @param pipeline
+     */
+    private void dispatch(RecordPipeline<TagRecord> pipeline) {
+        if (!this.applyProcessors(scratch)) {
+            return;
+        }
+        if (pipeline != null) {
+            scratch = pipeline.publish(scratch);
+        } else {
+            try {
+                this.writeTag(scratch);
+            } catch (Exception e) {
+                log.error("Error recording tag", e);
+            }
+        }
+    }
+
+    private boolean applyProcessors(TagRecord tag) {
+        for (TagProcessor processor : processors) {
+            if (!processor.process(tag)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 记录单个标签的指标
+     *
+     * @param metrics
+     * @param tag
+     * @param receiveTime 报告的主机接收时间（UTC 微秒），同一报告中的标签共用
+     */
+    private void recordTagMetrics(CollectorMetrics metrics, TagRecord tag, long receiveTime) {
+        long lag = tag.has(TagRecord.HAS_FIRST_SEEN_TIME)
+                ? receiveTime - tag.getFirstSeenTime() : Long.MIN_VALUE;
+        metrics.onTag(
+                tag.has(TagRecord.HAS_ANTENNA_ID) ? tag.getAntennaId() : 0,
+                tag.has(TagRecord.HAS_CHANNEL_INDEX) ? tag.getChannelIndex() : -1,
+                lag
+        );
+    }
+
+    /**
+     * 写入单个标签，启用指标时采样写入耗时
+     *
+     * @param tag
+     * @throws Exception
+     */
+    void writeTag(TagRecord tag) throws Exception {
+        CollectorMetrics metrics = this.metrics;
+        if (metrics != null && metrics.sampleSink()) {
+            long t0 = System.nanoTime();
+            this.recordTag(tag);
+            metrics.recordSink(System.nanoTime() - t0);
+        } else {
+            this.recordTag(tag);
+        }
+    }
+
+    /**
+     * 记录单个标签，启用流水线时在消费者线程上调用
+     * <p>
+     * 记录对象会被复用，调用返回后不得再持有其引用。
+     *
+     * @param tag
+     * @throws Exception
+     */
+    protected void recordTag(TagRecord tag) throws Exception {
     }
 
     /**
@@ -192,59 +1148,97 @@ public class BaseRecorder implements LLRPEndpoint {
      * @return
      */
     protected SimpleTag buildSimpleTag(TagReportData tr) {
-        if (tr.getEPCParameter() == null) {
+        TagRecord record = new TagRecord();
+        if (!this.buildTagRecord(tr, record)) {
             return null;
         }
-        SimpleTag tag = new SimpleTag();
+        return record.toSimpleTag();
+    }
+
+    /**
+     * 将TagReportData填充到复用的TagRecord中
+     *
+     * @param tr
+     * @param record
+     * @return 是否包含EPC
+     */
+    protected boolean buildTagRecord(TagReportData tr, TagRecord record) {
+        record.clear();
+        if (tr.getEPCParameter() == null) {
+            return false;
+        }
 
         LLRPParameter epcParameter = (LLRPParameter) tr.getEPCParameter();
-        if (epcParameter.getName().equals("EPC_96")) {
-            EPC_96 epc96 = (EPC_96) epcParameter;
-            tag.setEpc(epc96.getEPC().toString());
-        } else if (epcParameter.getName().equals("EPCData")) {
-            EPCData epcData = (EPCData) epcParameter;
-            tag.setEpc(epcData.getEPC().toString());
+        Epc epc = this.internEpc(epcParameter);
+        if (epc != null) {
+            record.setEpc(epc);
         }
 
         if (tr.getAntennaID() != null) {
-            short antennaId = tr.getAntennaID().getAntennaID().toShort();
-            tag.setAntennaId(antennaId);
+            record.setAntennaId(tr.getAntennaID().getAntennaID().toShort());
         }
 
         if (tr.getChannelIndex() != null) {
-            int channelIndex = tr.getChannelIndex().getChannelIndex().intValue();
-            tag.setChannelIndex(channelIndex);
+            record.setChannelIndex(tr.getChannelIndex().getChannelIndex().intValue());
         }
 
         if (tr.getFirstSeenTimestampUTC() != null) {
-            long firstSeenTime = tr.getFirstSeenTimestampUTC().getMicroseconds().toLong();
-            tag.setFirstSeenTime(firstSeenTime);
+            record.setFirstSeenTime(tr.getFirstSeenTimestampUTC().getMicroseconds().toLong());
         }
 
         if (tr.getLastSeenTimestampUTC() != null) {
-            long lastSeenTime = tr.getLastSeenTimestampUTC().getMicroseconds().toLong();
-            tag.setLastSeenTime(lastSeenTime);
+            record.setLastSeenTime(tr.getLastSeenTimestampUTC().getMicroseconds().toLong());
         }
 
         if (tr.getTagSeenCount() != null) {
-            short tagSeenCount = tr.getTagSeenCount().getTagCount().toShort();
-            tag.setTagSeenCount(tagSeenCount);
+            record.setTagSeenCount(tr.getTagSeenCount().getTagCount().toShort());
         }
 
+        // LTK 的参数列表是 LinkedList，按下标访问是 O(n²)
         for (Custom custom : tr.getCustomList()) {
             if (custom instanceof ImpinjRFDopplerFrequency) {
                 ImpinjRFDopplerFrequency doppler = (ImpinjRFDopplerFrequency) custom;
-                tag.setDopplerFrequencyRaw(doppler.getDopplerFrequency().toShort());
+                record.setDopplerFrequencyRaw(doppler.getDopplerFrequency().toShort());
             } else if (custom instanceof ImpinjRFPhaseAngle) {
                 ImpinjRFPhaseAngle phase = (ImpinjRFPhaseAngle) custom;
-                tag.setPhaseRaw(phase.getPhaseAngle().toShort());
+                record.setPhaseRaw(phase.getPhaseAngle().toShort());
             } else if (custom instanceof ImpinjPeakRSSI) {
                 ImpinjPeakRSSI rssi = (ImpinjPeakRSSI) custom;
-                tag.setPeakRssiRaw(rssi.getRSSI().toShort());
+                record.setPeakRssiRaw(rssi.getRSSI().toShort());
             }
         }
 
-        return tag;
+        return true;
+    }
+
+    /**
+     * 将EPC参数解码为字节并在驻留表中查找，首次出现时才生成十六进制字符串（大写，每字节两位）
+     *
+     * @param epcParameter
+     * @return 不支持的参数类型返回 null
+     */
+    protected Epc internEpc(LLRPParameter epcParameter) {
+        int length;
+        if (epcParameter instanceof EPC_96) {
+            length = LtkBits.packInteger96(((EPC_96) epcParameter).getEPC(), epcBuffer);
+        } else if (epcParameter instanceof EPCData) {
+            length = LtkBits.packBitArray(((EPCData) epcParameter).getEPC(), epcBuffer);
+        } else {
+            return null;
+        }
+
+        synchronized (epcTable) {
+            Epc epc = epcTable.find(epcBuffer, length);
+            if (epc == null) {
+                // 与按需解码相同，由字节生成大写、定长的十六进制，LTK 的 toString 为小写且会省略前导零
+                epc = epcTable.add(epcBuffer, length, TagRecord.encodeHex(epcBuffer, length));
+            }
+            return epc;
+        }
+    }
+
+    public EpcTable getEpcTable() {
+        return epcTable;
     }
 
     /**
@@ -252,17 +1246,16 @@ public class BaseRecorder implements LLRPEndpoint {
      *
      * @return
      */
-    private UnsignedInteger getUniqueMessageID() {
+    private synchronized UnsignedInteger getUniqueMessageID() {
         return new UnsignedInteger(MessageID++);
     }
 
     // 处理StatusCode
     private void logStatusCode(StatusCode status, String msgType) {
-        if (status.equals(new StatusCode("M_Success"))) {
+        if (status != null && status.equals(new StatusCode("M_Success"))) {
             log.info("{} was successful", msgType);
         } else {
-            log.error("{} failed", msgType);
-            System.exit(1);
+            throw new ReaderException(msgType + " failed with status " + status);
         }
     }
 
@@ -284,8 +1277,7 @@ public class BaseRecorder implements LLRPEndpoint {
             StatusCode status = ((IMPINJ_ENABLE_EXTENSIONS_RESPONSE) response).getLLRPStatus().getStatusCode();
             this.logStatusCode(status, msgType);
         } catch (TimeoutException ex) {
-            log.error("Timeout waiting for response to {}", msgType, ex);
-            System.exit(1);
+            throw new ReaderException("Timeout waiting for response to " + msgType, ex);
         }
     }
 
@@ -308,8 +1300,7 @@ public class BaseRecorder implements LLRPEndpoint {
             StatusCode status = ((SET_READER_CONFIG_RESPONSE) response).getLLRPStatus().getStatusCode();
             this.logStatusCode(status, msgType);
         } catch (TimeoutException ex) {
-            log.error("Timeout waiting for response to {}", msgType, ex);
-            System.exit(1);
+            throw new ReaderException("Timeout waiting for response to " + msgType, ex);
         }
     }
 
@@ -333,8 +1324,7 @@ public class BaseRecorder implements LLRPEndpoint {
             StatusCode status = ((DELETE_ROSPEC_RESPONSE) response).getLLRPStatus().getStatusCode();
             this.logStatusCode(status, msgType);
         } catch (TimeoutException ex) {
-            log.error("Timeout waiting for response to {}", msgType, ex);
-            System.exit(1);
+            throw new ReaderException("Timeout waiting for response to " + msgType, ex);
         }
     }
 
@@ -348,58 +1338,67 @@ public class BaseRecorder implements LLRPEndpoint {
         log.info("{} ...", msgType);
 
         try {
-            GET_READER_CAPABILITIES message = new GET_READER_CAPABILITIES();
-            GetReaderCapabilitiesRequestedData data = new
-                    GetReaderCapabilitiesRequestedData(
-                    GetReaderCapabilitiesRequestedData.All);
-            message.setRequestedData(data);
-            message.setMessageID(getUniqueMessageID());
+            response = connection.transact(buildCapabilitiesRequest(), messageTimeout);
+            this.checkReaderCapabilities((GET_READER_CAPABILITIES_RESPONSE) response);
+        } catch (TimeoutException ex) {
+            throw new ReaderException("Timeout waiting for response to " + msgType, ex);
+        }
+    }
 
-            response = connection.transact(message, messageTimeout);
+    private GET_READER_CAPABILITIES buildCapabilitiesRequest() {
+        GET_READER_CAPABILITIES message = new GET_READER_CAPABILITIES();
+        GetReaderCapabilitiesRequestedData data = new
+                GetReaderCapabilitiesRequestedData(
+                GetReaderCapabilitiesRequestedData.All);
+        message.setRequestedData(data);
+        message.setMessageID(getUniqueMessageID());
+        return message;
+    }
 
-            GET_READER_CAPABILITIES_RESPONSE resp = (GET_READER_CAPABILITIES_RESPONSE) response;
-            StatusCode status = resp.getLLRPStatus().getStatusCode();
-            if (status.equals(new StatusCode("M_Success"))) {
-                log.info("{} was successful", msgType);
+    /**
+     * 校验读写器能力信息
+     *
+     * @param resp
+     */
+    private void checkReaderCapabilities(GET_READER_CAPABILITIES_RESPONSE resp) {
+        String msgType = "Get Reader Capabilities";
 
-                // get the info we need
-                GeneralDeviceCapabilities dev_cap = resp.getGeneralDeviceCapabilities();
-                if ((dev_cap == null) ||
-                        (!dev_cap.getDeviceManufacturerName().equals(new UnsignedInteger(25882)))) {
-                    log.error("Must use Impinj model Reader, not " +
-                            dev_cap.getDeviceManufacturerName().toString());
-                    System.exit(1);
-                }
+        StatusCode status = resp.getLLRPStatus().getStatusCode();
+        if (status.equals(new StatusCode("M_Success"))) {
+            log.info("{} was successful", msgType);
 
-                UnsignedInteger modelName = dev_cap.getModelName();
-                log.info("Found Impinj reader model " + modelName.toString());
+            // get the info we need
+            GeneralDeviceCapabilities dev_cap = resp.getGeneralDeviceCapabilities();
+            if ((dev_cap == null) ||
+                    (!dev_cap.getDeviceManufacturerName().equals(new UnsignedInteger(25882)))) {
+                throw new ReaderException("Must use Impinj model Reader, not " +
+                        (dev_cap == null ? null : dev_cap.getDeviceManufacturerName().toString()));
+            }
 
-                // get the max power level
-                if (resp.getRegulatoryCapabilities() != null) {
-                    UHFBandCapabilities band_cap =
-                            resp.getRegulatoryCapabilities().getUHFBandCapabilities();
+            UnsignedInteger modelName = dev_cap.getModelName();
+            log.info("Found Impinj reader model " + modelName.toString());
 
-                    List<TransmitPowerLevelTableEntry> pwr_list =
-                            band_cap.getTransmitPowerLevelTableEntryList();
+            // get the max power level
+            if (resp.getRegulatoryCapabilities() != null) {
+                UHFBandCapabilities band_cap =
+                        resp.getRegulatoryCapabilities().getUHFBandCapabilities();
 
-                    TransmitPowerLevelTableEntry entry =
-                            pwr_list.get(pwr_list.size() - 1);
+                List<TransmitPowerLevelTableEntry> pwr_list =
+                        band_cap.getTransmitPowerLevelTableEntryList();
 
-                    UnsignedShort maxPowerIndex = entry.getIndex();
-                    SignedShort maxPower = entry.getTransmitPowerValue();
-                    // LLRP sends power in dBm * 100
-                    double d = ((double) maxPower.intValue()) / 100;
+                TransmitPowerLevelTableEntry entry =
+                        pwr_list.get(pwr_list.size() - 1);
 
-                    log.info("Max power " + d +
-                            " dBm at index " + maxPowerIndex.toString());
-                }
-            } else {
-                log.info("{} faild", msgType);
-                System.exit(1);
+                UnsignedShort maxPowerIndex = entry.getIndex();
+                SignedShort maxPower = entry.getTransmitPowerValue();
+                // LLRP sends power in dBm * 100
+                double d = ((double) maxPower.intValue()) / 100;
+
+                log.info("Max power " + d +
+                        " dBm at index " + maxPowerIndex.toString());
             }
-        } catch (TimeoutException ex) {
-            log.error("Timeout waiting for response to {}", msgType, ex);
-            System.exit(1);
+        } else {
+            throw new ReaderException(msgType + " failed with status " + status);
         }
     }
 
@@ -413,43 +1412,52 @@ public class BaseRecorder implements LLRPEndpoint {
         log.info("{} ...", msgType);
 
         try {
-            GET_READER_CONFIG message = new GET_READER_CONFIG();
-            GetReaderConfigRequestedData data =
-                    new GetReaderConfigRequestedData(
-                            GetReaderConfigRequestedData.All);
-            message.setRequestedData(data);
-            message.setMessageID(getUniqueMessageID());
-            message.setAntennaID(new UnsignedShort(0));
-            message.setGPIPortNum(new UnsignedShort(0));
-            message.setGPOPortNum(new UnsignedShort(0));
+            response = connection.transact(buildConfigurationRequest(), messageTimeout);
+            this.checkReaderConfiguration((GET_READER_CONFIG_RESPONSE) response);
+        } catch (TimeoutException ex) {
+            throw new ReaderException("Timeout waiting for response to " + msgType, ex);
+        }
+    }
 
-            response = connection.transact(message, messageTimeout);
+    private GET_READER_CONFIG buildConfigurationRequest() {
+        GET_READER_CONFIG message = new GET_READER_CONFIG();
+        GetReaderConfigRequestedData data =
+                new GetReaderConfigRequestedData(
+                        GetReaderConfigRequestedData.All);
+        message.setRequestedData(data);
+        message.setMessageID(getUniqueMessageID());
+        message.setAntennaID(new UnsignedShort(0));
+        message.setGPIPortNum(new UnsignedShort(0));
+        message.setGPOPortNum(new UnsignedShort(0));
+        return message;
+    }
 
-            GET_READER_CONFIG_RESPONSE resp = (GET_READER_CONFIG_RESPONSE) response;
-            StatusCode status = resp.getLLRPStatus().getStatusCode();
-            if (status.equals(new StatusCode("M_Success"))) {
-                log.info("{} was successful", msgType);
+    /**
+     * 校验读写器配置信息
+     *
+     * @param resp
+     */
+    private void checkReaderConfiguration(GET_READER_CONFIG_RESPONSE resp) {
+        String msgType = "Get Reader Configuration";
 
-                List<AntennaConfiguration> alist = resp.getAntennaConfigurationList();
-
-                if (!alist.isEmpty()) {
-                    AntennaConfiguration a_cfg = alist.get(0);
-                    UnsignedShort channelIndex = a_cfg.getRFTransmitter().getChannelIndex();
-                    UnsignedShort hopTableID = a_cfg.getRFTransmitter().getHopTableID();
-                    //                    UnsignedShort p =  a_cfg.getRFTransmitter().getTransmitPower();
-                    log.info("ChannelIndex " + channelIndex.toString() +
-                            " hopTableID " + hopTableID.toString());
-                } else {
-                    log.error("Could not find antenna configuration");
-                    System.exit(1);
-                }
+        StatusCode status = resp.getLLRPStatus().getStatusCode();
+        if (status.equals(new StatusCode("M_Success"))) {
+            log.info("{} was successful", msgType);
+
+            List<AntennaConfiguration> alist = resp.getAntennaConfigurationList();
+
+            if (!alist.isEmpty()) {
+                AntennaConfiguration a_cfg = alist.get(0);
+                UnsignedShort channelIndex = a_cfg.getRFTransmitter().getChannelIndex();
+                UnsignedShort hopTableID = a_cfg.getRFTransmitter().getHopTableID();
+                //                    UnsignedShort p =  a_cfg.getRFTransmitter().getTransmitPower();
+                log.info("ChannelIndex " + channelIndex.toString() +
+                        " hopTableID " + hopTableID.toString());
             } else {
-                log.info("{} faild", msgType);
-                System.exit(1);
+                throw new ReaderException("Could not find antenna configuration");
             }
-        } catch (TimeoutException ex) {
-            log.error("Timeout waiting for response to {}", msgType, ex);
-            System.exit(1);
+        } else {
+            throw new ReaderException(msgType + " failed with status " + status);
         }
     }
 
@@ -486,24 +1494,55 @@ public class BaseRecorder implements LLRPEndpoint {
         log.info("{} ...", msgType);
 
         try {
-            LLRPMessage msg = this.buildMessageFromXML(path);
-            if (msg == null || msg.getTypeNum() != SET_READER_CONFIG.TYPENUM) {
-                log.error("Could not build LLRPMessage from XML: {}", path);
-                System.exit(1);
-            }
-            SET_READER_CONFIG message = (SET_READER_CONFIG) msg;
-            message.setMessageID(getUniqueMessageID());
+            SET_READER_CONFIG message = this.buildReaderConfiguration(path);
 
             response = connection.transact(message, messageTimeout);
 
             StatusCode status = ((SET_READER_CONFIG_RESPONSE) response).getLLRPStatus().getStatusCode();
             this.logStatusCode(status, msgType);
         } catch (TimeoutException ex) {
-            log.error("Timeout waiting for response to {}", msgType, ex);
-            System.exit(1);
+            throw new ReaderException("Timeout waiting for response to " + msgType, ex);
         }
     }
 
+    /**
+     * 从XML文件构建读写器配置，并应用批量上报
+     *
+     * @param path
+     * @return
+     */
+    private SET_READER_CONFIG buildReaderConfiguration(String path) {
+        if (this.readerConfig != null) {
+            this.readerConfig.setMessageID(getUniqueMessageID());
+            return this.readerConfig;
+        }
+        LLRPMessage msg = this.buildMessageFromXML(path);
+        if (msg == null || msg.getTypeNum() != SET_READER_CONFIG.TYPENUM) {
+            throw new ReaderException("Could not build LLRPMessage from XML: " + path);
+        }
+        SET_READER_CONFIG message = (SET_READER_CONFIG) msg;
+        message.setMessageID(getUniqueMessageID());
+
+        // 读写器按间隔发送心跳，用于检测连接存活
+        long keepaliveInterval = this.supervisor == null ? 0 : this.supervisor.getKeepaliveInterval();
+        if (keepaliveInterval > 0) {
+            KeepaliveSpec keepaliveSpec = new KeepaliveSpec();
+            keepaliveSpec.setKeepaliveTriggerType(new KeepaliveTriggerType(KeepaliveTriggerType.Periodic));
+            keepaliveSpec.setPeriodicTriggerValue(new UnsignedInteger(keepaliveInterval));
+            message.setKeepaliveSpec(keepaliveSpec);
+        }
+
+        if (this.reportBatching != null) {
+            if (message.getROReportSpec() != null) {
+                this.reportBatching.apply(message.getROReportSpec());
+            } else {
+                log.warn("No ROReportSpec in {}, batched reporting not applied", path);
+            }
+        }
+        this.readerConfig = message;
+        return message;
+    }
+
     /**
      * 添加RoSpec
      *
@@ -515,24 +1554,54 @@ public class BaseRecorder implements LLRPEndpoint {
         String msgType = "Add RoSpec";
         log.info("{} ...", msgType);
         try {
-            LLRPMessage msg = this.buildMessageFromXML(path);
-            if (msg == null || msg.getTypeNum() != ADD_ROSPEC.TYPENUM) {
-                log.error("Could not build LLRPMessage from XML: {}", path);
-                System.exit(1);
-            }
-            ADD_ROSPEC message = (ADD_ROSPEC) msg;
-            message.setMessageID(getUniqueMessageID());
-
-            rospec = message.getROSpec();
+            ADD_ROSPEC message = this.buildAddRoSpec(path);
 
             response = connection.transact(message, messageTimeout);
 
             StatusCode status = ((ADD_ROSPEC_RESPONSE) response).getLLRPStatus().getStatusCode();
             this.logStatusCode(status, msgType);
         } catch (TimeoutException ex) {
-            log.error("Timeout waiting for response to {}", msgType, ex);
-            System.exit(1);
+            throw new ReaderException("Timeout waiting for response to " + msgType, ex);
+        }
+    }
+
+    /**
+     * 从XML文件构建ADD_ROSPEC，并应用批量上报
+     *
+     * @param path
+     * @return
+     */
+    private ADD_ROSPEC buildAddRoSpec(String path) {
+        if (this.addRoSpecMessage != null) {
+            this.addRoSpecMessage.setMessageID(getUniqueMessageID());
+            return this.addRoSpecMessage;
+        }
+        LLRPMessage msg = this.buildMessageFromXML(path);
+        if (msg == null || msg.getTypeNum() != ADD_ROSPEC.TYPENUM) {
+            throw new ReaderException("Could not build LLRPMessage from XML: " + path);
+        }
+        ADD_ROSPEC message = (ADD_ROSPEC) msg;
+        message.setMessageID(getUniqueMessageID());
+
+        rospec = message.getROSpec();
+        if (this.reportBatching != null && rospec.getROReportSpec() != null) {
+            this.reportBatching.apply(rospec.getROReportSpec());
+        }
+        this.addRoSpecMessage = message;
+        return message;
+    }
+
+    /**
+     * 请求读写器上报累积的标签，响应以RO_ACCESS_REPORT异步到达
+     */
+    private void requestReport() {
+        LLRPConnection connection = this.connection;
+        if (connection == null) {
+            return;
         }
+        GET_REPORT message = new GET_REPORT();
+        message.setMessageID(getUniqueMessageID());
+        connection.send(message);
     }
 
     /**
@@ -554,8 +1623,7 @@ public class BaseRecorder implements LLRPEndpoint {
             StatusCode status = ((ENABLE_ROSPEC_RESPONSE) response).getLLRPStatus().getStatusCode();
             this.logStatusCode(status, msgType);
         } catch (TimeoutException ex) {
-            log.error("Timeout waiting for response to {}", msgType, ex);
-            System.exit(1);
+            throw new ReaderException("Timeout waiting for response to " + msgType, ex);
         }
     }
 
@@ -582,8 +1650,7 @@ public class BaseRecorder implements LLRPEndpoint {
                 log.warn("{} failed", msgType);
             }
         } catch (TimeoutException ex) {
-            log.error("Timeout waiting for response to {}", msgType, ex);
-            System.exit(1);
+            throw new ReaderException("Timeout waiting for response to " + msgType, ex);
         }
     }
 
@@ -607,8 +1674,7 @@ public class BaseRecorder implements LLRPEndpoint {
             StatusCode status = ((START_ROSPEC_RESPONSE) response).getLLRPStatus().getStatusCode();
             this.logStatusCode(status, msgType);
         } catch (TimeoutException ex) {
-            log.error("Timeout waiting for response to {}", msgType, ex);
-            System.exit(1);
+            throw new ReaderException("Timeout waiting for response to " + msgType, ex);
         }
     }
 
@@ -631,8 +1697,7 @@ public class BaseRecorder implements LLRPEndpoint {
             StatusCode status = ((STOP_ROSPEC_RESPONSE) response).getLLRPStatus().getStatusCode();
             this.logStatusCode(status, msgType);
         } catch (TimeoutException ex) {
-            log.error("Timeout waiting for response to {}", msgType, ex);
-            System.exit(1);
+            throw new ReaderException("Timeout waiting for response to " + msgType, ex);
         }
     }
 }
@@ -0,0 +1,137 @@
+package com.yxalkaid.rfcollector.recorder;
+
+import org.llrp.ltk.generated.enumerations.ROSpecStartTriggerType;
+import org.llrp.ltk.generated.enumerations.ROSpecStopTriggerType;
+import org.llrp.ltk.generated.parameters.PeriodicTriggerValue;
+import org.llrp.ltk.generated.parameters.ROBoundarySpec;
+import org.llrp.ltk.generated.parameters.ROSpecStartTrigger;
+import org.llrp.ltk.generated.parameters.ROSpecStopTrigger;
+import org.llrp.ltk.generated.parameters.UTCTimestamp;
+import org.llrp.ltk.types.UnsignedInteger;
+import org.llrp.ltk.types.UnsignedLong_DATETIME;
+
+/**
+ * 定时采集计划
+ * <p>
+ * 编码为 ROSpec 的周期开始触发器（指定 UTC 时刻）与时长停止触发器，由读写器按自己的时钟开始与停止，
+ * 不依赖主机上的 sleep 与启停消息的往返时间。周期为0时只采集一次，否则从开始时刻起每个周期采集一次。
+ */
+public class CollectionSchedule {
+
+    /**
+     * 开始时刻（主机时钟，UTC 毫秒）
+     */
+    private final long startTime;
+
+    /**
+     * 每次采集的时长（毫秒）
+     */
+    private final long duration;
+
+    /**
+     * 周期（毫秒），0 表示只采集一次
+     */
+    private final long period;
+
+    /**
+     * 构造方法
+     *
+     * @param startTime 开始时刻（主机时钟，UTC 毫秒）
+     * @param duration  每次采集的时长（毫秒）
+     * @param period    周期（毫秒），0 表示只采集一次
+     */
+    public CollectionSchedule(long startTime, long duration, long period) {
+        if (duration <= 0 || duration > 0xFFFFFFFFL) {
+            throw new IllegalArgumentException("duration must be in (0, 2^32) ms");
+        }
+        if (period < 0 || period > 0xFFFFFFFFL) {
+            throw new IllegalArgumentException("period must be in [0, 2^32) ms");
+        }
+        if (period > 0 && period <= duration) {
+            throw new IllegalArgumentException("period must be longer than duration");
+        }
+        this.startTime = startTime;
+        this.duration = duration;
+        this.period = period;
+    }
+
+    /**
+     * 在指定时刻采集一次
+     *
+     * @param startTime 开始时刻（UTC 毫秒）
+     * @param duration  时长（毫秒）
+     * @return
+     */
+    public static CollectionSchedule once(long startTime, long duration) {
+        return new CollectionSchedule(startTime, duration, 0);
+    }
+
+    /**
+     * 从指定时刻起按周期采集
+     *
+     * @param startTime 第一次开始时刻（UTC 毫秒）
+     * @param duration  每次采集的时长（毫秒）
+     * @param period    周期（毫秒）
+     * @return
+     */
+    public static CollectionSchedule periodic(long startTime, long duration, long period) {
+        return new CollectionSchedule(startTime, duration, period);
+    }
+
+    /**
+     * 构建 ROBoundarySpec
+     *
+     * @param readerStartTime 换算到读写器时钟的开始时刻（UTC 微秒）
+     * @return
+     */
+    ROBoundarySpec toBoundarySpec(long readerStartTime) {
+        UTCTimestamp timestamp = new UTCTimestamp();
+        timestamp.setMicroseconds(new UnsignedLong_DATETIME(readerStartTime));
+
+        PeriodicTriggerValue periodic = new PeriodicTriggerValue();
+        periodic.setOffset(new UnsignedInteger(0));
+        periodic.setPeriod(new UnsignedInteger(period));
+        periodic.setUTCTimestamp(timestamp);
+
+        ROSpecStartTrigger start = new ROSpecStartTrigger();
+        start.setROSpecStartTriggerType(new ROSpecStartTriggerType(ROSpecStartTriggerType.Periodic));
+        start.setPeriodicTriggerValue(periodic);
+
+        ROSpecStopTrigger stop = new ROSpecStopTrigger();
+        stop.setROSpecStopTriggerType(new ROSpecStopTriggerType(ROSpecStopTriggerType.Duration));
+        stop.setDurationTriggerValue(new UnsignedInteger(duration));
+
+        ROBoundarySpec boundary = new ROBoundarySpec();
+        boundary.setROSpecStartTrigger(start);
+        boundary.setROSpecStopTrigger(stop);
+        return boundary;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getDuration() {
+        return duration;
+    }
+
+    public long getPeriod() {
+        return period;
+    }
+
+    /**
+     * 最后一次采集的结束时刻（UTC 毫秒），周期采集时为 Long.MAX_VALUE
+     *
+     * @return
+     */
+    public long getEndTime() {
+        return period == 0 ? startTime + duration : Long.MAX_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        return period == 0
+                ? String.format("once at %d for %dms", startTime, duration)
+                : String.format("every %dms from %d for %dms", period, startTime, duration);
+    }
+}
@@ -0,0 +1,129 @@
+package com.yxalkaid.rfcollector.recorder;
+
+import com.yxalkaid.rfcollector.capture.ColumnarFormat;
+import com.yxalkaid.rfcollector.capture.ColumnarWriter;
+import com.yxalkaid.rfcollector.capture.GroupCommitter;
+import com.yxalkaid.rfcollector.capture.OutputFiles;
+import com.yxalkaid.rfcollector.domain.TagRecord;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 列式记录器, 将数据以二进制列式格式记录到文件
+ */
+@Slf4j
+public class ColumnarRecorder extends BaseRecorder {
+
+    /**
+     * 列式写入
+     */
+    private ColumnarWriter columnarWriter;
+
+    /**
+     * 父目录
+     */
+    private String parentDir;
+
+    /**
+     * 输出文件通道，用于刷盘
+     */
+    private FileChannel channel;
+
+    /**
+     * 成组提交，未启用时为null
+     */
+    private GroupCommitter groupCommitter;
+
+    public ColumnarRecorder(String parentDir) {
+        this(parentDir, ColumnarFormat.DEFAULT_CHUNK_SIZE);
+    }
+
+    public ColumnarRecorder(String parentDir, int chunkSize) {
+        this.parentDir = parentDir;
+        this.initColumnarWriter(parentDir, chunkSize);
+    }
+
+    /**
+     * 初始化列式写入
+     *
+     * @param parentDir
+     * @param chunkSize
+     */
+    private void initColumnarWriter(String parentDir, int chunkSize) {
+        Path file = OutputFiles.create(parentDir, ColumnarFormat.FILE_SUFFIX);
+        log.info("Writing to " + file.toAbsolutePath());
+        try {
+            this.channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            this.columnarWriter = new ColumnarWriter(channel, chunkSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write to " + file, e);
+        }
+    }
+
+    /**
+     * 启用成组提交，需在写入之前调用
+     * <p>
+     * 每次提交都会写出当前未满的块，间隔越短块越小，压缩率越低。
+     *
+     * @param intervalMs    提交间隔（毫秒），即崩溃时最多丢失的时间范围
+     * @param byteThreshold 待提交字节数达到该值时提前提交，不大于0时只按间隔提交
+     */
+    public void enableGroupCommit(long intervalMs, long byteThreshold) {
+        if (this.groupCommitter != null) {
+            return;
+        }
+        this.groupCommitter = new GroupCommitter("columnar-flusher", () -> {
+            synchronized (this.columnarWriter) {
+                this.columnarWriter.flush();
+                return this.channel;
+            }
+        }, intervalMs, byteThreshold);
+    }
+
+    /**
+     * 已持久化的最新记录时间戳（微秒），未启用成组提交或尚未提交时为 Long.MIN_VALUE
+     *
+     * @return
+     */
+    public long getLastDurableTime() {
+        return groupCommitter == null ? Long.MIN_VALUE : groupCommitter.getLastDurableTime();
+    }
+
+    @Override
+    protected void recordTag(TagRecord tag) throws IOException {
+        synchronized (this.columnarWriter) {
+            this.columnarWriter.append(tag);
+            if (this.groupCommitter != null) {
+                this.groupCommitter.onAppend(ColumnarFormat.FIXED_COLUMN_BYTES,
+                        tag.has(TagRecord.HAS_FIRST_SEEN_TIME) ? tag.getFirstSeenTime() : Long.MIN_VALUE);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        super.close();
+
+        if (this.groupCommitter != null) {
+            this.groupCommitter.close();
+        }
+
+        if (this.columnarWriter == null) {
+            return;
+        }
+        synchronized (this.columnarWriter) {
+            try {
+                this.columnarWriter.close();
+                log.info("Columnar writer closed, records={}, bytes={}",
+                        columnarWriter.getRecordCount(), columnarWriter.getByteCount());
+            } catch (IOException e) {
+                log.error("Error closing columnar writer", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.yxalkaid.rfcollector.recorder;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 读写器连接监护
+ * <p>
+ * 读写器按 KEEPALIVE 间隔发送心跳，任何消息都视为连接存活；
+ * 连续多个间隔没有收到消息，或命令失败时，判定连接丢失，按指数退避重新连接并恢复采集，
+ * 恢复后在输出中写入一条间断标记。
+ */
+@Slf4j
+class ConnectionSupervisor {
+
+    /**
+     * 默认首次重连等待（毫秒）
+     */
+    static final long DEFAULT_INITIAL_BACKOFF = 500;
+
+    /**
+     * 默认最大重连等待（毫秒）
+     */
+    static final long DEFAULT_MAX_BACKOFF = 30000;
+
+    /**
+     * 默认心跳间隔（毫秒）
+     */
+    static final long DEFAULT_KEEPALIVE_INTERVAL = 1000;
+
+    /**
+     * 判定连接丢失前允许错过的心跳数
+     */
+    private static final int MISSED_KEEPALIVES = 3;
+
+    private final BaseRecorder recorder;
+
+    /**
+     * 首次重连等待（毫秒）
+     */
+    private final long initialBackoff;
+
+    /**
+     * 最大重连等待（毫秒）
+     */
+    private final long maxBackoff;
+
+    /**
+     * 心跳间隔（毫秒），不大于0时不做存活检测
+     */
+    private final long keepaliveInterval;
+
+    private final ScheduledExecutorService scheduler;
+
+    private ScheduledFuture<?> watchdog;
+
+    private ScheduledFuture<?> reconnectTask;
+
+    /**
+     * 最近收到消息的时间（System.nanoTime）
+     */
+    private volatile long lastMessageNanos = System.nanoTime();
+
+    /**
+     * 最近收到消息的时间（UTC 微秒），0 表示从未连通
+     */
+    private volatile long lastMessageMicros;
+
+    /**
+     * 间断开始时间（UTC 微秒），小于0表示没有间断
+     */
+    private long gapStart = -1;
+
+    private long backoff;
+
+    private int attempts;
+
+    /**
+     * 重连成功次数
+     */
+    private volatile int reconnectCount;
+
+    private volatile boolean closed;
+
+    /**
+     * 使用默认的重连与心跳参数
+     *
+     * @param recorder
+     */
+    ConnectionSupervisor(BaseRecorder recorder) {
+        this(recorder, DEFAULT_INITIAL_BACKOFF, DEFAULT_MAX_BACKOFF, DEFAULT_KEEPALIVE_INTERVAL);
+    }
+
+    ConnectionSupervisor(BaseRecorder recorder, long initialBackoff, long maxBackoff, long keepaliveInterval) {
+        if (initialBackoff <= 0 || maxBackoff < initialBackoff) {
+            throw new IllegalArgumentException("Invalid reconnect backoff");
+        }
+        this.recorder = recorder;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.keepaliveInterval = keepaliveInterval;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "reader-supervisor");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * 开始存活检测
+     */
+    synchronized void start() {
+        onMessage();
+        if (keepaliveInterval > 0 && watchdog == null) {
+            watchdog = scheduler.scheduleWithFixedDelay(
+                    this::checkLiveness, keepaliveInterval, keepaliveInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 收到读写器消息
+     */
+    void onMessage() {
+        lastMessageNanos = System.nanoTime();
+        lastMessageMicros = System.currentTimeMillis() * 1000;
+    }
+
+    /**
+     * 连接丢失，开始重连；已在重连时忽略
+     *
+     * @param reason
+     */
+    synchronized void connectionLost(String reason) {
+        if (closed || reconnectTask != null) {
+            return;
+        }
+        log.warn("Reader connection lost: {}", reason);
+        if (gapStart < 0 && lastMessageMicros > 0) {
+            gapStart = lastMessageMicros;
+        }
+        backoff = initialBackoff;
+        attempts = 0;
+        reconnectTask = scheduler.schedule(this::attempt, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 是否正在重连
+     *
+     * @return
+     */
+    synchronized boolean isReconnecting() {
+        return reconnectTask != null;
+    }
+
+    private void attempt() {
+        if (closed) {
+            return;
+        }
+        int attempt;
+        synchronized (this) {
+            attempt = ++attempts;
+        }
+        log.info("Reconnecting to reader, attempt {}", attempt);
+
+        boolean reconnected = recorder.reconnect();
+
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (reconnected) {
+                onMessage();
+                reconnectCount++;
+                log.info("Reader reconnected after {} attempts", attempt);
+                if (gapStart >= 0) {
+                    recorder.recordGap(gapStart, lastMessageMicros);
+                    gapStart = -1;
+                }
+                reconnectTask = null;
+            } else {
+                long delay = backoff;
+                backoff = Math.min(backoff * 2, maxBackoff);
+                log.info("Next reconnect attempt in {}ms", delay);
+                reconnectTask = scheduler.schedule(this::attempt, delay, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void checkLiveness() {
+        if (!recorder.isConnecting() || isReconnecting()) {
+            return;
+        }
+        long silence = (System.nanoTime() - lastMessageNanos) / 1_000_000;
+        if (silence > MISSED_KEEPALIVES * keepaliveInterval) {
+            connectionLost("No message from reader for " + silence + "ms");
+        }
+    }
+
+    long getKeepaliveInterval() {
+        return keepaliveInterval;
+    }
+
+    int getReconnectCount() {
+        return reconnectCount;
+    }
+
+    synchronized void close() {
+        closed = true;
+        scheduler.shutdownNow();
+    }
+}
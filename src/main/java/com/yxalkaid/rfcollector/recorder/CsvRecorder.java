@@ -1,20 +1,29 @@
 package com.yxalkaid.rfcollector.recorder;
 
 import com.csvreader.CsvWriter;
-import com.yxalkaid.rfcollector.domain.SimpleTag;
+import com.yxalkaid.rfcollector.capture.CaptureIndex;
+import com.yxalkaid.rfcollector.capture.CaptureIndexWriter;
+import com.yxalkaid.rfcollector.capture.CsvLayout;
+import com.yxalkaid.rfcollector.capture.GroupCommitter;
+import com.yxalkaid.rfcollector.capture.OutputFiles;
+import com.yxalkaid.rfcollector.capture.RollingCsvWriter;
+import com.yxalkaid.rfcollector.capture.RollingPolicy;
+import com.yxalkaid.rfcollector.domain.TagRecord;
 import lombok.extern.slf4j.Slf4j;
-import org.llrp.ltk.generated.parameters.TagReportData;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.nio.charset.Charset;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.Arrays;
-import java.util.List;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
 
 /**
  * CSV记录器, 将数据记录到csv文件
+ * <p>
+ * 默认只输出基础列，派生列需在构造时通过 {@link CsvLayout} 指定。
  */
 @Slf4j
 public class CsvRecorder extends BaseRecorder {
@@ -39,79 +48,237 @@ public class CsvRecorder extends BaseRecorder {
      */
     private int recordCount;
 
+    /**
+     * 输出布局
+     */
+    private final CsvLayout layout;
+
+    /**
+     * 复用的行数组
+     */
+    private final String[] line;
+
+    /**
+     * 滚动写入，未启用滚动时为null
+     */
+    private RollingCsvWriter rollingWriter;
+
+    /**
+     * 输出文件通道，用于刷盘
+     */
+    private FileChannel channel;
+
+    /**
+     * 成组提交，未启用时为null
+     */
+    private GroupCommitter groupCommitter;
+
+    /**
+     * 输出文件
+     */
+    private File csvFile;
+
+    /**
+     * 旁路索引，未启用时为null
+     */
+    private CaptureIndexWriter indexWriter;
+
     public CsvRecorder(String parentDir) {
+        this(parentDir, CsvLayout.BASELINE);
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param parentDir 父目录
+     * @param layout    输出布局
+     */
+    public CsvRecorder(String parentDir, CsvLayout layout) {
         this.parentDir = parentDir;
+        this.layout = layout;
+        this.line = new String[layout.size()];
         this.initCsvWriter(parentDir);
     }
 
+    /**
+     * 滚动输出
+     *
+     * @param parentDir 父目录
+     * @param policy    滚动策略
+     * @param compress  是否在后台压缩完成的分段
+     */
+    public CsvRecorder(String parentDir, RollingPolicy policy, boolean compress) {
+        this(parentDir, CsvLayout.BASELINE, policy, compress);
+    }
+
+    /**
+     * 滚动输出
+     *
+     * @param parentDir 父目录
+     * @param layout    输出布局
+     * @param policy    滚动策略
+     * @param compress  是否在后台压缩完成的分段
+     */
+    public CsvRecorder(String parentDir, CsvLayout layout, RollingPolicy policy, boolean compress) {
+        this.parentDir = parentDir;
+        this.layout = layout;
+        this.line = new String[layout.size()];
+        this.initRollingWriter(parentDir, policy, compress);
+    }
+
+    /**
+     * 初始化滚动写入
+     *
+     * @param parentDir
+     * @param policy
+     * @param compress
+     */
+    private void initRollingWriter(String parentDir, RollingPolicy policy, boolean compress) {
+        try {
+            this.rollingWriter = new RollingCsvWriter(Path.of(parentDir), OutputFiles.prefix(), layout, policy, compress);
+            log.info("Rolling output: {}, compress={}", policy, compress);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create output in " + parentDir, e);
+        }
+    }
+
     /**
      * 初始化csv写入
      * @param parentDir
      */
     private void initCsvWriter(String parentDir) {
+        Path path = OutputFiles.create(parentDir, ".csv");
+        this.csvFile = path.toFile();
+        log.info("Writing to " + csvFile.getAbsolutePath());
         try {
+            FileOutputStream out = new FileOutputStream(csvFile);
+            this.channel = out.getChannel();
+            this.csvWriter = new CsvWriter(
+                    new OutputStreamWriter(new BufferedOutputStream(out, 64 * 1024), CsvLayout.CHARSET), ',');
+            this.csvWriter.writeRecord(layout.getHeader());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write to " + csvFile, e);
+        }
+    }
 
-            LocalDateTime localDateTime = LocalDateTime.now();
-            DateTimeFormatter df = DateTimeFormatter.ofPattern("yyyy-MM-dd-HH-mm-ss");
-            String fileName = "RFID_" + df.format(localDateTime) + ".csv";
-
-            File csvFile = new File(parentDir + File.separator + fileName);
+    /**
+     * 启用成组提交，需在写入之前调用
+     *
+     * @param intervalMs    提交间隔（毫秒），即崩溃时最多丢失的时间范围
+     * @param byteThreshold 待提交字节数达到该值时提前提交，不大于0时只按间隔提交
+     */
+    public void enableGroupCommit(long intervalMs, long byteThreshold) {
+        if (this.groupCommitter != null) {
+            return;
+        }
+        this.groupCommitter = new GroupCommitter("csv-flusher", () -> {
+            synchronized (this.line) {
+                if (this.rollingWriter != null) {
+                    return this.rollingWriter.flush();
+                }
+                this.csvWriter.flush();
+                return this.channel;
+            }
+        }, intervalMs, byteThreshold);
+    }
 
-            File parent = csvFile.getParentFile();
-            if (parent != null && !parent.exists()) {
-                parent.mkdirs();
+    /**
+     * 建立旁路索引，用于按EPC与时间范围查询（见 {@link CaptureIndex}），需在写入之前调用
+     *
+     * @param chunkRecords 每块记录数
+     */
+    public void enableIndex(int chunkRecords) {
+        synchronized (this.line) {
+            try {
+                if (this.rollingWriter != null) {
+                    this.rollingWriter.enableIndex(chunkRecords);
+                } else if (this.indexWriter == null && this.csvWriter != null) {
+                    this.csvWriter.flush();
+                    this.indexWriter = new CaptureIndexWriter(
+                            CaptureIndexWriter.indexPathOf(this.csvFile.toPath()), chunkRecords);
+                    this.indexWriter.begin(this.channel.position());
+                }
+            } catch (IOException e) {
+                log.error("Failed to create capture index", e);
             }
+        }
+    }
 
-            csvFile.createNewFile();
-            log.info("Writing to " + csvFile.getAbsolutePath());
-
-            this.csvWriter=new CsvWriter(csvFile.getAbsolutePath(), ',',Charset.forName("GBK"));
-            this.csvWriter.writeRecord(
-                Arrays.asList(
-                    "time",
-                    "id", 
-                    "channel", 
-                    "phase", 
-                    "rssi",
-                    "antenna"
-                ).toArray(new String[0])
-            );
-        } catch (IOException e) {
-            e.printStackTrace();
+    /**
+     * 已持久化的最新记录时间戳（微秒），未启用成组提交或尚未提交时为 Long.MIN_VALUE
+     *
+     * @return
+     */
+    public long getLastDurableTime() {
+        return groupCommitter == null ? Long.MIN_VALUE : groupCommitter.getLastDurableTime();
+    }
+
+    @Override
+    protected void recordTag(TagRecord tag) throws IOException {
+        synchronized (this.line) {
+            this.recordCount += 1;
+            if (this.rollingWriter != null) {
+                this.rollingWriter.write(tag);
+            } else {
+                this.layout.fillLine(tag, this.line);
+                this.csvWriter.writeRecord(this.line);
+                if (this.indexWriter != null && this.indexWriter.add(tag)) {
+                    this.csvWriter.flush();
+                    this.indexWriter.endChunk(this.channel.position());
+                }
+            }
+            if (this.groupCommitter != null) {
+                this.groupCommitter.onAppend(lineBytes(tag),
+                        tag.has(TagRecord.HAS_FIRST_SEEN_TIME) ? tag.getFirstSeenTime() : Long.MIN_VALUE);
+            }
         }
     }
 
+    /**
+     * 估算一行的字节数
+     *
+     * @param tag
+     * @return
+     */
+    private static int lineBytes(TagRecord tag) {
+        return tag.getEpcLength() * 2 + 64;
+    }
+
     @Override
-    protected void processTagReports(List<TagReportData> tdList) {
-        if (tdList == null || tdList.isEmpty()) {
-            return;
+    public void close() {
+        super.close();
+
+        if (this.groupCommitter != null) {
+            this.groupCommitter.close();
         }
 
-        try {
-            for (TagReportData td : tdList) {
-                SimpleTag tag = this.buildSimpleTag(td);
-                if (tag != null) {
-                    this.recordCount+=1;
-                    String[] line = this.buildLine(tag);
-                    this.csvWriter.writeRecord(line);
+        if (this.rollingWriter != null) {
+            synchronized (this.line) {
+                try {
+                    this.rollingWriter.close();
+                    log.info("Rolling writer closed, records={}, segments={}",
+                            recordCount, rollingWriter.getSegmentCount());
+                } catch (IOException e) {
+                    log.error("Error closing rolling writer", e);
                 }
             }
-        } catch (IOException e) {
-            log.error("Error writing to csv", e);
+            return;
         }
-    }
 
-    private String[] buildLine(SimpleTag tag) {
-        if (tag == null) {
-            return null;
+        if (this.csvWriter == null) {
+            return;
+        }
+        synchronized (this.line) {
+            if (this.indexWriter != null) {
+                try {
+                    this.csvWriter.flush();
+                    this.indexWriter.close(this.channel.position());
+                } catch (IOException e) {
+                    log.error("Error closing capture index", e);
+                }
+            }
+            this.csvWriter.close();
+            log.info("Csv writer closed, records={}", recordCount);
         }
-        return new String[]{
-                String.valueOf(tag.getFirstSeenTime()),
-                tag.getEpc(),
-                String.valueOf(tag.getChannelIndex()),
-                String.valueOf(tag.getPhaseRaw()),
-                String.valueOf(tag.getPeakRssiRaw()),
-                String.valueOf(tag.getAntennaId())
-        };
     }
 }
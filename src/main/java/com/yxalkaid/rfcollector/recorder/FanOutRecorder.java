@@ -0,0 +1,110 @@
+package com.yxalkaid.rfcollector.recorder;
+
+import com.yxalkaid.rfcollector.domain.TagRecord;
+import com.yxalkaid.rfcollector.pipeline.BackpressurePolicy;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 扇出记录器, 将解码后的记录同时交给多路输出
+ * <p>
+ * 每路输出有独立的有界队列和写入线程（见 {@link SinkChannel}），
+ * 记录在 recordTag 中复制到各路队列后即返回；队列已满时按该路的背压策略处理，默认丢弃最旧的记录，
+ * 慢速或失败的输出不会阻塞其他输出，也不会阻塞 LLRP I/O 线程。
+ * {@link BackpressurePolicy#BLOCK} 需显式指定，队列已满时会阻塞发布记录的线程，进而拖慢所有输出。
+ * <p>
+ * 已有的记录器可以作为输出加入，只用于写入，不会打开它自己的连接。
+ */
+@Slf4j
+public class FanOutRecorder extends BaseRecorder {
+
+    /**
+     * 默认每路队列容量
+     */
+    public static final int DEFAULT_SINK_CAPACITY = 1 << 16;
+
+    /**
+     * 默认背压策略，队列已满时丢弃最旧的记录
+     */
+    public static final BackpressurePolicy DEFAULT_SINK_POLICY = BackpressurePolicy.DROP_OLDEST;
+
+    /**
+     * 默认停用前允许的连续失败次数
+     */
+    public static final int DEFAULT_MAX_CONSECUTIVE_FAILURES = 10_000;
+
+    private final List<SinkChannel> sinks = new CopyOnWriteArrayList<>();
+
+    /**
+     * 添加输出，队列已满时丢弃最旧的记录，不会阻塞其他输出；不允许丢失记录时显式指定 BLOCK
+     *
+     * @param name
+     * @param sink
+     * @return
+     */
+    public SinkChannel addSink(String name, TagSink sink) {
+        return this.addSink(name, sink, DEFAULT_SINK_CAPACITY, DEFAULT_SINK_POLICY);
+    }
+
+    /**
+     * 添加输出
+     *
+     * @param name     名称，用于线程命名和日志
+     * @param sink     输出
+     * @param capacity 队列容量
+     * @param policy   队列已满时的背压策略，BLOCK 会阻塞发布记录的线程，只应用于不允许丢失记录的输出
+     * @return
+     */
+    public SinkChannel addSink(String name, TagSink sink, int capacity, BackpressurePolicy policy) {
+        SinkChannel channel = new SinkChannel(name, sink, capacity, policy, DEFAULT_MAX_CONSECUTIVE_FAILURES);
+        channel.start();
+        this.sinks.add(channel);
+        return channel;
+    }
+
+    /**
+     * 添加记录器作为输出，关闭本记录器时一并关闭
+     *
+     * @param name
+     * @param output   只用于写入，不会打开它自己的连接
+     * @param capacity 队列容量
+     * @param policy   队列已满时的背压策略
+     * @return
+     */
+    public SinkChannel addSink(String name, BaseRecorder output, int capacity, BackpressurePolicy policy) {
+        return this.addSink(name, new TagSink() {
+            @Override
+            public void write(TagRecord tag) throws Exception {
+                output.writeTag(tag);
+            }
+
+            @Override
+            public void close() {
+                output.close();
+            }
+        }, capacity, policy);
+    }
+
+    public List<SinkChannel> getSinks() {
+        return Collections.unmodifiableList(sinks);
+    }
+
+    @Override
+    protected void recordTag(TagRecord tag) {
+        for (SinkChannel sink : this.sinks) {
+            sink.publish(tag);
+        }
+    }
+
+    @Override
+    public void close() {
+        super.close();
+
+        for (SinkChannel sink : this.sinks) {
+            sink.close();
+        }
+    }
+}
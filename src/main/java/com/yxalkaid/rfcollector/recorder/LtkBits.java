@@ -0,0 +1,112 @@
+package com.yxalkaid.rfcollector.recorder;
+
+import lombok.extern.slf4j.Slf4j;
+import org.llrp.ltk.types.BitArray;
+import org.llrp.ltk.types.Integer96_HEX;
+import org.llrp.ltk.types.LLRPBitList;
+import org.llrp.ltk.types.UnsignedInteger96;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.math.BigInteger;
+
+/**
+ * LTK 位类型到字节的打包
+ * <p>
+ * EPC 驻留与 ROSpec 摘要使用，直接写入调用方的缓冲区，不生成中间的位列表或字节数组。
+ */
+@Slf4j
+final class LtkBits {
+
+    /**
+     * UnsignedInteger96 保存数值的字段，LTK 没有公开的取值方法
+     */
+    private static final VarHandle INTEGER96_VALUE = findInteger96Value();
+
+    private LtkBits() {
+    }
+
+    private static VarHandle findInteger96Value() {
+        try {
+            return MethodHandles.privateLookupIn(UnsignedInteger96.class, MethodHandles.lookup())
+                    .findVarHandle(UnsignedInteger96.class, "value", BigInteger.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.warn("EPC-96 values are not accessible, falling back to encodeBinary: {}", e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * 将96位EPC按大端打包为12字节
+     * <p>
+     * 直接读取 BigInteger 的低64位与高32位，不生成位列表或字节数组。
+     *
+     * @param epc
+     * @param out
+     * @return 字节数
+     */
+    static int packInteger96(Integer96_HEX epc, byte[] out) {
+        BigInteger value = INTEGER96_VALUE != null ? (BigInteger) INTEGER96_VALUE.get(epc) : null;
+        if (value == null) {
+            return packBits(epc.encodeBinary(), out);
+        }
+        long low = value.longValue();
+        int high = 0;
+        for (int i = 95; i >= 64; i--) {
+            high = (high << 1) | (value.testBit(i) ? 1 : 0);
+        }
+        int length = Math.min(12, out.length);
+        for (int i = 0; i < length; i++) {
+            out[i] = (byte) (i < 4 ? high >>> ((3 - i) << 3) : low >>> ((11 - i) << 3));
+        }
+        return length;
+    }
+
+    /**
+     * 将位数组打包为字节，不足一个字节的尾部补0
+     *
+     * @param bits
+     * @param out
+     * @return 字节数
+     */
+    static int packBitArray(BitArray bits, byte[] out) {
+        int bitCount = bits.size();
+        int length = Math.min((bitCount + 7) >> 3, out.length);
+        for (int i = 0; i < length; i++) {
+            int b = 0;
+            for (int j = 0; j < 8; j++) {
+                int index = (i << 3) + j;
+                b <<= 1;
+                if (index < bitCount && bits.get(index).toBoolean()) {
+                    b |= 1;
+                }
+            }
+            out[i] = (byte) b;
+        }
+        return length;
+    }
+
+    /**
+     * 将位列表打包为字节，不足一个字节的尾部补0
+     *
+     * @param bits
+     * @param out
+     * @return 字节数
+     */
+    static int packBits(LLRPBitList bits, byte[] out) {
+        int bitCount = bits.length();
+        int length = Math.min((bitCount + 7) >> 3, out.length);
+        for (int i = 0; i < length; i++) {
+            int b = 0;
+            for (int j = 0; j < 8; j++) {
+                int index = (i << 3) + j;
+                b <<= 1;
+                if (index < bitCount && bits.get(index)) {
+                    b |= 1;
+                }
+            }
+            out[i] = (byte) b;
+        }
+        return length;
+    }
+}
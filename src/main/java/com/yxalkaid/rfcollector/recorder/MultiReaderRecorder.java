@@ -0,0 +1,246 @@
+package com.yxalkaid.rfcollector.recorder;
+
+import com.yxalkaid.rfcollector.domain.EpcTable;
+import com.yxalkaid.rfcollector.domain.TagRecord;
+import com.yxalkaid.rfcollector.pipeline.BackpressurePolicy;
+import com.yxalkaid.rfcollector.pipeline.RecordPipeline;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * 多读写器记录器
+ * <p>
+ * 每个读写器使用独立的 LLRP 连接，握手与启停并行进行。
+ * 各连接的 I/O 线程将带读写器编号的记录发布到同一条流水线，
+ * 由单个消费者线程按时间归并后交给输出记录器写入，跨读写器的数据在采集端即完成合并。
+ * <p>
+ * 输出记录器只用于写入，不会打开它自己的连接。
+ */
+@Slf4j
+public class MultiReaderRecorder implements Recorder {
+
+    /**
+     * 输出记录器
+     */
+    private final BaseRecorder output;
+
+    /**
+     * 各读写器的连接
+     */
+    private final List<BaseRecorder> readers = new ArrayList<>();
+
+    /**
+     * 读写器地址
+     */
+    private final List<String> hosts = new ArrayList<>();
+
+    /**
+     * 读写器端口
+     */
+    private final List<Integer> ports = new ArrayList<>();
+
+    /**
+     * 共享的EPC驻留表
+     */
+    private final EpcTable epcTable = new EpcTable();
+
+    /**
+     * 共享流水线容量
+     */
+    private final int capacity;
+
+    /**
+     * 共享流水线背压策略
+     */
+    private final BackpressurePolicy policy;
+
+    /**
+     * 重排窗口（毫秒）
+     */
+    private final long reorderWindow;
+
+    private TimeOrderedMerger merger;
+
+    private RecordPipeline<TagRecord> pipeline;
+
+    private ExecutorService executor;
+
+    /**
+     * 构造方法
+     *
+     * @param output        输出记录器
+     * @param capacity      共享流水线容量
+     * @param policy        共享流水线背压策略
+     * @param reorderWindow 重排窗口（毫秒），读写器之间的时间偏差不应超过该值
+     */
+    public MultiReaderRecorder(BaseRecorder output, int capacity, BackpressurePolicy policy, long reorderWindow) {
+        if (output == null) {
+            throw new NullPointerException("output cannot be null");
+        }
+        this.output = output;
+        this.capacity = capacity;
+        this.policy = policy;
+        this.reorderWindow = reorderWindow;
+    }
+
+    /**
+     * 添加读写器，需在open之前调用
+     *
+     * @param host
+     * @param port
+     * @return 该读写器的连接，可继续设置批量上报等选项
+     */
+    public BaseRecorder addReader(String host, int port) {
+        if (pipeline != null) {
+            throw new IllegalStateException("Readers must be added before open");
+        }
+        BaseRecorder reader = new BaseRecorder(epcTable);
+        reader.setReaderId(readers.size());
+        readers.add(reader);
+        hosts.add(host);
+        ports.add(port);
+        return reader;
+    }
+
+    /**
+     * 并行连接所有读写器并完成握手
+     *
+     * @param configPath
+     * @param roSpecPath
+     */
+    public void open(String configPath, String roSpecPath) {
+        if (pipeline != null) {
+            return;
+        }
+        if (readers.isEmpty()) {
+            throw new IllegalStateException("No reader added");
+        }
+
+        merger = new TimeOrderedMerger(readers.size(), reorderWindow * 1000, output::writeTag);
+        pipeline = new RecordPipeline<>("merge", capacity, TagRecord::new, policy, 1, merger);
+        pipeline.start();
+        for (BaseRecorder reader : readers) {
+            reader.attachPipeline(pipeline);
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(readers.size(), r -> {
+            Thread t = new Thread(r, "reader-control-" + threadCount.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+
+        long begin = System.nanoTime();
+        forEachReader("open", i -> {
+            long t0 = System.nanoTime();
+            readers.get(i).open(hosts.get(i), ports.get(i), configPath, roSpecPath);
+            log.info("Reader {} ({}:{}) ready in {}ms",
+                    i, hosts.get(i), ports.get(i), (System.nanoTime() - t0) / 1_000_000);
+        });
+        log.info("{} readers ready in {}ms", readers.size(), (System.nanoTime() - begin) / 1_000_000);
+    }
+
+    @Override
+    public void start() {
+        forEachReader("start", i -> readers.get(i).start());
+    }
+
+    @Override
+    public void stop() {
+        forEachReader("stop", i -> readers.get(i).stop());
+        if (merger != null) {
+            merger.flush();
+        }
+    }
+
+    /**
+     * 在所有读写器上布置同一计划，各读写器按各自的时钟模型换算开始时刻，按主机时间对齐
+     *
+     * @param schedule
+     */
+    @Override
+    public void arm(CollectionSchedule schedule) {
+        forEachReader("arm", i -> readers.get(i).arm(schedule));
+    }
+
+    @Override
+    public void close() {
+        for (BaseRecorder reader : readers) {
+            reader.close();
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        if (pipeline != null) {
+            pipeline.close();
+            merger.flush();
+            log.info("Merged records late beyond reorder window: {}", merger.getLateCount());
+        }
+        output.close();
+    }
+
+    /**
+     * 所有读写器均已连接
+     *
+     * @return
+     */
+    @Override
+    public boolean isConnecting() {
+        if (readers.isEmpty()) {
+            return false;
+        }
+        for (BaseRecorder reader : readers) {
+            if (!reader.isConnecting()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public List<BaseRecorder> getReaders() {
+        return readers;
+    }
+
+    public RecordPipeline<TagRecord> getPipeline() {
+        return pipeline;
+    }
+
+    /**
+     * 在每个读写器上并行执行操作，等待全部完成
+     *
+     * @param action 操作名称
+     * @param task   参数为读写器编号
+     */
+    private void forEachReader(String action, IntConsumer task) {
+        if (executor == null) {
+            return;
+        }
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < readers.size(); i++) {
+            final int index = i;
+            futures.add(executor.submit((Callable<Void>) () -> {
+                task.accept(index);
+                return null;
+            }));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                futures.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                log.error("Failed to {} reader {}", action, i, e.getCause());
+            }
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.yxalkaid.rfcollector.recorder;
+
+import com.yxalkaid.rfcollector.capture.RawFrameFormat;
+import lombok.extern.slf4j.Slf4j;
+import org.llrp.ltk.exceptions.InvalidLLRPMessageException;
+import org.llrp.ltk.generated.LLRPMessageFactory;
+import org.llrp.ltk.generated.enumerations.ConnectionAttemptStatusType;
+import org.llrp.ltk.generated.messages.READER_EVENT_NOTIFICATION;
+import org.llrp.ltk.generated.parameters.ConnectionAttemptEvent;
+import org.llrp.ltk.net.LLRPConnection;
+import org.llrp.ltk.net.LLRPConnectionAttemptFailedException;
+import org.llrp.ltk.net.LLRPEndpoint;
+import org.llrp.ltk.types.LLRPMessage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 直接读取套接字的 LLRP 连接
+ * <p>
+ * 按消息头中的长度切分帧：RO_ACCESS_REPORT 帧不经 LTK 解码，原样交给帧接收方；
+ * 其余消息（应答、心跳、事件通知）用 LTK 解码后交给 transact 的调用方或 LLRPEndpoint。
+ * 发送与应答的接口与 LLRPConnector 一致，握手流程不需要区分两种连接。
+ */
+@Slf4j
+class RawFrameConnection extends LLRPConnection implements Closeable {
+
+    /**
+     * 等待连接事件通知的时间（毫秒）
+     */
+    private static final long CONNECT_TIMEOUT = 10_000;
+
+    /**
+     * 原始帧接收方
+     */
+    @FunctionalInterface
+    interface FrameSink {
+
+        /**
+         * 收到一帧标签上报，在读取线程上调用
+         *
+         * @param frame       消息字节，调用返回后会被复用
+         * @param length      消息长度
+         * @param receiveTime 主机接收时间（UTC 微秒）
+         * @throws IOException
+         */
+        void onFrame(byte[] frame, int length, long receiveTime) throws IOException;
+    }
+
+    private final String host;
+
+    private final int port;
+
+    private final FrameSink sink;
+
+    /**
+     * 等待应答的 transact 调用，按消息ID索引
+     */
+    private final Map<Long, CompletableFuture<LLRPMessage>> transactions = new ConcurrentHashMap<>();
+
+    /**
+     * 连接事件通知
+     */
+    private final CompletableFuture<READER_EVENT_NOTIFICATION> connectionEvent = new CompletableFuture<>();
+
+    private Socket socket;
+
+    private OutputStream out;
+
+    private Thread readerThread;
+
+    private volatile boolean closed;
+
+    RawFrameConnection(LLRPEndpoint endpoint, String host, int port, FrameSink sink) {
+        this.setEndpoint(endpoint);
+        this.host = host;
+        this.port = port;
+        this.sink = sink;
+    }
+
+    /**
+     * 建立连接，并等待读写器的连接事件通知
+     *
+     * @throws LLRPConnectionAttemptFailedException
+     */
+    void connect() throws LLRPConnectionAttemptFailedException {
+        try {
+            socket = new Socket();
+            socket.setTcpNoDelay(true);
+            socket.setReceiveBufferSize(1 << 20);
+            socket.connect(new InetSocketAddress(host, port), (int) CONNECT_TIMEOUT);
+            out = new BufferedOutputStream(socket.getOutputStream());
+        } catch (IOException e) {
+            close();
+            throw new LLRPConnectionAttemptFailedException("Connection to " + host + ":" + port + " failed: " + e);
+        }
+
+        DataInputStream in;
+        try {
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+        } catch (IOException e) {
+            close();
+            throw new LLRPConnectionAttemptFailedException(e.toString());
+        }
+        readerThread = new Thread(() -> readLoop(in), "llrp-raw-reader");
+        readerThread.setDaemon(true);
+        readerThread.start();
+
+        try {
+            READER_EVENT_NOTIFICATION event = connectionEvent.get(CONNECT_TIMEOUT, TimeUnit.MILLISECONDS);
+            ConnectionAttemptEvent attempt = event.getReaderEventNotificationData() == null
+                    ? null : event.getReaderEventNotificationData().getConnectionAttemptEvent();
+            if (attempt != null && attempt.getStatus() != null
+                    && attempt.getStatus().intValue() != ConnectionAttemptStatusType.Success) {
+                close();
+                throw new LLRPConnectionAttemptFailedException("Connection attempt rejected: " + attempt.getStatus());
+            }
+        } catch (TimeoutException | ExecutionException e) {
+            close();
+            throw new LLRPConnectionAttemptFailedException("No connection event from " + host + ":" + port);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new LLRPConnectionAttemptFailedException("Interrupted");
+        }
+    }
+
+    private void readLoop(DataInputStream in) {
+        byte[] frame = new byte[1 << 16];
+        try {
+            while (!closed) {
+                in.readFully(frame, 0, RawFrameFormat.MESSAGE_HEADER_BYTES);
+                long receiveTime = System.currentTimeMillis() * 1000;
+                int length = RawFrameFormat.messageLength(frame, 0);
+                if (length < RawFrameFormat.MESSAGE_HEADER_BYTES || length > RawFrameFormat.MAX_MESSAGE_BYTES) {
+                    throw new IOException("Invalid LLRP message length: " + length);
+                }
+                if (frame.length < length) {
+                    frame = Arrays.copyOf(frame, Math.max(length, frame.length * 2));
+                }
+                in.readFully(frame, RawFrameFormat.MESSAGE_HEADER_BYTES, length - RawFrameFormat.MESSAGE_HEADER_BYTES);
+
+                if (RawFrameFormat.messageType(frame, 0) == RawFrameFormat.RO_ACCESS_REPORT) {
+                    sink.onFrame(frame, length, receiveTime);
+                } else {
+                    dispatch(LLRPMessageFactory.createLLRPMessage(Arrays.copyOf(frame, length)));
+                }
+            }
+        } catch (EOFException e) {
+            if (!closed) {
+                getEndpoint().errorOccured("Reader closed the connection");
+            }
+        } catch (IOException | InvalidLLRPMessageException | RuntimeException e) {
+            if (!closed) {
+                log.error("Raw LLRP connection failed", e);
+                getEndpoint().errorOccured("Raw LLRP connection failed: " + e);
+            }
+        } finally {
+            connectionEvent.completeExceptionally(new IOException("Connection closed"));
+            failTransactions();
+        }
+    }
+
+    private void dispatch(LLRPMessage message) {
+        if (message instanceof READER_EVENT_NOTIFICATION && !connectionEvent.isDone()) {
+            READER_EVENT_NOTIFICATION event = (READER_EVENT_NOTIFICATION) message;
+            if (event.getReaderEventNotificationData() != null
+                    && event.getReaderEventNotificationData().getConnectionAttemptEvent() != null) {
+                connectionEvent.complete(event);
+                return;
+            }
+        }
+        if (!transactions.isEmpty() && message.getMessageID() != null) {
+            CompletableFuture<LLRPMessage> response = transactions.remove(message.getMessageID().toLong());
+            if (response != null) {
+                response.complete(message);
+                return;
+            }
+        }
+        getEndpoint().messageReceived(message);
+    }
+
+    @Override
+    public void send(LLRPMessage message) {
+        if (closed || out == null) {
+            throw new ReaderException("Connection closed");
+        }
+        try {
+            byte[] frame = message.encodeBinary();
+            synchronized (out) {
+                out.write(frame);
+                out.flush();
+            }
+        } catch (InvalidLLRPMessageException e) {
+            throw new ReaderException("Invalid message " + message.getName(), e);
+        } catch (IOException e) {
+            throw new ReaderException("Failed to send " + message.getName(), e);
+        }
+    }
+
+    @Override
+    public LLRPMessage transact(LLRPMessage message) throws TimeoutException {
+        return transact(message, CONNECT_TIMEOUT);
+    }
+
+    @Override
+    public LLRPMessage transact(LLRPMessage message, long timeout) throws TimeoutException {
+        long id = message.getMessageID().toLong();
+        CompletableFuture<LLRPMessage> response = new CompletableFuture<>();
+        transactions.put(id, response);
+        try {
+            send(message);
+            return response.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw new ReaderException("No response to " + message.getName(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ReaderException("Interrupted waiting for response to " + message.getName(), e);
+        } finally {
+            transactions.remove(id);
+        }
+    }
+
+    /**
+     * 由 ConnectionSupervisor 负责重连
+     *
+     * @return
+     */
+    @Override
+    public boolean reconnect() {
+        return false;
+    }
+
+    private void failTransactions() {
+        for (CompletableFuture<LLRPMessage> response : transactions.values()) {
+            response.completeExceptionally(new IOException("Connection closed"));
+        }
+        transactions.clear();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                log.debug("Error closing socket", e);
+            }
+        }
+        failTransactions();
+    }
+}
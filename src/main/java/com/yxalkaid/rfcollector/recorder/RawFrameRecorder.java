@@ -0,0 +1,135 @@
+package com.yxalkaid.rfcollector.recorder;
+
+import com.yxalkaid.rfcollector.capture.GroupCommitter;
+import com.yxalkaid.rfcollector.capture.OutputFiles;
+import com.yxalkaid.rfcollector.capture.RawFrameFormat;
+import com.yxalkaid.rfcollector.capture.RawFrameWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.llrp.ltk.net.LLRPConnection;
+import org.llrp.ltk.net.LLRPConnectionAttemptFailedException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 原始帧记录器, 将读写器上报的 RO_ACCESS_REPORT 帧原样记录到文件
+ * <p>
+ * 标签上报不经 LTK 解码，也不经过处理阶段与流水线，读取线程只做一次内存复制；
+ * 文件保留上报中的全部参数，之后可用 {@link com.yxalkaid.rfcollector.capture.LazyFrameDecoder} 按需解码，
+ * 或用 Replayer 回放到其他记录器。
+ */
+@Slf4j
+public class RawFrameRecorder extends BaseRecorder {
+
+    /**
+     * 原始帧写入
+     */
+    private RawFrameWriter rawFrameWriter;
+
+    /**
+     * 输出文件通道，用于刷盘
+     */
+    private FileChannel channel;
+
+    /**
+     * 成组提交，未启用时为null
+     */
+    private GroupCommitter groupCommitter;
+
+    public RawFrameRecorder(String parentDir) {
+        this.initRawFrameWriter(parentDir);
+    }
+
+    /**
+     * 初始化原始帧写入
+     *
+     * @param parentDir
+     */
+    private void initRawFrameWriter(String parentDir) {
+        Path file = OutputFiles.create(parentDir, RawFrameFormat.FILE_SUFFIX);
+        log.info("Writing to " + file.toAbsolutePath());
+        try {
+            this.channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            this.rawFrameWriter = new RawFrameWriter(channel);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write to " + file, e);
+        }
+    }
+
+    /**
+     * 启用成组提交，需在写入之前调用
+     *
+     * @param intervalMs    提交间隔（毫秒），即崩溃时最多丢失的时间范围
+     * @param byteThreshold 待提交字节数达到该值时提前提交，不大于0时只按间隔提交
+     */
+    public void enableGroupCommit(long intervalMs, long byteThreshold) {
+        if (this.groupCommitter != null) {
+            return;
+        }
+        this.groupCommitter = new GroupCommitter("raw-frame-flusher", () -> {
+            synchronized (this.rawFrameWriter) {
+                this.rawFrameWriter.flush();
+                return this.channel;
+            }
+        }, intervalMs, byteThreshold);
+    }
+
+    /**
+     * 已持久化的最新帧的主机接收时间（微秒），未启用成组提交或尚未提交时为 Long.MIN_VALUE
+     *
+     * @return
+     */
+    public long getLastDurableTime() {
+        return groupCommitter == null ? Long.MIN_VALUE : groupCommitter.getLastDurableTime();
+    }
+
+    @Override
+    protected LLRPConnection openConnection(String host, int port) throws LLRPConnectionAttemptFailedException {
+        RawFrameConnection connection = new RawFrameConnection(this, host, port, this::recordFrame);
+        connection.connect();
+        return connection;
+    }
+
+    /**
+     * 记录一帧标签上报
+     *
+     * @param frame
+     * @param length
+     * @param receiveTime
+     * @throws IOException
+     */
+    void recordFrame(byte[] frame, int length, long receiveTime) throws IOException {
+        this.onRawReport();
+        synchronized (this.rawFrameWriter) {
+            this.rawFrameWriter.append(frame, 0, length, receiveTime);
+            if (this.groupCommitter != null) {
+                this.groupCommitter.onAppend(RawFrameFormat.FRAME_HEADER_BYTES + length, receiveTime);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        super.close();
+
+        if (this.groupCommitter != null) {
+            this.groupCommitter.close();
+        }
+
+        if (this.rawFrameWriter == null) {
+            return;
+        }
+        synchronized (this.rawFrameWriter) {
+            try {
+                this.rawFrameWriter.close();
+                log.info("Raw frame writer closed, frames={}, bytes={}",
+                        rawFrameWriter.getFrameCount(), rawFrameWriter.getByteCount());
+            } catch (IOException e) {
+                log.error("Error closing raw frame writer", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.yxalkaid.rfcollector.recorder;
+
+/**
+ * 读写器通信失败：连接失败、应答超时、应答状态错误或配置文件无效
+ */
+public class ReaderException extends RuntimeException {
+
+    public ReaderException(String message) {
+        super(message);
+    }
+
+    public ReaderException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,146 @@
+package com.yxalkaid.rfcollector.recorder;
+
+import lombok.extern.slf4j.Slf4j;
+import org.llrp.ltk.types.LLRPMessage;
+import org.llrp.ltk.util.Util;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 读写器能力与配置查询结果的缓存
+ * <p>
+ * 查询应答以 LLRP XML 的形式保存在缓存目录中（文件名为 读写器_消息类型.xml），
+ * 进程重启后仍然有效。读写器更换固件或配置后删除对应文件即可重新查询。
+ * <p>
+ * 同时记录最近一次添加到读写器的 ROSpec 的摘要（读写器_ROSpec.sha256），
+ * 用于判断读写器上保留的 ROSpec 是否就是本程序添加的那一个。
+ */
+@Slf4j
+public class ReaderInfoCache {
+
+    private static final String ROSPEC = "ROSpec";
+
+    /**
+     * 缓存目录
+     */
+    private final Path directory;
+
+    /**
+     * 已加载的应答
+     */
+    private final Map<String, LLRPMessage> messages = new ConcurrentHashMap<>();
+
+    /**
+     * 已加载的 ROSpec 摘要
+     */
+    private final Map<String, String> roSpecDigests = new ConcurrentHashMap<>();
+
+    public ReaderInfoCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * 读取缓存的应答
+     *
+     * @param reader 读写器标识
+     * @param type   应答类型
+     * @return 没有缓存或缓存无效时返回 null
+     */
+    public <T extends LLRPMessage> T get(String reader, Class<T> type) {
+        String key = key(reader, type);
+        LLRPMessage message = messages.get(key);
+        if (message == null) {
+            Path file = directory.resolve(key + ".xml");
+            if (!Files.isRegularFile(file)) {
+                return null;
+            }
+            try {
+                message = Util.loadXMLLLRPMessage(file.toFile());
+            } catch (Exception e) {
+                log.warn("Ignoring invalid reader cache {}", file, e);
+                return null;
+            }
+            if (!type.isInstance(message)) {
+                log.warn("Ignoring reader cache {} of unexpected type", file);
+                return null;
+            }
+            messages.put(key, message);
+        }
+        return type.cast(message);
+    }
+
+    /**
+     * 保存应答
+     *
+     * @param reader  读写器标识
+     * @param message 应答
+     */
+    public void put(String reader, LLRPMessage message) {
+        String key = key(reader, message.getClass());
+        messages.put(key, message);
+        try {
+            Files.createDirectories(directory);
+            Files.write(directory.resolve(key + ".xml"), message.toXMLString().getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            log.warn("Failed to write reader cache for {}", reader, e);
+        }
+    }
+
+    /**
+     * 读取最近一次添加的 ROSpec 摘要
+     *
+     * @param reader 读写器标识
+     * @return 没有记录时返回 null
+     */
+    public String getRoSpecDigest(String reader) {
+        String key = key(reader, ROSPEC);
+        String digest = roSpecDigests.get(key);
+        if (digest == null) {
+            Path file = directory.resolve(key + ".sha256");
+            if (!Files.isRegularFile(file)) {
+                return null;
+            }
+            try {
+                digest = Files.readString(file, StandardCharsets.US_ASCII).trim();
+            } catch (Exception e) {
+                log.warn("Ignoring invalid reader cache {}", file, e);
+                return null;
+            }
+            roSpecDigests.put(key, digest);
+        }
+        return digest;
+    }
+
+    /**
+     * 记录添加到读写器的 ROSpec 摘要
+     *
+     * @param reader 读写器标识
+     * @param digest ROSpec 摘要
+     */
+    public void putRoSpecDigest(String reader, String digest) {
+        String key = key(reader, ROSPEC);
+        roSpecDigests.put(key, digest);
+        try {
+            Files.createDirectories(directory);
+            Files.writeString(directory.resolve(key + ".sha256"), digest, StandardCharsets.US_ASCII);
+        } catch (Exception e) {
+            log.warn("Failed to write reader cache for {}", reader, e);
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    private static String key(String reader, Class<?> type) {
+        return key(reader, type.getSimpleName());
+    }
+
+    private static String key(String reader, String name) {
+        return reader.replaceAll("[^A-Za-z0-9.-]", "_") + "_" + name;
+    }
+}
@@ -0,0 +1,38 @@
+package com.yxalkaid.rfcollector.recorder;
+
+/**
+ * 记录器，供控制器启停采集
+ */
+public interface Recorder {
+
+    /**
+     * 开始采集
+     */
+    void start();
+
+    /**
+     * 停止采集
+     */
+    void stop();
+
+    /**
+     * 布置定时采集，由读写器按计划开始与停止；start 或 stop 取消计划
+     *
+     * @param schedule
+     */
+    default void arm(CollectionSchedule schedule) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support scheduled collection");
+    }
+
+    /**
+     * 关闭连接并释放资源
+     */
+    void close();
+
+    /**
+     * 是否已连接读写器
+     *
+     * @return
+     */
+    boolean isConnecting();
+}
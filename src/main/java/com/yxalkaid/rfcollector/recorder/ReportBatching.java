@@ -0,0 +1,192 @@
+package com.yxalkaid.rfcollector.recorder;
+
+import lombok.extern.slf4j.Slf4j;
+import org.llrp.ltk.generated.enumerations.ROReportTriggerType;
+import org.llrp.ltk.generated.parameters.ROReportSpec;
+import org.llrp.ltk.generated.parameters.TagReportContentSelector;
+import org.llrp.ltk.types.Bit;
+import org.llrp.ltk.types.UnsignedShort;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 批量上报配置
+ * <p>
+ * 将 ROReportTrigger 改为每 N 个标签上报一次，并可按固定间隔发送 GET_REPORT
+ * 取回读写器中累积的标签，减少每条消息的解码与分发开销。
+ * <p>
+ * 注意：读写器在一批之内会把同一标签在同一天线、同一信道上的多次读取合并为一条 TagReportData，
+ * 只保留第一次读取的时间戳、RSSI 与相位，逐次读取的样本因此丢失，不适合需要完整相位序列的场景。
+ * 为保留合并的信息，{@link #apply(ROReportSpec)} 同时启用 TagSeenCount 与 LastSeenTimestamp，
+ * 分别写入记录的 tagSeenCount 与 lastSeenTime（CSV 不含这两列，列式与分段格式保留）。
+ */
+@Slf4j
+public class ReportBatching {
+
+    /**
+     * 上报速率日志间隔（毫秒）
+     */
+    private static final long STATS_INTERVAL = 5000;
+
+    /**
+     * 每次上报的标签数，0 表示仅在 ROSpec 结束或收到 GET_REPORT 时上报
+     */
+    private final int batchSize;
+
+    /**
+     * GET_REPORT 发送间隔（毫秒），不大于0时不发送
+     */
+    private final long flushInterval;
+
+    /**
+     * 收到的报告数
+     */
+    private final LongAdder reportCount = new LongAdder();
+
+    /**
+     * 收到的标签数
+     */
+    private final LongAdder tagCount = new LongAdder();
+
+    private final ScheduledExecutorService scheduler;
+
+    private ScheduledFuture<?> flushTask;
+
+    private ScheduledFuture<?> statsTask;
+
+    private long lastStatsTime;
+
+    private long lastReportCount;
+
+    private long lastTagCount;
+
+    /**
+     * 构造方法
+     *
+     * @param batchSize     每次上报的标签数
+     * @param flushInterval GET_REPORT 发送间隔（毫秒）
+     */
+    public ReportBatching(int batchSize, long flushInterval) {
+        if (batchSize < 0 || batchSize > 0xFFFF) {
+            throw new IllegalArgumentException("batchSize must be in [0, 65535]");
+        }
+        if (batchSize == 0 && flushInterval <= 0) {
+            throw new IllegalArgumentException("batchSize 0 requires a positive flushInterval");
+        }
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "report-batching");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * 覆盖上报策略
+     *
+     * @param spec
+     */
+    public void apply(ROReportSpec spec) {
+        spec.setROReportTrigger(new ROReportTriggerType(ROReportTriggerType.Upon_N_Tags_Or_End_Of_ROSpec));
+        spec.setN(new UnsignedShort(batchSize));
+
+        // 合并的读取只能从读取次数与最后一次读取时间看出
+        TagReportContentSelector selector = spec.getTagReportContentSelector();
+        if (selector != null) {
+            selector.setEnableFirstSeenTimestamp(new Bit(true));
+            selector.setEnableLastSeenTimestamp(new Bit(true));
+            selector.setEnableTagSeenCount(new Bit(true));
+        }
+        log.info("Batched reporting: N={}, flushInterval={}ms", batchSize, flushInterval);
+    }
+
+    /**
+     * 开始定时取回报告并统计上报速率
+     *
+     * @param requestReport 发送 GET_REPORT
+     */
+    public synchronized void start(Runnable requestReport) {
+        stop();
+        if (flushInterval > 0) {
+            flushTask = scheduler.scheduleAtFixedRate(() -> {
+                try {
+                    requestReport.run();
+                } catch (Exception e) {
+                    log.warn("Failed to request report", e);
+                }
+            }, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+        }
+
+        lastStatsTime = System.nanoTime();
+        lastReportCount = reportCount.sum();
+        lastTagCount = tagCount.sum();
+        statsTask = scheduler.scheduleAtFixedRate(this::logRate, STATS_INTERVAL, STATS_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止定时任务
+     */
+    public synchronized void stop() {
+        if (flushTask != null) {
+            flushTask.cancel(false);
+            flushTask = null;
+        }
+        if (statsTask != null) {
+            statsTask.cancel(false);
+            statsTask = null;
+            logRate();
+        }
+    }
+
+    /**
+     * 记录一次报告
+     *
+     * @param tags 报告中的标签数
+     */
+    public void onReport(int tags) {
+        reportCount.increment();
+        tagCount.add(tags);
+    }
+
+    public void close() {
+        stop();
+        scheduler.shutdownNow();
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public long getFlushInterval() {
+        return flushInterval;
+    }
+
+    public long getReportCount() {
+        return reportCount.sum();
+    }
+
+    public long getTagCount() {
+        return tagCount.sum();
+    }
+
+    private synchronized void logRate() {
+        long now = System.nanoTime();
+        long reports = reportCount.sum();
+        long tags = tagCount.sum();
+        double seconds = (now - lastStatsTime) / 1e9;
+        if (seconds > 0 && reports > lastReportCount) {
+            double reportRate = (reports - lastReportCount) / seconds;
+            double tagRate = (tags - lastTagCount) / seconds;
+            log.info(String.format("Reports: %.1f/s, tags: %.1f/s, tags per report: %.1f",
+                    reportRate, tagRate, tagRate / reportRate));
+        }
+        lastStatsTime = now;
+        lastReportCount = reports;
+        lastTagCount = tags;
+    }
+}
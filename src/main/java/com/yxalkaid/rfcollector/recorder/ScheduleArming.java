@@ -0,0 +1,92 @@
+package com.yxalkaid.rfcollector.recorder;
+
+import com.yxalkaid.rfcollector.processing.ReaderClock;
+import lombok.extern.slf4j.Slf4j;
+import org.llrp.ltk.generated.parameters.ROBoundarySpec;
+import org.llrp.ltk.generated.parameters.ROSpec;
+
+/**
+ * 定时采集的布置
+ * <p>
+ * 把计划写入 ROSpec 的开始与停止触发器，开始时刻按记录器的时钟模型换算到读写器时钟；
+ * 第一次布置时保存原有的触发器，取消时恢复。只修改记录器缓存的 ROSpec，不与读写器通信，
+ * 由记录器重新添加使之生效。
+ */
+@Slf4j
+class ScheduleArming {
+
+    /**
+     * 记录器的时钟模型
+     */
+    private final ReaderClock clock;
+
+    /**
+     * 已布置的定时采集计划，未布置时为null
+     */
+    private volatile CollectionSchedule schedule;
+
+    /**
+     * ROSpec 原有的开始与停止触发器，取消定时采集时恢复
+     */
+    private ROBoundarySpec originalBoundary;
+
+    /**
+     * 构造方法
+     *
+     * @param clock 记录器的时钟模型
+     */
+    ScheduleArming(ReaderClock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * 把计划写入 ROSpec 的触发器，替换之前布置的计划
+     *
+     * @param rospec
+     * @param schedule
+     */
+    void arm(ROSpec rospec, CollectionSchedule schedule) {
+        if (this.originalBoundary == null) {
+            this.originalBoundary = rospec.getROBoundarySpec();
+        }
+        long hostStart = schedule.getStartTime() * 1000;
+        long readerStart = clock.toReaderTime(hostStart);
+        rospec.setROBoundarySpec(schedule.toBoundarySpec(readerStart));
+        this.schedule = schedule;
+
+        if (clock.isKnown()) {
+            log.info("Arming {}: reader start {}us, clock offset {}us, drift {}ppm from {} samples",
+                    schedule, readerStart, hostStart - readerStart,
+                    String.format("%.2f", clock.getDriftPpm()), clock.getSampleCount());
+        } else {
+            log.warn("Arming {} without a measured clock offset, assuming the reader clock matches the host",
+                    schedule);
+        }
+        if (hostStart <= System.currentTimeMillis() * 1000) {
+            log.warn("Schedule start time {} is not in the future", schedule.getStartTime());
+        }
+    }
+
+    /**
+     * 取消计划，恢复 ROSpec 原有的触发器
+     *
+     * @param rospec
+     * @return 之前是否布置了计划
+     */
+    boolean disarm(ROSpec rospec) {
+        if (this.schedule == null) {
+            return false;
+        }
+        rospec.setROBoundarySpec(this.originalBoundary);
+        this.schedule = null;
+        return true;
+    }
+
+    boolean isArmed() {
+        return schedule != null;
+    }
+
+    CollectionSchedule getSchedule() {
+        return schedule;
+    }
+}
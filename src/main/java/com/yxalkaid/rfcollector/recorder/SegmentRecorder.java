@@ -0,0 +1,93 @@
+package com.yxalkaid.rfcollector.recorder;
+
+import com.yxalkaid.rfcollector.capture.MappedSegmentWriter;
+import com.yxalkaid.rfcollector.capture.OutputFiles;
+import com.yxalkaid.rfcollector.capture.SegmentRecordCodec;
+import com.yxalkaid.rfcollector.domain.TagRecord;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * 分段记录器, 将数据写入预分配的内存映射分段文件
+ */
+@Slf4j
+public class SegmentRecorder extends BaseRecorder {
+
+    /**
+     * 默认分段大小（64MB）
+     */
+    public static final int DEFAULT_SEGMENT_BYTES = 64 * 1024 * 1024;
+
+    /**
+     * 默认刷盘间隔（毫秒）
+     */
+    public static final long DEFAULT_FORCE_INTERVAL = 1000;
+
+    /**
+     * 分段写入
+     */
+    private MappedSegmentWriter segmentWriter;
+
+    /**
+     * 父目录
+     */
+    private String parentDir;
+
+    public SegmentRecorder(String parentDir) {
+        this(parentDir, DEFAULT_SEGMENT_BYTES, DEFAULT_FORCE_INTERVAL);
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param parentDir     父目录
+     * @param segmentBytes  分段大小（字节）
+     * @param forceInterval 刷盘间隔（毫秒）
+     */
+    public SegmentRecorder(String parentDir, int segmentBytes, long forceInterval) {
+        this.parentDir = parentDir;
+        this.initSegmentWriter(parentDir, segmentBytes, forceInterval);
+    }
+
+    /**
+     * 初始化分段写入
+     *
+     * @param parentDir
+     * @param segmentBytes
+     * @param forceInterval
+     */
+    private void initSegmentWriter(String parentDir, int segmentBytes, long forceInterval) {
+        try {
+            this.segmentWriter = new MappedSegmentWriter(Path.of(parentDir), OutputFiles.prefix(), segmentBytes, forceInterval);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create output in " + parentDir, e);
+        }
+    }
+
+    @Override
+    protected void recordTag(TagRecord tag) throws IOException {
+        synchronized (this.segmentWriter) {
+            ByteBuffer buf = this.segmentWriter.claim(SegmentRecordCodec.MAX_RECORD_BYTES);
+            SegmentRecordCodec.encode(tag, buf);
+            this.segmentWriter.commit();
+        }
+    }
+
+    @Override
+    public void close() {
+        super.close();
+
+        if (this.segmentWriter == null) {
+            return;
+        }
+        synchronized (this.segmentWriter) {
+            this.segmentWriter.close();
+            log.info("Segment writer closed, records={}, segments={}",
+                    segmentWriter.getFrameCount(), segmentWriter.getSegmentIndex() + 1);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.yxalkaid.rfcollector.recorder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 读写器初始化各阶段耗时
+ */
+public class SetupTimings {
+
+    /**
+     * 各阶段耗时（微秒），按发生顺序
+     */
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+
+    private long begin;
+
+    private long last;
+
+    /**
+     * 开始计时，清除上一次的记录
+     */
+    public synchronized void begin() {
+        phases.clear();
+        begin = last = System.nanoTime();
+    }
+
+    /**
+     * 结束一个阶段，耗时从上一个阶段结束时算起
+     *
+     * @param phase 阶段名称
+     */
+    public synchronized void mark(String phase) {
+        long now = System.nanoTime();
+        phases.merge(phase, (now - last) / 1000, Long::sum);
+        last = now;
+    }
+
+    /**
+     * 各阶段耗时（微秒）
+     *
+     * @return
+     */
+    public synchronized Map<String, Long> getPhases() {
+        return new LinkedHashMap<>(phases);
+    }
+
+    /**
+     * 总耗时（微秒）
+     *
+     * @return
+     */
+    public synchronized long getTotal() {
+        return (last - begin) / 1000;
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Long> phase : phases.entrySet()) {
+            sb.append(phase.getKey()).append('=')
+                    .append(String.format("%.1f", phase.getValue() / 1000.0)).append("ms, ");
+        }
+        return sb.append("total=").append(String.format("%.1f", getTotal() / 1000.0)).append("ms").toString();
+    }
+}
@@ -0,0 +1,135 @@
+package com.yxalkaid.rfcollector.recorder;
+
+import com.yxalkaid.rfcollector.domain.TagRecord;
+import com.yxalkaid.rfcollector.pipeline.BackpressurePolicy;
+import com.yxalkaid.rfcollector.pipeline.RecordPipeline;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+
+/**
+ * 扇出中的一路输出：独立的有界队列与写入线程
+ * <p>
+ * 写入失败只影响本路输出：失败被计数并限频记录日志，
+ * 连续失败达到上限后停用该输出，此后的记录直接丢弃，不再调用输出。
+ */
+@Slf4j
+public class SinkChannel {
+
+    /**
+     * 每隔多少次失败记录一次日志
+     */
+    private static final int LOG_EVERY_FAILURES = 1000;
+
+    private final String name;
+
+    private final TagSink sink;
+
+    /**
+     * 停用前允许的连续失败次数，不大于0时不停用
+     */
+    private final int maxConsecutiveFailures;
+
+    private final RecordPipeline<TagRecord> pipeline;
+
+    /**
+     * 发布用的空闲记录
+     */
+    private TagRecord spare = new TagRecord();
+
+    private volatile long failedCount;
+
+    private int consecutiveFailures;
+
+    private volatile boolean disabled;
+
+    SinkChannel(String name, TagSink sink, int capacity, BackpressurePolicy policy, int maxConsecutiveFailures) {
+        this.name = name;
+        this.sink = sink;
+        this.maxConsecutiveFailures = maxConsecutiveFailures;
+        this.pipeline = new RecordPipeline<>("sink-" + name, capacity, TagRecord::new, policy, 1, this::write);
+    }
+
+    void start() {
+        this.pipeline.start();
+    }
+
+    /**
+     * 复制记录并放入队列，队列已满时按背压策略处理
+     *
+     * @param tag
+     */
+    void publish(TagRecord tag) {
+        if (disabled) {
+            return;
+        }
+        synchronized (this) {
+            spare.copyFrom(tag);
+            spare = pipeline.publish(spare);
+        }
+    }
+
+    private void write(TagRecord tag) {
+        if (disabled) {
+            return;
+        }
+        try {
+            sink.write(tag);
+            consecutiveFailures = 0;
+        } catch (Exception e) {
+            failedCount++;
+            consecutiveFailures++;
+            if (failedCount % LOG_EVERY_FAILURES == 1) {
+                log.error("Sink {} failed to write ({} failures so far)", name, failedCount, e);
+            }
+            if (maxConsecutiveFailures > 0 && consecutiveFailures >= maxConsecutiveFailures) {
+                disabled = true;
+                log.error("Sink {} disabled after {} consecutive failures", name, consecutiveFailures);
+            }
+        }
+    }
+
+    /**
+     * 等待队列写完后关闭输出
+     */
+    void close() {
+        pipeline.close();
+        try {
+            sink.close();
+        } catch (IOException | RuntimeException e) {
+            log.error("Error closing sink {}", name, e);
+        }
+        log.info("Sink {} closed, published={}, dropped={}, failed={}, disabled={}",
+                name, pipeline.getPublishedCount(), pipeline.getDroppedCount(), failedCount, disabled);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 队列中等待写入的记录数
+     *
+     * @return
+     */
+    public int getQueueSize() {
+        return pipeline.size();
+    }
+
+    /**
+     * 因队列已满丢弃的记录数
+     *
+     * @return
+     */
+    public long getDroppedCount() {
+        return pipeline.getDroppedCount();
+    }
+
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    public boolean isDisabled() {
+        return disabled;
+    }
+}
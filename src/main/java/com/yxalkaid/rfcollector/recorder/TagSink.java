@@ -0,0 +1,34 @@
+package com.yxalkaid.rfcollector.recorder;
+
+import com.yxalkaid.rfcollector.domain.TagRecord;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * 记录输出
+ * <p>
+ * 由 {@link FanOutRecorder} 在该输出独占的线程上调用，不需要线程安全。
+ */
+@FunctionalInterface
+public interface TagSink extends Closeable {
+
+    /**
+     * 写入一条记录
+     * <p>
+     * 记录对象会被复用，调用返回后不得再持有其引用。
+     *
+     * @param tag
+     * @throws Exception
+     */
+    void write(TagRecord tag) throws Exception;
+
+    /**
+     * 关闭输出，在队列中剩余的记录写完之后调用
+     *
+     * @throws IOException
+     */
+    @Override
+    default void close() throws IOException {
+    }
+}
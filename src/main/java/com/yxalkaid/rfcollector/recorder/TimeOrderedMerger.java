@@ -0,0 +1,155 @@
+package com.yxalkaid.rfcollector.recorder;
+
+import com.yxalkaid.rfcollector.domain.TagRecord;
+import com.yxalkaid.rfcollector.pipeline.EventHandler;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * 多读写器记录的按时间归并
+ * <p>
+ * 记录按对齐时间（有 host_time 时为换算到主机时钟的时间，否则为 firstSeenTime）放入小顶堆，每个读写器维护已见到的最大时间（水位）。
+ * 堆顶记录不晚于所有读写器的最小水位时即可输出，此后不会再有更早的记录到达；
+ * 某个读写器没有上报时，早于最新时间超过重排窗口的记录也会输出，空闲的读写器不会阻塞输出。
+ * 没有时间戳的记录直接输出。间断标记的时间为间断开始时间，不计入迟到记录。
+ * <p>
+ * 记录对象从对象池中复用，下游处理器返回后不得再持有记录的引用。
+ */
+@Slf4j
+class TimeOrderedMerger implements EventHandler<TagRecord> {
+
+    /**
+     * 下游处理器
+     */
+    private final EventHandler<TagRecord> downstream;
+
+    /**
+     * 重排窗口（微秒）
+     */
+    private final long window;
+
+    /**
+     * 各读写器的水位（微秒），Long.MIN_VALUE 表示尚未上报
+     */
+    private final long[] watermarks;
+
+    /**
+     * 待输出的记录
+     */
+    private final PriorityQueue<TagRecord> heap =
+            new PriorityQueue<>(Comparator.comparingLong(TagRecord::getAlignedTime));
+
+    /**
+     * 空闲记录
+     */
+    private final ArrayDeque<TagRecord> pool = new ArrayDeque<>();
+
+    /**
+     * 已见到的最大时间
+     */
+    private long maxTime = Long.MIN_VALUE;
+
+    /**
+     * 上一条输出记录的时间
+     */
+    private long lastEmitted = Long.MIN_VALUE;
+
+    /**
+     * 晚于重排窗口到达、未能按序输出的记录数
+     */
+    private long lateCount;
+
+    /**
+     * 构造方法
+     *
+     * @param readerCount 读写器数
+     * @param window      重排窗口（微秒）
+     * @param downstream  下游处理器
+     */
+    TimeOrderedMerger(int readerCount, long window, EventHandler<TagRecord> downstream) {
+        this.downstream = downstream;
+        this.window = window;
+        this.watermarks = new long[readerCount];
+        Arrays.fill(this.watermarks, Long.MIN_VALUE);
+    }
+
+    @Override
+    public synchronized void onEvent(TagRecord tag) {
+        if (!tag.has(TagRecord.HAS_FIRST_SEEN_TIME)) {
+            emit(tag);
+            return;
+        }
+
+        TagRecord copy = pool.poll();
+        if (copy == null) {
+            copy = new TagRecord();
+        }
+        copy.copyFrom(tag);
+        heap.add(copy);
+
+        long time = tag.getAlignedTime();
+        int reader = tag.has(TagRecord.HAS_READER_ID) ? tag.getReaderId() : 0;
+        if (reader >= 0 && reader < watermarks.length && time > watermarks[reader]) {
+            watermarks[reader] = time;
+        }
+        if (time > maxTime) {
+            maxTime = time;
+        }
+
+        long bound = Math.max(minWatermark(), maxTime - window);
+        drain(bound);
+    }
+
+    /**
+     * 输出所有缓存的记录
+     */
+    public synchronized void flush() {
+        drain(Long.MAX_VALUE);
+    }
+
+    public synchronized int size() {
+        return heap.size();
+    }
+
+    public synchronized long getLateCount() {
+        return lateCount;
+    }
+
+    private void drain(long bound) {
+        while (!heap.isEmpty() && heap.peek().getAlignedTime() <= bound) {
+            TagRecord head = heap.poll();
+            emit(head);
+            pool.add(head);
+        }
+    }
+
+    private void emit(TagRecord tag) {
+        if (tag.has(TagRecord.HAS_FIRST_SEEN_TIME) && !tag.has(TagRecord.IS_GAP)) {
+            long time = tag.getAlignedTime();
+            if (time < lastEmitted) {
+                lateCount++;
+            } else {
+                lastEmitted = time;
+            }
+        }
+        try {
+            downstream.onEvent(tag);
+        } catch (Exception e) {
+            log.error("Error recording merged tag", e);
+        }
+    }
+
+    private long minWatermark() {
+        long min = Long.MAX_VALUE;
+        for (long watermark : watermarks) {
+            if (watermark < min) {
+                min = watermark;
+            }
+        }
+        return min;
+    }
+}
@@ -0,0 +1,360 @@
+package com.yxalkaid.rfcollector.replay;
+
+import com.csvreader.CsvReader;
+import com.yxalkaid.rfcollector.capture.ColumnarFormat;
+import com.yxalkaid.rfcollector.capture.ColumnarReader;
+import com.yxalkaid.rfcollector.capture.CsvLayout;
+import com.yxalkaid.rfcollector.capture.LazyFrameDecoder;
+import com.yxalkaid.rfcollector.capture.MappedSegmentReader;
+import com.yxalkaid.rfcollector.capture.MappedSegmentWriter;
+import com.yxalkaid.rfcollector.capture.RawFrameFormat;
+import com.yxalkaid.rfcollector.capture.RawFrameReader;
+import com.yxalkaid.rfcollector.domain.TagRecord;
+import com.yxalkaid.rfcollector.processing.PhaseUnwrapper;
+import com.yxalkaid.rfcollector.recorder.BaseRecorder;
+import com.yxalkaid.rfcollector.recorder.CsvRecorder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 回放引擎，读取采集文件并送入记录器的处理阶段与写入链
+ * <p>
+ * 支持 CSV、压缩的 CSV（{@code .csv.gz}）、列式文件（{@code .rfc}）、分段文件（{@code <prefix>-NNNNN.seg}）
+ * 与原始帧文件（{@code .llrp}）。
+ * CSV 按行边界切成块，由多个线程并行解析，解析结果按文件顺序交给记录器；
+ * gzip 流无法按偏移切块，{@code .csv.gz} 与其他格式一样按顺序解码。
+ * <p>
+ * speed 为 0 时尽快回放，否则按 firstSeenTime 的间隔节拍回放，1 为实时，2 为两倍速。
+ */
+@Slf4j
+public class Replayer {
+
+    /**
+     * CSV 块大小（字节）
+     */
+    private static final int CSV_CHUNK_BYTES = 4 * 1024 * 1024;
+
+    private final BaseRecorder target;
+
+    /**
+     * 回放速度，0 表示尽快
+     */
+    private final double speed;
+
+    /**
+     * 解析线程数
+     */
+    private final int threads;
+
+    /**
+     * 节拍起点：首条记录时间与对应的主机时间
+     */
+    private long firstTime = Long.MIN_VALUE;
+
+    private long startNanos;
+
+    private long replayedCount;
+
+    /**
+     * 构造方法
+     *
+     * @param target  记录器，不需要打开连接
+     * @param speed   回放速度，0 表示尽快回放
+     * @param threads CSV 解析线程数
+     */
+    public Replayer(BaseRecorder target, double speed, int threads) {
+        if (speed < 0 || threads <= 0) {
+            throw new IllegalArgumentException("speed must be >= 0 and threads positive");
+        }
+        this.target = target;
+        this.speed = speed;
+        this.threads = threads;
+    }
+
+    /**
+     * 回放文件，格式按扩展名判断
+     *
+     * @param file
+     * @return 回放的记录数
+     * @throws Exception
+     */
+    public long replay(Path file) throws Exception {
+        String name = file.getFileName().toString();
+        long before = replayedCount;
+        long begin = System.nanoTime();
+        if (name.endsWith(ColumnarFormat.FILE_SUFFIX)) {
+            replayColumnar(file);
+        } else if (name.endsWith(MappedSegmentWriter.SEGMENT_SUFFIX)) {
+            replaySegments(file);
+        } else if (name.endsWith(RawFrameFormat.FILE_SUFFIX)) {
+            replayRawFrames(file);
+        } else if (name.endsWith(".gz")) {
+            replayGzipCsv(file);
+        } else {
+            replayCsv(file);
+        }
+        long count = replayedCount - before;
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        log.info("Replayed {} records from {} in {}s ({} records/s)",
+                count, file, String.format("%.2f", seconds), String.format("%.0f", count / Math.max(seconds, 1e-9)));
+        return count;
+    }
+
+    private void replayColumnar(Path file) throws IOException {
+        TagRecord tag = new TagRecord();
+        try (ColumnarReader reader = ColumnarReader.open(file)) {
+            while (reader.next(tag)) {
+                deliver(tag);
+            }
+        }
+    }
+
+    /**
+     * 原始帧文件只解码标签上报，其他消息跳过
+     *
+     * @param file
+     * @throws Exception
+     */
+    private void replayRawFrames(Path file) throws Exception {
+        LazyFrameDecoder decoder = new LazyFrameDecoder(target.getEpcTable());
+        TagRecord tag = new TagRecord();
+        try (RawFrameReader reader = RawFrameReader.open(file)) {
+            while (reader.next()) {
+                decoder.decode(reader.getFrame(), 0, reader.getFrameLength(), tag, this::deliver);
+            }
+        }
+    }
+
+    /**
+     * 分段文件名为 {@code <prefix>-NNNNN.seg}，从该前缀的第一个分段开始依次读取
+     *
+     * @param file 任一分段文件
+     * @throws IOException
+     */
+    private void replaySegments(Path file) throws IOException {
+        String name = file.getFileName().toString();
+        String stem = name.substring(0, name.length() - MappedSegmentWriter.SEGMENT_SUFFIX.length());
+        int dash = stem.lastIndexOf('-');
+        String prefix = dash > 0 ? stem.substring(0, dash) : stem;
+        Path directory = file.toAbsolutePath().getParent();
+
+        TagRecord tag = new TagRecord();
+        try (MappedSegmentReader reader = new MappedSegmentReader(directory, prefix)) {
+            while (reader.next(tag)) {
+                deliver(tag);
+            }
+        }
+    }
+
+    private void replayCsv(Path file) throws Exception {
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "replay-decoder-" + threadCount.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+        CsvLayout layout = CsvLayout.read(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ArrayDeque<Future<List<TagRecord>>> inFlight = new ArrayDeque<>();
+            long position = 0;
+            while (position < size || !inFlight.isEmpty()) {
+                // 保持有限的在途块，限制内存占用
+                while (position < size && inFlight.size() < threads * 2) {
+                    long end = lineBoundary(channel, Math.min(position + CSV_CHUNK_BYTES, size), size);
+                    long start = position;
+                    inFlight.add(executor.submit(() -> parseCsv(channel, layout, start, end)));
+                    position = end;
+                }
+                for (TagRecord tag : inFlight.poll().get()) {
+                    deliver(tag);
+                }
+            }
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * 压缩的 CSV（例如滚动输出完成的分段）在当前线程上边解压边解析
+     *
+     * @param file
+     * @throws IOException
+     */
+    private void replayGzipCsv(Path file) throws IOException {
+        TagRecord tag = new TagRecord();
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file), 64 * 1024)) {
+            CsvReader reader = new CsvReader(new InputStreamReader(
+                    new BufferedInputStream(in, 64 * 1024), CsvLayout.CHARSET), ',');
+            try {
+                CsvLayout layout = CsvLayout.BASELINE;
+                boolean first = true;
+                while (reader.readRecord()) {
+                    String[] line = reader.getValues();
+                    if (first) {
+                        first = false;
+                        if (CsvLayout.isHeader(line)) {
+                            layout = CsvLayout.fromHeader(line);
+                            continue;
+                        }
+                    }
+                    if (line.length < 2 || CsvLayout.isHeader(line)) {
+                        continue;
+                    }
+                    try {
+                        layout.parseLine(line, tag);
+                    } catch (NumberFormatException e) {
+                        log.warn("Skipping malformed row {}: {}", reader.getCurrentRecord(), e.getMessage());
+                        continue;
+                    }
+                    deliver(tag);
+                }
+            } finally {
+                reader.close();
+            }
+        }
+    }
+
+    /**
+     * 从指定位置向后找到下一行的起点
+     */
+    private static long lineBoundary(FileChannel channel, long position, long size) throws IOException {
+        if (position >= size) {
+            return size;
+        }
+        ByteBuffer buf = ByteBuffer.allocate(4096);
+        long offset = position;
+        while (offset < size) {
+            buf.clear();
+            int n = channel.read(buf, offset);
+            if (n <= 0) {
+                break;
+            }
+            for (int i = 0; i < n; i++) {
+                if (buf.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += n;
+        }
+        return size;
+    }
+
+    private static List<TagRecord> parseCsv(FileChannel channel, CsvLayout layout, long start, long end)
+            throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate((int) (end - start));
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, start + buf.position()) < 0) {
+                break;
+            }
+        }
+        List<TagRecord> records = new ArrayList<>();
+        CsvReader reader = new CsvReader(new InputStreamReader(
+                new ByteArrayInputStream(buf.array(), 0, buf.position()), CsvLayout.CHARSET), ',');
+        try {
+            while (reader.readRecord()) {
+                String[] line = reader.getValues();
+                if (line.length < 2 || CsvLayout.isHeader(line)) {
+                    continue;
+                }
+                TagRecord tag = new TagRecord();
+                try {
+                    layout.parseLine(line, tag);
+                } catch (NumberFormatException e) {
+                    log.warn("Skipping malformed row at offset ~{}: {}", start, e.getMessage());
+                    continue;
+                }
+                records.add(tag);
+            }
+        } finally {
+            reader.close();
+        }
+        return records;
+    }
+
+    /**
+     * 按节拍等待后交给记录器
+     *
+     * @param tag
+     */
+    private void deliver(TagRecord tag) {
+        if (speed > 0 && tag.has(TagRecord.HAS_FIRST_SEEN_TIME)) {
+            long time = tag.getFirstSeenTime();
+            if (firstTime == Long.MIN_VALUE) {
+                firstTime = time;
+                startNanos = System.nanoTime();
+            } else {
+                long due = startNanos + (long) ((time - firstTime) * 1000 / speed);
+                long wait = due - System.nanoTime();
+                if (wait > 100_000) {
+                    LockSupport.parkNanos(wait);
+                }
+            }
+        }
+        target.replayTag(tag);
+        replayedCount++;
+    }
+
+    public long getReplayedCount() {
+        return replayedCount;
+    }
+
+    /**
+     * 命令行入口，回放到新的 CSV 输出，并执行相位解缠绕
+     * <pre>
+     * Replayer &lt;file&gt; [outputDir] [speed] [threads]
+     * Replayer ./output/RFID_20240101_120000.csv ./replayed 0 4
+     * </pre>
+     *
+     * @param args
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: Replayer <file> [outputDir] [speed] [threads]");
+            return;
+        }
+        String outputDir = args.length > 1 ? args[1] : "./replayed";
+        double speed = args.length > 2 ? Double.parseDouble(args[2]) : 0;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        // 保留输入文件的派生列，并输出解缠绕相位
+        Path file = Path.of(args[0]);
+        int columns = CsvLayout.PHASE_RAD;
+        String name = file.getFileName().toString();
+        if (name.endsWith(".csv") || name.endsWith(".csv.gz")) {
+            columns |= CsvLayout.read(file).getColumns();
+        }
+        CsvRecorder output = new CsvRecorder(outputDir, CsvLayout.of(columns));
+        output.addProcessor(new PhaseUnwrapper());
+        try {
+            new Replayer(output, speed, threads).replay(file);
+        } finally {
+            output.close();
+        }
+    }
+}
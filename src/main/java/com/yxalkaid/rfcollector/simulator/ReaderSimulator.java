@@ -0,0 +1,200 @@
+package com.yxalkaid.rfcollector.simulator;
+
+import lombok.extern.slf4j.Slf4j;
+import org.llrp.ltk.generated.parameters.ROSpec;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 离线 LLRP 读写器模拟器
+ * <p>
+ * 在本机监听 TCP 端口，按 Impinj Speedway 的行为应答 {@code BaseRecorder.open()} 的完整握手
+ * （Impinj 扩展、恢复出厂设置、能力与配置查询、ROSpec 的增删启停），
+ * ROSpec 启动后按设定的读取速率持续上报合成的 RO_ACCESS_REPORT，
+ * 用于在没有真实读写器时对采集端做端到端的压力测试与基准测试。
+ * <p>
+ * 同一时间只服务一个连接，新的连接会断开旧的连接，与真实读写器一致。
+ * ROSpec 保存在模拟器上，断线重连后仍然存在。
+ */
+@Slf4j
+public class ReaderSimulator implements Closeable {
+
+    /**
+     * LLRP 默认端口
+     */
+    public static final int DEFAULT_PORT = 5084;
+
+    /**
+     * 监听端口，0 表示随机端口
+     */
+    private final int port;
+
+    /**
+     * 标签数
+     */
+    private final int tagCount;
+
+    /**
+     * 读取速率（次/秒）
+     */
+    private final int readRate;
+
+    /**
+     * 天线端口，按标签轮转
+     */
+    private final int[] antennaIds;
+
+    /**
+     * 已添加的 ROSpec
+     */
+    private final List<ROSpec> rospecs = new ArrayList<>();
+
+    private ServerSocket serverSocket;
+
+    private Thread acceptThread;
+
+    private SimulatorSession session;
+
+    /**
+     * 已接受的连接数
+     */
+    private int connectionCount;
+
+    /**
+     * 构造方法
+     *
+     * @param port       监听端口，0 表示随机端口
+     * @param tagCount   标签数
+     * @param readRate   读取速率（次/秒）
+     * @param antennaIds 天线端口
+     */
+    public ReaderSimulator(int port, int tagCount, int readRate, int[] antennaIds) {
+        if (readRate <= 0) {
+            throw new IllegalArgumentException("readRate must be positive");
+        }
+        if (tagCount <= 0 || antennaIds == null || antennaIds.length == 0) {
+            throw new IllegalArgumentException("tagCount and antennaIds must not be empty");
+        }
+        this.port = port;
+        this.tagCount = tagCount;
+        this.readRate = readRate;
+        this.antennaIds = antennaIds.clone();
+    }
+
+    /**
+     * 开始监听
+     *
+     * @throws IOException
+     */
+    public synchronized void start() throws IOException {
+        if (serverSocket != null) {
+            return;
+        }
+        serverSocket = new ServerSocket(port, 1, InetAddress.getLoopbackAddress());
+        acceptThread = new Thread(this::acceptLoop, "reader-simulator");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+        log.info("Reader simulator listening on {}:{}, tags={}, rate={}/s, antennas={}",
+                serverSocket.getInetAddress().getHostAddress(), serverSocket.getLocalPort(),
+                tagCount, readRate, antennaIds.length);
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                log.info("Accepted connection from {}", socket.getRemoteSocketAddress());
+
+                SimulatorSession previous;
+                SimulatorSession next;
+                synchronized (this) {
+                    previous = session;
+                    next = new SimulatorSession(this, socket,
+                            new TagReportGenerator(tagCount, antennaIds, connectionCount++));
+                    session = next;
+                }
+                if (previous != null) {
+                    previous.close();
+                }
+                next.start();
+            } catch (SocketException e) {
+                // 监听已关闭
+                break;
+            } catch (IOException e) {
+                log.error("Failed to accept connection", e);
+            }
+        }
+    }
+
+    /**
+     * 实际监听端口
+     *
+     * @return
+     */
+    public int getLocalPort() {
+        return serverSocket == null ? port : serverSocket.getLocalPort();
+    }
+
+    public int getReadRate() {
+        return readRate;
+    }
+
+    /**
+     * 已添加的 ROSpec，调用方需在本对象上同步
+     *
+     * @return
+     */
+    List<ROSpec> getRospecs() {
+        return rospecs;
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException e) {
+            log.warn("Failed to close server socket", e);
+        }
+        if (session != null) {
+            session.close();
+            session = null;
+        }
+        log.info("Reader simulator stopped");
+    }
+
+    /**
+     * 命令行入口
+     * <pre>
+     * ReaderSimulator [port] [tagCount] [readRate] [antennaIds]
+     * ReaderSimulator 5084 64 2000 1,2,3,4
+     * </pre>
+     *
+     * @param args
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int tagCount = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int readRate = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        String[] antennas = (args.length > 3 ? args[3] : "1").split(",");
+        int[] antennaIds = new int[antennas.length];
+        for (int i = 0; i < antennas.length; i++) {
+            antennaIds[i] = Integer.parseInt(antennas[i].trim());
+        }
+
+        ReaderSimulator simulator = new ReaderSimulator(port, tagCount, readRate, antennaIds);
+        Runtime.getRuntime().addShutdownHook(new Thread(simulator::close));
+        simulator.start();
+        simulator.acceptThread.join();
+    }
+}
@@ -0,0 +1,575 @@
+package com.yxalkaid.rfcollector.simulator;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jdom.JDOMException;
+import org.jdom.input.SAXBuilder;
+import org.llrp.ltk.exceptions.InvalidLLRPMessageException;
+import org.llrp.ltk.generated.LLRPMessageFactory;
+import org.llrp.ltk.generated.custom.messages.IMPINJ_ENABLE_EXTENSIONS;
+import org.llrp.ltk.generated.custom.messages.IMPINJ_ENABLE_EXTENSIONS_RESPONSE;
+import org.llrp.ltk.generated.enumerations.ConnectionAttemptStatusType;
+import org.llrp.ltk.generated.enumerations.KeepaliveTriggerType;
+import org.llrp.ltk.generated.enumerations.ROSpecStartTriggerType;
+import org.llrp.ltk.generated.enumerations.ROSpecState;
+import org.llrp.ltk.generated.enumerations.ROSpecStopTriggerType;
+import org.llrp.ltk.generated.enumerations.StatusCode;
+import org.llrp.ltk.generated.messages.*;
+import org.llrp.ltk.generated.parameters.*;
+import org.llrp.ltk.types.LLRPMessage;
+import org.llrp.ltk.types.UTF8String_UTF_8;
+import org.llrp.ltk.types.UnsignedInteger;
+import org.llrp.ltk.types.UnsignedLong_DATETIME;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 模拟器的单个 LLRP 连接
+ * <p>
+ * 接收线程逐帧解码请求并应答，ROSpec 启动后由上报线程按读取速率生成标签，
+ * 每累积 N 个标签发送一个 RO_ACCESS_REPORT（N 取自 ROReportSpec，0 表示只在
+ * GET_REPORT 或 ROSpec 停止时上报）。
+ * 启用带周期开始触发器的 ROSpec 时，按其中的 UTC 时刻与周期启动，并按时长停止触发器停止。
+ */
+@Slf4j
+class SimulatorSession {
+
+    /**
+     * LLRP 消息头字节数
+     */
+    private static final int HEADER_BYTES = 10;
+
+    /**
+     * 单条消息最大字节数
+     */
+    private static final int MAX_MESSAGE_BYTES = 1 << 20;
+
+    /**
+     * 上报线程的节拍（纳秒）
+     */
+    private static final long TICK_NANOS = 1_000_000L;
+
+    /**
+     * 读写器缓存的最大标签数，N 为0时超过即上报
+     */
+    private static final int MAX_PENDING_TAGS = 0xFFFF;
+
+    private final ReaderSimulator simulator;
+
+    private final Socket socket;
+
+    private final OutputStream out;
+
+    private final TagReportGenerator generator;
+
+    /**
+     * 尚未上报的标签
+     */
+    private final List<TagReportData> pending = new ArrayList<>();
+
+    private final ScheduledExecutorService keepalive;
+
+    private ScheduledFuture<?> keepaliveTask;
+
+    /**
+     * ROSpec 开始触发器
+     */
+    private ScheduledFuture<?> triggerTask;
+
+    /**
+     * ROSpec 停止触发器
+     */
+    private ScheduledFuture<?> stopTask;
+
+    /**
+     * 读写器配置中的上报标签数
+     */
+    private volatile int readerReportN = 1;
+
+    /**
+     * 当前运行的 ROSpec 的上报标签数
+     */
+    private volatile int reportN = 1;
+
+    private volatile boolean streaming;
+
+    private volatile boolean closed;
+
+    private Thread receiver;
+
+    private Thread streamer;
+
+    /**
+     * 上报消息ID
+     */
+    private int reportMessageID;
+
+    SimulatorSession(ReaderSimulator simulator, Socket socket, TagReportGenerator generator) throws IOException {
+        this.simulator = simulator;
+        this.socket = socket;
+        this.out = new BufferedOutputStream(socket.getOutputStream(), 1 << 16);
+        this.generator = generator;
+        this.keepalive = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "simulator-keepalive");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    void start() {
+        receiver = new Thread(this::receiveLoop, "simulator-session");
+        receiver.setDaemon(true);
+        receiver.start();
+    }
+
+    private void receiveLoop() {
+        try {
+            sendConnectionAttemptEvent();
+
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            while (!closed) {
+                LLRPMessage request = readMessage(in);
+                if (request == null) {
+                    break;
+                }
+                handle(request);
+            }
+        } catch (IOException e) {
+            if (!closed) {
+                log.warn("Simulator connection lost: {}", e.getMessage());
+            }
+        } catch (Exception e) {
+            log.error("Simulator session failed", e);
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * 读取一帧 LLRP 消息
+     *
+     * @param in
+     * @return 连接关闭时返回null
+     * @throws IOException
+     * @throws InvalidLLRPMessageException
+     */
+    private static LLRPMessage readMessage(DataInputStream in) throws IOException, InvalidLLRPMessageException {
+        byte[] header = new byte[HEADER_BYTES];
+        try {
+            in.readFully(header);
+        } catch (EOFException e) {
+            return null;
+        }
+        int length = ((header[2] & 0xFF) << 24) | ((header[3] & 0xFF) << 16)
+                | ((header[4] & 0xFF) << 8) | (header[5] & 0xFF);
+        if (length < HEADER_BYTES || length > MAX_MESSAGE_BYTES) {
+            throw new IOException("Invalid LLRP message length: " + length);
+        }
+        byte[] frame = new byte[length];
+        System.arraycopy(header, 0, frame, 0, HEADER_BYTES);
+        in.readFully(frame, HEADER_BYTES, length - HEADER_BYTES);
+        return LLRPMessageFactory.createLLRPMessage(frame);
+    }
+
+    /**
+     * 应答请求
+     *
+     * @param request
+     * @throws Exception
+     */
+    private void handle(LLRPMessage request) throws Exception {
+        LLRPMessage response;
+
+        if (request instanceof IMPINJ_ENABLE_EXTENSIONS) {
+            IMPINJ_ENABLE_EXTENSIONS_RESPONSE resp = new IMPINJ_ENABLE_EXTENSIONS_RESPONSE();
+            resp.setLLRPStatus(success());
+            response = resp;
+        } else if (request instanceof SET_READER_CONFIG) {
+            configure((SET_READER_CONFIG) request);
+            SET_READER_CONFIG_RESPONSE resp = new SET_READER_CONFIG_RESPONSE();
+            resp.setLLRPStatus(success());
+            response = resp;
+        } else if (request instanceof GET_READER_CAPABILITIES) {
+            response = loadTemplate("GET_READER_CAPABILITIES_RESPONSE.xml");
+        } else if (request instanceof GET_READER_CONFIG) {
+            response = loadTemplate("GET_READER_CONFIG_RESPONSE.xml");
+        } else if (request instanceof ADD_ROSPEC) {
+            ROSpec rospec = ((ADD_ROSPEC) request).getROSpec();
+            rospec.setCurrentState(new ROSpecState(ROSpecState.Disabled));
+            synchronized (simulator) {
+                simulator.getRospecs().add(rospec);
+            }
+            ADD_ROSPEC_RESPONSE resp = new ADD_ROSPEC_RESPONSE();
+            resp.setLLRPStatus(success());
+            response = resp;
+        } else if (request instanceof DELETE_ROSPEC) {
+            long id = ((DELETE_ROSPEC) request).getROSpecID().toLong();
+            cancelTriggers();
+            stopStreaming();
+            synchronized (simulator) {
+                simulator.getRospecs().removeIf(r -> id == 0 || r.getROSpecID().toLong() == id);
+            }
+            DELETE_ROSPEC_RESPONSE resp = new DELETE_ROSPEC_RESPONSE();
+            resp.setLLRPStatus(success());
+            response = resp;
+        } else if (request instanceof ENABLE_ROSPEC) {
+            ROSpec rospec = setState(((ENABLE_ROSPEC) request).getROSpecID(), ROSpecState.Inactive);
+            armTriggers(rospec);
+            ENABLE_ROSPEC_RESPONSE resp = new ENABLE_ROSPEC_RESPONSE();
+            resp.setLLRPStatus(success());
+            response = resp;
+        } else if (request instanceof DISABLE_ROSPEC) {
+            cancelTriggers();
+            stopStreaming();
+            setState(((DISABLE_ROSPEC) request).getROSpecID(), ROSpecState.Disabled);
+            DISABLE_ROSPEC_RESPONSE resp = new DISABLE_ROSPEC_RESPONSE();
+            resp.setLLRPStatus(success());
+            response = resp;
+        } else if (request instanceof START_ROSPEC) {
+            ROSpec rospec = setState(((START_ROSPEC) request).getROSpecID(), ROSpecState.Active);
+            START_ROSPEC_RESPONSE resp = new START_ROSPEC_RESPONSE();
+            resp.setLLRPStatus(success());
+            send(resp, request.getMessageID());
+            startStreaming(rospec);
+            return;
+        } else if (request instanceof STOP_ROSPEC) {
+            stopStreaming();
+            setState(((STOP_ROSPEC) request).getROSpecID(), ROSpecState.Inactive);
+            STOP_ROSPEC_RESPONSE resp = new STOP_ROSPEC_RESPONSE();
+            resp.setLLRPStatus(success());
+            response = resp;
+        } else if (request instanceof GET_ROSPECS) {
+            GET_ROSPECS_RESPONSE resp = new GET_ROSPECS_RESPONSE();
+            resp.setLLRPStatus(success());
+            synchronized (simulator) {
+                resp.setROSpecList(new ArrayList<>(simulator.getRospecs()));
+            }
+            response = resp;
+        } else if (request instanceof GET_REPORT) {
+            synchronized (pending) {
+                flushPending(pending.size());
+            }
+            return;
+        } else if (request instanceof KEEPALIVE_ACK) {
+            return;
+        } else if (request instanceof CLOSE_CONNECTION) {
+            CLOSE_CONNECTION_RESPONSE resp = new CLOSE_CONNECTION_RESPONSE();
+            resp.setLLRPStatus(success());
+            send(resp, request.getMessageID());
+            close();
+            return;
+        } else {
+            log.warn("Unsupported message {}", request.getName());
+            ERROR_MESSAGE resp = new ERROR_MESSAGE();
+            LLRPStatus status = new LLRPStatus();
+            status.setStatusCode(new StatusCode("M_UnsupportedMessage"));
+            status.setErrorDescription(new UTF8String_UTF_8("Unsupported message " + request.getName()));
+            resp.setLLRPStatus(status);
+            response = resp;
+        }
+
+        send(response, request.getMessageID());
+    }
+
+    /**
+     * 应用读写器配置
+     *
+     * @param config
+     */
+    private void configure(SET_READER_CONFIG config) {
+        boolean reset = config.getResetToFactoryDefault() != null && config.getResetToFactoryDefault().toBoolean();
+        KeepaliveSpec keepaliveSpec = config.getKeepaliveSpec();
+        if (reset) {
+            // 恢复出厂设置会清除所有 ROSpec
+            cancelTriggers();
+            stopStreaming();
+            synchronized (simulator) {
+                simulator.getRospecs().clear();
+            }
+            readerReportN = 1;
+        }
+        if ((reset || keepaliveSpec != null) && keepaliveTask != null) {
+            keepaliveTask.cancel(false);
+            keepaliveTask = null;
+        }
+
+        ROReportSpec reportSpec = config.getROReportSpec();
+        if (reportSpec != null && reportSpec.getN() != null) {
+            readerReportN = reportSpec.getN().intValue();
+        }
+
+        if (keepaliveSpec != null
+                && keepaliveSpec.getKeepaliveTriggerType().intValue() == KeepaliveTriggerType.Periodic) {
+            long period = keepaliveSpec.getPeriodicTriggerValue().toLong();
+            keepaliveTask = keepalive.scheduleAtFixedRate(() -> {
+                try {
+                    send(new KEEPALIVE(), new UnsignedInteger(0));
+                } catch (Exception e) {
+                    log.debug("Failed to send keepalive", e);
+                }
+            }, period, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 修改 ROSpec 状态
+     *
+     * @param id    ROSpecID，0 表示全部
+     * @param state
+     * @return 最后一个匹配的 ROSpec
+     */
+    private ROSpec setState(UnsignedInteger id, int state) {
+        long target = id.toLong();
+        ROSpec matched = null;
+        synchronized (simulator) {
+            for (ROSpec rospec : simulator.getRospecs()) {
+                if (target == 0 || rospec.getROSpecID().toLong() == target) {
+                    rospec.setCurrentState(new ROSpecState(state));
+                    matched = rospec;
+                }
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * 按 ROSpec 的周期开始触发器与时长停止触发器安排启停，其他触发器类型忽略
+     *
+     * @param rospec
+     */
+    private synchronized void armTriggers(ROSpec rospec) {
+        cancelTriggers();
+        ROBoundarySpec boundary = rospec == null ? null : rospec.getROBoundarySpec();
+        ROSpecStartTrigger start = boundary == null ? null : boundary.getROSpecStartTrigger();
+        if (start == null || start.getROSpecStartTriggerType() == null
+                || start.getROSpecStartTriggerType().intValue() != ROSpecStartTriggerType.Periodic
+                || start.getPeriodicTriggerValue() == null) {
+            return;
+        }
+        PeriodicTriggerValue periodic = start.getPeriodicTriggerValue();
+        long now = System.currentTimeMillis();
+        long first = (periodic.getUTCTimestamp() != null
+                ? periodic.getUTCTimestamp().getMicroseconds().toLong() / 1000 : now)
+                + periodic.getOffset().toLong();
+        long period = periodic.getPeriod().toLong();
+        ROSpecStopTrigger stop = boundary.getROSpecStopTrigger();
+        long duration = stop != null && stop.getROSpecStopTriggerType() != null
+                && stop.getROSpecStopTriggerType().intValue() == ROSpecStopTriggerType.Duration
+                ? stop.getDurationTriggerValue().toLong() : 0;
+
+        UnsignedInteger id = rospec.getROSpecID();
+        Runnable run = () -> {
+            setState(id, ROSpecState.Active);
+            startStreaming(rospec);
+            if (duration > 0) {
+                synchronized (this) {
+                    stopTask = keepalive.schedule(() -> {
+                        stopStreaming();
+                        setState(id, ROSpecState.Inactive);
+                    }, duration, TimeUnit.MILLISECONDS);
+                }
+            }
+        };
+        long delay = Math.max(0, first - now);
+        triggerTask = period > 0
+                ? keepalive.scheduleAtFixedRate(run, delay, period, TimeUnit.MILLISECONDS)
+                : keepalive.schedule(run, delay, TimeUnit.MILLISECONDS);
+        log.info("Simulated ROSpec armed to start in {}ms, duration={}ms, period={}ms", delay, duration, period);
+    }
+
+    private synchronized void cancelTriggers() {
+        if (triggerTask != null) {
+            triggerTask.cancel(false);
+            triggerTask = null;
+        }
+        if (stopTask != null) {
+            stopTask.cancel(false);
+            stopTask = null;
+        }
+    }
+
+    private synchronized void startStreaming(ROSpec rospec) {
+        if (streaming) {
+            return;
+        }
+        ROReportSpec reportSpec = rospec == null ? null : rospec.getROReportSpec();
+        reportN = reportSpec != null && reportSpec.getN() != null ? reportSpec.getN().intValue() : readerReportN;
+
+        streaming = true;
+        streamer = new Thread(this::streamLoop, "simulator-stream");
+        streamer.setDaemon(true);
+        streamer.start();
+        log.info("Simulated ROSpec started, N={}", reportN);
+    }
+
+    /**
+     * 停止上报，并发送剩余标签（ROSpec 结束）
+     */
+    private synchronized void stopStreaming() {
+        if (!streaming) {
+            return;
+        }
+        streaming = false;
+        try {
+            streamer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        streamer = null;
+
+        synchronized (pending) {
+            try {
+                flushPending(pending.size());
+            } catch (Exception e) {
+                log.debug("Failed to flush pending tags", e);
+            }
+        }
+        log.info("Simulated ROSpec stopped");
+    }
+
+    /**
+     * 按读取速率生成标签
+     */
+    private void streamLoop() {
+        double perTick = simulator.getReadRate() * (TICK_NANOS / 1e9);
+        double credit = 0;
+        long deadline = System.nanoTime();
+
+        while (streaming && !closed) {
+            credit += perTick;
+            int n = (int) credit;
+            credit -= n;
+
+            if (n > 0) {
+                long now = System.currentTimeMillis() * 1000;
+                long step = (TICK_NANOS / 1000) / n;
+                int batch = reportN;
+                try {
+                    synchronized (pending) {
+                        for (int i = 0; i < n; i++) {
+                            pending.add(generator.nextTag(now + i * step));
+                        }
+                        if (batch > 0) {
+                            while (pending.size() >= batch) {
+                                flushPending(batch);
+                            }
+                        } else if (pending.size() >= MAX_PENDING_TAGS) {
+                            flushPending(pending.size());
+                        }
+                    }
+                } catch (Exception e) {
+                    if (!closed) {
+                        log.warn("Failed to send report", e);
+                    }
+                    break;
+                }
+            }
+
+            deadline += TICK_NANOS;
+            long wait = deadline - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            } else if (wait < -TimeUnit.SECONDS.toNanos(1)) {
+                // 发送跟不上时不追赶积压的节拍
+                deadline = System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * 发送缓存中的前 count 个标签，调用方需持有 pending 锁
+     *
+     * @param count
+     * @throws IOException
+     * @throws InvalidLLRPMessageException
+     */
+    private void flushPending(int count) throws IOException, InvalidLLRPMessageException {
+        if (count == 0) {
+            return;
+        }
+        RO_ACCESS_REPORT report = new RO_ACCESS_REPORT();
+        Iterator<TagReportData> it = pending.iterator();
+        for (int i = 0; i < count; i++) {
+            report.addToTagReportDataList(it.next());
+            it.remove();
+        }
+        send(report, new UnsignedInteger(reportMessageID++));
+    }
+
+    private void sendConnectionAttemptEvent() throws IOException, InvalidLLRPMessageException {
+        UTCTimestamp timestamp = new UTCTimestamp();
+        timestamp.setMicroseconds(new UnsignedLong_DATETIME(System.currentTimeMillis() * 1000));
+
+        ConnectionAttemptEvent event = new ConnectionAttemptEvent();
+        event.setStatus(new ConnectionAttemptStatusType(ConnectionAttemptStatusType.Success));
+
+        ReaderEventNotificationData data = new ReaderEventNotificationData();
+        data.setUTCTimestamp(timestamp);
+        data.setConnectionAttemptEvent(event);
+
+        READER_EVENT_NOTIFICATION notification = new READER_EVENT_NOTIFICATION();
+        notification.setReaderEventNotificationData(data);
+        send(notification, new UnsignedInteger(0));
+    }
+
+    private void send(LLRPMessage message, UnsignedInteger messageID) throws IOException, InvalidLLRPMessageException {
+        message.setMessageID(messageID);
+        byte[] frame = message.encodeBinary();
+        synchronized (out) {
+            out.write(frame);
+            out.flush();
+        }
+    }
+
+    /**
+     * 从类路径加载应答模板
+     *
+     * @param name
+     * @return
+     * @throws IOException
+     */
+    private static LLRPMessage loadTemplate(String name) throws IOException {
+        try (InputStream in = SimulatorSession.class.getResourceAsStream("/simulator/" + name)) {
+            if (in == null) {
+                throw new IOException("Missing simulator template " + name);
+            }
+            return LLRPMessageFactory.createLLRPMessage(new SAXBuilder().build(in));
+        } catch (JDOMException | InvalidLLRPMessageException e) {
+            throw new IOException("Invalid simulator template " + name, e);
+        }
+    }
+
+    private static LLRPStatus success() {
+        LLRPStatus status = new LLRPStatus();
+        status.setStatusCode(new StatusCode("M_Success"));
+        status.setErrorDescription(new UTF8String_UTF_8(""));
+        return status;
+    }
+
+    void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        streaming = false;
+        keepalive.shutdownNow();
+        try {
+            socket.close();
+        } catch (IOException e) {
+            log.debug("Failed to close socket", e);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.yxalkaid.rfcollector.simulator;
+
+import org.llrp.ltk.generated.custom.parameters.ImpinjPeakRSSI;
+import org.llrp.ltk.generated.custom.parameters.ImpinjRFDopplerFrequency;
+import org.llrp.ltk.generated.custom.parameters.ImpinjRFPhaseAngle;
+import org.llrp.ltk.generated.messages.RO_ACCESS_REPORT;
+import org.llrp.ltk.generated.parameters.AntennaID;
+import org.llrp.ltk.generated.parameters.ChannelIndex;
+import org.llrp.ltk.generated.parameters.EPC_96;
+import org.llrp.ltk.generated.parameters.FirstSeenTimestampUTC;
+import org.llrp.ltk.generated.parameters.TagReportData;
+import org.llrp.ltk.types.Integer96_HEX;
+import org.llrp.ltk.types.SignedShort;
+import org.llrp.ltk.types.UnsignedLong_DATETIME;
+import org.llrp.ltk.types.UnsignedShort;
+
+import java.util.Random;
+
+/**
+ * 合成标签报告生成器
+ * <p>
+ * 按 Impinj 读写器的上报内容（EPC_96、天线、信道、首次时间戳，以及相位、RSSI、多普勒扩展参数）
+ * 构造 TagReportData，用于模拟器和基准测试。
+ */
+public class TagReportGenerator {
+
+    /**
+     * EPC前缀（16个十六进制字符）
+     */
+    private static final String EPC_PREFIX = "E280116060000209";
+
+    /**
+     * 信道数（FCC 跳频表）
+     */
+    private static final int CHANNEL_COUNT = 50;
+
+    /**
+     * 标签EPC
+     */
+    private final String[] epcs;
+
+    /**
+     * 天线端口
+     */
+    private final int[] antennaIds;
+
+    private final Random random;
+
+    /**
+     * 下一个标签序号
+     */
+    private int nextTag;
+
+    /**
+     * 下一个天线序号
+     */
+    private int nextAntenna;
+
+    /**
+     * 构造方法
+     *
+     * @param tagCount   标签数
+     * @param antennaIds 天线端口
+     * @param seed       随机种子
+     */
+    public TagReportGenerator(int tagCount, int[] antennaIds, long seed) {
+        if (tagCount <= 0 || antennaIds == null || antennaIds.length == 0) {
+            throw new IllegalArgumentException("tagCount and antennaIds must not be empty");
+        }
+        this.epcs = new String[tagCount];
+        for (int i = 0; i < tagCount; i++) {
+            this.epcs[i] = EPC_PREFIX + String.format("%08X", i);
+        }
+        this.antennaIds = antennaIds.clone();
+        this.random = new Random(seed);
+    }
+
+    /**
+     * 生成下一个标签读取，标签与天线轮转
+     *
+     * @param timestamp 首次检测时间戳（微秒）
+     * @return
+     */
+    public TagReportData nextTag(long timestamp) {
+        String epc = epcs[nextTag];
+        int antennaId = antennaIds[nextAntenna];
+        nextTag = (nextTag + 1) % epcs.length;
+        if (nextTag == 0) {
+            nextAntenna = (nextAntenna + 1) % antennaIds.length;
+        }
+
+        TagReportData td = new TagReportData();
+
+        EPC_96 epc96 = new EPC_96();
+        epc96.setEPC(new Integer96_HEX(epc));
+        td.setEPCParameter(epc96);
+
+        AntennaID antenna = new AntennaID();
+        antenna.setAntennaID(new UnsignedShort(antennaId));
+        td.setAntennaID(antenna);
+
+        ChannelIndex channel = new ChannelIndex();
+        channel.setChannelIndex(new UnsignedShort(1 + random.nextInt(CHANNEL_COUNT)));
+        td.setChannelIndex(channel);
+
+        FirstSeenTimestampUTC firstSeen = new FirstSeenTimestampUTC();
+        firstSeen.setMicroseconds(new UnsignedLong_DATETIME(timestamp));
+        td.setFirstSeenTimestampUTC(firstSeen);
+
+        ImpinjRFPhaseAngle phase = new ImpinjRFPhaseAngle();
+        phase.setPhaseAngle(new UnsignedShort(random.nextInt(4096)));
+        td.addToCustomList(phase);
+
+        ImpinjPeakRSSI rssi = new ImpinjPeakRSSI();
+        rssi.setRSSI(new SignedShort(-4000 - random.nextInt(3000)));
+        td.addToCustomList(rssi);
+
+        ImpinjRFDopplerFrequency doppler = new ImpinjRFDopplerFrequency();
+        doppler.setDopplerFrequency(new SignedShort(random.nextInt(1024) - 512));
+        td.addToCustomList(doppler);
+
+        return td;
+    }
+
+    /**
+     * 生成一个报告
+     *
+     * @param tags      标签数
+     * @param timestamp 第一个标签的时间戳（微秒）
+     * @param interval  相邻标签的时间间隔（微秒）
+     * @return
+     */
+    public RO_ACCESS_REPORT nextReport(int tags, long timestamp, long interval) {
+        RO_ACCESS_REPORT report = new RO_ACCESS_REPORT();
+        for (int i = 0; i < tags; i++) {
+            report.addToTagReportDataList(nextTag(timestamp + i * interval));
+        }
+        return report;
+    }
+
+    public int getTagCount() {
+        return epcs.length;
+    }
+}
@@ -0,0 +1,247 @@
+package com.yxalkaid.rfcollector.capture;
+
+import com.yxalkaid.rfcollector.domain.TagRecord;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ColumnarWriterTest {
+
+    private static final String EPC_A = "E2801170000002000000000A";
+    private static final String EPC_B = "E2801170000002000000000B";
+    private static final String EPC_C = "300833B2DDD9014000000000";
+
+    /**
+     * 2024-01-01 UTC（微秒）
+     */
+    private static final long T0 = 1_704_067_200_000_000L;
+
+    /**
+     * 写入列式格式的字段，处理阶段的派生值不写入
+     */
+    private static final int STORED = TagRecord.HAS_EPC | TagRecord.HAS_ANTENNA_ID | TagRecord.HAS_CHANNEL_INDEX
+            | TagRecord.HAS_FIRST_SEEN_TIME | TagRecord.HAS_LAST_SEEN_TIME | TagRecord.HAS_TAG_SEEN_COUNT
+            | TagRecord.HAS_PEAK_RSSI | TagRecord.HAS_DOPPLER_FREQUENCY | TagRecord.HAS_PHASE
+            | TagRecord.HAS_READER_ID | TagRecord.IS_GAP;
+
+    private static TagRecord tag(String epc, long time) {
+        TagRecord tag = new TagRecord();
+        tag.setEpcHex(epc);
+        tag.setFirstSeenTime(time);
+        return tag;
+    }
+
+    private static TagRecord full(String epc, long time, int readerId) {
+        TagRecord tag = tag(epc, time);
+        tag.setAntennaId((short) 3);
+        tag.setChannelIndex(17);
+        tag.setLastSeenTime(time + 2_500);
+        tag.setTagSeenCount((short) 4);
+        tag.setPeakRssiRaw((short) -5_150);
+        tag.setDopplerFrequencyRaw((short) -320);
+        tag.setPhaseRaw((short) 4_095);
+        if (readerId >= 0) {
+            tag.setReaderId((short) readerId);
+        }
+        return tag;
+    }
+
+    private static byte[] write(List<TagRecord> tags, int chunkSize) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ColumnarWriter writer = new ColumnarWriter(Channels.newChannel(out), chunkSize)) {
+            for (TagRecord tag : tags) {
+                writer.append(tag);
+            }
+            assertEquals(tags.size(), writer.getRecordCount());
+        }
+        return out.toByteArray();
+    }
+
+    private static List<TagRecord> read(ColumnarReader reader) throws IOException {
+        List<TagRecord> tags = new ArrayList<>();
+        TagRecord tag = new TagRecord();
+        while (reader.next(tag)) {
+            TagRecord copy = new TagRecord();
+            copy.copyFrom(tag);
+            tags.add(copy);
+        }
+        return tags;
+    }
+
+    private static ColumnarReader open(byte[] file) throws IOException {
+        return new ColumnarReader(Channels.newChannel(new ByteArrayInputStream(file)));
+    }
+
+    private static List<TagRecord> roundTrip(List<TagRecord> tags, int chunkSize) throws IOException {
+        try (ColumnarReader reader = open(write(tags, chunkSize))) {
+            return read(reader);
+        }
+    }
+
+    /**
+     * 逐个比较存在位与存在的字段
+     */
+    private static void assertRecords(List<TagRecord> expected, List<TagRecord> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            TagRecord e = expected.get(i);
+            TagRecord a = actual.get(i);
+            assertEquals(e.getPresence() & STORED, a.getPresence());
+            if (e.has(TagRecord.HAS_EPC)) {
+                assertEquals(e.getEpc(), a.getEpc());
+                assertEquals(e.getEpc(), TagRecord.encodeHex(a.getEpcBytes(), a.getEpcLength()));
+            }
+            if (e.has(TagRecord.HAS_ANTENNA_ID)) {
+                assertEquals(e.getAntennaId(), a.getAntennaId());
+            }
+            if (e.has(TagRecord.HAS_CHANNEL_INDEX)) {
+                assertEquals(e.getChannelIndex(), a.getChannelIndex());
+            }
+            if (e.has(TagRecord.HAS_FIRST_SEEN_TIME)) {
+                assertEquals(e.getFirstSeenTime(), a.getFirstSeenTime());
+            }
+            if (e.has(TagRecord.HAS_LAST_SEEN_TIME)) {
+                assertEquals(e.getLastSeenTime(), a.getLastSeenTime());
+            }
+            if (e.has(TagRecord.HAS_TAG_SEEN_COUNT)) {
+                assertEquals(e.getTagSeenCount(), a.getTagSeenCount());
+            }
+            if (e.has(TagRecord.HAS_PEAK_RSSI)) {
+                assertEquals(e.getPeakRssiRaw(), a.getPeakRssiRaw());
+            }
+            if (e.has(TagRecord.HAS_DOPPLER_FREQUENCY)) {
+                assertEquals(e.getDopplerFrequencyRaw(), a.getDopplerFrequencyRaw());
+            }
+            if (e.has(TagRecord.HAS_PHASE)) {
+                assertEquals(e.getPhaseRaw(), a.getPhaseRaw());
+            }
+            if (e.has(TagRecord.HAS_READER_ID)) {
+                assertEquals(e.getReaderId(), a.getReaderId());
+            }
+        }
+    }
+
+    @Test
+    void missingFieldsStayMissing() throws IOException {
+        List<TagRecord> tags = new ArrayList<>();
+        tags.add(full(EPC_A, T0, -1));
+        // 只有 EPC 与时间
+        tags.add(tag(EPC_B, T0 + 1_000));
+        // 没有 EPC 也没有时间，按差值0编码
+        TagRecord bare = new TagRecord();
+        bare.setAntennaId((short) 1);
+        bare.setPhaseRaw((short) 0);
+        tags.add(bare);
+        TagRecord gap = new TagRecord();
+        gap.markGap(T0 + 2_000, T0 + 9_000_000);
+        tags.add(gap);
+        // 派生值不写入，读回时不存在
+        TagRecord derived = full(EPC_C, T0 + 3_000, -1);
+        derived.setHostTime(T0 + 3_500);
+        derived.setUnwrappedPhase(1.5);
+        tags.add(derived);
+
+        List<TagRecord> read = roundTrip(tags, 16);
+        assertRecords(tags, read);
+        assertFalse(read.get(1).has(TagRecord.HAS_LAST_SEEN_TIME));
+        assertFalse(read.get(2).has(TagRecord.HAS_EPC));
+        assertFalse(read.get(2).has(TagRecord.HAS_FIRST_SEEN_TIME));
+        assertTrue(read.get(3).has(TagRecord.IS_GAP));
+        assertFalse(read.get(4).has(TagRecord.HAS_HOST_TIME));
+        assertFalse(read.get(4).has(TagRecord.HAS_UNWRAPPED_PHASE));
+    }
+
+    @Test
+    void negativeDeltas() throws IOException {
+        List<TagRecord> tags = new ArrayList<>();
+        tags.add(full(EPC_A, T0, -1));
+        // 多读写器归并或时钟调整后时间可能回退
+        tags.add(full(EPC_B, T0 - 5_000_000, -1));
+        tags.add(full(EPC_A, T0 - 5_000_001, -1));
+        tags.add(full(EPC_C, T0 + 60_000_000, -1));
+        // lastSeenTime 早于 firstSeenTime
+        TagRecord reversed = tag(EPC_B, T0 + 1);
+        reversed.setLastSeenTime(T0 - 1_000);
+        tags.add(reversed);
+        // 下一块的基准早于上一块的最后一条
+        tags.add(tag(EPC_C, 0));
+        tags.add(tag(EPC_A, Long.MAX_VALUE / 4));
+
+        assertRecords(tags, roundTrip(tags, 5));
+    }
+
+    @Test
+    void dictionaryEntriesAreWrittenOncePerFile() throws IOException {
+        List<TagRecord> tags = new ArrayList<>();
+        tags.add(tag(EPC_A, T0));
+        tags.add(tag(EPC_B, T0 + 1));
+        // 第二块：A 已登记，只新增 C
+        tags.add(tag(EPC_A, T0 + 2));
+        tags.add(tag(EPC_C, T0 + 3));
+        // 第三块：没有新条目
+        tags.add(tag(EPC_B, T0 + 4));
+        tags.add(tag(EPC_C, T0 + 5));
+        // 不满一块的尾部在关闭时写出
+        tags.add(tag(EPC_A, T0 + 6));
+
+        try (ColumnarReader reader = open(write(tags, 2))) {
+            List<TagRecord> read = read(reader);
+            assertRecords(tags, read);
+            assertEquals(4, reader.getChunkCount());
+            assertEquals(List.of(EPC_A, EPC_B, EPC_C), reader.getDictionary());
+        }
+    }
+
+    @Test
+    void readerIdColumnIsOptionalPerChunk() throws IOException {
+        List<TagRecord> tags = new ArrayList<>();
+        tags.add(full(EPC_A, T0, 2));
+        tags.add(full(EPC_B, T0 + 1, -1));
+        // 第二块没有读写器编号，不写该列
+        tags.add(full(EPC_A, T0 + 2, -1));
+        tags.add(full(EPC_B, T0 + 3, -1));
+        tags.add(full(EPC_C, T0 + 4, 7));
+
+        List<TagRecord> read = roundTrip(tags, 2);
+        assertRecords(tags, read);
+        assertEquals(2, read.get(0).getReaderId());
+        assertFalse(read.get(1).has(TagRecord.HAS_READER_ID));
+        assertFalse(read.get(2).has(TagRecord.HAS_READER_ID));
+        assertEquals(7, read.get(4).getReaderId());
+    }
+
+    @Test
+    void fileWithoutReaderIds() throws IOException {
+        List<TagRecord> tags = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            tags.add(full(i % 2 == 0 ? EPC_A : EPC_B, T0 + i * 1_000L, -1));
+        }
+        byte[] without = write(tags, 4);
+        List<TagRecord> withIds = new ArrayList<>();
+        for (TagRecord tag : tags) {
+            TagRecord copy = new TagRecord();
+            copy.copyFrom(tag);
+            copy.setReaderId((short) 1);
+            withIds.add(copy);
+        }
+        // 每块少一列，每条记录2字节
+        assertEquals(10 * 2, write(withIds, 4).length - without.length);
+
+        try (ColumnarReader reader = open(without)) {
+            List<TagRecord> read = read(reader);
+            assertRecords(tags, read);
+            for (TagRecord tag : read) {
+                assertFalse(tag.has(TagRecord.HAS_READER_ID));
+            }
+        }
+    }
+}
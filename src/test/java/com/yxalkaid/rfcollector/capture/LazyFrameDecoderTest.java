@@ -0,0 +1,250 @@
+package com.yxalkaid.rfcollector.capture;
+
+import com.yxalkaid.rfcollector.domain.TagRecord;
+import com.yxalkaid.rfcollector.recorder.BaseRecorder;
+import com.yxalkaid.rfcollector.simulator.TagReportGenerator;
+import org.junit.jupiter.api.Test;
+import org.llrp.ltk.generated.custom.parameters.ImpinjRFPhaseAngle;
+import org.llrp.ltk.generated.messages.RO_ACCESS_REPORT;
+import org.llrp.ltk.generated.parameters.AntennaID;
+import org.llrp.ltk.generated.parameters.Custom;
+import org.llrp.ltk.generated.parameters.EPCData;
+import org.llrp.ltk.generated.parameters.FirstSeenTimestampUTC;
+import org.llrp.ltk.generated.parameters.LastSeenTimestampUTC;
+import org.llrp.ltk.generated.parameters.PeakRSSI;
+import org.llrp.ltk.generated.parameters.ROSpecID;
+import org.llrp.ltk.generated.parameters.SpecIndex;
+import org.llrp.ltk.generated.parameters.TagReportData;
+import org.llrp.ltk.generated.parameters.TagSeenCount;
+import org.llrp.ltk.types.BitArray_HEX;
+import org.llrp.ltk.types.BytesToEnd_HEX;
+import org.llrp.ltk.types.SignedByte;
+import org.llrp.ltk.types.UnsignedInteger;
+import org.llrp.ltk.types.UnsignedLong_DATETIME;
+import org.llrp.ltk.types.UnsignedShort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LazyFrameDecoderTest {
+
+    /**
+     * 2024-01-01 UTC（微秒）
+     */
+    private static final long T0 = 1_704_067_200_000_000L;
+
+    /**
+     * Impinj 厂商编号
+     */
+    private static final long IMPINJ_VENDOR = 25882;
+
+    /**
+     * 通过 LTK 对象树解码，作为对照
+     */
+    private static final class Reference extends BaseRecorder {
+
+        TagRecord build(TagReportData td) {
+            TagRecord record = new TagRecord();
+            assertTrue(buildTagRecord(td, record));
+            return record;
+        }
+    }
+
+    private static List<TagRecord> decode(byte[] frame) throws Exception {
+        List<TagRecord> tags = new ArrayList<>();
+        int count = new LazyFrameDecoder().decode(frame, 0, frame.length, new TagRecord(), tag -> {
+            TagRecord copy = new TagRecord();
+            copy.copyFrom(tag);
+            tags.add(copy);
+        });
+        assertEquals(tags.size(), count);
+        return tags;
+    }
+
+    /**
+     * 用 LTK 编码报告，按需解码后与 {@code buildTagRecord} 的结果逐条比较
+     */
+    private static List<TagRecord> assertSameAsLtk(RO_ACCESS_REPORT report) throws Exception {
+        return assertSameAsLtk(report, report.encodeBinary());
+    }
+
+    private static List<TagRecord> assertSameAsLtk(RO_ACCESS_REPORT report, byte[] frame) throws Exception {
+        List<TagRecord> decoded = decode(frame);
+        List<TagReportData> expected = report.getTagReportDataList();
+        assertEquals(expected.size(), decoded.size());
+        Reference reference = new Reference();
+        for (int i = 0; i < expected.size(); i++) {
+            assertRecord(reference.build(expected.get(i)), decoded.get(i));
+        }
+        return decoded;
+    }
+
+    /**
+     * 比较存在位与存在的字段，复用的记录中不存在的字段没有意义
+     */
+    private static void assertRecord(TagRecord e, TagRecord a) {
+        assertEquals(e.getPresence(), a.getPresence());
+        assertEquals(e.getEpc(), a.getEpc());
+        assertEquals(e.getEpcLength(), a.getEpcLength());
+        assertTrue(Arrays.equals(e.getEpcBytes(), 0, e.getEpcLength(), a.getEpcBytes(), 0, a.getEpcLength()));
+        if (e.has(TagRecord.HAS_ANTENNA_ID)) {
+            assertEquals(e.getAntennaId(), a.getAntennaId());
+        }
+        if (e.has(TagRecord.HAS_CHANNEL_INDEX)) {
+            assertEquals(e.getChannelIndex(), a.getChannelIndex());
+        }
+        if (e.has(TagRecord.HAS_FIRST_SEEN_TIME)) {
+            assertEquals(e.getFirstSeenTime(), a.getFirstSeenTime());
+        }
+        if (e.has(TagRecord.HAS_LAST_SEEN_TIME)) {
+            assertEquals(e.getLastSeenTime(), a.getLastSeenTime());
+        }
+        if (e.has(TagRecord.HAS_TAG_SEEN_COUNT)) {
+            assertEquals(e.getTagSeenCount(), a.getTagSeenCount());
+        }
+        if (e.has(TagRecord.HAS_PEAK_RSSI)) {
+            assertEquals(e.getPeakRssiRaw(), a.getPeakRssiRaw());
+        }
+        if (e.has(TagRecord.HAS_DOPPLER_FREQUENCY)) {
+            assertEquals(e.getDopplerFrequencyRaw(), a.getDopplerFrequencyRaw());
+        }
+        if (e.has(TagRecord.HAS_PHASE)) {
+            assertEquals(e.getPhaseRaw(), a.getPhaseRaw());
+        }
+    }
+
+    private static TagReportData epcData(String hex, long time) {
+        TagReportData td = new TagReportData();
+        EPCData epc = new EPCData();
+        epc.setEPC(new BitArray_HEX(hex));
+        td.setEPCParameter(epc);
+        AntennaID antenna = new AntennaID();
+        antenna.setAntennaID(new UnsignedShort(2));
+        td.setAntennaID(antenna);
+        FirstSeenTimestampUTC firstSeen = new FirstSeenTimestampUTC();
+        firstSeen.setMicroseconds(new UnsignedLong_DATETIME(time));
+        td.setFirstSeenTimestampUTC(firstSeen);
+        return td;
+    }
+
+    private static Custom custom(long vendor, long subtype, String data) {
+        Custom custom = new Custom();
+        custom.setVendorIdentifier(new UnsignedInteger(vendor));
+        custom.setParameterSubtype(new UnsignedInteger(subtype));
+        custom.setData(new BytesToEnd_HEX(data));
+        return custom;
+    }
+
+    /**
+     * 在唯一的 TagReportData 末尾插入字节，并修正参数与消息长度
+     */
+    private static byte[] appendToTagReportData(byte[] frame, byte[] extra) {
+        int pos = RawFrameFormat.MESSAGE_HEADER_BYTES;
+        int paramLength = ((frame[pos + 2] & 0xFF) << 8) | (frame[pos + 3] & 0xFF);
+        int insert = pos + paramLength;
+        byte[] out = new byte[frame.length + extra.length];
+        System.arraycopy(frame, 0, out, 0, insert);
+        System.arraycopy(extra, 0, out, insert, extra.length);
+        System.arraycopy(frame, insert, out, insert + extra.length, frame.length - insert);
+        paramLength += extra.length;
+        out[pos + 2] = (byte) (paramLength >> 8);
+        out[pos + 3] = (byte) paramLength;
+        int messageLength = out.length;
+        out[2] = (byte) (messageLength >> 24);
+        out[3] = (byte) (messageLength >> 16);
+        out[4] = (byte) (messageLength >> 8);
+        out[5] = (byte) messageLength;
+        return out;
+    }
+
+    @Test
+    void epc96ReportMatchesLtk() throws Exception {
+        TagReportGenerator generator = new TagReportGenerator(4, new int[]{1, 2}, 42);
+        RO_ACCESS_REPORT report = generator.nextReport(12, T0, 250);
+
+        // 批量上报时启用的字段
+        TagReportData td = report.getTagReportDataList().get(3);
+        LastSeenTimestampUTC lastSeen = new LastSeenTimestampUTC();
+        lastSeen.setMicroseconds(new UnsignedLong_DATETIME(T0 + 40_000));
+        td.setLastSeenTimestampUTC(lastSeen);
+        TagSeenCount seenCount = new TagSeenCount();
+        seenCount.setTagCount(new UnsignedShort(7));
+        td.setTagSeenCount(seenCount);
+
+        List<TagRecord> decoded = assertSameAsLtk(report);
+        assertEquals(12, decoded.get(3).getEpcLength());
+        assertEquals(7, decoded.get(3).getTagSeenCount());
+        assertTrue(decoded.get(0).has(TagRecord.HAS_PHASE));
+        assertTrue(decoded.get(0).has(TagRecord.HAS_PEAK_RSSI));
+        assertTrue(decoded.get(0).has(TagRecord.HAS_DOPPLER_FREQUENCY));
+    }
+
+    @Test
+    void epcDataReportMatchesLtk() throws Exception {
+        RO_ACCESS_REPORT report = new RO_ACCESS_REPORT();
+        // 128 位、64 位与 Gen2 最长的 496 位 EPC
+        report.addToTagReportDataList(epcData("E2801170000002000000000A0B0C0D0E", T0));
+        report.addToTagReportDataList(epcData("300833B2DDD90140", T0 + 1));
+        StringBuilder longest = new StringBuilder();
+        for (int i = 0; i < TagRecord.MAX_EPC_BYTES; i++) {
+            longest.append(String.format("%02X", i));
+        }
+        report.addToTagReportDataList(epcData(longest.toString(), T0 + 2));
+
+        List<TagRecord> decoded = assertSameAsLtk(report);
+        assertEquals(16, decoded.get(0).getEpcLength());
+        assertEquals(8, decoded.get(1).getEpcLength());
+        assertEquals(longest.toString(), decoded.get(2).getEpc());
+    }
+
+    @Test
+    void skipsParametersItDoesNotDecode() throws Exception {
+        TagReportGenerator generator = new TagReportGenerator(1, new int[]{1}, 7);
+        RO_ACCESS_REPORT report = generator.nextReport(1, T0, 0);
+        TagReportData td = report.getTagReportDataList().get(0);
+
+        // 已知长度但不解码的 TV 参数
+        ROSpecID roSpecId = new ROSpecID();
+        roSpecId.setROSpecID(new UnsignedInteger(1));
+        td.setROSpecID(roSpecId);
+        SpecIndex specIndex = new SpecIndex();
+        specIndex.setSpecIndex(new UnsignedShort(1));
+        td.setSpecIndex(specIndex);
+        PeakRSSI peakRssi = new PeakRSSI();
+        peakRssi.setPeakRSSI(new SignedByte(-52));
+        td.setPeakRSSI(peakRssi);
+
+        // 其他厂商的同编号子类型与 Impinj 的未知子类型
+        td.addToCustomList(custom(1, 56, "0ABC"));
+        td.addToCustomList(custom(IMPINJ_VENDOR, 99, "0ABC"));
+
+        List<TagRecord> decoded = assertSameAsLtk(report);
+        ImpinjRFPhaseAngle phase = (ImpinjRFPhaseAngle) td.getCustomList().get(0);
+        assertEquals(phase.getPhaseAngle().toShort(), decoded.get(0).getPhaseRaw());
+    }
+
+    @Test
+    void stopsAtUnknownTvParameter() throws Exception {
+        TagReportGenerator generator = new TagReportGenerator(1, new int[]{1}, 7);
+        RO_ACCESS_REPORT report = generator.nextReport(1, T0, 0);
+
+        // 未知类型的 TV 参数位于末尾，之前的字段不受影响
+        byte[] frame = appendToTagReportData(report.encodeBinary(), new byte[]{(byte) 0xFE, 1, 2, 3});
+        assertSameAsLtk(report, frame);
+
+        // 未知类型之后的参数无法定位，不再解码：其后的 AntennaID 被忽略
+        TagReportData td = new TagReportData();
+        td.setEPCParameter(report.getTagReportDataList().get(0).getEPCParameter());
+        RO_ACCESS_REPORT epcOnly = new RO_ACCESS_REPORT();
+        epcOnly.addToTagReportDataList(td);
+        frame = appendToTagReportData(epcOnly.encodeBinary(), new byte[]{(byte) 0xFE, (byte) 0x81, 0, 1});
+        TagRecord decoded = decode(frame).get(0);
+        assertTrue(decoded.has(TagRecord.HAS_EPC));
+        assertFalse(decoded.has(TagRecord.HAS_ANTENNA_ID));
+    }
+}
@@ -0,0 +1,120 @@
+package com.yxalkaid.rfcollector.processing;
+
+import com.yxalkaid.rfcollector.domain.TagRecord;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReaderClockTest {
+
+    /**
+     * 2024-01-01 UTC（微秒）
+     */
+    private static final long HOST = 1_704_067_200_000_000L;
+
+    /**
+     * 采样间隔（微秒）
+     */
+    private static final long INTERVAL = 100_000;
+
+    /**
+     * 按固定偏差采样，返回下一次采样的主机时间
+     */
+    private static long feed(ReaderClock clock, long host, int samples, long offset) {
+        for (int i = 0; i < samples; i++, host += INTERVAL) {
+            clock.onSample(host - offset, host);
+        }
+        return host;
+    }
+
+    @Test
+    void unknownBeforeFirstSample() {
+        ReaderClock clock = new ReaderClock();
+        assertFalse(clock.isKnown());
+        assertEquals(Long.MIN_VALUE, clock.getOffset());
+        assertEquals(HOST, clock.toReaderTime(HOST));
+        assertEquals(HOST, clock.toHostTime(HOST));
+    }
+
+    @Test
+    void takesMinimumDelayBeforeFirstWindowCloses() {
+        ReaderClock clock = new ReaderClock();
+        clock.onSample(HOST - 700, HOST);
+        clock.onSample(HOST + 100_000 - 500, HOST + 100_000);
+        clock.onSample(HOST + 200_000 - 900, HOST + 200_000);
+        assertTrue(clock.isKnown());
+        assertEquals(500, clock.getOffset());
+        assertEquals(HOST - 500, clock.toReaderTime(HOST));
+        assertEquals(HOST, clock.toHostTime(HOST - 500));
+    }
+
+    @Test
+    void followsClockStep() {
+        ReaderClock clock = new ReaderClock();
+        long host = feed(clock, HOST, 30, 500);
+        assertEquals(500, clock.getOffset());
+
+        // 读写器时钟后退 2s，连续两个窗口偏离拟合后重新拟合
+        feed(clock, host, 40, 2_000_500);
+        assertEquals(2_000_500, clock.getOffset());
+        assertEquals(1, clock.getStepCount());
+    }
+
+    @Test
+    void estimatesDrift() {
+        ReaderClock clock = new ReaderClock();
+        long host = HOST;
+        // 读写器时钟每秒慢 100us
+        for (int i = 0; i < 600; i++, host += INTERVAL) {
+            long elapsed = host - HOST;
+            long reader = HOST + elapsed - elapsed / 10_000 - 500;
+            clock.onSample(reader, host);
+        }
+        assertEquals(100, clock.getDriftPpm(), 1);
+        assertEquals(500 + (host - INTERVAL - HOST) / 10_000, clock.getOffset(), 20);
+    }
+
+    @Test
+    void readerAndHostTimeAreInverse() {
+        ReaderClock clock = new ReaderClock();
+        long host = HOST;
+        for (int i = 0; i < 600; i++, host += INTERVAL) {
+            long elapsed = host - HOST;
+            clock.onSample(HOST + elapsed - elapsed / 10_000 - 500, host);
+        }
+        long start = host + 5_000_000;
+        long reader = clock.toReaderTime(start);
+        assertEquals(start, clock.toHostTime(reader), 1);
+    }
+
+    @Test
+    void startsOverAfterReset() {
+        ReaderClock clock = new ReaderClock();
+        long host = feed(clock, HOST, 30, 500);
+        clock.reset();
+        assertFalse(clock.isKnown());
+        assertEquals(0, clock.getSampleCount());
+
+        host = feed(clock, host, 1, 3_000);
+        assertEquals(3_000, clock.getOffset());
+        feed(clock, host, 30, 3_000);
+        assertEquals(3_000, clock.getOffset());
+        assertEquals(0, clock.getStepCount());
+    }
+
+    @Test
+    void alignerWritesHostTimeOnlyOnceKnown() {
+        ReaderClock clock = new ReaderClock();
+        ClockAligner aligner = new ClockAligner(clock);
+        TagRecord tag = new TagRecord();
+        tag.setFirstSeenTime(HOST - 500);
+        assertTrue(aligner.process(tag));
+        assertFalse(tag.has(TagRecord.HAS_HOST_TIME));
+
+        feed(clock, HOST, 30, 500);
+        assertTrue(aligner.process(tag));
+        assertEquals(HOST, tag.getHostTime());
+    }
+}